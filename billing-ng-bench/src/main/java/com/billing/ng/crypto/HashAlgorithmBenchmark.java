@@ -0,0 +1,61 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link HashAlgorithm#digest(String, String)} across the
+ * message digest algorithms.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HashAlgorithmBenchmark {
+
+    @Param({"MD5", "SHA1", "SHA256", "SHA512"})
+    private String algorithm;
+
+    private HashAlgorithm hash;
+    private String plainText;
+    private String salt;
+
+    @Setup
+    public void setup() {
+        hash = HashAlgorithm.valueOf(algorithm);
+        plainText = "some plain text password";
+        salt = "e4a1c9f23b";
+    }
+
+    @Benchmark
+    public String digest() {
+        return hash.digest(plainText, salt);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.xml.bind.JAXBException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link BaseEntity#toXml()} marshalling a purchase order with
+ * a configurable number of lines and charges.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BaseEntityBenchmark {
+
+    @Param({"1", "10"})
+    private int lines;
+
+    @Param({"5"})
+    private int charges;
+
+    private PurchaseOrder order;
+
+    @Setup
+    public void setup() {
+        Currency usd = Currency.getInstance("USD");
+
+        List<PurchaseOrderLine> orderLines = new ArrayList<PurchaseOrderLine>(lines);
+        for (int i = 0; i < lines; i++) {
+            List<Charge> lineCharges = new ArrayList<Charge>(charges);
+            for (int j = 0; j < charges; j++) {
+                Charge charge = new Charge();
+                charge.setId((long) (i * charges + j));
+                charge.setDescription("Charge " + j);
+                charge.setAmount(new Money(new BigDecimal("19.95"), usd));
+                lineCharges.add(charge);
+            }
+
+            PurchaseOrderLine line = new PurchaseOrderLine();
+            line.setId((long) i);
+            line.setCharges(lineCharges);
+            line.calculateTotal();
+            orderLines.add(line);
+        }
+
+        order = new PurchaseOrder();
+        order.setId(1L);
+        order.setNumber("No. 00001");
+        order.setLines(orderLines);
+        order.calculateTotal();
+    }
+
+    @Benchmark
+    public String toXml() throws JAXBException, IOException {
+        return order.toXml();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.util.DateUtils;
+import org.joda.time.DateMidnight;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for evaluating the current billing cycle of a batch of billing cycles, one
+ * {@link CurrentBillingCycle} at a time and in bulk with the {@link BillingCycleEvaluator}.
+ *
+ * Billing cycles have a random mix of billing periods starting in the last 15 years.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BillingCycleEvaluatorBenchmark {
+
+    @Param({"1000", "100000"})
+    private int count;
+
+    private DateMidnight today;
+    private BillingCycle[] cycles;
+
+    private long[] starts;
+    private int[] cycleStartDays;
+    private BillingPeriod.Type[] types;
+    private int[] intervals;
+
+    private int[] cycleNumbers;
+    private long[] cycleStarts;
+    private long[] cycleEnds;
+
+    private BillingCycleEvaluator sequential;
+    private BillingCycleEvaluator parallel;
+
+    @Setup
+    public void setup() {
+        today = new DateMidnight(2026, 10, 18);
+        cycles = new BillingCycle[count];
+
+        starts = new long[count];
+        cycleStartDays = new int[count];
+        types = new BillingPeriod.Type[count];
+        intervals = new int[count];
+
+        cycleNumbers = new int[count];
+        cycleStarts = new long[count];
+        cycleEnds = new long[count];
+
+        Random random = new Random(count);
+        long first = DateUtils.toEpochDay(2011, 1, 1);
+
+        for (int i = 0; i < count; i++) {
+            starts[i] = first + random.nextInt(15 * 365);
+            cycleStartDays[i] = 1 + random.nextInt(28);
+            types[i] = BillingPeriod.Type.values()[random.nextInt(4)];
+            intervals[i] = 1 + random.nextInt(3);
+
+            cycles[i] = new BillingCycle(types[i], intervals[i]);
+            cycles[i].setStart(DateUtils.toDateMidnight(starts[i]).toDate());
+            cycles[i].setCycleStartDay(cycleStartDays[i]);
+            cycles[i].getStartInstant();
+        }
+
+        sequential = new BillingCycleEvaluator(null, Integer.MAX_VALUE);
+        parallel = new BillingCycleEvaluator();
+    }
+
+    @Benchmark
+    public void currentBillingCycle(Blackhole blackhole) {
+        for (BillingCycle cycle : cycles)
+            blackhole.consume(cycle.getCurrentBillingCycle(today));
+    }
+
+    @Benchmark
+    public long[] evaluateSequential() {
+        sequential.evaluate(today, starts, cycleStartDays, types, intervals, cycleNumbers, cycleStarts, cycleEnds);
+        return cycleEnds;
+    }
+
+    @Benchmark
+    public long[] evaluateParallel() {
+        parallel.evaluate(today, starts, cycleStartDays, types, intervals, cycleNumbers, cycleStarts, cycleEnds);
+        return cycleEnds;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import org.joda.time.DateMidnight;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link CurrentBillingCycle} calculation, both directly and through
+ * {@link BillingCycle#getCurrentBillingCycle(org.joda.time.DateMidnight)}.
+ *
+ * The billing cycle starts several years before "today" so that the cycle number
+ * calculation has a realistic number of periods to walk through.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CurrentBillingCycleBenchmark {
+
+    @Param({"DAY", "WEEK", "MONTH", "YEAR"})
+    private String type;
+
+    private BillingPeriod period;
+    private BillingCycle cycle;
+    private DateMidnight start;
+    private DateMidnight today;
+
+    @Setup
+    public void setup() {
+        start = new DateMidnight(2010, 1, 15);
+        today = new DateMidnight(2026, 10, 18);
+
+        cycle = new BillingCycle(BillingPeriod.Type.valueOf(type), 1);
+        cycle.setStart(start.toDate());
+        cycle.setCycleStartDay(15);
+
+        period = cycle.getBillingPeriod();
+    }
+
+    @Benchmark
+    public CurrentBillingCycle calculate() {
+        return new CurrentBillingCycle(period, start, today);
+    }
+
+    @Benchmark
+    public CurrentBillingCycle getCurrentBillingCycle() {
+        return cycle.getCurrentBillingCycle(today);
+    }
+}
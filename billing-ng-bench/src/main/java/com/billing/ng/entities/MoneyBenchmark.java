@@ -0,0 +1,133 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link Money} construction, arithmetic, currency conversion and formatting.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoneyBenchmark {
+
+    private Currency usd;
+    private Currency cad;
+
+    private String amount;
+    private String symbolAmount;
+    private BigDecimal decimal;
+
+    private Money money;
+    private Money other;
+    private Money foreign;
+
+    private RateTable.Snapshot rates;
+    private int usdIndex;
+    private int cadIndex;
+    private long[] units;
+    private long[] converted;
+
+    @Setup
+    public void setup() {
+        RateTable table = RateTable.getInstance();
+        table.setSystemRate(new Rate(new BigDecimal("1"), "USD"));
+        table.addRate(new Rate(new BigDecimal("1.04279"), "CAD"));
+        table.addRate(new Rate(new BigDecimal("0.64218"), "GBP"));
+        table.addRate(new Rate(new BigDecimal("85.8221"), "JPY"));
+
+        usd = Currency.getInstance("USD");
+        cad = Currency.getInstance("CAD");
+
+        amount = "1234.56";
+        symbolAmount = "$1234.56 USD";
+        decimal = new BigDecimal("1234.56");
+
+        money = new Money(decimal, usd);
+        other = new Money(new BigDecimal("99.99"), usd);
+        foreign = new Money(new BigDecimal("99.99"), cad);
+
+        rates = table.getSnapshot();
+        usdIndex = rates.indexOf(usd);
+        cadIndex = rates.indexOf(cad);
+
+        units = new long[1000];
+        for (int i = 0; i < units.length; i++)
+            units[i] = 1000L + i * 37L;
+        converted = new long[units.length];
+    }
+
+    @Benchmark
+    public Money constructString() {
+        return new Money(symbolAmount);
+    }
+
+    @Benchmark
+    public Money constructStringCurrency() {
+        return new Money(amount, "USD");
+    }
+
+    @Benchmark
+    public Money constructBigDecimal() {
+        return new Money(decimal, usd);
+    }
+
+    @Benchmark
+    public Money add() {
+        return money.add(other);
+    }
+
+    @Benchmark
+    public Money addForeignCurrency() {
+        return money.add(foreign);
+    }
+
+    @Benchmark
+    public Money convert() {
+        return money.convert(foreign);
+    }
+
+    @Benchmark
+    public long convertUnits() {
+        return rates.convert(9999L, cadIndex, usdIndex);
+    }
+
+    @Benchmark
+    public long[] convertAllUnits() {
+        return rates.convertAll(units, cadIndex, usdIndex, converted);
+    }
+
+    @Benchmark
+    public String toStringFormat() {
+        return money.toString();
+    }
+}
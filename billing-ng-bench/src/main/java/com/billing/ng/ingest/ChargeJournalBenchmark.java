@@ -0,0 +1,101 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Currency;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for writing charges to the {@link ChargeJournal}, reported as durable charges per
+ * second. Each invocation writes a batch of 100 charges and waits for it to be synced, from a
+ * single thread and from 8 threads sharing the journal's group commit.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ChargeJournalBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @State(Scope.Thread)
+    public static class Batch {
+        private final ChargeBatch batch = new ChargeBatch(BATCH_SIZE);
+
+        @Setup
+        public void setup() {
+            Currency currency = Currency.getInstance("USD");
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                int index = batch.add(1000 + i, 100 + i, 2, currency);
+                batch.setAccountId(index, i);
+            }
+        }
+    }
+
+    private File directory;
+    private ChargeJournal journal;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("journal").toFile();
+        journal = new ChargeJournal(directory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files)
+                file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long write(Batch batch) {
+        journal.write(batch.batch);
+        return journal.getDurableSequence();
+    }
+
+    @Benchmark
+    @Threads(8)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long writeConcurrent(Batch batch) {
+        journal.write(batch.batch);
+        return journal.getDurableSequence();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.rating;
+
+import com.billing.ng.ingest.ChargeBatch;
+import com.billing.ng.ingest.ChargeSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for rating a batch of usage events with the {@link RatingEngine}, reported as
+ * events per second. Events are spread randomly across 10,000 accounts each subscribed to
+ * 4 of 8 tiered and volume priced products.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RatingEngineBenchmark {
+
+    private static final int EVENTS = 1000000;
+    private static final int ACCOUNTS = 10000;
+    private static final int PRODUCTS = 8;
+
+    /** Sink that discards all charges. */
+    private static final ChargeSink NULL_SINK = new ChargeSink() {
+        public void write(ChargeBatch batch) {
+        }
+    };
+
+    @Param({"1", "16"})
+    private int accountsPerRun;
+
+    private UsageBatch events;
+    private RatingEngine sequential;
+    private RatingEngine parallel;
+
+    @Setup
+    public void setup() {
+        Currency currency = Currency.getInstance("USD");
+
+        String[] productKeys = new String[PRODUCTS];
+        Map<String, PricePlan> plans = new LinkedHashMap<String, PricePlan>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            productKeys[i] = "product-" + i;
+            plans.put(productKeys[i], new PricePlan(i % 2 == 0 ? PricePlan.Type.TIERED : PricePlan.Type.VOLUME,
+                                                    currency,
+                                                    new long[] { 100, 1000, 10000 },
+                                                    new BigDecimal[] { new BigDecimal("0.10"), new BigDecimal("0.05"),
+                                                                       new BigDecimal("0.02"), new BigDecimal("0.001") }));
+        }
+        PriceCatalog catalog = new PriceCatalog(plans);
+
+        int subscriptions = ACCOUNTS * PRODUCTS / 2;
+        long[] accountIds = new long[subscriptions];
+        String[] lineProducts = new String[subscriptions];
+        long[] lineIds = new long[subscriptions];
+        for (int i = 0; i < subscriptions; i++) {
+            accountIds[i] = i / (PRODUCTS / 2);
+            lineProducts[i] = productKeys[(i % (PRODUCTS / 2)) * 2 + (int) (accountIds[i] % 2)];
+            lineIds[i] = i + 1;
+        }
+        LineTable lines = new LineTable(catalog, accountIds, lineProducts, lineIds);
+
+        // events arrive in runs for the same account, as they would from a switch or mediation feed
+        events = new UsageBatch(EVENTS);
+        Random random = new Random(EVENTS);
+        long account = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            if (i % accountsPerRun == 0)
+                account = random.nextInt(ACCOUNTS);
+            events.add(account, productKeys[random.nextInt(PRODUCTS)], 1 + random.nextInt(60), i);
+        }
+
+        sequential = new RatingEngine(catalog, lines, null, Integer.MAX_VALUE);
+        parallel = new RatingEngine(catalog, lines);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public UsageAggregate rateSequential() {
+        return sequential.rate(events, NULL_SINK);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public UsageAggregate rateParallel() {
+        return parallel.rate(events, NULL_SINK);
+    }
+}
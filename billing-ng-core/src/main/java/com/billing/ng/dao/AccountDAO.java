@@ -0,0 +1,78 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.dao;
+
+import com.billing.ng.entities.Account;
+
+import java.util.List;
+
+/**
+ * Account queries over the account hierarchy. Each query is a single indexed query
+ * on the account hierarchy path (see {@link Account#getHierarchyPath()}), rather than
+ * walking the sub-accounts of each account level by level.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public interface AccountDAO extends GenericDAO<Account, Long> {
+
+    /**
+     * Returns a page of the direct sub-accounts of the given account, ordered by id. Use
+     * for accounts with too many sub-accounts to load at once.
+     *
+     * @param account parent account
+     * @param first index of the first sub-account to return
+     * @param max maximum number of sub-accounts to return
+     * @return page of sub-accounts
+     */
+    List<Account> findSubAccounts(Account account, int first, int max);
+
+    /**
+     * Returns the number of direct sub-accounts of the given account.
+     *
+     * @param account parent account
+     * @return number of sub-accounts
+     */
+    long countSubAccounts(Account account);
+
+    /**
+     * Returns all sub-accounts below the given account at any depth, ordered by hierarchy level.
+     *
+     * @param account parent account
+     * @return all descendants of the account
+     */
+    List<Account> findDescendants(Account account);
+
+    /**
+     * Returns all parent accounts of the given account, from the root account down.
+     *
+     * @param account sub-account
+     * @return all ancestors of the account
+     */
+    List<Account> findParentAccounts(Account account);
+
+    /**
+     * Returns the given account and its sub-accounts up to the given number of levels
+     * below it, ordered by hierarchy level.
+     *
+     * @param account parent account
+     * @param depth number of levels below the account to include
+     * @return account and its descendants to the given depth
+     */
+    List<Account> findSubtree(Account account, int depth);
+}
@@ -0,0 +1,44 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.dao;
+
+import com.billing.ng.entities.Charge;
+import com.billing.ng.ingest.ChargeBatch;
+import com.billing.ng.ingest.ChargeSink;
+
+/**
+ * Charge persistence, including bulk insertion of ingested charges.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public interface ChargeDAO extends GenericDAO<Charge, Long>, ChargeSink {
+
+    /**
+     * Inserts all charges in the given batch using a single JDBC batch insert, bypassing
+     * the persistence context. Inserted charges are not loaded into the session, and the
+     * totals of the purchase order lines and orders (and the account rollups) are not updated.
+     * Callers must reconcile the totals of the charged lines afterwards using
+     * {@link PurchaseOrderDAO#reconcileLineTotals(java.util.Collection)}, which the
+     * {@link com.billing.ng.ingest.ChargeIngester} does when given a line cache.
+     *
+     * @param batch charges to insert
+     */
+    void write(ChargeBatch batch);
+
+}
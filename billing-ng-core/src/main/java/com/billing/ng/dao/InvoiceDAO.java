@@ -0,0 +1,50 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.dao;
+
+import com.billing.ng.entities.Invoice;
+import com.billing.ng.entities.InvoiceRun;
+import com.billing.ng.invoice.InvoiceStore;
+
+import java.util.List;
+
+/**
+ * Invoice queries, and the persistence of bulk invoice runs.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public interface InvoiceDAO extends GenericDAO<Invoice, Long>, InvoiceStore {
+
+    /**
+     * Returns all invoice runs that have not completed, either because the run was interrupted
+     * or because one or more partitions failed. Incomplete runs can be resumed with
+     * {@link com.billing.ng.invoice.InvoiceRunner#run(InvoiceRun)}.
+     *
+     * @return incomplete runs, oldest first
+     */
+    List<InvoiceRun> findIncompleteRuns();
+
+    /**
+     * Returns all invoices generated by the given run.
+     *
+     * @param run invoice run
+     * @return invoices of the run
+     */
+    List<Invoice> findByRun(InvoiceRun run);
+}
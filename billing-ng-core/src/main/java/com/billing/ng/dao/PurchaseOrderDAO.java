@@ -0,0 +1,63 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.dao;
+
+import com.billing.ng.entities.PurchaseOrder;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Purchase order queries.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public interface PurchaseOrderDAO extends GenericDAO<PurchaseOrder, Long> {
+
+    /**
+     * Re-calculates the line and order totals of the given orders from the persisted charges,
+     * using a single aggregate query per batch of orders instead of loading every charge.
+     * Used to reconcile totals that are kept up to date incrementally.
+     *
+     * @param orders orders to reconcile
+     * @return orders whose total changed
+     */
+    List<PurchaseOrder> reconcileTotals(List<PurchaseOrder> orders);
+
+    /**
+     * Re-calculates the totals of the orders of the given purchase order lines, see
+     * {@link #reconcileTotals(List)}. Used after charges have been inserted without going
+     * through the persistence context, which does not update any totals.
+     *
+     * @param lineIds ids of the purchase order lines that were charged
+     * @return orders whose total changed
+     */
+    List<PurchaseOrder> reconcileLineTotals(Collection<Long> lineIds);
+
+    /**
+     * Returns the ids of all purchase order lines in the given collection of ids that exist,
+     * using a single query and without loading the lines.
+     *
+     * @param lineIds ids of purchase order lines to find
+     * @return ids of existing lines
+     */
+    Set<Long> findLineIds(Collection<Long> lineIds);
+
+}
@@ -0,0 +1,96 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.dao.impl;
+
+import com.billing.ng.dao.AccountDAO;
+import com.billing.ng.entities.Account;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * AccountDAO implementation using the materialized account hierarchy path. All accounts
+ * in a subtree share the path of the subtree's root as a prefix, so subtrees are found with
+ * a <code>LIKE 'prefix%'</code> query that can use the <code>account_hierarchy_path_idx</code> index.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class AccountDAOImpl extends GenericDAOImpl<Account, Long> implements AccountDAO {
+
+    public AccountDAOImpl() {
+    }
+
+    public List<Account> findSubAccounts(Account account, int first, int max) {
+        return getEntityManager()
+                .createQuery("select a from Account a"
+                             + " where a.parentAccount = :parent"
+                             + " order by a.id", Account.class)
+                .setParameter("parent", account)
+                .setFirstResult(first)
+                .setMaxResults(max)
+                .getResultList();
+    }
+
+    public long countSubAccounts(Account account) {
+        return getEntityManager()
+                .createQuery("select count(a) from Account a where a.parentAccount = :parent", Long.class)
+                .setParameter("parent", account)
+                .getSingleResult();
+    }
+
+    public List<Account> findDescendants(Account account) {
+        // at least one more character after the path, excluding the account itself
+        return getEntityManager()
+                .createQuery("select a from Account a"
+                             + " where a.hierarchyPath like :path"
+                             + " order by a.hierarchyLevel, a.id", Account.class)
+                .setParameter("path", getHierarchyPath(account) + "_%")
+                .getResultList();
+    }
+
+    public List<Account> findParentAccounts(Account account) {
+        List<Long> ids = account.getParentAccountIds();
+        if (ids.isEmpty())
+            return Collections.emptyList();
+
+        return getEntityManager()
+                .createQuery("select a from Account a"
+                             + " where a.id in (:ids)"
+                             + " order by a.hierarchyLevel", Account.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    public List<Account> findSubtree(Account account, int depth) {
+        return getEntityManager()
+                .createQuery("select a from Account a"
+                             + " where a.hierarchyPath like :path"
+                             + " and a.hierarchyLevel <= :level"
+                             + " order by a.hierarchyLevel, a.id", Account.class)
+                .setParameter("path", getHierarchyPath(account) + "%")
+                .setParameter("level", account.getHierarchyLevel() + depth)
+                .getResultList();
+    }
+
+    private static String getHierarchyPath(Account account) {
+        if (account.getHierarchyPath() == null)
+            throw new IllegalStateException("Hierarchy path not set, account " + account.getId() + " has not been persisted.");
+        return account.getHierarchyPath();
+    }
+}
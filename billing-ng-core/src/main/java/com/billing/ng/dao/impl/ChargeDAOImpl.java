@@ -0,0 +1,78 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.dao.impl;
+
+import com.billing.ng.dao.ChargeDAO;
+import com.billing.ng.entities.Charge;
+import com.billing.ng.ingest.ChargeBatch;
+import org.hibernate.jdbc.Work;
+
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * ChargeDAO implementation.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class ChargeDAOImpl extends GenericDAOImpl<Charge, Long> implements ChargeDAO {
+
+    private static final String INSERT_SQL
+            = "insert into charge (line, value, scale, currency_code, description) values (?, ?, ?, ?, ?)";
+
+    public ChargeDAOImpl() {
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRED)
+    public void write(final ChargeBatch batch) {
+        if (batch.isEmpty())
+            return;
+
+        getSession().doWork(new Work() {
+            public void execute(Connection connection) throws SQLException {
+                PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+                try {
+                    for (int i = 0; i < batch.size(); i++) {
+                        statement.setLong(1, batch.getLineId(i));
+                        statement.setLong(2, batch.getValue(i));
+                        statement.setInt(3, batch.getScale(i));
+                        statement.setString(4, batch.getCurrency(i).getCurrencyCode());
+
+                        String description = batch.getDescription(i);
+                        if (description != null) {
+                            statement.setString(5, description);
+                        } else {
+                            statement.setNull(5, Types.VARCHAR);
+                        }
+
+                        statement.addBatch();
+                    }
+
+                    statement.executeBatch();
+                } finally {
+                    statement.close();
+                }
+            }
+        });
+    }
+}
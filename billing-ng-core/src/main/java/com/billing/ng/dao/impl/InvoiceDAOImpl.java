@@ -0,0 +1,149 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.dao.impl;
+
+import com.billing.ng.dao.InvoiceDAO;
+import com.billing.ng.entities.Account;
+import com.billing.ng.entities.BillingCycle;
+import com.billing.ng.entities.BillingType;
+import com.billing.ng.entities.Invoice;
+import com.billing.ng.entities.InvoiceRun;
+import com.billing.ng.invoice.DueAccount;
+import com.billing.ng.invoice.InvoicePartitionStore;
+import org.joda.time.DateMidnight;
+
+import javax.annotation.Resource;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * InvoiceDAO implementation. Partitions of an invoice run are loaded and written by the worker
+ * threads through a {@link JdbcInvoicePartitionStore} each, using a connection of their own from
+ * the billing data source rather than the shared persistence context of this DAO. Each partition
+ * is committed on its own, so a failed partition does not roll back the partitions already written.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class InvoiceDAOImpl extends GenericDAOImpl<Invoice, Long> implements InvoiceDAO {
+
+    @Resource(lookup = "java:jboss/datasources/BillingDS")
+    private DataSource dataSource;
+
+    public InvoiceDAOImpl() {
+    }
+
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public List<InvoiceRun> findIncompleteRuns() {
+        return getEntityManager()
+                .createQuery("select r from InvoiceRun r where r.status <> :status order by r.id", InvoiceRun.class)
+                .setParameter("status", InvoiceRun.Status.COMPLETE)
+                .getResultList();
+    }
+
+    public List<Invoice> findByRun(InvoiceRun run) {
+        return getEntityManager()
+                .createQuery("select i from Invoice i where i.run = :run order by i.id", Invoice.class)
+                .setParameter("run", run)
+                .getResultList();
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void start(InvoiceRun run) {
+        if (run.getId() == null) {
+            getEntityManager().persist(run);
+            return;
+        }
+
+        getEntityManager()
+                .createQuery("update InvoiceRun r set r.status = :status, r.finished = null where r.id = :id")
+                .setParameter("status", run.getStatus())
+                .setParameter("id", run.getId())
+                .executeUpdate();
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public int scheduleBillingCycles(InvoiceRun run) {
+        List<BillingCycle> cycles = getEntityManager()
+                .createQuery("select c from BillingCycle c"
+                             + " where c.nextRun is null"
+                             + " and (c.end is null or c.end > :date)", BillingCycle.class)
+                .setParameter("date", run.getBillingDate())
+                .getResultList();
+
+        DateMidnight billingDate = new DateMidnight(run.getBillingDate());
+        for (BillingCycle cycle : cycles)
+            cycle.scheduleNextRun(billingDate);
+
+        return cycles.size();
+    }
+
+    public List<DueAccount> findDueAccounts(InvoiceRun run) {
+        List<Object[]> rows = getEntityManager()
+                .createQuery("select a.id, a.number, a.billingType, a.hierarchyPath, a.hierarchyLevel, c"
+                             + " from Account a join a.billingCycle c"
+                             + " where c.nextRun <= :date", Object[].class)
+                .setParameter("date", run.getBillingDate())
+                .getResultList();
+
+        // a null billing type defaults to ACCOUNT, and a null hierarchy level to a root account
+        List<DueAccount> accounts = new ArrayList<DueAccount>(rows.size());
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            int hierarchyLevel = row[4] != null ? (Integer) row[4] : Account.ROOT_HIERARCHY_LEVEL;
+            accounts.add(new DueAccount(id, (String) row[1], (BillingType) row[2], getRootId(id, (String) row[3]),
+                                        hierarchyLevel, (BillingCycle) row[5]));
+        }
+
+        return accounts;
+    }
+
+    /**
+     * Returns the id of the root account from the account hierarchy path, the first
+     * id in the path.
+     */
+    private static long getRootId(Long id, String hierarchyPath) {
+        if (hierarchyPath == null)
+            return id;
+
+        int end = hierarchyPath.indexOf(Account.PATH_SEPARATOR, 1);
+        return Long.parseLong(hierarchyPath.substring(1, end));
+    }
+
+    public InvoicePartitionStore openPartitionStore() {
+        if (dataSource == null)
+            throw new IllegalStateException("DataSource has not been set on DAO prior to usage");
+        return new JdbcInvoicePartitionStore(dataSource);
+    }
+
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void finish(InvoiceRun run) {
+        getEntityManager()
+                .createQuery("update InvoiceRun r set r.status = :status, r.finished = :finished where r.id = :id")
+                .setParameter("status", run.getStatus())
+                .setParameter("finished", run.getFinished())
+                .setParameter("id", run.getId())
+                .executeUpdate();
+    }
+}
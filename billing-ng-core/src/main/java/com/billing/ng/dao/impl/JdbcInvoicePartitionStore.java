@@ -0,0 +1,289 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+
+package com.billing.ng.dao.impl;
+
+import com.billing.ng.entities.InvoiceRun;
+import com.billing.ng.entities.Money;
+import com.billing.ng.invoice.DueAccount;
+import com.billing.ng.invoice.InvoiceBatch;
+import com.billing.ng.invoice.InvoicePartitionStore;
+
+import javax.persistence.PersistenceException;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Date;
+
+/**
+ * InvoicePartitionStore implementation using a JDBC connection of its own, independent of any
+ * persistence context or container managed transaction. The connection is taken from the data
+ * source on first use and is not in auto-commit mode: each partition is written with batched
+ * statements and committed explicitly, or rolled back if any statement fails.
+ *
+ * This class is NOT thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class JdbcInvoicePartitionStore implements InvoicePartitionStore {
+
+    private static final String SELECT_ORDERS_SQL
+            = "select id, account, value, scale, currency_code from purchase_order"
+              + " where invoice is null and account in (";
+
+    private static final String INSERT_INVOICE_SQL
+            = "insert into invoice (number, account, run, billing_type, billing_date, value, scale, currency_code)"
+              + " values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_ORDER_SQL
+            = "update purchase_order set invoice = ? where id = ? and invoice is null";
+
+    private static final String UPDATE_BILLING_CYCLE_SQL
+            = "update billing_cycle set next_run = ? where id = ?";
+
+    private static final String UPDATE_RUN_SQL
+            = "update invoice_run set partition_count = partition_count + 1,"
+              + " account_count = account_count + ?, invoice_count = invoice_count + ?"
+              + " where id = ?";
+
+    private final DataSource dataSource;
+    private Connection connection;
+
+    public JdbcInvoicePartitionStore(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Returns the connection of this store, opening it on first use.
+     *
+     * @return connection with auto-commit disabled
+     * @throws SQLException if the connection could not be opened
+     */
+    protected Connection getConnection() throws SQLException {
+        if (connection == null) {
+            Connection opened = dataSource.getConnection();
+            try {
+                opened.setAutoCommit(false);
+            } catch (SQLException e) {
+                opened.close();
+                throw e;
+            }
+            connection = opened;
+        }
+        return connection;
+    }
+
+    public void loadOrders(InvoiceBatch batch) {
+        if (batch.size() == 0)
+            return;
+
+        StringBuilder sql = new StringBuilder(SELECT_ORDERS_SQL);
+        for (int i = 0; i < batch.getAccountIds().size(); i++)
+            sql.append(i == 0 ? "?" : ", ?");
+        sql.append(")");
+
+        try {
+            Connection connection = getConnection();
+            try {
+                PreparedStatement statement = connection.prepareStatement(sql.toString());
+                try {
+                    int index = 1;
+                    for (Long id : batch.getAccountIds())
+                        statement.setLong(index++, id);
+
+                    ResultSet rows = statement.executeQuery();
+                    try {
+                        while (rows.next())
+                            batch.addOrder(rows.getLong(1), rows.getLong(2),
+                                           new Money(rows.getLong(3), rows.getInt(4), rows.getString(5)));
+                    } finally {
+                        rows.close();
+                    }
+                } finally {
+                    statement.close();
+                }
+
+                connection.commit(); // ends the read transaction
+            } catch (SQLException e) {
+                rollback(connection, e);
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new PersistenceException("Could not load orders of " + batch.getPartition() + ".", e);
+        }
+    }
+
+    public void write(InvoiceRun run, InvoiceBatch batch) {
+        try {
+            Connection connection = getConnection();
+            try {
+                long[] invoiceIds = insertInvoices(connection, run, batch);
+                updateOrders(connection, batch, invoiceIds);
+                updateBillingCycles(connection, batch);
+                updateRun(connection, run, batch);
+
+                connection.commit();
+            } catch (SQLException e) {
+                rollback(connection, e);
+                throw e;
+            } catch (RuntimeException e) {
+                rollback(connection, e);
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new PersistenceException("Could not write " + batch.getPartition() + ".", e);
+        }
+    }
+
+    /**
+     * Rolls back the current transaction after a failure, adding any failure of the rollback
+     * itself to the original exception.
+     */
+    private static void rollback(Connection connection, Exception cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Inserts the invoices of the batch, returning the generated invoice id of each
+     * account row (0 for accounts that were not invoiced).
+     */
+    private static long[] insertInvoices(Connection connection, InvoiceRun run, InvoiceBatch batch) throws SQLException {
+        long[] invoiceIds = new long[batch.size()];
+        if (batch.getInvoiceCount() == 0)
+            return invoiceIds;
+
+        PreparedStatement statement = connection.prepareStatement(INSERT_INVOICE_SQL, Statement.RETURN_GENERATED_KEYS);
+        try {
+            java.sql.Date billingDate = new java.sql.Date(run.getBillingDate().getTime());
+
+            for (int row = 0; row < batch.size(); row++) {
+                if (!batch.isInvoiced(row))
+                    continue;
+
+                DueAccount account = batch.getAccount(row);
+                Money total = batch.getTotal(row);
+
+                if (batch.getNumber(row) != null) {
+                    statement.setString(1, batch.getNumber(row));
+                } else {
+                    statement.setNull(1, Types.VARCHAR);
+                }
+                statement.setLong(2, account.getId());
+                statement.setLong(3, run.getId());
+                statement.setString(4, account.getBillingType().name());
+                statement.setDate(5, billingDate);
+                statement.setLong(6, total.getLongValue());
+                statement.setInt(7, total.getScale());
+                statement.setString(8, total.getCurrencyCode());
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+
+            // generated keys are returned in the order the rows were added
+            ResultSet keys = statement.getGeneratedKeys();
+            try {
+                for (int row = 0; row < batch.size(); row++) {
+                    if (batch.isInvoiced(row)) {
+                        if (!keys.next())
+                            throw new SQLException("Generated invoice id not returned for account " + batch.getAccount(row).getId());
+                        invoiceIds[row] = keys.getLong(1);
+                    }
+                }
+            } finally {
+                keys.close();
+            }
+        } finally {
+            statement.close();
+        }
+
+        return invoiceIds;
+    }
+
+    private static void updateOrders(Connection connection, InvoiceBatch batch, long[] invoiceIds) throws SQLException {
+        if (batch.getOrderCount() == 0)
+            return;
+
+        PreparedStatement statement = connection.prepareStatement(UPDATE_ORDER_SQL);
+        try {
+            for (int i = 0; i < batch.getOrderCount(); i++) {
+                statement.setLong(1, invoiceIds[batch.getOrderRow(i)]);
+                statement.setLong(2, batch.getOrderId(i));
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void updateBillingCycles(Connection connection, InvoiceBatch batch) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(UPDATE_BILLING_CYCLE_SQL);
+        try {
+            for (int row = 0; row < batch.size(); row++) {
+                Date nextRun = batch.getNextRun(row);
+                if (nextRun != null) {
+                    statement.setDate(1, new java.sql.Date(nextRun.getTime()));
+                } else {
+                    statement.setNull(1, Types.DATE);
+                }
+                statement.setLong(2, batch.getAccount(row).getBillingCycle().getId());
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void updateRun(Connection connection, InvoiceRun run, InvoiceBatch batch) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(UPDATE_RUN_SQL);
+        try {
+            statement.setLong(1, batch.size());
+            statement.setLong(2, batch.getInvoiceCount());
+            statement.setLong(3, run.getId());
+            statement.executeUpdate();
+        } finally {
+            statement.close();
+        }
+    }
+
+    public void close() {
+        if (connection == null)
+            return;
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new PersistenceException("Could not close invoice partition store connection.", e);
+        } finally {
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.dao.impl;
+
+import com.billing.ng.dao.PurchaseOrderDAO;
+import com.billing.ng.entities.Money;
+import com.billing.ng.entities.MoneyAccumulator;
+import com.billing.ng.entities.PurchaseOrder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PurchaseOrderDAO implementation.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class PurchaseOrderDAOImpl extends GenericDAOImpl<PurchaseOrder, Long> implements PurchaseOrderDAO {
+
+    /** Number of orders reconciled per aggregate query, keeps the IN clause to a reasonable size. */
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    public PurchaseOrderDAOImpl() {
+    }
+
+    public List<PurchaseOrder> reconcileTotals(List<PurchaseOrder> orders) {
+        List<PurchaseOrder> changed = new ArrayList<PurchaseOrder>();
+
+        for (int i = 0; i < orders.size(); i += RECONCILE_BATCH_SIZE) {
+            List<PurchaseOrder> batch = orders.subList(i, Math.min(i + RECONCILE_BATCH_SIZE, orders.size()));
+            Map<Long, MoneyAccumulator> lineTotals = getLineTotals(batch);
+
+            for (PurchaseOrder order : batch) {
+                if (order.reconcileTotal(lineTotals))
+                    changed.add(order);
+            }
+        }
+
+        return changed;
+    }
+
+    public List<PurchaseOrder> reconcileLineTotals(Collection<Long> lineIds) {
+        if (lineIds.isEmpty())
+            return Collections.emptyList();
+
+        List<Long> ids = new ArrayList<Long>(lineIds);
+        Set<PurchaseOrder> orders = new LinkedHashSet<PurchaseOrder>();
+
+        for (int i = 0; i < ids.size(); i += RECONCILE_BATCH_SIZE) {
+            orders.addAll(getEntityManager()
+                    .createQuery("select distinct l.purchaseOrder from PurchaseOrderLine l where l.id in (:ids)",
+                                 PurchaseOrder.class)
+                    .setParameter("ids", ids.subList(i, Math.min(i + RECONCILE_BATCH_SIZE, ids.size())))
+                    .getResultList());
+        }
+
+        return reconcileTotals(new ArrayList<PurchaseOrder>(orders));
+    }
+
+    public Set<Long> findLineIds(Collection<Long> lineIds) {
+        if (lineIds.isEmpty())
+            return Collections.emptySet();
+
+        return new HashSet<Long>(getEntityManager()
+                .createQuery("select l.id from PurchaseOrderLine l where l.id in (:ids)", Long.class)
+                .setParameter("ids", lineIds)
+                .getResultList());
+    }
+
+    /**
+     * Sums the persisted charges of all lines of the given orders. Charge amounts are summed in
+     * minor units grouped by line, currency and scale, leaving only the conversion of each group
+     * total to be done in memory.
+     *
+     * @param orders orders to total
+     * @return charge totals by line id
+     */
+    private Map<Long, MoneyAccumulator> getLineTotals(List<PurchaseOrder> orders) {
+        List<Object[]> rows = getEntityManager()
+                .createQuery("select c.line.id, c.amount.currencyCode, c.amount.scale, sum(c.amount.longValue)"
+                             + " from Charge c"
+                             + " where c.line.purchaseOrder in (:orders)"
+                             + " group by c.line.id, c.amount.currencyCode, c.amount.scale", Object[].class)
+                .setParameter("orders", orders)
+                .getResultList();
+
+        Map<Long, MoneyAccumulator> totals = new HashMap<Long, MoneyAccumulator>();
+        for (Object[] row : rows) {
+            Long lineId = (Long) row[0];
+            MoneyAccumulator total = totals.get(lineId);
+            if (total == null) {
+                total = new MoneyAccumulator();
+                totals.put(lineId, total);
+            }
+
+            total.add(new Money((Long) row[3], (Integer) row[2], (String) row[1]));
+        }
+
+        return totals;
+    }
+}
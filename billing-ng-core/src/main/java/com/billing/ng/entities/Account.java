@@ -17,8 +17,12 @@
 
 package com.billing.ng.entities;
 
+import com.billing.ng.entities.structure.Composite;
+import com.billing.ng.entities.structure.Traversal;
 import com.billing.ng.entities.structure.Visitable;
 import com.billing.ng.entities.structure.Visitor;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
 import org.hibernate.annotations.Where;
 
 import javax.persistence.Column;
@@ -30,6 +34,7 @@ import javax.persistence.Id;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
+import javax.persistence.PostPersist;
 import javax.persistence.PrePersist;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -38,7 +43,9 @@ import javax.xml.bind.annotation.XmlElementWrapper;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Account held by a customer.
@@ -56,30 +63,71 @@ import java.util.List;
  */
 @Entity
 @XmlRootElement
-public class Account extends BaseEntity implements Visitable<Account>, Numbered {
+public class Account extends BaseEntity implements Visitable<Account>, Composite<Account>, Numbered {
 
     public static final Integer ROOT_HIERARCHY_LEVEL = 0;
+    public static final String PATH_SEPARATOR = "/";
+    public static final int HIERARCHY_PATH_LENGTH = 255; // fits a single index key of 767 bytes in utf8
 
 
     /**
-     * Simple visitor that updates the hierarchy level of all visited accounts. Used
+     * Simple visitor that updates the hierarchy level and path of all visited accounts. Used
      * during the addition/removal of nodes from the account hierarchy to keep hierarchy
-     * levels in sync.
+     * levels and paths in sync.
+     *
+     * Parents must be visited before their sub-accounts, see {@link Traversal#preOrder(Composite, Visitor)}.
      */
     @XmlTransient
-    private static class HierarchyLevelUpdateVisitor implements Visitor<Account, Object> {
+    private static class HierarchyUpdateVisitor implements Visitor<Account, Object> {
         public Object visit(Account account) {
             if (account.isRootAccount()) {
                 account.setHierarchyLevel(ROOT_HIERARCHY_LEVEL);
+                account.setHierarchyPath(getHierarchyPath(PATH_SEPARATOR, account));
             } else {
-                account.setHierarchyLevel(account.getParentAccount().getHierarchyLevel() + 1);
+                Account parent = account.getParentAccount();
+                account.setHierarchyLevel(parent.getHierarchyLevel() + 1);
+                account.setHierarchyPath(getHierarchyPath(parent.getHierarchyPath(), account));
             }
 
-            for (Account subAccount : account.getSubAccounts())
-                subAccount.accept(this);
-
             return null;
         }
+
+        private static String getHierarchyPath(String parentPath, Account account) {
+            if (parentPath == null || account.getId() == null)
+                return null; // not persisted yet, updated after persisting
+
+            String path = parentPath + account.getId() + PATH_SEPARATOR;
+            if (path.length() > HIERARCHY_PATH_LENGTH)
+                throw new IllegalStateException("Hierarchy path of account " + account.getId() + " exceeds "
+                                                + HIERARCHY_PATH_LENGTH + " characters, hierarchy is too deep.");
+
+            return path;
+        }
+    }
+
+    /**
+     * Visitor that calculates the rollup of all visited accounts that do not already have
+     * a cached rollup, from the purchase orders of the account and the rollups of its
+     * sub-accounts.
+     *
+     * Sub-accounts must be visited before their parents, see {@link Traversal#postOrder(Composite, Visitor)}.
+     */
+    @XmlTransient
+    private static class RollupCalculationVisitor implements Visitor<Account, AccountRollup> {
+        public AccountRollup visit(Account account) {
+            if (account.rollup == null) {
+                AccountRollup rollup = new AccountRollup();
+                for (PurchaseOrder order : account.getPurchaseOrders())
+                    rollup.add(order);
+
+                for (Account subAccount : account.getSubAccounts())
+                    rollup.add(subAccount.rollup);
+
+                account.rollup = rollup;
+            }
+
+            return account.rollup;
+        }
     }
 
 
@@ -115,12 +163,25 @@ public class Account extends BaseEntity implements Visitable<Account>, Numbered
     @ManyToOne
     private Account parentAccount;
 
+    /*
+        Sub-accounts are held in insertion order in a hash set so that sub-accounts can be added, found
+        and removed in constant time, even for accounts with a very large number of sub-accounts. The
+        collection is "extra lazy", so size(), isEmpty() and contains() query the database instead of
+        loading every sub-account when the collection has not been initialized.
+     */
     @OneToMany(mappedBy = "parentAccount")
-    private List<Account> subAccounts = new ArrayList<Account>();
+    @LazyCollection(LazyCollectionOption.EXTRA)
+    private Set<Account> subAccounts = new LinkedHashSet<Account>();
 
     @Column
     private Integer hierarchyLevel = ROOT_HIERARCHY_LEVEL;
 
+    @Column(length = HIERARCHY_PATH_LENGTH)
+    private String hierarchyPath;
+
+    @Transient
+    private AccountRollup rollup;
+
     public Account() {
     }
 
@@ -229,6 +290,125 @@ public class Account extends BaseEntity implements Visitable<Account>, Numbered
         this.purchaseOrders = purchaseOrders;
     }
 
+    /**
+     * Adds the given purchase order to this account, removing it from the account that
+     * previously held the order. The order is added to the rollup of this account and
+     * all of its parent accounts.
+     *
+     * @param order order to add
+     */
+    public void addPurchaseOrder(PurchaseOrder order) {
+        if (order.getAccount() != null)
+            order.getAccount().removePurchaseOrder(order);
+
+        Money total = order.getTotal();
+        order.setAccount(this);
+        purchaseOrders.add(order);
+        updateRollup(1, null, total);
+    }
+
+    /**
+     * Removes the given purchase order from this account. The order is removed from the
+     * rollup of this account and all of its parent accounts.
+     *
+     * @param order order to remove
+     */
+    public void removePurchaseOrder(PurchaseOrder order) {
+        if (purchaseOrders.remove(order)) {
+            Money total = order.getTotal();
+            order.setAccount(null);
+            updateRollup(-1, total, null);
+        }
+    }
+
+    /**
+     * Returns the rollup of all purchase orders held by this account and all of its sub-accounts.
+     *
+     * The rollup is calculated once and cached, and is then kept up to date by applying each change
+     * to the rollups of the account holding the changed order and its parent accounts, making each
+     * update proportional to the depth of the hierarchy instead of the size of the subtree. Changes
+     * must be made through {@link #addPurchaseOrder(PurchaseOrder)}, {@link #removePurchaseOrder(PurchaseOrder)},
+     * the order and charge setters, and the hierarchy manipulation methods for the cached rollup to
+     * remain consistent. Use a {@link RollupVerificationVisitor} to check cached rollups against
+     * rollups re-calculated from scratch.
+     *
+     * @return rollup of this account and all sub-accounts
+     */
+    @XmlTransient
+    @Transient
+    public AccountRollup getRollup() {
+        if (rollup == null)
+            Traversal.postOrder(this, new RollupCalculationVisitor());
+
+        return rollup;
+    }
+
+    /**
+     * Returns the cached rollup of this account, or null if the rollup has not been calculated.
+     *
+     * @return cached rollup
+     */
+    AccountRollup getCachedRollup() {
+        return rollup;
+    }
+
+    void setCachedRollup(AccountRollup rollup) {
+        this.rollup = rollup;
+    }
+
+    /**
+     * Applies a change in the number of orders or in an order total to the cached rollup
+     * of this account and all of its parent accounts.
+     *
+     * @param orders change in number of orders
+     * @param oldTotal previous order total
+     * @param newTotal new order total
+     */
+    void updateRollup(int orders, Money oldTotal, Money newTotal) {
+        for (Account account = this; account != null; account = account.parentAccount)
+            if (account.rollup != null)
+                account.rollup.add(orders, oldTotal, newTotal);
+    }
+
+    /**
+     * Moves the rollup of the given account from the cached rollups of one parent (and all of
+     * its parents) to another. Must be called before the account is moved. The rollup of the
+     * moved account is only calculated if one of the parents has a cached rollup.
+     *
+     * @param account account being moved
+     * @param from previous parent, may be null
+     * @param to new parent, may be null
+     */
+    static void moveRollup(Account account, Account from, Account to) {
+        if (hasCachedRollup(from) || hasCachedRollup(to))
+            moveRollup(account.getRollup(), from, to);
+    }
+
+    /**
+     * Moves the given rollup from the cached rollups of one account (and all of its parents)
+     * to another.
+     *
+     * @param moved rollup being moved
+     * @param from account to subtract the rollup from, may be null
+     * @param to account to add the rollup to, may be null
+     */
+    static void moveRollup(AccountRollup moved, Account from, Account to) {
+        for (Account account = from; account != null; account = account.parentAccount)
+            if (account.rollup != null)
+                account.rollup.subtract(moved);
+
+        for (Account account = to; account != null; account = account.parentAccount)
+            if (account.rollup != null)
+                account.rollup.add(moved);
+    }
+
+    private static boolean hasCachedRollup(Account account) {
+        for (; account != null; account = account.parentAccount)
+            if (account.rollup != null)
+                return true;
+        return false;
+    }
+
     @XmlElement
     public Account getParentAccount() {
         return parentAccount;
@@ -274,9 +454,13 @@ public class Account extends BaseEntity implements Visitable<Account>, Numbered
      */
     public void addParent(Account account) {
         if (account != null) {
+            Account parent = this.parentAccount;
+
             // insert a new parent account for "this" sub-account, shifting the sub-account
             // down 1 level in the hierarchy and placing the new parent under the old one
             if (!isRootAccount()) {
+                moveRollup(account, account.getParentAccount(), parent);
+
                 // move the old parent above the new parent
                 account.setParentAccount(this.parentAccount);
                 account.setHierarchyLevel(this.parentAccount.getHierarchyLevel() + 1);
@@ -286,12 +470,13 @@ public class Account extends BaseEntity implements Visitable<Account>, Numbered
             }
 
             // set the parent of "this" sub-account
+            moveRollup(this, parent, account);
             this.parentAccount = account;
             account.getSubAccounts().add(this);
 
             // shift sub-account hierarchy levels down by 1 to reflect addition of a new parent
             if (account.hasSubAccounts())
-                this.accept(new HierarchyLevelUpdateVisitor());
+                Traversal.preOrder(account, new HierarchyUpdateVisitor());
         }
     }
 
@@ -316,32 +501,48 @@ public class Account extends BaseEntity implements Visitable<Account>, Numbered
         if (isRootAccount())
             throw new UnsupportedOperationException("Cannot remove a root account from the hierarchy.");
 
-        // disconnect account from hierarchy
-        Account parent = getParentAccount();
-        getParentAccount().getSubAccounts().remove(this);
-        setParentAccount(null);
-        
-        // move child accounts up to parent
-        for (Account child : getSubAccounts()) {
-            child.setParentAccount(null);
-            child.addParent(parent);
-        }
-        
-        getSubAccounts().clear();
+        // disconnect account from hierarchy and move child accounts up to parent,
+        // updating hierarchy levels once all child accounts have been moved
+        new AccountHierarchy().promote(this).apply();
 
         return this;
     }
 
     @XmlElement
     @XmlElementWrapper(name = "subAccounts")
-    public List<Account> getSubAccounts() {
+    public Set<Account> getSubAccounts() {
         return subAccounts;
     }
 
-    public void setSubAccounts(List<Account> subAccounts) {
+    public void setSubAccounts(Set<Account> subAccounts) {
         this.subAccounts = subAccounts;
     }
 
+    /**
+     * Returns the number of direct sub-accounts of this account. For a persisted account this
+     * is a count query, and does not load the sub-accounts. Use {@link com.billing.ng.dao.AccountDAO#findSubAccounts(Account, int, int)}
+     * to load the sub-accounts of accounts with many sub-accounts a page at a time.
+     *
+     * @return number of sub-accounts
+     */
+    @XmlTransient
+    @Transient
+    public int getSubAccountCount() {
+        return subAccounts.size();
+    }
+
+    /**
+     * Returns the sub-accounts of this account as the children of the account hierarchy,
+     * allowing the hierarchy to be walked using a {@link Traversal}.
+     *
+     * @return sub-accounts
+     */
+    @XmlTransient
+    @Transient
+    public Set<Account> getChildren() {
+        return subAccounts;
+    }
+
     public void addSubAccount(Account account) {        
         account.setHierarchyLevel(hierarchyLevel + 1);
         account.addParent(this);
@@ -363,6 +564,58 @@ public class Account extends BaseEntity implements Visitable<Account>, Numbered
         this.hierarchyLevel = hierarchyLevel;
     }
 
+    /**
+     * Returns the materialized path of this account in the hierarchy, the ids of all parent
+     * accounts from the root down to and including this account, each followed by a separator
+     * (e.g., <code>"/1/2/5/"</code>). The path of every sub-account starts with the path of
+     * its parent, allowing a subtree to be loaded with a single indexed prefix query.
+     *
+     * The path is null until this account and all of its parents have been persisted.
+     *
+     * @return hierarchy path
+     */
+    @XmlTransient
+    public String getHierarchyPath() {
+        return hierarchyPath;
+    }
+
+    public void setHierarchyPath(String hierarchyPath) {
+        this.hierarchyPath = hierarchyPath;
+    }
+
+    /**
+     * Returns the ids of all parent accounts of this account from the root down, parsed
+     * from the hierarchy path. Root accounts return an empty list.
+     *
+     * @return ids of parent accounts
+     * @throws IllegalStateException if the hierarchy path has not been set
+     */
+    @XmlTransient
+    @Transient
+    public List<Long> getParentAccountIds() {
+        if (hierarchyPath == null)
+            throw new IllegalStateException("Hierarchy path not set, account " + id + " has not been persisted.");
+
+        List<Long> ids = new ArrayList<Long>(hierarchyLevel);
+        int start = 1;
+        for (int end = hierarchyPath.indexOf(PATH_SEPARATOR, start); end > 0; end = hierarchyPath.indexOf(PATH_SEPARATOR, start)) {
+            ids.add(Long.valueOf(hierarchyPath.substring(start, end)));
+            start = end + 1;
+        }
+
+        ids.remove(ids.size() - 1); // this account
+        return ids;
+    }
+
+    /**
+     * Updates the hierarchy level and path of this account and all of its sub-accounts. Called
+     * after persisting so that the path includes the newly generated id of this account.
+     */
+    @PostPersist
+    public void updateHierarchy() {
+        Traversal.preOrder(this, new HierarchyUpdateVisitor());
+    }
+
     /**
      * Returns true if this account is the top level (root)
      * parent of an account hierarchy. This method will also
@@ -411,14 +664,10 @@ public class Account extends BaseEntity implements Visitable<Account>, Numbered
 
     @Override
     public String toString() {
-        List<Long> subAccountIds = new ArrayList<Long>(subAccounts.size());
-        for (Account account : subAccounts)
-            subAccountIds.add(account.getId());
-        
         return "Account{"
                + "id=" + id
                + ", hierarchyLevel=" + hierarchyLevel
-               + ", subAccounts=" + subAccountIds
+               + ", subAccounts=" + getSubAccountCount()
                + ", parentAccount=" + (parentAccount != null ? parentAccount.getId() : null)
                + '}';
     }
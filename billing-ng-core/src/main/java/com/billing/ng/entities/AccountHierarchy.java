@@ -0,0 +1,169 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch of structural changes to account hierarchies. Each change only updates the parent and
+ * sub-account links of the accounts involved, and the hierarchy level and path of every moved
+ * account and its sub-accounts is then recalculated once when the batch is applied. This makes
+ * large reorganisations linear in the size of the moved subtrees, where making the same changes
+ * through {@link Account#addParent(Account)} re-calculates each moved subtree on every change.
+ *
+ * <code>
+ *      AccountHierarchy batch = new AccountHierarchy();
+ *      batch.move(sales, marketing);
+ *      batch.merge(oldBranch, newBranch);
+ *      batch.promote(regionalOffice);
+ *      batch.apply();
+ * </code>
+ *
+ * Hierarchy levels and paths of moved accounts are out of date until {@link #apply()} is called.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class AccountHierarchy {
+
+    /** Accounts whose parent has changed, and whose subtree needs to be re-calculated. */
+    private final Map<Account, Boolean> moved = new IdentityHashMap<Account, Boolean>();
+
+    public AccountHierarchy() {
+    }
+
+    /**
+     * Moves the given account and all of its sub-accounts below a new parent. A null parent
+     * detaches the account from its hierarchy, making it the root of its own hierarchy.
+     *
+     * @param account account to move
+     * @param parent new parent account, or null to detach
+     * @return this batch
+     * @throws IllegalArgumentException if the new parent is the account or one of its sub-accounts
+     */
+    public AccountHierarchy move(Account account, Account parent) {
+        for (Account node = parent; node != null; node = node.getParentAccount())
+            if (node == account)
+                throw new IllegalArgumentException("Cannot move an account below itself.");
+
+        Account.moveRollup(account, account.getParentAccount(), parent);
+
+        if (account.getParentAccount() != null)
+            account.getParentAccount().getSubAccounts().remove(account);
+
+        account.setParentAccount(parent);
+        if (parent != null)
+            parent.getSubAccounts().add(account);
+
+        moved.put(account, Boolean.TRUE);
+        return this;
+    }
+
+    /**
+     * Moves all the given accounts and their sub-accounts below a new parent.
+     *
+     * @param parent new parent account
+     * @param accounts accounts to move
+     * @return this batch
+     * @throws IllegalArgumentException if the new parent is one of the accounts or their sub-accounts
+     */
+    public AccountHierarchy attach(Account parent, Collection<Account> accounts) {
+        for (Account account : accounts)
+            move(account, parent);
+        return this;
+    }
+
+    /**
+     * Detaches the given account from its hierarchy, moving all of its sub-accounts up to its
+     * parent. Same as {@link Account#remove()}.
+     *
+     * @param account account to detach
+     * @return this batch
+     * @throws UnsupportedOperationException if the account is a root account
+     */
+    public AccountHierarchy promote(Account account) {
+        if (account.isRootAccount())
+            throw new UnsupportedOperationException("Cannot remove a root account from the hierarchy.");
+
+        Account parent = account.getParentAccount();
+        attach(parent, new ArrayList<Account>(account.getSubAccounts()));
+        move(account, null);
+        return this;
+    }
+
+    /**
+     * Merges the source account into the target account, moving all sub-accounts and purchase
+     * orders of the source to the target. The source account is detached from its hierarchy.
+     *
+     * @param source account to merge
+     * @param target account to merge into
+     * @return this batch
+     * @throws IllegalArgumentException if the target is the source account or one of its sub-accounts
+     */
+    public AccountHierarchy merge(Account source, Account target) {
+        for (Account node = target; node != null; node = node.getParentAccount())
+            if (node == source)
+                throw new IllegalArgumentException("Cannot merge an account into itself or one of its sub-accounts.");
+
+        attach(target, new ArrayList<Account>(source.getSubAccounts()));
+
+        AccountRollup orders = new AccountRollup();
+        for (PurchaseOrder order : source.getPurchaseOrders()) {
+            orders.add(order);
+            order.setAccount(target);
+            target.getPurchaseOrders().add(order);
+        }
+        source.getPurchaseOrders().clear();
+        Account.moveRollup(orders, source, target);
+
+        if (!source.isRootAccount())
+            move(source, null);
+
+        return this;
+    }
+
+    /**
+     * Re-calculates the hierarchy level and path of all moved accounts and their sub-accounts,
+     * visiting each account at most once. Moved accounts that are below another moved account
+     * are re-calculated as part of the higher account's subtree.
+     *
+     * @return number of subtrees re-calculated
+     */
+    public int apply() {
+        List<Account> roots = new ArrayList<Account>();
+
+        for (Account account : moved.keySet()) {
+            boolean covered = false;
+            for (Account parent = account.getParentAccount(); parent != null && !covered; parent = parent.getParentAccount())
+                covered = moved.containsKey(parent);
+
+            if (!covered)
+                roots.add(account);
+        }
+
+        for (Account root : roots)
+            root.updateHierarchy();
+
+        moved.clear();
+        return roots.size();
+    }
+}
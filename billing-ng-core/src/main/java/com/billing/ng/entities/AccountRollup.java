@@ -0,0 +1,165 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import javax.xml.bind.annotation.XmlTransient;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * Aggregate of all purchase orders held by an account and its sub-accounts; the number of
+ * orders and the total of the orders in each currency. Order totals are summed separately
+ * per currency and are never converted.
+ *
+ * Rollups are cached by each {@link Account} and kept up to date by applying a delta to the
+ * rollup of every parent account whenever an order is added, removed or re-totaled, see
+ * {@link Account#getRollup()}.
+ *
+ * This class is NOT thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@XmlTransient
+public class AccountRollup {
+
+    private long orderCount = 0;
+    private final MoneyAccumulator totals = new MoneyAccumulator();
+
+    public AccountRollup() {
+    }
+
+    /**
+     * Returns the number of purchase orders included in this rollup.
+     *
+     * @return number of orders
+     */
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Returns the currencies of all order totals included in this rollup.
+     *
+     * @return currencies
+     */
+    public List<Currency> getCurrencies() {
+        return totals.getCurrencies();
+    }
+
+    /**
+     * Returns the total of all orders in the given currency. Returns zero if no orders
+     * have been totaled in the currency.
+     *
+     * @param currency currency
+     * @return total of orders in the given currency
+     */
+    public Money getTotal(Currency currency) {
+        return totals.getTotal(currency);
+    }
+
+    /**
+     * Adds a change in the number of orders and order totals to this rollup. Null totals are ignored.
+     *
+     * @param orders change in number of orders
+     * @param oldTotal previous total, subtracted from the rollup
+     * @param newTotal new total, added to the rollup
+     * @return this rollup
+     */
+    public AccountRollup add(int orders, Money oldTotal, Money newTotal) {
+        orderCount += orders;
+        totals.subtract(oldTotal);
+        totals.add(newTotal);
+        return this;
+    }
+
+    /**
+     * Adds the given purchase order to this rollup.
+     *
+     * @param order order to add
+     * @return this rollup
+     */
+    public AccountRollup add(PurchaseOrder order) {
+        return add(1, null, order.getTotal());
+    }
+
+    /**
+     * Adds all orders of the given rollup to this rollup.
+     *
+     * @param rollup rollup to add
+     * @return this rollup
+     */
+    public AccountRollup add(AccountRollup rollup) {
+        orderCount += rollup.orderCount;
+        totals.addAll(rollup.totals);
+        return this;
+    }
+
+    /**
+     * Subtracts all orders of the given rollup from this rollup.
+     *
+     * @param rollup rollup to subtract
+     * @return this rollup
+     */
+    public AccountRollup subtract(AccountRollup rollup) {
+        orderCount -= rollup.orderCount;
+        totals.subtractAll(rollup.totals);
+        return this;
+    }
+
+    private boolean containsTotals(AccountRollup rollup) {
+        for (Currency currency : rollup.getCurrencies())
+            if (getTotal(currency).getValue().compareTo(rollup.getTotal(currency).getValue()) != 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Two rollups are equal if they have the same number of orders and the same total in
+     * every currency, where a currency missing from one of the rollups is treated as zero.
+     *
+     * @param o object to compare
+     * @return true if equal
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        if (o == null || getClass() != o.getClass())
+            return false;
+
+        AccountRollup rollup = (AccountRollup) o;
+        return orderCount == rollup.orderCount
+               && containsTotals(rollup)
+               && rollup.containsTotals(this);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (orderCount ^ (orderCount >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("AccountRollup{orderCount=").append(orderCount);
+        for (Currency currency : getCurrencies())
+            builder.append(", ").append(currency.getCurrencyCode()).append('=').append(getTotal(currency).getValue().toPlainString());
+        return builder.append('}').toString();
+    }
+}
@@ -17,16 +17,19 @@
 
 package com.billing.ng.entities;
 
+import com.billing.ng.util.DateUtils;
 import org.joda.time.DateMidnight;
-import org.joda.time.Period;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Transient;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -59,7 +62,28 @@ public class BillingCycle extends BaseEntity {
     private Integer cycleStartDay;
     @ManyToOne
     private BillingPeriod billingPeriod;
+    @Column(name = "next_run") @Temporal(TemporalType.DATE)
+    private Date nextRun;
 
+    /*
+        Memoized start and end instants, cleared when the values they are calculated from are changed. The
+        billing period type and interval are also kept as the billing period can be changed independently.
+     */
+    @Transient
+    private DateMidnight startInstant;
+    @Transient
+    private DateMidnight endInstant;
+    @Transient
+    private BillingPeriod.Type instantPeriodType;
+    @Transient
+    private Integer instantPeriodInterval;
+
+    /*
+        Set when the start, end, cycle start day or billing period is changed, so that the next run
+        is re-calculated when the billing cycle is saved.
+     */
+    @Transient
+    private boolean nextRunStale = false;
 
     public BillingCycle() {
     }
@@ -84,6 +108,8 @@ public class BillingCycle extends BaseEntity {
 
     public void setStart(Date start) {
         this.start = start;
+        clearInstants();
+        nextRunStale = true;
     }
 
     @XmlAttribute
@@ -93,6 +119,8 @@ public class BillingCycle extends BaseEntity {
 
     public void setEnd(Date end) {
         this.end = end;
+        clearInstants();
+        nextRunStale = true;
     }
 
     /**
@@ -113,6 +141,8 @@ public class BillingCycle extends BaseEntity {
      */
     public void setCycleStartDay(Integer cycleStartDay) {
         this.cycleStartDay = cycleStartDay;
+        clearInstants();
+        nextRunStale = true;
     }
 
     @XmlElement
@@ -122,6 +152,92 @@ public class BillingCycle extends BaseEntity {
 
     public void setBillingPeriod(BillingPeriod billingPeriod) {
         this.billingPeriod = billingPeriod;
+        clearInstants();
+        nextRunStale = true;
+    }
+
+    /**
+     * Date of the next scheduled billing run for this cycle, or null if no further
+     * runs are scheduled. The next run is indexed so that the billing cycles due on
+     * a given date can be found without calculating the current cycle of every billing
+     * cycle, see {@link BillingScheduler}.
+     *
+     * @return next billing run date
+     */
+    @XmlAttribute
+    public Date getNextRun() {
+        return nextRun;
+    }
+
+    public void setNextRun(Date nextRun) {
+        this.nextRun = nextRun;
+        nextRunStale = false;
+    }
+
+    /**
+     * Calculates the next billing run after the given date and sets it as the next run
+     * of this billing cycle.
+     *
+     * @param today date to calculate the next run from
+     * @return next billing run date, or null if this billing cycle ends on or before the given date
+     */
+    public DateMidnight scheduleNextRun(DateMidnight today) {
+        DateMidnight next = calculateNextRun(today);
+        setNextRun(next != null ? next.toDate() : null);
+        return next;
+    }
+
+    /**
+     * Schedules the next run of a new billing cycle as of today, unless a next run has
+     * already been set explicitly.
+     */
+    @PrePersist
+    public void scheduleOnPersist() {
+        if ((nextRun == null || nextRunStale) && isSchedulable())
+            scheduleNextRun(new DateMidnight());
+    }
+
+    /**
+     * Re-schedules the next run as of today if the start, end, cycle start day or billing
+     * period was changed. Changes made directly to the {@link BillingPeriod} are not seen
+     * by this billing cycle, replace the period with {@link #setBillingPeriod(BillingPeriod)}
+     * or call {@link #scheduleNextRun(DateMidnight)} instead.
+     */
+    @PreUpdate
+    public void scheduleOnUpdate() {
+        if (nextRunStale && isSchedulable())
+            scheduleNextRun(new DateMidnight());
+    }
+
+    /**
+     * Returns true if this billing cycle has everything needed to calculate the next run.
+     *
+     * @return true if the next run can be calculated
+     */
+    private boolean isSchedulable() {
+        return getStart() != null && getCycleStartDay() != null
+               && getBillingPeriod() != null && getBillingPeriod().getType() != null
+               && getBillingPeriod().getInterval() != null;
+    }
+
+    /**
+     * Calculates the date of the next billing run after the given date. The next run is
+     * the end of the current billing cycle, or the end date of this billing cycle if it
+     * ends before the current cycle is complete. If the billing cycle has not started yet,
+     * the next run is the end of the first cycle.
+     *
+     * @param today date to calculate the next run from
+     * @return next billing run date, or null if this billing cycle ends on or before the given date
+     */
+    public DateMidnight calculateNextRun(DateMidnight today) {
+        DateMidnight end = getEnd() != null ? new DateMidnight(getEnd()) : null;
+        if (end != null && !end.isAfter(today))
+            return null;
+
+        DateMidnight startInstant = getStartInstant();
+        DateMidnight next = getCurrentBillingCycle(today.isBefore(startInstant) ? startInstant : today).getEnd();
+
+        return end != null && end.isBefore(next) ? end : next;
     }
 
     /**
@@ -153,26 +269,83 @@ public class BillingCycle extends BaseEntity {
         return true;
     }
 
+    /**
+     * Clears the memoized start and end instants.
+     */
+    private void clearInstants() {
+        startInstant = null;
+        endInstant = null;
+    }
+
+    /**
+     * Returns true if the memoized start and end instants were calculated using the
+     * current billing period type and interval.
+     *
+     * @return true if memoized instants can be used
+     */
+    private boolean isInstantPeriodCurrent() {
+        BillingPeriod period = getBillingPeriod();
+        return period != null
+               && period.getType() == instantPeriodType
+               && period.getInterval() != null && period.getInterval().equals(instantPeriodInterval);
+    }
+
     /**
      * The initial starting instant of the entire billing cycle. The start instant is
      * the first instance of the cycle start day after (or equal to) the cycle start date.
      *
+     * The start instant is calculated once and memoized until the start date, cycle start day
+     * or billing period is changed.
+     *
      * @return starting instant of this billing cycle
      */
     public DateMidnight getStartInstant() {
-        DateMidnight start = new DateMidnight(getStart());
-        Period period = getBillingPeriod().getPeriodOfTime();
+        if (startInstant == null || !isInstantPeriodCurrent()) {
+            BillingPeriod period = getBillingPeriod();
+            clearInstants();
 
+            startInstant = calculateStartInstant(new DateMidnight(getStart()), getCycleStartDay(), period);
+            instantPeriodType = period.getType();
+            instantPeriodInterval = period.getInterval();
+        }
+        return startInstant;
+    }
+
+    /**
+     * Calculates the first instance of the cycle start day after (or equal to) the given start date.
+     *
+     * The first possible start date is the cycle start day in the same month as the start date.
+     * If that date is before the start date, the first cycle starts one or more billing periods
+     * later. Monthly and yearly periods are at least as long as the time between two dates in the
+     * same month, so at most one period is added. Daily and weekly periods are a fixed number of
+     * days, so the number of whole periods to add is calculated directly.
+     *
+     * @param start billing cycle start date
+     * @param cycleStartDay day of month that the cycle starts
+     * @param period billing period
+     * @return starting instant of the billing cycle
+     */
+    static DateMidnight calculateStartInstant(DateMidnight start, Integer cycleStartDay, BillingPeriod period) {
         // first possible start date for a period
-        DateMidnight calculated = getCycleStartDay() != LAST_DAY_OF_MONTH
-                                  ? start.dayOfMonth().setCopy(getCycleStartDay())
+        DateMidnight calculated = cycleStartDay != LAST_DAY_OF_MONTH
+                                  ? start.dayOfMonth().setCopy(cycleStartDay)
                                   : start.dayOfMonth().withMaximumValue();
 
-        // increment by billing period interval until a valid start date is found
-        while (calculated.isBefore(start)) {
-            calculated = calculated.plus(period);
+        if (!calculated.isBefore(start))
+            return calculated;
+
+        switch (period.getType()) {
+            case DAY:
+            case WEEK:
+                // smallest number of whole periods that reaches the start date
+                int length = period.getInterval() * (period.getType() == BillingPeriod.Type.WEEK ? 7 : 1);
+                long elapsed = DateUtils.toEpochDay(start) - DateUtils.toEpochDay(calculated);
+                long periods = (elapsed + length - 1) / length;
+                return calculated.plusDays((int) (periods * length));
+
+            default:
+                return calculated.plus(period.getPeriodOfTime());
         }
-        return calculated;
     }
 
     /**
@@ -185,9 +358,13 @@ public class BillingCycle extends BaseEntity {
      * @return ending instant of this billing cycle
      */
     public DateMidnight getEndInstant() {
-        return getEnd() == null
-               ? getStartInstant().year().withMaximumValue()
-               : new DateMidnight(getEnd());
+        // default end depends on the start instant, which may change with the billing period
+        if (endInstant == null || (getEnd() == null && !isInstantPeriodCurrent())) {
+            endInstant = getEnd() == null
+                         ? getStartInstant().year().withMaximumValue()
+                         : new DateMidnight(getEnd());
+        }
+        return endInstant;
     }
 
     /**
@@ -0,0 +1,307 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.util.DateUtils;
+import org.joda.time.DateMidnight;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates the current billing cycle of many billing cycles at once. Billing cycles are given as
+ * parallel arrays of start date, cycle start day, billing period type and interval, with dates as
+ * a primitive count of days since the epoch (see {@link DateUtils}). The cycle number, start and
+ * end of each current billing cycle are written into result arrays.
+ *
+ * Results are identical to {@link BillingCycle#getCurrentBillingCycle(org.joda.time.DateMidnight)}
+ * for a billing cycle with the same values, but are calculated using integer arithmetic
+ * without allocating dates. Large batches are split across a fork/join pool.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class BillingCycleEvaluator {
+
+    /** Number of billing cycles evaluated by a single task before splitting. */
+    public static final int DEFAULT_THRESHOLD = 4096;
+
+    private static class PoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Evaluator using a shared fork/join pool with one thread per available processor.
+     */
+    public BillingCycleEvaluator() {
+        this(PoolHolder.POOL, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Evaluator using the given fork/join pool.
+     *
+     * @param pool pool to evaluate large batches in
+     * @param threshold number of billing cycles evaluated by a single task before splitting
+     */
+    public BillingCycleEvaluator(ForkJoinPool pool, int threshold) {
+        if (threshold < 1)
+            throw new IllegalArgumentException("Threshold must be at least 1.");
+
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Evaluates the current billing cycle of each given billing cycle for the given date.
+     *
+     * @see #evaluate(long, long[], int[], BillingPeriod.Type[], int[], int[], long[], long[])
+     */
+    public void evaluate(DateMidnight today, long[] starts, int[] cycleStartDays, BillingPeriod.Type[] types,
+                         int[] intervals, int[] cycleNumbers, long[] cycleStarts, long[] cycleEnds) {
+        evaluate(DateUtils.toEpochDay(today), starts, cycleStartDays, types, intervals, cycleNumbers, cycleStarts, cycleEnds);
+    }
+
+    /**
+     * Evaluates the current billing cycle of each given billing cycle for the given date. Element
+     * <code>i</code> of the result arrays holds the current billing cycle of the billing cycle given
+     * by element <code>i</code> of the start, cycle start day, type and interval arrays.
+     *
+     * @param today date to calculate the current billing cycles for, as days since 1970-01-01
+     * @param starts billing cycle start dates, as days since 1970-01-01
+     * @param cycleStartDays day of month that each cycle starts, or {@link BillingCycle#LAST_DAY_OF_MONTH}
+     * @param types billing period types
+     * @param intervals billing period intervals
+     * @param cycleNumbers array to write current cycle numbers into
+     * @param cycleStarts array to write current cycle start dates into, as days since 1970-01-01
+     * @param cycleEnds array to write current cycle end dates into, as days since 1970-01-01
+     * @throws IllegalArgumentException if the arrays are not the same length, or if a cycle
+     *         start day does not exist in the month of the billing cycle start date
+     */
+    public void evaluate(long today, long[] starts, int[] cycleStartDays, BillingPeriod.Type[] types,
+                         int[] intervals, int[] cycleNumbers, long[] cycleStarts, long[] cycleEnds) {
+        int length = starts.length;
+        if (cycleStartDays.length != length || types.length != length || intervals.length != length
+            || cycleNumbers.length != length || cycleStarts.length != length || cycleEnds.length != length)
+            throw new IllegalArgumentException("Billing cycle arrays must be the same length.");
+
+        EvaluateTask task = new EvaluateTask(today, starts, cycleStartDays, types, intervals,
+                                             cycleNumbers, cycleStarts, cycleEnds, 0, length);
+
+        if (length <= threshold) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+    }
+
+    /**
+     * Evaluates a range of billing cycles, splitting the range in half until it is
+     * no larger than the threshold.
+     */
+    private class EvaluateTask extends RecursiveAction {
+
+        private final long today;
+        private final long[] starts;
+        private final int[] cycleStartDays;
+        private final BillingPeriod.Type[] types;
+        private final int[] intervals;
+        private final int[] cycleNumbers;
+        private final long[] cycleStarts;
+        private final long[] cycleEnds;
+        private final int from;
+        private final int to;
+
+        private EvaluateTask(long today, long[] starts, int[] cycleStartDays, BillingPeriod.Type[] types,
+                             int[] intervals, int[] cycleNumbers, long[] cycleStarts, long[] cycleEnds,
+                             int from, int to) {
+            this.today = today;
+            this.starts = starts;
+            this.cycleStartDays = cycleStartDays;
+            this.types = types;
+            this.intervals = intervals;
+            this.cycleNumbers = cycleNumbers;
+            this.cycleStarts = cycleStarts;
+            this.cycleEnds = cycleEnds;
+            this.from = from;
+            this.to = to;
+        }
+
+        private EvaluateTask split(int from, int to) {
+            return new EvaluateTask(today, starts, cycleStartDays, types, intervals,
+                                    cycleNumbers, cycleStarts, cycleEnds, from, to);
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                evaluate(today, starts, cycleStartDays, types, intervals, cycleNumbers, cycleStarts, cycleEnds, from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(split(from, middle), split(middle, to));
+            }
+        }
+    }
+
+    /**
+     * Evaluates the current billing cycle of each billing cycle in the given range in the calling thread.
+     */
+    static void evaluate(long today, long[] starts, int[] cycleStartDays, BillingPeriod.Type[] types,
+                         int[] intervals, int[] cycleNumbers, long[] cycleStarts, long[] cycleEnds,
+                         int from, int to) {
+        int[] now = DateUtils.toDate(today);
+
+        for (int i = from; i < to; i++) {
+            int interval = intervals[i];
+            int[] start = DateUtils.toDate(starts[i]);
+
+            // start instant, the first instance of the cycle start day on or after the start date
+            int daysInMonth = DateUtils.getDaysInMonth(start[0], start[1]);
+            int cycleStartDay = cycleStartDays[i] != BillingCycle.LAST_DAY_OF_MONTH ? cycleStartDays[i] : daysInMonth;
+            if (cycleStartDay < 1 || cycleStartDay > daysInMonth)
+                throw new IllegalArgumentException("Cycle start day " + cycleStartDay + " does not exist in "
+                                                   + start[0] + "-" + start[1] + ".");
+
+            long instant = starts[i] + cycleStartDay - start[2];
+            start[2] = cycleStartDay;
+
+            int cycleNumber;
+            switch (types[i]) {
+                case DAY:
+                case WEEK:
+                    int length = interval * (types[i] == BillingPeriod.Type.WEEK ? 7 : 1);
+                    if (instant < starts[i])
+                        instant += (starts[i] - instant + length - 1) / length * length;
+
+                    // whole periods are truncated towards zero, same as Days.daysBetween() and Weeks.weeksBetween()
+                    int days = (int) (today - instant);
+                    cycleNumber = types[i] == BillingPeriod.Type.WEEK ? days / 7 / interval : days / interval;
+
+                    cycleNumbers[i] = cycleNumber;
+                    cycleStarts[i] = instant + (long) cycleNumber * length;
+                    cycleEnds[i] = cycleStarts[i] + length;
+                    break;
+
+                case MONTH:
+                case YEAR:
+                    int months = interval * (types[i] == BillingPeriod.Type.YEAR ? 12 : 1);
+                    if (instant < starts[i])
+                        plusMonths(start, months);
+
+                    cycleNumber = types[i] == BillingPeriod.Type.YEAR
+                                  ? yearsBetween(start, now) / interval
+                                  : monthsBetween(start, now) / interval;
+
+                    plusMonths(start, cycleNumber * months);
+                    cycleNumbers[i] = cycleNumber;
+                    cycleStarts[i] = DateUtils.toEpochDay(start[0], start[1], start[2]);
+
+                    plusMonths(start, months);
+                    cycleEnds[i] = DateUtils.toEpochDay(start[0], start[1], start[2]);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Adds a number of months to the given { year, month, day } date in place. The day of month is
+     * reduced to the last day of the resulting month if it would otherwise be invalid, the same as
+     * {@link DateMidnight#plusMonths(int)}.
+     *
+     * @param date date to add months to
+     * @param months number of months to add
+     */
+    static void plusMonths(int[] date, int months) {
+        int month = date[0] * 12 + date[1] - 1 + months;
+        date[0] = month / 12;
+        date[1] = month % 12 + 1;
+        date[2] = Math.min(date[2], DateUtils.getDaysInMonth(date[0], date[1]));
+    }
+
+    /**
+     * Returns the number of whole months between two { year, month, day } dates, the same
+     * as {@link org.joda.time.Months#monthsBetween(org.joda.time.ReadableInstant, org.joda.time.ReadableInstant)}.
+     *
+     * A month ending on the last day of a shorter month is considered whole, so there is
+     * one month between January 31st and February 28th.
+     *
+     * @param start start date
+     * @param end end date
+     * @return whole months from start to end, negative if end is before start
+     */
+    static int monthsBetween(int[] start, int[] end) {
+        if (compare(end, start) < 0)
+            return -monthsBetween(end, start);
+
+        int months = (end[0] - start[0]) * 12 + end[1] - start[1];
+        int startDay = start[2];
+
+        if (end[2] == DateUtils.getDaysInMonth(end[0], end[1]) && startDay > end[2])
+            startDay = end[2];
+
+        if (months > 0 && end[2] < startDay)
+            months--;
+
+        return months;
+    }
+
+    /**
+     * Returns the number of whole years between two { year, month, day } dates, the same
+     * as {@link org.joda.time.Years#yearsBetween(org.joda.time.ReadableInstant, org.joda.time.ReadableInstant)}.
+     *
+     * A year starting on February 29th is considered whole on February 28th of a non-leap year.
+     *
+     * @param start start date
+     * @param end end date
+     * @return whole years from start to end, negative if end is before start
+     */
+    static int yearsBetween(int[] start, int[] end) {
+        if (compare(end, start) < 0)
+            return -yearsBetween(end, start);
+
+        int startDayOfYear = getDayOfYear(start);
+        int endDayOfYear = getDayOfYear(end);
+
+        // day of year after February is one higher in a leap year
+        if (startDayOfYear > 59 && DateUtils.isLeapYear(start[0])) {
+            if (!DateUtils.isLeapYear(end[0]))
+                startDayOfYear--;
+        } else if (endDayOfYear > 59 && DateUtils.isLeapYear(end[0])) {
+            endDayOfYear--;
+        }
+
+        int years = end[0] - start[0];
+        if (endDayOfYear < startDayOfYear)
+            years--;
+
+        return years;
+    }
+
+    private static int getDayOfYear(int[] date) {
+        return (int) (DateUtils.toEpochDay(date[0], date[1], date[2]) - DateUtils.toEpochDay(date[0], 1, 1)) + 1;
+    }
+
+    private static int compare(int[] a, int[] b) {
+        for (int i = 0; i < 3; i++)
+            if (a[i] != b[i])
+                return a[i] < b[i] ? -1 : 1;
+        return 0;
+    }
+}
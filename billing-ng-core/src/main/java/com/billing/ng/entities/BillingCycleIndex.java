@@ -0,0 +1,267 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.util.DateUtils;
+import org.joda.time.DateMidnight;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Index of billing cycles by the date range that they are active, answering which billing
+ * cycles were active on a given date or during a given period without checking every cycle.
+ * A billing cycle is active from its start date to its end date inclusive, the same as
+ * {@link BillingCycle#isActive(org.joda.time.DateMidnight)}. Cycles without an end date
+ * are active indefinitely.
+ *
+ * Billing cycles are held in an interval tree, a balanced binary search tree (a treap) ordered
+ * by start date where each node also holds the latest end date in its subtree. Subtrees that end
+ * before the queried date or start after it are skipped entirely. Adding, updating and removing a
+ * billing cycle take O(log n) expected time.
+ *
+ * The index holds the start and end date of each cycle as of when it was added, so a cycle must
+ * be {@link #update(BillingCycle) updated} in the index when its start or end date is changed.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class BillingCycleIndex {
+
+    private static class Node {
+        private final BillingCycle cycle;
+        private final long start;
+        private final long end;
+        private final long sequence;
+        private final int priority;
+
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(BillingCycle cycle, long start, long end, long sequence, int priority) {
+            this.cycle = cycle;
+            this.start = start;
+            this.end = end;
+            this.sequence = sequence;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        /** Orders nodes by start date, and by insertion order for cycles with the same start date. */
+        private int compareTo(Node node) {
+            if (start != node.start)
+                return start < node.start ? -1 : 1;
+            return sequence < node.sequence ? -1 : (sequence == node.sequence ? 0 : 1);
+        }
+
+        private void updateMaxEnd() {
+            maxEnd = end;
+            if (left != null && left.maxEnd > maxEnd) maxEnd = left.maxEnd;
+            if (right != null && right.maxEnd > maxEnd) maxEnd = right.maxEnd;
+        }
+    }
+
+    private final Map<BillingCycle, Node> nodes = new HashMap<BillingCycle, Node>();
+    private final Random random = new Random();
+
+    private Node root;
+    private long sequence;
+
+    public BillingCycleIndex() {
+    }
+
+    public BillingCycleIndex(Collection<BillingCycle> cycles) {
+        for (BillingCycle cycle : cycles)
+            add(cycle);
+    }
+
+    /**
+     * Adds the given billing cycle to the index. If the cycle is already indexed, the index
+     * is updated with the current start and end date of the cycle.
+     *
+     * @param cycle billing cycle to add
+     */
+    public synchronized void add(BillingCycle cycle) {
+        Node existing = nodes.remove(cycle);
+        if (existing != null)
+            root = delete(root, existing);
+
+        long start = cycle.getStart() != null ? DateUtils.toEpochDay(cycle.getStart()) : Long.MIN_VALUE;
+        long end = cycle.getEnd() != null ? DateUtils.toEpochDay(cycle.getEnd()) : Long.MAX_VALUE;
+
+        Node node = new Node(cycle, start, end, sequence++, random.nextInt());
+        nodes.put(cycle, node);
+        root = insert(root, node);
+    }
+
+    /**
+     * Updates the indexed start and end date of the given billing cycle, for example after the
+     * billing cycle has been ended. Equivalent to {@link #add(BillingCycle)}.
+     *
+     * @param cycle billing cycle to update
+     */
+    public void update(BillingCycle cycle) {
+        add(cycle);
+    }
+
+    /**
+     * Removes the given billing cycle from the index.
+     *
+     * @param cycle billing cycle to remove
+     * @return true if the cycle was indexed, false if not
+     */
+    public synchronized boolean remove(BillingCycle cycle) {
+        Node node = nodes.remove(cycle);
+        if (node == null)
+            return false;
+
+        root = delete(root, node);
+        return true;
+    }
+
+    /**
+     * Returns true if the given billing cycle is indexed.
+     *
+     * @param cycle billing cycle to check
+     * @return true if indexed, false if not
+     */
+    public synchronized boolean contains(BillingCycle cycle) {
+        return nodes.containsKey(cycle);
+    }
+
+    /**
+     * Returns the number of indexed billing cycles.
+     *
+     * @return number of billing cycles
+     */
+    public synchronized int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns all billing cycles active on the given date, in order of start date.
+     *
+     * @param date active date
+     * @return active billing cycles
+     */
+    public List<BillingCycle> findActive(DateMidnight date) {
+        return findActive(date, date);
+    }
+
+    /**
+     * Returns all billing cycles active at any time between the given dates inclusive,
+     * in order of start date.
+     *
+     * @param from start of period
+     * @param to end of period
+     * @return active billing cycles
+     */
+    public synchronized List<BillingCycle> findActive(DateMidnight from, DateMidnight to) {
+        List<BillingCycle> active = new ArrayList<BillingCycle>();
+        find(root, DateUtils.toEpochDay(from), DateUtils.toEpochDay(to), active);
+        return active;
+    }
+
+    private static void find(Node node, long from, long to, List<BillingCycle> active) {
+        // no cycle in this subtree ends on or after the start of the period
+        while (node != null && node.maxEnd >= from) {
+            find(node.left, from, to, active);
+
+            // this cycle and all cycles in the right subtree start after the period
+            if (node.start > to)
+                return;
+
+            if (node.end >= from)
+                active.add(node.cycle);
+
+            node = node.right;
+        }
+    }
+
+    private Node insert(Node root, Node node) {
+        if (root == null)
+            return node;
+
+        if (node.compareTo(root) < 0) {
+            root.left = insert(root.left, node);
+            if (root.left.priority > root.priority)
+                root = rotateRight(root);
+        } else {
+            root.right = insert(root.right, node);
+            if (root.right.priority > root.priority)
+                root = rotateLeft(root);
+        }
+
+        root.updateMaxEnd();
+        return root;
+    }
+
+    private Node delete(Node root, Node node) {
+        if (root == null)
+            return null;
+
+        int compare = node.compareTo(root);
+        if (compare < 0) {
+            root.left = delete(root.left, node);
+        } else if (compare > 0) {
+            root.right = delete(root.right, node);
+        } else {
+            // rotate the node down until it is a leaf, keeping the higher priority child on top
+            if (root.left == null)
+                return root.right;
+            if (root.right == null)
+                return root.left;
+
+            if (root.left.priority > root.right.priority) {
+                root = rotateRight(root);
+                root.right = delete(root.right, node);
+            } else {
+                root = rotateLeft(root);
+                root.left = delete(root.left, node);
+            }
+        }
+
+        root.updateMaxEnd();
+        return root;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+
+        node.updateMaxEnd();
+        left.updateMaxEnd();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+
+        node.updateMaxEnd();
+        right.updateMaxEnd();
+        return right;
+    }
+}
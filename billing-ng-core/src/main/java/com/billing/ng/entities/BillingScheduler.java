@@ -0,0 +1,302 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.util.DateUtils;
+import org.joda.time.DateMidnight;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Schedules accounts for billing runs by the next run date of their billing cycle
+ * (see {@link BillingCycle#getNextRun()}), allowing a billing run to take only the
+ * accounts that are due without calculating the current cycle of every account.
+ *
+ * Accounts are held in a binary min-heap ordered by next run date, with the heap position of
+ * each account tracked so that an account can be re-scheduled or removed without searching
+ * the heap. Scheduling, re-scheduling and removing an account take O(log n) time, and taking
+ * the k accounts that are due takes O(k log n) time.
+ *
+ * A nightly billing run takes the due accounts, bills them, and re-schedules each billed
+ * account for the end of its next cycle:
+ * <code>
+ *      for (Account account : scheduler.pollDue(today)) {
+ *          ...
+ *          scheduler.schedule(account, today);
+ *      }
+ * </code>
+ *
+ * The scheduler can be rebuilt from the persisted next run dates using {@link #scheduleAll(java.util.Collection)}.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class BillingScheduler {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] runs = new long[INITIAL_CAPACITY];
+    private Account[] accounts = new Account[INITIAL_CAPACITY];
+    private int size;
+
+    private final Map<Account, Integer> positions = new HashMap<Account, Integer>();
+
+    public BillingScheduler() {
+    }
+
+    /**
+     * Calculates the next run of the given account's billing cycle after the given date, and
+     * schedules the account for that date. The calculated date is set as the next run of the
+     * billing cycle so that it can be persisted. If the billing cycle has ended, the account
+     * is removed from the schedule and the next run is cleared.
+     *
+     * @param account account to schedule
+     * @param today date to calculate the next run from
+     * @return next run date, or null if the account has no further runs
+     * @throws IllegalArgumentException if the account does not have a billing cycle
+     */
+    public synchronized DateMidnight schedule(Account account, DateMidnight today) {
+        BillingCycle cycle = getBillingCycle(account);
+        DateMidnight next = cycle.scheduleNextRun(today);
+        schedule(account, cycle);
+
+        return next;
+    }
+
+    /**
+     * Schedules the given account for the persisted next run of its billing cycle. If the
+     * billing cycle does not have a next run, the account is removed from the schedule.
+     *
+     * @param account account to schedule
+     * @throws IllegalArgumentException if the account does not have a billing cycle
+     */
+    public synchronized void schedule(Account account) {
+        schedule(account, getBillingCycle(account));
+    }
+
+    /**
+     * Schedules all the given accounts for the persisted next run of their billing cycle,
+     * replacing any accounts already scheduled. Accounts without a next run are not scheduled.
+     *
+     * The schedule is built in a single pass in O(n) time rather than scheduling each account
+     * individually, making this the preferred way to load the schedule from the database.
+     *
+     * @param accounts accounts to schedule
+     * @throws IllegalArgumentException if an account does not have a billing cycle
+     */
+    public synchronized void scheduleAll(Collection<Account> accounts) {
+        clear();
+        ensureCapacity(accounts.size());
+
+        for (Account account : accounts) {
+            Date nextRun = getBillingCycle(account).getNextRun();
+            if (nextRun != null && !positions.containsKey(account)) {
+                this.runs[size] = DateUtils.toEpochDay(nextRun);
+                this.accounts[size] = account;
+                positions.put(account, size);
+                size++;
+            }
+        }
+
+        // heapify from the last parent node up
+        for (int i = (size >>> 1) - 1; i >= 0; i--)
+            siftDown(i);
+    }
+
+    /**
+     * Removes and returns all accounts scheduled to run on or before the given date,
+     * in order of next run date.
+     *
+     * @param today date of the billing run
+     * @return due accounts, empty if no accounts are due
+     */
+    public synchronized List<Account> pollDue(DateMidnight today) {
+        long day = DateUtils.toEpochDay(today);
+
+        List<Account> due = new ArrayList<Account>();
+        while (size > 0 && runs[0] <= day) {
+            due.add(accounts[0]);
+            removeAt(0);
+        }
+        return due;
+    }
+
+    /**
+     * Removes the given account from the schedule.
+     *
+     * @param account account to remove
+     * @return true if the account was scheduled, false if not
+     */
+    public synchronized boolean remove(Account account) {
+        Integer position = positions.get(account);
+        if (position == null)
+            return false;
+
+        removeAt(position);
+        return true;
+    }
+
+    /**
+     * Returns true if the given account is scheduled.
+     *
+     * @param account account to check
+     * @return true if scheduled, false if not
+     */
+    public synchronized boolean isScheduled(Account account) {
+        return positions.containsKey(account);
+    }
+
+    /**
+     * Returns the earliest scheduled run date.
+     *
+     * @return earliest run date, or null if no accounts are scheduled
+     */
+    public synchronized DateMidnight getNextRun() {
+        return size > 0 ? DateUtils.toDateMidnight(runs[0]) : null;
+    }
+
+    /**
+     * Returns the number of scheduled accounts.
+     *
+     * @return number of scheduled accounts
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes all accounts from the schedule.
+     */
+    public synchronized void clear() {
+        Arrays.fill(accounts, 0, size, null);
+        positions.clear();
+        size = 0;
+    }
+
+    private static BillingCycle getBillingCycle(Account account) {
+        BillingCycle cycle = account.getBillingCycle();
+        if (cycle == null)
+            throw new IllegalArgumentException("Account " + account.getNumber() + " does not have a billing cycle.");
+        return cycle;
+    }
+
+    private void schedule(Account account, BillingCycle cycle) {
+        Integer position = positions.get(account);
+
+        if (cycle.getNextRun() == null) {
+            if (position != null)
+                removeAt(position);
+            return;
+        }
+
+        long day = DateUtils.toEpochDay(cycle.getNextRun());
+
+        if (position != null) {
+            // re-schedule in place, moving the account towards the root or leaves
+            long previous = runs[position];
+            runs[position] = day;
+
+            if (day < previous) {
+                siftUp(position);
+            } else {
+                siftDown(position);
+            }
+
+        } else {
+            ensureCapacity(size + 1);
+            runs[size] = day;
+            accounts[size] = account;
+            positions.put(account, size);
+            siftUp(size++);
+        }
+    }
+
+    private void removeAt(int position) {
+        positions.remove(accounts[position]);
+        int last = --size;
+
+        if (position != last) {
+            // fill the hole with the last leaf, and restore heap order from there
+            move(last, position);
+            siftDown(position);
+            siftUp(position);
+        }
+
+        accounts[last] = null;
+    }
+
+    private void siftUp(int position) {
+        long day = runs[position];
+        Account account = accounts[position];
+
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (runs[parent] <= day)
+                break;
+
+            move(parent, position);
+            position = parent;
+        }
+
+        set(position, day, account);
+    }
+
+    private void siftDown(int position) {
+        long day = runs[position];
+        Account account = accounts[position];
+        int half = size >>> 1;
+
+        while (position < half) {
+            int child = (position << 1) + 1;
+            if (child + 1 < size && runs[child + 1] < runs[child])
+                child++;
+
+            if (day <= runs[child])
+                break;
+
+            move(child, position);
+            position = child;
+        }
+
+        set(position, day, account);
+    }
+
+    private void move(int from, int to) {
+        set(to, runs[from], accounts[from]);
+    }
+
+    private void set(int position, long day, Account account) {
+        runs[position] = day;
+        accounts[position] = account;
+        positions.put(account, position);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > runs.length) {
+            int length = Math.max(capacity, runs.length << 1);
+            runs = Arrays.copyOf(runs, length);
+            accounts = Arrays.copyOf(accounts, length);
+        }
+    }
+}
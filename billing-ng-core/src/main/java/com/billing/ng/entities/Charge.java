@@ -17,8 +17,10 @@
 
 package com.billing.ng.entities;
 
+import org.hibernate.annotations.Columns;
+import org.hibernate.annotations.Type;
+
 import javax.persistence.Column;
-import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
@@ -44,7 +46,12 @@ public class Charge extends BaseEntity {
     @ManyToOne
     private PurchaseOrderLine line;
     
-    @Embedded
+    @Type(type = "com.billing.ng.entities.MoneyType")
+    @Columns(columns = {
+            @Column(name = "value", nullable = false),
+            @Column(name = "scale", nullable = false),
+            @Column(name = "currency_code", nullable = false, length = 3)
+    })
     private Money amount;
 
     @Column
@@ -76,8 +83,18 @@ public class Charge extends BaseEntity {
         return amount;
     }
 
+    /**
+     * Sets the amount of this charge. If the charge belongs to an order line, the change is
+     * applied to the line and order totals and to the rollups of the account holding the order.
+     *
+     * @param amount charge amount
+     */
     public void setAmount(Money amount) {
+        Money previous = this.amount;
         this.amount = amount;
+
+        if (line != null && previous != amount)
+            line.updateTotal(previous, amount);
     }
 
     @XmlAttribute
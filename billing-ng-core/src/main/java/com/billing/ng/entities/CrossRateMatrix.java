@@ -0,0 +1,217 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.entities.context.MoneyRoundingModeHolder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Dense matrix of cross-rates between all currencies of a {@link RateTable.Snapshot}, indexed
+ * by a currency ordinal assigned when the matrix is built.
+ *
+ * Conversions are performed on minor units using long arithmetic and round exactly as
+ * {@link Money#convert(Money)} does: the amount is first divided by the rate of the source currency
+ * at the scale of that rate, then multiplied by the rate of the target currency and rounded to the
+ * target currency precision. The integral multipliers and divisors for both steps are precomputed
+ * for each pair of currencies. If a rate cannot be represented this way or an intermediate value
+ * overflows, the conversion falls back to <code>BigDecimal</code> math.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+final class CrossRateMatrix {
+
+    private final int size;
+    private final Currency[] currencies;
+    private final Rate[] rates;
+    private final Map<String, Integer> indexes;
+
+    // first step, divide by the source rate at the scale of the source rate (per source currency)
+    private final long[] pivotMultipliers;
+    private final long[] pivotDivisors;
+
+    // second step, multiply by the target rate and round to target precision (per pair, [from * size + to])
+    private final long[] multipliers;
+    private final long[] divisors;
+
+    CrossRateMatrix(Collection<Rate> list) {
+        Map<String, Integer> indexes = new HashMap<String, Integer>();
+        Currency[] currencies = new Currency[list.size()];
+        Rate[] rates = new Rate[list.size()];
+
+        int size = 0;
+        for (Rate rate : list) {
+            Currency currency;
+            try {
+                currency = Currency.getInstance(rate.getCurrencyCode());
+            } catch (IllegalArgumentException e) {
+                continue; // not an ISO 4217 currency, cannot be converted as money
+            }
+
+            if (rate.getRate() == null || rate.getRate().signum() <= 0)
+                continue;
+
+            indexes.put(currency.getCurrencyCode(), size);
+            currencies[size] = currency;
+            rates[size] = rate;
+            size++;
+        }
+
+        this.size = size;
+        this.currencies = currencies;
+        this.rates = rates;
+        this.indexes = indexes;
+
+        this.pivotMultipliers = new long[size];
+        this.pivotDivisors = new long[size];
+        this.multipliers = new long[size * size];
+        this.divisors = new long[size * size];
+
+        for (int from = 0; from < size; from++) {
+            BigDecimal fromRate = rates[from].getRate();
+            int digits = currencies[from].getDefaultFractionDigits();
+
+            try {
+                // pivot = units * 10^(2 * rate scale - digits) / unscaled rate
+                long[] pivot = factors(MoneyMath.unscaled(fromRate), 1, 2 * fromRate.scale() - digits);
+                pivotMultipliers[from] = pivot[1];
+                pivotDivisors[from] = pivot[0];
+            } catch (ArithmeticException e) {
+                continue; // always convert from this currency using BigDecimal math
+            }
+
+            for (int to = 0; to < size; to++) {
+                BigDecimal toRate = rates[to].getRate();
+                int shift = currencies[to].getDefaultFractionDigits() - fromRate.scale() - toRate.scale();
+
+                try {
+                    // converted = pivot * unscaled rate * 10^(target digits - source rate scale - target rate scale)
+                    long[] factors = factors(1, MoneyMath.unscaled(toRate), shift);
+                    multipliers[from * size + to] = factors[1];
+                    divisors[from * size + to] = factors[0];
+                } catch (ArithmeticException e) {
+                    // divisor left at zero, convert between this pair using BigDecimal math
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the divisor and multiplier for <code>x * multiplier * 10^exponent / divisor</code>
+     * as a pair of integral values, moving the power of ten into whichever side keeps it positive.
+     *
+     * @param divisor divisor
+     * @param multiplier multiplier
+     * @param exponent power of ten exponent
+     * @return array of { divisor, multiplier }
+     * @throws ArithmeticException if either value overflows a long
+     */
+    private static long[] factors(long divisor, long multiplier, int exponent) {
+        if (Math.abs(exponent) >= MoneyMath.POWERS_OF_TEN.length)
+            throw new ArithmeticException("Exponent too large: " + exponent);
+
+        return exponent >= 0
+               ? new long[] { divisor, MoneyMath.multiply(multiplier, MoneyMath.POWERS_OF_TEN[exponent]) }
+               : new long[] { MoneyMath.multiply(divisor, MoneyMath.POWERS_OF_TEN[-exponent]), multiplier };
+    }
+
+    /**
+     * Converts an amount in minor units using the given unscaled rates, without a precomputed
+     * matrix entry. Rounds exactly as {@link Money#convert(Money)} does.
+     *
+     * @param units amount in minor units of the source currency
+     * @param fromRate unscaled rate of the source currency
+     * @param fromScale scale of the source currency rate
+     * @param fromDigits fraction digits of the source currency
+     * @param toRate unscaled rate of the target currency
+     * @param toScale scale of the target currency rate
+     * @param toDigits fraction digits of the target currency
+     * @param roundingMode rounding mode
+     * @return converted amount in minor units of the target currency
+     * @throws ArithmeticException if any intermediate value overflows a long
+     */
+    static long convert(long units, long fromRate, int fromScale, int fromDigits,
+                        long toRate, int toScale, int toDigits, RoundingMode roundingMode) {
+
+        int pivotShift = 2 * fromScale - fromDigits;
+        long pivot = pivotShift >= 0
+                     ? MoneyMath.divide(MoneyMath.multiply(units, powerOfTen(pivotShift)), fromRate, roundingMode)
+                     : MoneyMath.divide(units, MoneyMath.multiply(fromRate, powerOfTen(-pivotShift)), roundingMode);
+
+        int shift = toDigits - fromScale - toScale;
+        long converted = MoneyMath.multiply(pivot, toRate);
+        return shift >= 0
+               ? MoneyMath.multiply(converted, powerOfTen(shift))
+               : MoneyMath.divide(converted, powerOfTen(-shift), roundingMode);
+    }
+
+    private static long powerOfTen(int exponent) {
+        if (exponent >= MoneyMath.POWERS_OF_TEN.length)
+            throw new ArithmeticException("Exponent too large: " + exponent);
+
+        return MoneyMath.POWERS_OF_TEN[exponent];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int indexOf(String currencyCode) {
+        Integer index = indexes.get(currencyCode);
+        return index != null ? index : -1;
+    }
+
+    Currency getCurrency(int index) {
+        return currencies[index];
+    }
+
+    /**
+     * Converts an amount in minor units between the currencies at the given indexes.
+     *
+     * @param units amount in minor units of the source currency
+     * @param from index of the source currency
+     * @param to index of the target currency
+     * @return converted amount in minor units of the target currency
+     * @throws ArithmeticException if the converted amount does not fit in a long
+     */
+    long convert(long units, int from, int to) {
+        if (from == to)
+            return units;
+
+        int pair = from * size + to;
+        if (divisors[pair] != 0) {
+            try {
+                RoundingMode roundingMode = MoneyRoundingModeHolder.GetRoundingMode();
+                long pivot = MoneyMath.divide(MoneyMath.multiply(units, pivotMultipliers[from]), pivotDivisors[from], roundingMode);
+                return MoneyMath.divide(MoneyMath.multiply(pivot, multipliers[pair]), divisors[pair], roundingMode);
+
+            } catch (ArithmeticException e) {
+                // intermediate overflow, fall through to BigDecimal math
+            }
+        }
+
+        BigDecimal value = BigDecimal.valueOf(units, currencies[from].getDefaultFractionDigits());
+        return MoneyMath.unscaled(Money.convert(value, rates[from], rates[to], currencies[to].getDefaultFractionDigits()));
+    }
+}
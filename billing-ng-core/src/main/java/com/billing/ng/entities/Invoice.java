@@ -0,0 +1,198 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import org.hibernate.annotations.Columns;
+import org.hibernate.annotations.Type;
+import org.hibernate.annotations.Where;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Invoice of the purchase orders accrued by an account up to a billing date. Invoices
+ * are generated in bulk by an {@link InvoiceRun}.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Entity
+@XmlRootElement
+public class Invoice extends BaseEntity implements Numbered, Totaled {
+
+    @Id @GeneratedValue
+    private Long id;
+
+    @Column
+    private String number;
+
+    @ManyToOne
+    @Where(clause = "type = INVOICE")
+    private NumberPattern numberPattern;
+
+    @ManyToOne
+    private Account account;
+
+    @ManyToOne
+    private InvoiceRun run;
+
+    @Enumerated(EnumType.STRING)
+    @Column
+    private BillingType billingType;
+
+    @Column @Temporal(TemporalType.DATE)
+    private Date billingDate;
+
+    @OneToMany(mappedBy = "invoice")
+    private List<PurchaseOrder> purchaseOrders = new ArrayList<PurchaseOrder>();
+
+    @Type(type = "com.billing.ng.entities.MoneyType")
+    @Columns(columns = {
+            @Column(name = "value", nullable = false),
+            @Column(name = "scale", nullable = false),
+            @Column(name = "currency_code", nullable = false, length = 3)
+    })
+    private Money total;
+
+    public Invoice() {
+    }
+
+    @XmlAttribute
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @XmlAttribute
+    public String getNumber() {
+        return number;
+    }
+
+    public void setNumber(String number) {
+        this.number = number;
+    }
+
+    @XmlTransient
+    public NumberPattern getNumberPattern() {
+        return numberPattern;
+    }
+
+    public void setNumberPattern(NumberPattern numberPattern) {
+        this.numberPattern = numberPattern;
+    }
+
+    @PrePersist
+    public void generateNumber() {
+        if (getNumber() == null && getNumberPattern() != null)
+            setNumber(getNumberPattern().generate("invoice", this));
+    }
+
+    @XmlElement
+    public Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    @XmlTransient
+    public InvoiceRun getRun() {
+        return run;
+    }
+
+    public void setRun(InvoiceRun run) {
+        this.run = run;
+    }
+
+    @XmlElement
+    public BillingType getBillingType() {
+        return billingType;
+    }
+
+    public void setBillingType(BillingType billingType) {
+        this.billingType = billingType;
+    }
+
+    @XmlAttribute
+    public Date getBillingDate() {
+        return billingDate;
+    }
+
+    public void setBillingDate(Date billingDate) {
+        this.billingDate = billingDate;
+    }
+
+    @XmlElement
+    @XmlElementWrapper(name = "orders")
+    public List<PurchaseOrder> getPurchaseOrders() {
+        return purchaseOrders;
+    }
+
+    public void setPurchaseOrders(List<PurchaseOrder> purchaseOrders) {
+        this.purchaseOrders = purchaseOrders;
+    }
+
+    @XmlElement
+    public Money getTotal() {
+        if (total == null)
+            calculateTotal();
+
+        return total;
+    }
+
+    public void setTotal(Money total) {
+        this.total = total;
+    }
+
+    /**
+     * Re-calculates the total from the invoiced purchase orders. The total will be calculated in
+     * the currency of the existing total, or in the currency of the first order if no total has been set.
+     */
+    public void calculateTotal() {
+        MoneyAccumulator accumulator = new MoneyAccumulator();
+        for (PurchaseOrder order : getPurchaseOrders())
+            accumulator.add(order.getTotal());
+
+        if (total != null) {
+            total = accumulator.toMoney(total.getCurrency());
+        } else {
+            total = accumulator.toMoney();
+        }
+    }
+}
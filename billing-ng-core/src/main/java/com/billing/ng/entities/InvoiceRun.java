@@ -0,0 +1,185 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.Date;
+
+/**
+ * A bulk invoice run, billing all accounts that are due on the billing date. The run
+ * is the checkpoint of its progress: the counts are updated in the same transaction as
+ * each partition of invoices, so an interrupted run can be resumed where it left off.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Entity
+@XmlRootElement
+public class InvoiceRun extends BaseEntity {
+
+    public enum Status {
+        /** Run is in progress, or was interrupted and can be resumed. */
+        RUNNING,
+        /** All due accounts have been invoiced. */
+        COMPLETE,
+        /** One or more partitions failed, the run can be resumed to retry them. */
+        FAILED
+    }
+
+    @Id @GeneratedValue
+    private Long id;
+
+    @Column @Temporal(TemporalType.DATE)
+    private Date billingDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column
+    private Status status;
+
+    @Column @Temporal(TemporalType.TIMESTAMP)
+    private Date started;
+
+    @Column @Temporal(TemporalType.TIMESTAMP)
+    private Date finished;
+
+    @Column(nullable = false)
+    private long partitionCount = 0;
+
+    @Column(nullable = false)
+    private long accountCount = 0;
+
+    @Column(nullable = false)
+    private long invoiceCount = 0;
+
+    public InvoiceRun() {
+    }
+
+    public InvoiceRun(Date billingDate) {
+        this.billingDate = billingDate;
+    }
+
+    @XmlAttribute
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @XmlAttribute
+    public Date getBillingDate() {
+        return billingDate;
+    }
+
+    public void setBillingDate(Date billingDate) {
+        this.billingDate = billingDate;
+    }
+
+    @XmlAttribute
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    @XmlAttribute
+    public Date getStarted() {
+        return started;
+    }
+
+    public void setStarted(Date started) {
+        this.started = started;
+    }
+
+    @XmlAttribute
+    public Date getFinished() {
+        return finished;
+    }
+
+    public void setFinished(Date finished) {
+        this.finished = finished;
+    }
+
+    /**
+     * Returns the number of partitions completed by this run, including partitions
+     * completed before the run was resumed.
+     *
+     * @return number of completed partitions
+     */
+    @XmlAttribute
+    public long getPartitionCount() {
+        return partitionCount;
+    }
+
+    public void setPartitionCount(long partitionCount) {
+        this.partitionCount = partitionCount;
+    }
+
+    /**
+     * Returns the number of accounts billed by this run.
+     *
+     * @return number of billed accounts
+     */
+    @XmlAttribute
+    public long getAccountCount() {
+        return accountCount;
+    }
+
+    public void setAccountCount(long accountCount) {
+        this.accountCount = accountCount;
+    }
+
+    /**
+     * Returns the number of invoices generated by this run. Billed accounts without any
+     * un-invoiced purchase orders do not receive an invoice.
+     *
+     * @return number of invoices
+     */
+    @XmlAttribute
+    public long getInvoiceCount() {
+        return invoiceCount;
+    }
+
+    public void setInvoiceCount(long invoiceCount) {
+        this.invoiceCount = invoiceCount;
+    }
+
+    @Override
+    public String toString() {
+        return "InvoiceRun{"
+               + "id=" + id
+               + ", billingDate=" + billingDate
+               + ", status=" + status
+               + ", partitions=" + partitionCount
+               + ", accounts=" + accountCount
+               + ", invoices=" + invoiceCount
+               + '}';
+    }
+}
@@ -19,17 +19,17 @@ package com.billing.ng.entities;
 
 import com.billing.ng.entities.context.MoneyRoundingModeHolder;
 
-import javax.persistence.Column;
-import javax.persistence.Embeddable;
-import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
+import java.io.IOException;
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.nio.CharBuffer;
 import java.util.Currency;
+import java.util.Date;
 import java.util.Locale;
 
 /**
@@ -57,41 +57,38 @@ import java.util.Locale;
  *      gbp.add(usd); // "£13.42 GBP"
  * </code> 
  *
+ * Same-currency addition, subtraction, negation and comparison are performed on an integral
+ * "minor unit" representation of the value (see {@link #getLongValue()}) whenever the value fits
+ * in a long at the currency's default precision, falling back to <code>BigDecimal</code> math for
+ * conversions, multiplication, division and on overflow. Results are identical either way.
+ *
+ * Money is persisted by {@link MoneyType} as three columns: the integral value in minor
+ * units, the scale and the currency code.
+ *
  * @see RateTable
  *
  * @author Brian Cowdery
  * @since 11-Aug-2010
  */
-@Embeddable
 @XmlRootElement
-public class Money implements Serializable {
+public class Money implements Serializable, Comparable<Money> {
 
-    private static final String NON_DIGIT_REGEX = "^\\D*";
-    private static final String ALPHA_CHARACTER_REGEX = "[A-Za-z]";
-    private static final String BLANK = "";
-    private static final String WHITESPACE = " ";
+    private static final int DEFAULT_STRING_LENGTH = 32;
 
     private static RoundingMode RoundingMode() {
         return MoneyRoundingModeHolder.GetRoundingMode();
     }
 
 
-    @Transient
     private BigDecimal value;
-    @Transient
     private Currency currency;
 
-    // todo: this is an ugly solution, implement an XML type adaptor or Hibernate user type instead.
     /*
-        Persisted values derived from value and currency. These values are necessary
-        to allow both JPA and JAXB annotations to be mixed on the same class.
+        Value in minor units of the currency (e.g., pennies). Only valid when 'compact' is true, in which
+        case the BigDecimal value may be null and is created lazily from the minor units when accessed.
      */
-    @Column(name = "value", nullable = false, length = 22)
-    private long longValue;
-    @Column(name = "scale", nullable = false, length = 2)    
-    private int scale;
-    @Column(name = "currency_code", nullable = false, length = 3)
-    private String currencyCode;
+    private long units;
+    private boolean compact;
 
     public Money() {
     }
@@ -102,8 +99,10 @@ public class Money implements Serializable {
      */
     public Money(Money money) {
         // BigDecimal and Currency are both immutable or singleton - no need for defensive copies.
-        this.currency = money.getCurrency();     
-        this.value = money.getValue();
+        this.currency = money.getCurrency();
+        this.value = money.value;
+        this.units = money.units;
+        this.compact = money.compact;
     }
 
     /**
@@ -114,6 +113,22 @@ public class Money implements Serializable {
     public Money(BigDecimal value, Currency currency) {
         this.currency = currency;
         this.value = value.setScale(currency.getDefaultFractionDigits(), RoundingMode());
+        updateUnits();
+    }
+
+    /**
+     * Constructs money from an integral value in minor units of the given currency, where
+     * the number of decimal places is the currency's default fraction digits.
+     *
+     * Example: <code>new Money(2000L, Currency.getInstance("USD")); // "$20.00 USD"</code>
+     *
+     * @param units integral value in minor units (e.g., pennies)
+     * @param currency currency
+     */
+    public Money(long units, Currency currency) {
+        this.currency = currency;
+        this.units = units;
+        this.compact = true;
     }
 
     /**
@@ -124,6 +139,7 @@ public class Money implements Serializable {
     public Money(BigDecimal value, Locale locale) {
         this.currency = Currency.getInstance(locale);
         this.value = value.setScale(currency.getDefaultFractionDigits(), RoundingMode());
+        updateUnits();
     }
 
     /**
@@ -132,14 +148,13 @@ public class Money implements Serializable {
      *
      * Examples:
      *      new Money("$5.95 USD");
+     *      new Money("-$5.95 USD");
      *      new Money("10.20 GBP");
      *
      * @param amount monetary amount string and currency code
      */
     public Money(String amount) {
-        String[] values = amount.trim().replaceAll(NON_DIGIT_REGEX, BLANK).split(WHITESPACE);
-        setCurrencyCode(values[1]);
-        this.value = new BigDecimal(values[0]).setScale(currency.getDefaultFractionDigits(), RoundingMode());
+        MoneyFormat.parse(amount, null, this);
     }
 
     /**
@@ -150,9 +165,7 @@ public class Money implements Serializable {
      * @param currencyCode currency
      */
     public Money(String amount, String currencyCode) {
-        setCurrencyCode(currencyCode);
-        this.value = new BigDecimal(amount.trim().replaceAll(NON_DIGIT_REGEX, BLANK))
-                .setScale(this.currency.getDefaultFractionDigits(), RoundingMode());
+        MoneyFormat.parse(amount, Currency.getInstance(currencyCode), this);
     }
 
     /**
@@ -164,21 +177,142 @@ public class Money implements Serializable {
      * @param currencyCode currency
      */
     public Money(long value, int scale, String currencyCode) {
-        setCurrencyCode(currencyCode);
-        this.value = new BigDecimal(BigInteger.valueOf(value), scale);
+        this.currency = Currency.getInstance(currencyCode);
+
+        if (scale == currency.getDefaultFractionDigits()) {
+            this.units = value;
+            this.compact = true;
+
+        } else {
+            // shouldn't be necessary... but scale should match the given currency
+            this.value = new BigDecimal(BigInteger.valueOf(value), scale)
+                    .setScale(currency.getDefaultFractionDigits(), RoundingMode());
+            updateUnits();
+        }
+    }
+
+    /**
+     * Parses money from a simple monetary string representation of the value and
+     * currency, e.g. "$5.95 USD" or "10.20 GBP".
+     *
+     * @param amount monetary amount string and currency code
+     * @return parsed money
+     */
+    public static Money parse(CharSequence amount) {
+        Money money = new Money();
+        MoneyFormat.parse(amount, null, money);
+        return money;
+    }
+
+    /**
+     * Parses money from a monetary amount string "$29.95" which may optionally
+     * contain a monetary symbol.
+     *
+     * @param amount monetary amount string
+     * @param currency currency
+     * @return parsed money
+     */
+    public static Money parse(CharSequence amount, Currency currency) {
+        Money money = new Money();
+        MoneyFormat.parse(amount, currency, money);
+        return money;
+    }
 
-        // shouldn't be necessary... but scale should match the given currency
-        if (this.value.scale() != this.currency.getDefaultFractionDigits())
-            this.value = this.value.setScale(this.currency.getDefaultFractionDigits(), RoundingMode());
+    /**
+     * Parses an array of monetary amount strings of the same currency, as per
+     * {@link #parse(CharSequence, java.util.Currency)}.
+     *
+     * @param amounts monetary amount strings
+     * @param currency currency of all amounts
+     * @return parsed money, in the same order as the given amounts
+     */
+    public static Money[] parseAll(CharSequence[] amounts, Currency currency) {
+        Money[] money = new Money[amounts.length];
+        for (int i = 0; i < amounts.length; i++) {
+            money[i] = new Money();
+            MoneyFormat.parse(amounts[i], currency, money[i]);
+        }
+        return money;
+    }
+
+    /**
+     * Initializes this money with a value in minor units. Used by {@link MoneyFormat} when parsing.
+     *
+     * @param units integral value in minor units
+     * @param currency currency
+     */
+    void init(long units, Currency currency) {
+        this.currency = currency;
+        this.value = null;
+        this.units = units;
+        this.compact = true;
+    }
+
+    /**
+     * Initializes this money with a decimal value. Used by {@link MoneyFormat} when parsing.
+     *
+     * @param value value at the currency's default precision
+     * @param currency currency
+     */
+    void init(BigDecimal value, Currency currency) {
+        this.currency = currency;
+        this.value = value;
+        updateUnits();
+    }
+
+    /**
+     * Refreshes the minor unit representation from the current BigDecimal value. Money
+     * is only "compact" if the value is at the currency's default precision and the unscaled
+     * value fits in a long.
+     */
+    private void updateUnits() {
+        compact = value != null
+                  && currency != null
+                  && value.scale() == currency.getDefaultFractionDigits()
+                  && value.precision() < 19;
+
+        if (compact)
+            units = value.unscaledValue().longValue();
+    }
+
+    /**
+     * Returns true if the given money can be summed with this money using the
+     * minor unit representation (both compact and of the same currency).
+     *
+     * @param money money to check
+     * @return true if minor units can be used
+     */
+    private boolean isCompactWith(Money money) {
+        return compact && money.compact && currency.equals(money.currency);
+    }
+
+    /**
+     * Returns true if the value of this money is held as an integral number of minor units.
+     * @return true if compact
+     */
+    boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Returns the value in minor units. Only valid if {@link #isCompact()} returns true.
+     * @return minor units
+     */
+    long getUnits() {
+        return units;
     }
 
     @XmlAttribute(name = "amount")
     public BigDecimal getValue() {
+        if (value == null && compact)
+            value = BigDecimal.valueOf(units, currency.getDefaultFractionDigits());
+
         return value;
     }
 
     public void setValue(BigDecimal value) {
         this.value = value;
+        updateUnits();
     }
 
     /**
@@ -191,26 +325,7 @@ public class Money implements Serializable {
      */
     @XmlAttribute(name = "integral_amount")
     public long getLongValue() {
-        longValue = value.movePointRight(value.scale()).longValueExact();
-        return longValue; 
-    }
-
-    /**
-     * Explicitly sets the monetary value of this Money instance. This method is intended
-     * to be used by Hibernate when instantiating Money and should not be used in client code.
-     *
-     * Set long value first to ensure precision by when setting scale.
-     *
-     * <strong>Warning! It's possible to construct an incomplete Money instance by failing to set currency!</strong>
-     *
-     * @param value long value
-     */
-    @Deprecated // todo: remove when a better solution is found
-    public void setLongValue(long value) {        
-        this.value = new BigDecimal(BigInteger.valueOf(value));
-
-        if (this.currency != null)
-            setScale(this.currency.getDefaultFractionDigits());
+        return compact ? units : value.movePointRight(value.scale()).longValueExact();
     }
 
     /**
@@ -221,21 +336,22 @@ public class Money implements Serializable {
      */
     @XmlAttribute(name = "decimal_places")
     public int getScale() {
-        scale = value.scale();
-        return scale;
+        return compact ? currency.getDefaultFractionDigits() : value.scale();
     }
 
     /**
-     * Explicitly sets the scale of this Money instance. This method is intended to
-     * be used by Hibernate when instantiating Money and should not be used in client code.
-     *
-     * Set scale last to ensure precision.
+     * Explicitly sets the scale of this Money instance, moving the decimal point of the
+     * current value left by the given number of places. Used when un-marshalling from XML.
      *
      * @param scale scale of money
      */
     public void setScale(int scale) {
+        getValue();
+
         if (value != null && value.scale() != scale)
             value = value.movePointLeft(scale);
+
+        updateUnits();
     }
 
     @XmlTransient
@@ -244,32 +360,24 @@ public class Money implements Serializable {
     }
 
     public void setCurrency(Currency currency) {
+        getValue();
         this.currency = currency;
+        updateUnits();
     }
 
     @XmlAttribute(name = "currency")
     public String getCurrencyCode() {
-        currencyCode = currency.getCurrencyCode();
-        return currencyCode;
+        return currency.getCurrencyCode();
     }
 
     /**
-     * Explicitly sets the currency code of this Money instance. This method also shifts
-     * the decimal place of the monetary value to the preferred currency fractional digits.
-     *
-     * This method is intended to be used by Hibernate when instantiating Money
-     * and should not be used in client code.
+     * Sets the currency from the given currency code when un-marshalling from XML.
      *
-     * <strong>Warning! It's possible to construct an incomplete Money instance by failing to set the integral value!</strong>
-     *
-     * @param currency currency code string
+     * @param currencyCode currency code string
      */
-    @Deprecated // todo: remove when a better solution is found
-    public void setCurrencyCode(String currency) {
-        this.currency = Currency.getInstance(currency);
-
-        if (value != null && value.scale() != this.currency.getDefaultFractionDigits())
-            setScale(this.currency.getDefaultFractionDigits());
+    @SuppressWarnings("unused")
+    private void setCurrencyCode(String currencyCode) {
+        setCurrency(Currency.getInstance(currencyCode));
     }
 
     /**
@@ -279,7 +387,13 @@ public class Money implements Serializable {
      * @return sum total
      */
     public Money add(Money money) {
-        return new Money(value.add(convert(money).getValue()), currency);
+        if (isCompactWith(money)) {
+            long sum = units + money.units;
+            if (((units ^ sum) & (money.units ^ sum)) >= 0) // no overflow
+                return new Money(sum, currency);
+        }
+
+        return new Money(getValue().add(convert(money).getValue()), currency);
     }
 
     /**
@@ -289,7 +403,13 @@ public class Money implements Serializable {
      * @return subtracted total
      */
     public Money subtract(Money money) {
-        return new Money(value.subtract(convert(money).getValue()), currency);
+        if (isCompactWith(money)) {
+            long difference = units - money.units;
+            if (((units ^ money.units) & (units ^ difference)) >= 0) // no overflow
+                return new Money(difference, currency);
+        }
+
+        return new Money(getValue().subtract(convert(money).getValue()), currency);
     }
 
     /**
@@ -308,7 +428,7 @@ public class Money implements Serializable {
      * @return product
      */
     public Money multiply(BigDecimal multiplicand) {
-        return new Money(value.multiply(multiplicand), currency);
+        return new Money(getValue().multiply(multiplicand), currency);
     }
 
     /**
@@ -327,7 +447,114 @@ public class Money implements Serializable {
      * @return dividend
      */
     public Money divide(BigDecimal divisor) {
-        return new Money(value.divide(divisor), currency);
+        return new Money(getValue().divide(divisor), currency);
+    }
+
+    /**
+     * Allocates this amount across parts according to the given ratios without losing
+     * any minor units. Each part receives its share rounded down, then any remaining units
+     * are handed out one at a time to the parts in order, so the parts always sum to exactly
+     * this amount.
+     *
+     * Example, allocating 5 cents 30/70:
+     * <code>
+     *      new Money("0.05 USD").allocate(new long[] { 3, 7 }); // [ "$0.02 USD", "$0.03 USD" ]
+     * </code>
+     *
+     * @param ratios ratio of each part, must be non-negative with a positive sum
+     * @return allocated parts in the currency of this amount
+     * @throws IllegalArgumentException if the ratios are invalid
+     */
+    public Money[] allocate(long[] ratios) {
+        return toMoney(allocate(ratios, new long[ratios.length]));
+    }
+
+    /**
+     * Allocates this amount across parts according to the given ratios, writing each share
+     * in minor units into the given array. Bulk form of {@link #allocate(long[])} that does
+     * not create a Money instance per part.
+     *
+     * @param ratios ratio of each part, must be non-negative with a positive sum
+     * @param units array to write the share of each part into, at least as long as ratios
+     * @return the given units array
+     * @throws IllegalArgumentException if the ratios are invalid or the units array is too small
+     */
+    public long[] allocate(long[] ratios, long[] units) {
+        MoneyMath.allocate(getMinorUnits(), ratios, units);
+        return units;
+    }
+
+    /**
+     * Splits this amount into the given number of equal parts without losing any minor units.
+     * Any remaining units are handed out one at a time to the first parts.
+     *
+     * Example:
+     * <code>
+     *      new Money("10.00 USD").split(3); // [ "$3.34 USD", "$3.33 USD", "$3.33 USD" ]
+     * </code>
+     *
+     * @param parts number of parts, must be greater than zero
+     * @return split parts in the currency of this amount
+     * @throws IllegalArgumentException if parts is less than one
+     */
+    public Money[] split(int parts) {
+        if (parts < 1)
+            throw new IllegalArgumentException("Number of parts must be greater than zero.");
+
+        return toMoney(split(parts, new long[parts]));
+    }
+
+    /**
+     * Splits this amount into the given number of equal parts, writing each share in minor
+     * units into the given array. Bulk form of {@link #split(int)}.
+     *
+     * @param parts number of parts, must be greater than zero
+     * @param units array to write the share of each part into, at least parts long
+     * @return the given units array
+     * @throws IllegalArgumentException if parts is less than one or the units array is too small
+     */
+    public long[] split(int parts, long[] units) {
+        MoneyMath.split(getMinorUnits(), parts, units);
+        return units;
+    }
+
+    /**
+     * Returns a fraction of this amount given as a number of days out of the days in a
+     * period, rounded to the currency's default precision. The fraction is applied exactly,
+     * rounding only once. See {@link Proration} for prorating amounts over billing periods.
+     *
+     * Example: <code>new Money("31.00 USD").prorate(10, 31); // "$10.00 USD"</code>
+     *
+     * @param days number of days charged, must be non-negative
+     * @param periodDays number of days in the period, must be greater than zero
+     * @return prorated amount in the currency of this amount
+     * @throws IllegalArgumentException if the number of days is negative or the period is empty
+     */
+    public Money prorate(long days, long periodDays) {
+        if (days < 0 || periodDays < 1)
+            throw new IllegalArgumentException("Cannot prorate " + days + " of " + periodDays + " days.");
+
+        return new Money(MoneyMath.multiplyDivide(getMinorUnits(), days, periodDays, RoundingMode()), currency);
+    }
+
+    /**
+     * Returns the value of this money in minor units at the currency's default precision.
+     *
+     * @return value in minor units
+     * @throws ArithmeticException if the value does not fit in a long
+     */
+    private long getMinorUnits() {
+        if (compact)
+            return units;
+
+        return MoneyMath.unscaled(value.setScale(currency.getDefaultFractionDigits(), RoundingMode()));
+    }
+
+    private Money[] toMoney(long[] units) {
+        Money[] money = new Money[units.length];
+        for (int i = 0; i < units.length; i++)
+            money[i] = new Money(units[i], currency);
+        return money;
     }
 
     /**
@@ -335,7 +562,10 @@ public class Money implements Serializable {
      * @return money amount
      */
     public Money abs() {
-        return new Money(value.abs(), currency);
+        if (compact && units != Long.MIN_VALUE)
+            return new Money(units < 0 ? -units : units, currency);
+
+        return new Money(getValue().abs(), currency);
     }
 
     /**
@@ -344,7 +574,24 @@ public class Money implements Serializable {
      * @return negated value.
      */
     public Money negate() {
-        return new Money(value.negate(), currency);
+        if (compact && units != Long.MIN_VALUE)
+            return new Money(-units, currency);
+
+        return new Money(getValue().negate(), currency);
+    }
+
+    /**
+     * Compares this money amount with the given money amount. The amount to compare will
+     * be converted to this currency before comparing.
+     *
+     * @param money money to compare
+     * @return -1, 0, or 1 as this amount is less than, equal to, or greater than the given amount
+     */
+    public int compareTo(Money money) {
+        if (isCompactWith(money))
+            return units < money.units ? -1 : (units == money.units ? 0 : 1);
+
+        return getValue().compareTo(convert(money).getValue());
     }
 
     /**
@@ -356,39 +603,138 @@ public class Money implements Serializable {
         if (currency.equals(money.getCurrency()))
             return money;
 
-        RateTable table = RateTable.getInstance();
+        RateTable.Snapshot rates = RateTable.getInstance().getSnapshot();
+
+        if (money.compact) {
+            int from = rates.indexOf(money.currency);
+            int to = rates.indexOf(currency);
+
+            if (from >= 0 && to >= 0) {
+                try {
+                    return new Money(rates.convert(money.units, from, to), currency);
+                } catch (ArithmeticException e) {
+                    // converted value doesn't fit in minor units, fall through to BigDecimal math
+                }
+            }
+        }
 
+        BigDecimal converted = convert(money.getValue(),
+                                       rates.getRate(money.getCurrencyCode()),
+                                       rates.getRate(currency.getCurrencyCode()),
+                                       currency.getDefaultFractionDigits());
+
+        return new Money(converted, currency);
+    }
+
+    /**
+     * Converts the given money to the same currency as this instance using the rates
+     * that were effective on the given date.
+     *
+     * @param money money to convert
+     * @param date date of the rates to use
+     * @return converted money
+     * @throws IllegalStateException if either currency has no rate effective on the given date
+     */
+    public Money convert(Money money, Date date) {
+        if (currency.equals(money.getCurrency()))
+            return money;
+
+        RateTable.Snapshot rates = RateTable.getInstance().getSnapshot();
+        Rate from = rates.getRate(money.getCurrencyCode(), date);
+        Rate to = rates.getRate(currency.getCurrencyCode(), date);
+
+        if (from == null || to == null)
+            throw new IllegalStateException("No " + (from == null ? money.getCurrencyCode() : getCurrencyCode())
+                                            + " rate effective on " + date);
+
+        return new Money(convert(money.getValue(), from, to, currency.getDefaultFractionDigits()), currency);
+    }
+
+    /**
+     * Converts a value between currencies using the given rates.
+     *
+     * @param value value to convert
+     * @param from rate of the currency being converted
+     * @param to rate of the target currency
+     * @param digits number of fraction digits of the target currency
+     * @return converted value at the given number of fraction digits
+     */
+    static BigDecimal convert(BigDecimal value, Rate from, Rate to, int digits) {
         // convert to system currency, maintain scale of conversion rate for accuracy
-        Rate system = table.getRate(money.getCurrencyCode());
-        BigDecimal pivot = money.getValue().divide(system.getRate(), system.getRate().scale(), RoundingMode());
+        BigDecimal pivot = value.divide(from.getRate(), from.getRate().scale(), RoundingMode());
 
         // convert back to target currency
-        Rate target = table.getRate(currency.getCurrencyCode());
-        BigDecimal converted = pivot.multiply(target.getRate());
+        BigDecimal converted = pivot.multiply(to.getRate());
 
         // drop scale down to currency's default precision
-        return new Money(converted.setScale(currency.getDefaultFractionDigits(), RoundingMode()), currency);
+        return converted.setScale(digits, RoundingMode());
+    }
+
+    /**
+     * Appends the string representation of this money to the given builder using
+     * the currency symbol for the default locale.
+     *
+     * @param builder builder to append to
+     * @return the given builder
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        return appendTo(builder, Locale.getDefault(Locale.Category.DISPLAY));
+    }
+
+    /**
+     * Appends the string representation of this money to the given builder using
+     * the currency symbol for the given locale.
+     *
+     * @param builder builder to append to
+     * @param locale locale of the currency symbol
+     * @return the given builder
+     */
+    public StringBuilder appendTo(StringBuilder builder, Locale locale) {
+        try {
+            MoneyFormat.format(this, locale, builder);
+        } catch (IOException e) {
+            throw new IllegalStateException("StringBuilder threw an IOException.", e);
+        }
+        return builder;
+    }
+
+    /**
+     * Writes the string representation of this money to the given buffer using
+     * the currency symbol for the default locale.
+     *
+     * @param buffer buffer to write to
+     * @return the given buffer
+     * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining
+     */
+    public CharBuffer appendTo(CharBuffer buffer) {
+        return appendTo(buffer, Locale.getDefault(Locale.Category.DISPLAY));
+    }
+
+    /**
+     * Writes the string representation of this money to the given buffer using
+     * the currency symbol for the given locale.
+     *
+     * @param buffer buffer to write to
+     * @param locale locale of the currency symbol
+     * @return the given buffer
+     * @throws java.nio.BufferOverflowException if the buffer does not have enough space remaining
+     */
+    public CharBuffer appendTo(CharBuffer buffer, Locale locale) {
+        try {
+            MoneyFormat.format(this, locale, buffer);
+        } catch (IOException e) {
+            throw new IllegalStateException("CharBuffer threw an IOException.", e);
+        }
+        return buffer;
     }
 
     @Override
     public String toString() {
-        StringBuilder builder = new StringBuilder()
-                .append(currency.getSymbol().replaceAll(ALPHA_CHARACTER_REGEX, BLANK))
-                .append(value)
-                .append(WHITESPACE)
-                .append(currency.getCurrencyCode());
-
-        return builder.toString();
+        return appendTo(new StringBuilder(DEFAULT_STRING_LENGTH)).toString();
     }
 
     public String toString(Locale locale) {
-        StringBuilder builder = new StringBuilder()
-                .append(currency.getSymbol(locale).replaceAll(ALPHA_CHARACTER_REGEX, BLANK))
-                .append(value)
-                .append(WHITESPACE)
-                .append(currency.getCurrencyCode());
-
-        return builder.toString();
+        return appendTo(new StringBuilder(DEFAULT_STRING_LENGTH), locale).toString();
     }
 
     @Override
@@ -400,12 +746,15 @@ public class Money implements Serializable {
             return false;
 
         Money money = (Money) o;
-        return currency.equals(money.currency) && value.equals(money.value);
+        if (isCompactWith(money))
+            return units == money.units;
+
+        return currency.equals(money.currency) && getValue().equals(money.getValue());
     }
 
     @Override
     public int hashCode() {
-        int result = value.hashCode();
+        int result = getValue().hashCode();
         result = 31 * result + currency.hashCode();
         return result;
     }
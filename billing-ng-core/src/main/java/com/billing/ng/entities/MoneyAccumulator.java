@@ -0,0 +1,277 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import javax.xml.bind.annotation.XmlTransient;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * Mutable accumulator for summing large numbers of {@link Money} amounts without creating
+ * a new Money instance for every intermediate total.
+ *
+ * Amounts are summed in separate buckets per currency using the integral minor unit value of
+ * the money where possible, spilling over to <code>BigDecimal</code> math if the total grows too
+ * large for a long. Currency conversion is only performed once per bucket when the final total
+ * is requested using {@link #toMoney(java.util.Currency)}.
+ *
+ * Example:
+ * <code>
+ *      MoneyAccumulator accumulator = new MoneyAccumulator();
+ *      for (Charge charge : charges)
+ *          accumulator.add(charge.getAmount());
+ *
+ *      Money total = accumulator.toMoney(Currency.getInstance("USD"));
+ * </code>
+ *
+ * This class is NOT thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@XmlTransient
+public class MoneyAccumulator {
+
+    private static final int DEFAULT_CAPACITY = 2;
+
+    private Currency[] currencies = new Currency[DEFAULT_CAPACITY];
+    private long[] units = new long[DEFAULT_CAPACITY];
+    private BigDecimal[] overflow = new BigDecimal[DEFAULT_CAPACITY];
+    private int size = 0;
+
+    public MoneyAccumulator() {
+    }
+
+    /**
+     * Adds the given money amount to the total. Null amounts are ignored.
+     *
+     * @param money money to add
+     * @return this accumulator
+     */
+    public MoneyAccumulator add(Money money) {
+        if (money == null)
+            return this;
+
+        int i = bucket(money.getCurrency());
+
+        if (money.isCompact()) {
+            addUnits(i, money.getUnits());
+        } else {
+            addDecimal(i, money.getValue());
+        }
+
+        return this;
+    }
+
+    /**
+     * Subtracts the given money amount from the total. Null amounts are ignored.
+     *
+     * @param money money to subtract
+     * @return this accumulator
+     */
+    public MoneyAccumulator subtract(Money money) {
+        if (money == null)
+            return this;
+
+        int i = bucket(money.getCurrency());
+
+        if (money.isCompact() && money.getUnits() != Long.MIN_VALUE) {
+            addUnits(i, -money.getUnits());
+        } else {
+            addDecimal(i, money.getValue().negate());
+        }
+
+        return this;
+    }
+
+    private void addUnits(int i, long value) {
+        long sum = units[i] + value;
+
+        if (((units[i] ^ sum) & (value ^ sum)) < 0) {
+            // overflow, spill the current total over to the BigDecimal bucket
+            addDecimal(i, BigDecimal.valueOf(units[i], currencies[i].getDefaultFractionDigits()));
+            units[i] = value;
+        } else {
+            units[i] = sum;
+        }
+    }
+
+    private void addDecimal(int i, BigDecimal value) {
+        overflow[i] = overflow[i] == null ? value : overflow[i].add(value);
+    }
+
+    /**
+     * Returns the bucket index for the given currency, adding a new bucket if this
+     * is the first time the currency has been seen.
+     *
+     * @param currency currency
+     * @return bucket index
+     */
+    private int bucket(Currency currency) {
+        for (int i = 0; i < size; i++)
+            if (currencies[i] == currency || currencies[i].equals(currency))
+                return i;
+
+        if (size == currencies.length) {
+            int capacity = size * 2;
+
+            Currency[] c = new Currency[capacity];
+            long[] u = new long[capacity];
+            BigDecimal[] o = new BigDecimal[capacity];
+
+            System.arraycopy(currencies, 0, c, 0, size);
+            System.arraycopy(units, 0, u, 0, size);
+            System.arraycopy(overflow, 0, o, 0, size);
+
+            currencies = c;
+            units = u;
+            overflow = o;
+        }
+
+        currencies[size] = currency;
+        return size++;
+    }
+
+    /**
+     * Adds all the amounts accumulated by the given accumulator to this total.
+     *
+     * @param accumulator accumulator to add
+     * @return this accumulator
+     */
+    public MoneyAccumulator addAll(MoneyAccumulator accumulator) {
+        for (int j = 0; j < accumulator.size; j++) {
+            int i = bucket(accumulator.currencies[j]);
+            addUnits(i, accumulator.units[j]);
+            if (accumulator.overflow[j] != null)
+                addDecimal(i, accumulator.overflow[j]);
+        }
+        return this;
+    }
+
+    /**
+     * Subtracts all the amounts accumulated by the given accumulator from this total.
+     *
+     * @param accumulator accumulator to subtract
+     * @return this accumulator
+     */
+    public MoneyAccumulator subtractAll(MoneyAccumulator accumulator) {
+        for (int j = 0; j < accumulator.size; j++) {
+            int i = bucket(accumulator.currencies[j]);
+            if (accumulator.units[j] != Long.MIN_VALUE) {
+                addUnits(i, -accumulator.units[j]);
+            } else {
+                addDecimal(i, BigDecimal.valueOf(accumulator.units[j], accumulator.currencies[j].getDefaultFractionDigits()).negate());
+            }
+            if (accumulator.overflow[j] != null)
+                addDecimal(i, accumulator.overflow[j].negate());
+        }
+        return this;
+    }
+
+    /**
+     * Returns true if no amounts have been added to this accumulator.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the currency of the first amount added to this accumulator, or null
+     * if the accumulator is empty.
+     *
+     * @return first accumulated currency
+     */
+    public Currency getCurrency() {
+        return size > 0 ? currencies[0] : null;
+    }
+
+    /**
+     * Returns the currencies of all amounts added to this accumulator, in the order
+     * they were first seen.
+     *
+     * @return accumulated currencies
+     */
+    public List<Currency> getCurrencies() {
+        return Arrays.asList(Arrays.copyOf(currencies, size));
+    }
+
+    /**
+     * Returns the total of all amounts added in the given currency, without converting
+     * amounts in other currencies. Returns zero if no amounts have been added in the currency.
+     *
+     * @param currency currency to total
+     * @return accumulated total of amounts in the given currency
+     */
+    public Money getTotal(Currency currency) {
+        for (int i = 0; i < size; i++)
+            if (currencies[i] == currency || currencies[i].equals(currency))
+                return bucketTotal(i);
+
+        return new Money(0L, currency);
+    }
+
+    /**
+     * Resets this accumulator, discarding all accumulated amounts.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            currencies[i] = null;
+            units[i] = 0;
+            overflow[i] = null;
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns the accumulated total in the given currency. Amounts in other currencies are
+     * totaled separately and converted once using the {@link RateTable} before being summed.
+     *
+     * @param currency currency of the total
+     * @return accumulated total
+     */
+    public Money toMoney(Currency currency) {
+        Money total = new Money(0L, currency);
+
+        for (int i = 0; i < size; i++)
+            total = total.add(bucketTotal(i));
+
+        return total;
+    }
+
+    /**
+     * Returns the accumulated total in the currency of the first amount added to
+     * this accumulator, or null if the accumulator is empty.
+     *
+     * @return accumulated total
+     */
+    public Money toMoney() {
+        return isEmpty() ? null : toMoney(getCurrency());
+    }
+
+    private Money bucketTotal(int i) {
+        if (overflow[i] == null)
+            return new Money(units[i], currencies[i]);
+
+        BigDecimal value = overflow[i].add(BigDecimal.valueOf(units[i], currencies[i].getDefaultFractionDigits()));
+        return new Money(value, currencies[i]);
+    }
+}
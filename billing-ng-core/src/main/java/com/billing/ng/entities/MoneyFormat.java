@@ -0,0 +1,277 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.entities.context.MoneyRoundingModeHolder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Single pass parser and formatter for {@link Money} string representations. Amounts are
+ * parsed directly into integral minor units and formatted from minor units without the use
+ * of regular expressions or intermediate strings.
+ *
+ * Parsed strings take the form of an optional currency symbol and sign, followed by the decimal
+ * amount and (if no currency is given) a currency code, e.g. "$5.95 USD", "-$5.95 USD" or "10.20 GBP".
+ *
+ * Formatted strings take the form of the letter-less currency symbol, the decimal amount and
+ * the currency code, e.g. "$5.95 USD" or "10.20 GBP".
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+final class MoneyFormat {
+
+    private static final long UNSCALED_LIMIT = (Long.MAX_VALUE - 9) / 10;
+    private static final int MAX_CHARS = 24;
+
+    /** Currency instances indexed by upper-case 3 letter ISO code, populated on demand. */
+    private static final Currency[] CURRENCIES = new Currency[26 * 26 * 26];
+
+    /** Currency symbols with all alphabetic characters removed, by locale and currency. */
+    private static final ConcurrentMap<Locale, ConcurrentMap<Currency, String>> SYMBOLS
+            = new ConcurrentHashMap<Locale, ConcurrentMap<Currency, String>>();
+
+    private MoneyFormat() {
+    }
+
+    /**
+     * Parses a monetary amount string into the given money instance. If the currency is null,
+     * then the currency code is read from the string following the amount.
+     *
+     * @param amount amount string to parse
+     * @param currency currency of the amount, or null to parse the currency code from the string
+     * @param target money to populate
+     * @throws NumberFormatException if the amount cannot be parsed
+     * @throws IllegalArgumentException if the currency code is missing or not a valid ISO 4217 code
+     */
+    static void parse(CharSequence amount, Currency currency, Money target) {
+        int end = amount.length();
+        int i = 0;
+
+        // skip leading whitespace and currency symbols, noting the sign
+        boolean negative = false;
+        for (; i < end; i++) {
+            char c = amount.charAt(i);
+            if (isDigit(c) || (c == '.' && i + 1 < end && isDigit(amount.charAt(i + 1))))
+                break;
+
+            if (c == '-')
+                negative = true;
+        }
+
+        if (i == end)
+            throw new NumberFormatException("No monetary amount in '" + amount + "'.");
+
+        // read the decimal amount as an unscaled long
+        int start = i;
+        long unscaled = 0;
+        int scale = -1;
+        boolean decimal = false; // too large or complex for a long, parse as a BigDecimal
+
+        for (; i < end; i++) {
+            char c = amount.charAt(i);
+
+            if (isDigit(c)) {
+                if (unscaled <= UNSCALED_LIMIT) {
+                    unscaled = unscaled * 10 + (c - '0');
+                } else {
+                    decimal = true;
+                }
+
+                if (scale >= 0) scale++;
+
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+
+            } else if (Character.isWhitespace(c)) {
+                break;
+
+            } else {
+                decimal = true;
+            }
+        }
+
+        int numberEnd = i;
+        if (scale < 0) scale = 0;
+
+        if (currency == null)
+            currency = parseCurrency(amount, numberEnd, end);
+
+        // scale up to the currency's default precision
+        int digits = currency.getDefaultFractionDigits();
+        while (!decimal && scale < digits) {
+            if (unscaled > Long.MAX_VALUE / 10) {
+                decimal = true;
+            } else {
+                unscaled *= 10;
+                scale++;
+            }
+        }
+
+        if (decimal || scale != digits) {
+            // apply the sign before rounding, directed rounding modes depend on it
+            BigDecimal value = new BigDecimal(amount.subSequence(start, numberEnd).toString());
+            if (negative) value = value.negate();
+            target.init(value.setScale(digits, MoneyRoundingModeHolder.GetRoundingMode()), currency);
+        } else {
+            target.init(negative ? -unscaled : unscaled, currency);
+        }
+    }
+
+    /**
+     * Reads a 3 letter ISO 4217 currency code from the given string, skipping
+     * any leading whitespace.
+     *
+     * @param string string to read from
+     * @param start start index
+     * @param end end index (exclusive)
+     * @return currency
+     * @throws IllegalArgumentException if the currency code is missing or invalid
+     */
+    static Currency parseCurrency(CharSequence string, int start, int end) {
+        int i = start;
+        while (i < end && Character.isWhitespace(string.charAt(i)))
+            i++;
+
+        int codeStart = i;
+        while (i < end && !Character.isWhitespace(string.charAt(i)))
+            i++;
+
+        if (i == codeStart)
+            throw new IllegalArgumentException("No currency code in '" + string + "'.");
+
+        if (i - codeStart == 3) {
+            char a = string.charAt(codeStart);
+            char b = string.charAt(codeStart + 1);
+            char c = string.charAt(codeStart + 2);
+
+            if (isUpperCase(a) && isUpperCase(b) && isUpperCase(c)) {
+                int index = (a - 'A') * 676 + (b - 'A') * 26 + (c - 'A');
+                Currency currency = CURRENCIES[index];
+
+                if (currency == null) {
+                    currency = Currency.getInstance(new String(new char[] { a, b, c }));
+                    CURRENCIES[index] = currency;
+                }
+                return currency;
+            }
+        }
+
+        return Currency.getInstance(string.subSequence(codeStart, i).toString());
+    }
+
+    /**
+     * Appends the formatted money amount to the given output.
+     *
+     * @param money money to format
+     * @param locale locale of the currency symbol
+     * @param out output to append to
+     * @throws IOException if the output cannot be appended to
+     */
+    static void format(Money money, Locale locale, Appendable out) throws IOException {
+        Currency currency = money.getCurrency();
+        int digits = currency.getDefaultFractionDigits();
+
+        out.append(getSymbol(currency, locale));
+
+        if (money.isCompact() && digits >= 0) {
+            appendUnits(money.getUnits(), digits, out);
+        } else {
+            out.append(money.getValue().toString());
+        }
+
+        out.append(' ').append(currency.getCurrencyCode());
+    }
+
+    /**
+     * Appends the given minor units as a plain decimal string with the given number
+     * of fractional digits, identical to <code>BigDecimal.valueOf(units, digits).toString()</code>.
+     */
+    private static void appendUnits(long units, int digits, Appendable out) throws IOException {
+        char[] buffer = new char[MAX_CHARS];
+        int pos = MAX_CHARS;
+
+        // work with the negative magnitude so that Long.MIN_VALUE can be represented
+        long remaining = units < 0 ? units : -units;
+        int written = 0;
+
+        do {
+            buffer[--pos] = (char) ('0' - (remaining % 10));
+            remaining /= 10;
+
+            if (++written == digits)
+                buffer[--pos] = '.';
+
+        } while (remaining != 0 || written <= digits);
+
+        if (units < 0)
+            buffer[--pos] = '-';
+
+        for (; pos < MAX_CHARS; pos++)
+            out.append(buffer[pos]);
+    }
+
+    /**
+     * Returns the currency symbol for the given locale with all alphabetic characters
+     * removed, e.g., "US$" becomes "$" and "CAD" becomes an empty string.
+     *
+     * @param currency currency
+     * @param locale locale
+     * @return currency symbol without letters
+     */
+    static String getSymbol(Currency currency, Locale locale) {
+        ConcurrentMap<Locale, ConcurrentMap<Currency, String>> symbols = SYMBOLS;
+        ConcurrentMap<Currency, String> cache = symbols.get(locale);
+
+        if (cache == null) {
+            symbols.putIfAbsent(locale, new ConcurrentHashMap<Currency, String>());
+            cache = symbols.get(locale);
+        }
+
+        String symbol = cache.get(currency);
+        if (symbol == null) {
+            String full = currency.getSymbol(locale);
+            StringBuilder builder = new StringBuilder(full.length());
+
+            for (int i = 0; i < full.length(); i++) {
+                char c = full.charAt(i);
+                if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')))
+                    builder.append(c);
+            }
+
+            symbol = builder.toString();
+            cache.put(currency, symbol);
+        }
+
+        return symbol;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isUpperCase(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+}
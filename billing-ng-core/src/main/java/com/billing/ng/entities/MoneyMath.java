@@ -0,0 +1,290 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Integral math helpers for working with monetary values as minor units. Division rounds
+ * exactly as <code>BigDecimal</code> would for the same {@link RoundingMode}, and all operations
+ * throw an <code>ArithmeticException</code> on overflow instead of silently wrapping.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+final class MoneyMath {
+
+    /** Powers of ten that fit in a long, 10^0 through 10^18. */
+    static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private MoneyMath() {
+    }
+
+    /**
+     * Returns the product of the given values.
+     *
+     * @param a multiplicand
+     * @param b multiplier
+     * @return product
+     * @throws ArithmeticException if the product overflows a long
+     */
+    static long multiply(long a, long b) {
+        long product = a * b;
+        long absA = Math.abs(a);
+        long absB = Math.abs(b);
+
+        if (((absA | absB) >>> 31) != 0) {
+            if ((b != 0 && product / b != a) || (a == Long.MIN_VALUE && b == -1))
+                throw new ArithmeticException("long overflow");
+        }
+
+        return product;
+    }
+
+    /**
+     * Returns the sum of the given values.
+     *
+     * @param a augend
+     * @param b addend
+     * @return sum
+     * @throws ArithmeticException if the sum overflows a long
+     */
+    static long add(long a, long b) {
+        long sum = a + b;
+        if (((a ^ sum) & (b ^ sum)) < 0)
+            throw new ArithmeticException("long overflow");
+
+        return sum;
+    }
+
+    /**
+     * Divides the given dividend by a positive divisor, rounding the quotient using the
+     * given rounding mode.
+     *
+     * @param dividend dividend
+     * @param divisor divisor, must be greater than zero
+     * @param roundingMode rounding mode
+     * @return rounded quotient
+     * @throws ArithmeticException if rounding mode is UNNECESSARY and the quotient is not exact
+     */
+    static long divide(long dividend, long divisor, RoundingMode roundingMode) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+
+        if (remainder == 0)
+            return quotient;
+
+        int sign = dividend < 0 ? -1 : 1;
+        long abs = Math.abs(remainder);
+        int half = abs < divisor - abs ? -1 : (abs == divisor - abs ? 0 : 1); // remainder vs. half the divisor
+
+        boolean increment;
+        switch (roundingMode) {
+            case UP:        increment = true; break;
+            case DOWN:      increment = false; break;
+            case CEILING:   increment = sign > 0; break;
+            case FLOOR:     increment = sign < 0; break;
+            case HALF_UP:   increment = half >= 0; break;
+            case HALF_DOWN: increment = half > 0; break;
+            case HALF_EVEN: increment = half > 0 || (half == 0 && (quotient & 1) != 0); break;
+            default:
+                throw new ArithmeticException("Rounding necessary");
+        }
+
+        return increment ? quotient + sign : quotient;
+    }
+
+    /**
+     * Returns <code>a * b / c</code> rounded down, for non-negative <code>a</code> and <code>b</code>
+     * where <code>b &lt;= c</code>. The intermediate product is computed using a <code>BigInteger</code>
+     * only if it would overflow a long.
+     *
+     * @param a non-negative value
+     * @param b non-negative numerator, less than or equal to c
+     * @param c positive denominator
+     * @return floor(a * b / c)
+     */
+    static long multiplyDivide(long a, long b, long c) {
+        if (b == 0)
+            return 0;
+
+        if (b == c)
+            return a;
+
+        long product = a * b;
+        if (((a | b) >>> 31) == 0 || product / b == a)
+            return product / c;
+
+        return BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)).divide(BigInteger.valueOf(c)).longValue();
+    }
+
+    /**
+     * Returns <code>a * b / c</code> rounded using the given rounding mode, for non-negative
+     * <code>b</code>. The intermediate product is computed using a <code>BigDecimal</code> only
+     * if it would overflow a long.
+     *
+     * @param a value
+     * @param b non-negative numerator
+     * @param c positive denominator
+     * @param roundingMode rounding mode
+     * @return rounded a * b / c
+     * @throws ArithmeticException if the result does not fit in a long, or if rounding mode
+     *         is UNNECESSARY and the result is not exact
+     */
+    static long multiplyDivide(long a, long b, long c, RoundingMode roundingMode) {
+        if (b == 0)
+            return 0;
+
+        if (b == c)
+            return a;
+
+        long product = a * b;
+        if (((Math.abs(a) | b) >>> 31) == 0 || product / b == a)
+            return divide(product, c, roundingMode);
+
+        return unscaled(BigDecimal.valueOf(a).multiply(BigDecimal.valueOf(b))
+                                .divide(BigDecimal.valueOf(c), 0, roundingMode));
+    }
+
+    /**
+     * Allocates an amount across parts according to the given ratios, writing the share of each
+     * part into the result array. Each share is rounded down and the remaining units are then
+     * distributed one at a time to the parts with a non-zero ratio, in order, so the shares always
+     * sum to exactly the amount. Negative amounts are allocated by magnitude, so that the shares are
+     * the negation of those of the positive amount.
+     *
+     * @param amount amount to allocate
+     * @param ratios ratio of each part, must be non-negative with a positive sum
+     * @param result array to write the share of each part into, at least as long as ratios
+     * @throws IllegalArgumentException if the ratios are invalid or the result array is too small
+     * @throws ArithmeticException if the sum of the ratios overflows a long
+     */
+    static void allocate(long amount, long[] ratios, long[] result) {
+        if (result.length < ratios.length)
+            throw new IllegalArgumentException("Result array smaller than the number of ratios.");
+
+        long total = 0;
+        for (long ratio : ratios) {
+            if (ratio < 0)
+                throw new IllegalArgumentException("Ratios cannot be negative.");
+            total = add(total, ratio);
+        }
+
+        if (total == 0)
+            throw new IllegalArgumentException("Sum of ratios must be greater than zero.");
+
+        boolean negative = amount < 0;
+        long magnitude = negative ? multiply(amount, -1) : amount;
+
+        long remainder = magnitude;
+        for (int i = 0; i < ratios.length; i++) {
+            result[i] = multiplyDivide(magnitude, ratios[i], total);
+            remainder -= result[i];
+        }
+
+        for (int i = 0; remainder > 0; i++) {
+            if (ratios[i] != 0) {
+                result[i]++;
+                remainder--;
+            }
+        }
+
+        if (negative) {
+            for (int i = 0; i < ratios.length; i++)
+                result[i] = -result[i];
+        }
+    }
+
+    /**
+     * Splits an amount into the given number of equal parts, writing the share of each part
+     * into the result array. The remaining units are distributed one at a time to the first parts,
+     * so the shares always sum to exactly the amount.
+     *
+     * @param amount amount to split
+     * @param parts number of parts, must be greater than zero
+     * @param result array to write the share of each part into, at least parts long
+     * @throws IllegalArgumentException if parts is less than one or the result array is too small
+     */
+    static void split(long amount, int parts, long[] result) {
+        if (parts < 1)
+            throw new IllegalArgumentException("Number of parts must be greater than zero.");
+
+        if (result.length < parts)
+            throw new IllegalArgumentException("Result array smaller than the number of parts.");
+
+        long share = amount / parts;
+        long remainder = amount % parts;
+        long unit = remainder < 0 ? -1 : 1;
+
+        for (int i = 0; i < parts; i++)
+            result[i] = share;
+
+        for (int i = 0; remainder != 0; i++) {
+            result[i] += unit;
+            remainder -= unit;
+        }
+    }
+
+    /**
+     * Returns the unscaled value of the given decimal as a long.
+     *
+     * @param value decimal value
+     * @return unscaled value
+     * @throws ArithmeticException if the unscaled value overflows a long
+     */
+    static long unscaled(BigDecimal value) {
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() > 63)
+            throw new ArithmeticException("long overflow");
+
+        return unscaled.longValue();
+    }
+
+    /**
+     * Re-scales a value from one number of decimal places to another, rounding if
+     * the scale is reduced.
+     *
+     * @param value unscaled value
+     * @param scale current scale
+     * @param newScale scale to return the value in
+     * @param roundingMode rounding mode
+     * @return unscaled value at the new scale
+     * @throws ArithmeticException if the value overflows or the scale difference is too large
+     */
+    static long rescale(long value, int scale, int newScale, RoundingMode roundingMode) {
+        int shift = newScale - scale;
+
+        if (shift == 0)
+            return value;
+
+        if (Math.abs(shift) >= POWERS_OF_TEN.length)
+            throw new ArithmeticException("Scale difference too large: " + shift);
+
+        return shift > 0
+               ? multiply(value, POWERS_OF_TEN[shift])
+               : divide(value, POWERS_OF_TEN[-shift], roundingMode);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.type.StandardBasicTypes;
+import org.hibernate.type.Type;
+import org.hibernate.usertype.CompositeUserType;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Currency;
+
+/**
+ * Hibernate composite user type that persists {@link Money} as three columns: the
+ * integral value in minor units, the scale and the currency code.
+ *
+ * Values are read and written directly from the minor unit representation of the money
+ * so that loading and flushing an entity does not round-trip through <code>BigDecimal</code>.
+ *
+ * Usage:
+ * <code>
+ *      @Type(type = "com.billing.ng.entities.MoneyType")
+ *      @Columns(columns = {
+ *              @Column(name = "value", nullable = false),
+ *              @Column(name = "scale", nullable = false),
+ *              @Column(name = "currency_code", nullable = false, length = 3)
+ *      })
+ *      private Money total;
+ * </code>
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class MoneyType implements CompositeUserType {
+
+    private static final String[] PROPERTY_NAMES = { "longValue", "scale", "currencyCode" };
+    private static final Type[] PROPERTY_TYPES = { StandardBasicTypes.LONG, StandardBasicTypes.INTEGER, StandardBasicTypes.STRING };
+
+    public MoneyType() {
+    }
+
+    public String[] getPropertyNames() {
+        return PROPERTY_NAMES;
+    }
+
+    public Type[] getPropertyTypes() {
+        return PROPERTY_TYPES;
+    }
+
+    public Object getPropertyValue(Object component, int property) throws HibernateException {
+        Money money = (Money) component;
+        switch (property) {
+            case 0: return money.getLongValue();
+            case 1: return money.getScale();
+            case 2: return money.getCurrencyCode();
+            default: throw new HibernateException("Invalid Money property index " + property);
+        }
+    }
+
+    /**
+     * Sets a property of the given money. Properties may be set in any order, starting from an
+     * empty money with no value or currency. Until set, the integral value is 0 and the scale
+     * is the default precision of the currency.
+     */
+    public void setPropertyValue(Object component, int property, Object value) throws HibernateException {
+        Money money = (Money) component;
+        switch (property) {
+            case 0: money.setValue(BigDecimal.valueOf(value != null ? (Long) value : 0L, getScale(money))); break;
+            case 1: money.setValue(BigDecimal.valueOf(getLongValue(money), value != null ? (Integer) value : getScale(money))); break;
+            case 2: money.setCurrency(value != null ? Currency.getInstance((String) value) : null); break;
+            default: throw new HibernateException("Invalid Money property index " + property);
+        }
+    }
+
+    private static int getScale(Money money) {
+        if (money.getValue() != null)
+            return money.getScale();
+
+        return money.getCurrency() != null ? money.getCurrency().getDefaultFractionDigits() : 0;
+    }
+
+    private static long getLongValue(Money money) {
+        return money.getValue() != null ? money.getLongValue() : 0L;
+    }
+
+    public Class<?> returnedClass() {
+        return Money.class;
+    }
+
+    public boolean equals(Object x, Object y) throws HibernateException {
+        return x == y || (x != null && x.equals(y));
+    }
+
+    public int hashCode(Object x) throws HibernateException {
+        return x.hashCode();
+    }
+
+    public Object nullSafeGet(ResultSet rs, String[] names, SessionImplementor session, Object owner)
+            throws HibernateException, SQLException {
+
+        long value = rs.getLong(names[0]);
+        if (rs.wasNull())
+            return null;
+
+        int scale = rs.getInt(names[1]);
+        String currencyCode = rs.getString(names[2]);
+
+        return currencyCode != null ? new Money(value, scale, currencyCode) : null;
+    }
+
+    public void nullSafeSet(PreparedStatement st, Object value, int index, SessionImplementor session)
+            throws HibernateException, SQLException {
+
+        if (value == null) {
+            st.setNull(index, Types.BIGINT);
+            st.setNull(index + 1, Types.INTEGER);
+            st.setNull(index + 2, Types.VARCHAR);
+
+        } else {
+            Money money = (Money) value;
+            st.setLong(index, money.getLongValue());
+            st.setInt(index + 1, money.getScale());
+            st.setString(index + 2, money.getCurrencyCode());
+        }
+    }
+
+    public Object deepCopy(Object value) throws HibernateException {
+        return value != null ? new Money((Money) value) : null;
+    }
+
+    public boolean isMutable() {
+        return true;
+    }
+
+    public Serializable disassemble(Object value, SessionImplementor session) throws HibernateException {
+        return (Serializable) deepCopy(value);
+    }
+
+    public Object assemble(Serializable cached, SessionImplementor session, Object owner) throws HibernateException {
+        return deepCopy(cached);
+    }
+
+    public Object replace(Object original, Object target, SessionImplementor session, Object owner) throws HibernateException {
+        return deepCopy(original);
+    }
+}
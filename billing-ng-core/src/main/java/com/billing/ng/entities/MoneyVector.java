@@ -0,0 +1,433 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.entities.context.MoneyRoundingModeHolder;
+
+import javax.xml.bind.annotation.XmlTransient;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar (struct-of-arrays) collection of monetary amounts for bulk processing of large
+ * numbers of values without materializing a {@link Money} or <code>BigDecimal</code> for each
+ * amount. Each amount is stored as an integral number of minor units in a <code>long[]</code>
+ * along with a <code>short[]</code> index into the table of currencies used by this vector.
+ *
+ * All bulk operations produce results identical to performing the same operation on
+ * each amount using the scalar {@link Money} methods. Amounts are limited to the range
+ * of a long in minor units, operations that would overflow throw an <code>ArithmeticException</code>.
+ *
+ * Example:
+ * <code>
+ *      MoneyVector amounts = new MoneyVector(charges.size());
+ *      for (Charge charge : charges)
+ *          amounts.add(charge.getAmount());
+ *
+ *      Map&lt;Currency, Money&gt; totals = amounts.sumByCurrency();
+ * </code>
+ *
+ * This class is NOT thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@XmlTransient
+public class MoneyVector {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] units;
+    private short[] currencyIndexes;
+    private int size = 0;
+
+    private Currency[] currencies = new Currency[4];
+    private int currencyCount = 0;
+
+    public MoneyVector() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoneyVector(int capacity) {
+        this.units = new long[capacity];
+        this.currencyIndexes = new short[capacity];
+    }
+
+    /**
+     * Constructs a vector holding all of the given money amounts, in iteration order.
+     *
+     * @param money money amounts
+     * @throws IllegalArgumentException if an amount cannot be represented in minor units
+     */
+    public MoneyVector(Collection<Money> money) {
+        this(Math.max(money.size(), 1));
+        for (Money amount : money)
+            add(amount);
+    }
+
+    private static RoundingMode RoundingMode() {
+        return MoneyRoundingModeHolder.GetRoundingMode();
+    }
+
+    /**
+     * Returns the index of the given currency in the currency table of this vector,
+     * adding the currency if not already present.
+     *
+     * @param currency currency
+     * @return currency index
+     */
+    private short indexOf(Currency currency) {
+        for (int i = 0; i < currencyCount; i++)
+            if (currencies[i] == currency)
+                return (short) i;
+
+        if (currencyCount == Short.MAX_VALUE)
+            throw new IllegalStateException("Too many currencies in vector.");
+
+        if (currencyCount == currencies.length)
+            currencies = Arrays.copyOf(currencies, currencyCount * 2);
+
+        currencies[currencyCount] = currency;
+        return (short) currencyCount++;
+    }
+
+    /**
+     * Returns the index of the given currency in the currency table of this vector, without
+     * adding it. Used by read operations, which must not modify the vector.
+     *
+     * @param currency currency
+     * @return currency index, -1 if the vector holds no amounts in the currency
+     */
+    private short find(Currency currency) {
+        for (int i = 0; i < currencyCount; i++)
+            if (currencies[i] == currency)
+                return (short) i;
+
+        return -1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > units.length) {
+            int length = Math.max(capacity, units.length * 2);
+            units = Arrays.copyOf(units, length);
+            currencyIndexes = Arrays.copyOf(currencyIndexes, length);
+        }
+    }
+
+    /**
+     * Appends the given money amount to the end of this vector.
+     *
+     * @param money money to add
+     * @throws IllegalArgumentException if the amount is not at the currency's default precision
+     *         or is too large to be represented in minor units
+     */
+    public void add(Money money) {
+        if (!money.isCompact())
+            throw new IllegalArgumentException("Money " + money + " cannot be represented in minor units.");
+
+        add(money.getUnits(), money.getCurrency());
+    }
+
+    /**
+     * Appends an amount in minor units of the given currency to the end of this vector.
+     *
+     * @param minorUnits amount in minor units
+     * @param currency currency of the amount
+     */
+    public void add(long minorUnits, Currency currency) {
+        ensureCapacity(size + 1);
+        units[size] = minorUnits;
+        currencyIndexes[size] = indexOf(currency);
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the amount at the given index in minor units.
+     *
+     * @param index index
+     * @return minor units
+     */
+    public long getUnits(int index) {
+        checkIndex(index);
+        return units[index];
+    }
+
+    /**
+     * Returns the currency of the amount at the given index.
+     *
+     * @param index index
+     * @return currency
+     */
+    public Currency getCurrency(int index) {
+        checkIndex(index);
+        return currencies[currencyIndexes[index]];
+    }
+
+    /**
+     * Returns the amount at the given index as Money.
+     *
+     * @param index index
+     * @return money
+     */
+    public Money get(int index) {
+        checkIndex(index);
+        return new Money(units[index], currencies[currencyIndexes[index]]);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    /**
+     * Returns all amounts in this vector as a list of Money.
+     *
+     * @return list of money
+     */
+    public List<Money> toList() {
+        List<Money> list = new ArrayList<Money>(size);
+        for (int i = 0; i < size; i++)
+            list.add(new Money(units[i], currencies[currencyIndexes[i]]));
+
+        return list;
+    }
+
+    /**
+     * Sums all amounts in the given currency. Amounts in other currencies are individually
+     * converted before being added to the total, exactly as if each amount were added
+     * using {@link Money#add(Money)}.
+     *
+     * @param currency currency of the total
+     * @return sum total
+     */
+    public Money sum(Currency currency) {
+        int digits = currency.getDefaultFractionDigits();
+        short target = find(currency);
+
+        // look up rate indexes once per currency instead of once per amount
+        RateTable.Snapshot rates = RateTable.getInstance().getSnapshot();
+        int[] indexes = rateIndexes(rates, target);
+        int targetRate = targetRateIndex(rates, indexes, target, currency);
+
+        long total = 0;
+        BigDecimal overflow = null;
+
+        for (int i = 0; i < size; i++) {
+            long amount;
+            short index = currencyIndexes[i];
+
+            if (index == target) {
+                amount = units[i];
+            } else {
+                try {
+                    amount = rates.convert(units[i], indexes[index], targetRate);
+                } catch (ArithmeticException e) {
+                    BigDecimal value = BigDecimal.valueOf(units[i], currencies[index].getDefaultFractionDigits());
+                    BigDecimal converted = Money.convert(value, rates.getRate(currencies[index]), rates.getRate(currency), digits);
+                    overflow = overflow == null ? converted : overflow.add(converted);
+                    continue;
+                }
+            }
+
+            long sum = total + amount;
+            if (((total ^ sum) & (amount ^ sum)) < 0) {
+                overflow = overflow == null ? BigDecimal.valueOf(amount, digits) : overflow.add(BigDecimal.valueOf(amount, digits));
+            } else {
+                total = sum;
+            }
+        }
+
+        return overflow == null
+               ? new Money(total, currency)
+               : new Money(overflow.add(BigDecimal.valueOf(total, digits)), currency);
+    }
+
+    /**
+     * Sums all amounts grouped by currency without any currency conversion.
+     *
+     * @return map of currency to sum total, in order of first appearance
+     */
+    public Map<Currency, Money> sumByCurrency() {
+        long[] totals = new long[currencyCount];
+        BigDecimal[] overflow = new BigDecimal[currencyCount];
+        boolean[] present = new boolean[currencyCount];
+
+        for (int i = 0; i < size; i++) {
+            short index = currencyIndexes[i];
+            long amount = units[i];
+            long sum = totals[index] + amount;
+
+            if (((totals[index] ^ sum) & (amount ^ sum)) < 0) {
+                BigDecimal value = BigDecimal.valueOf(amount, currencies[index].getDefaultFractionDigits());
+                overflow[index] = overflow[index] == null ? value : overflow[index].add(value);
+            } else {
+                totals[index] = sum;
+            }
+            present[index] = true;
+        }
+
+        Map<Currency, Money> sums = new LinkedHashMap<Currency, Money>();
+        for (int i = 0; i < currencyCount; i++) {
+            if (!present[i])
+                continue;
+
+            Currency currency = currencies[i];
+            sums.put(currency, overflow[i] == null
+                               ? new Money(totals[i], currency)
+                               : new Money(overflow[i].add(BigDecimal.valueOf(totals[i], currency.getDefaultFractionDigits())), currency));
+        }
+
+        return sums;
+    }
+
+    /**
+     * Multiplies all amounts in this vector by the given factor, exactly as if each amount were
+     * multiplied using {@link Money#multiply(java.math.BigDecimal)}.
+     *
+     * @param factor factor to multiply by
+     * @return this vector
+     * @throws ArithmeticException if a scaled amount overflows a long in minor units
+     */
+    public MoneyVector scale(BigDecimal factor) {
+        RoundingMode roundingMode = RoundingMode();
+        boolean integral = factor.precision() < 19 && Math.abs(factor.scale()) < MoneyMath.POWERS_OF_TEN.length;
+        long multiplier = integral ? factor.unscaledValue().longValue() : 0;
+
+        for (int i = 0; i < size; i++) {
+            if (integral) {
+                try {
+                    // product has the scale of the factor + currency scale, re-scale back to the currency scale
+                    units[i] = MoneyMath.rescale(MoneyMath.multiply(units[i], multiplier), factor.scale(), 0, roundingMode);
+                    continue;
+                } catch (ArithmeticException e) {
+                    // fall through to BigDecimal math
+                }
+            }
+
+            int digits = currencies[currencyIndexes[i]].getDefaultFractionDigits();
+            BigDecimal product = BigDecimal.valueOf(units[i], digits).multiply(factor).setScale(digits, roundingMode);
+            units[i] = MoneyMath.unscaled(product);
+        }
+
+        return this;
+    }
+
+    /**
+     * Converts all amounts in this vector to the given currency using the {@link RateTable},
+     * exactly as if each amount were converted using {@link Money#convert(Money)}.
+     *
+     * @param currency currency to convert to
+     * @return this vector
+     * @throws ArithmeticException if a converted amount overflows a long in minor units
+     */
+    public MoneyVector convertAll(Currency currency) {
+        short target = find(currency);
+
+        RateTable.Snapshot rates = RateTable.getInstance().getSnapshot();
+        int[] indexes = rateIndexes(rates, target);
+        int targetRate = targetRateIndex(rates, indexes, target, currency);
+
+        if (size == 0)
+            return this;
+
+        if (target < 0)
+            target = indexOf(currency);
+
+        for (int i = 0; i < size; i++) {
+            short index = currencyIndexes[i];
+            if (index == target)
+                continue;
+
+            units[i] = rates.convert(units[i], indexes[index], targetRate);
+            currencyIndexes[i] = target;
+        }
+
+        // every amount is in the target currency, drop the other currencies from the table
+        Arrays.fill(currencies, 0, currencyCount, null);
+        currencies[0] = currency;
+        currencyCount = 1;
+        Arrays.fill(currencyIndexes, 0, size, (short) 0);
+
+        return this;
+    }
+
+    /**
+     * Returns the index of each currency of this vector in the given rate snapshot, indexed by
+     * the currency index of this vector. Rates are only required when converting to a different
+     * currency, so missing rates are only an error if the vector holds more than one currency, or
+     * holds amounts in a currency other than the target currency.
+     *
+     * @param rates rate snapshot
+     * @param target currency index of the target currency, -1 if not in this vector
+     * @return rate snapshot indexes by currency index
+     */
+    private int[] rateIndexes(RateTable.Snapshot rates, short target) {
+        int[] indexes = new int[currencyCount];
+
+        for (int i = 0; i < currencyCount; i++) {
+            indexes[i] = rates.indexOf(currencies[i]);
+
+            if (indexes[i] < 0 && (currencyCount > 1 || target < 0))
+                throw new IllegalStateException("No rate for currency " + currencies[i].getCurrencyCode());
+        }
+
+        return indexes;
+    }
+
+    /**
+     * Returns the index of the target currency of a conversion in the given rate snapshot.
+     *
+     * @param rates rate snapshot
+     * @param indexes rate snapshot indexes by currency index
+     * @param target currency index of the target currency, -1 if not in this vector
+     * @param currency target currency
+     * @return rate snapshot index of the target currency, -1 if no amounts need converting
+     */
+    private int targetRateIndex(RateTable.Snapshot rates, int[] indexes, short target, Currency currency) {
+        if (target >= 0)
+            return indexes[target];
+
+        if (size == 0)
+            return -1;
+
+        int index = rates.indexOf(currency);
+        if (index < 0)
+            throw new IllegalStateException("No rate for currency " + currency.getCurrencyCode());
+
+        return index;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.entities.context.MoneyRoundingModeHolder;
+import com.billing.ng.util.DateUtils;
+import org.joda.time.DateMidnight;
+
+import java.math.RoundingMode;
+
+/**
+ * Prorates amounts over billing periods, for charging or crediting part of a billing cycle
+ * when an account changes plans mid-cycle. The prorated amount is the number of days used out
+ * of the number of days in the period, applied to the amount in minor units with a single
+ * rounding using the current {@link MoneyRoundingModeHolder}
+ * rounding mode.
+ *
+ * Days are counted from the start of the period inclusive to the end of the period exclusive,
+ * the same as the start and end of a {@link CurrentBillingCycle}. Monthly and yearly periods
+ * follow the calendar, so a month starting on January 15th has 31 days while a month starting
+ * on February 15th has 28 (or 29).
+ *
+ * A plan change is typically prorated as a credit for the remainder of the cycle on the old
+ * plan and a charge for the remainder of the cycle on the new plan:
+ * <code>
+ *      CurrentBillingCycle cycle = account.getBillingCycle().getCurrentBillingCycle(today);
+ *      Money credit = Proration.prorate(oldPrice, cycle, today).negate();
+ *      Money charge = Proration.prorate(newPrice, cycle, today);
+ * </code>
+ *
+ * Period ends are calculated from a precomputed table of the first day of every month
+ * between {@link #TABLE_FIRST_YEAR} and {@link #TABLE_LAST_YEAR}, falling back to calendar
+ * arithmetic for dates outside the table.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public final class Proration {
+
+    public static final int TABLE_FIRST_YEAR = 1900;
+    public static final int TABLE_LAST_YEAR = 2199;
+
+    /** Epoch day of the first day of each month in the table, plus the first month after the table. */
+    private static final long[] MONTH_STARTS = new long[(TABLE_LAST_YEAR - TABLE_FIRST_YEAR + 1) * 12 + 1];
+
+    static {
+        for (int i = 0; i < MONTH_STARTS.length; i++)
+            MONTH_STARTS[i] = DateUtils.toEpochDay(TABLE_FIRST_YEAR + i / 12, i % 12 + 1, 1);
+    }
+
+    private Proration() {
+    }
+
+    /**
+     * Returns the end of a billing period starting on the given date, the same as
+     * {@link CurrentBillingCycle#calculateCycleEnd(BillingPeriod, org.joda.time.DateMidnight)}.
+     *
+     * @param start start of the period, as days since 1970-01-01
+     * @param type billing period type
+     * @param interval billing period interval
+     * @return end of the period (exclusive), as days since 1970-01-01
+     */
+    public static long getPeriodEnd(long start, BillingPeriod.Type type, int interval) {
+        switch (type) {
+            case DAY:
+                return start + interval;
+
+            case WEEK:
+                return start + 7L * interval;
+
+            case MONTH:
+                return plusMonths(start, interval);
+
+            case YEAR:
+                return plusMonths(start, 12 * interval);
+        }
+        throw new IllegalArgumentException("Unknown billing period type " + type);
+    }
+
+    /**
+     * Adds months to the given date, reducing the day of month to the last day of the resulting
+     * month if it would otherwise be invalid.
+     */
+    private static long plusMonths(long day, int months) {
+        if (day >= MONTH_STARTS[0] && day < MONTH_STARTS[MONTH_STARTS.length - 1]) {
+            // estimate the month from the average month length of 146097 days per 4800 months
+            int month = (int) ((day - MONTH_STARTS[0]) * 4800 / 146097);
+            while (MONTH_STARTS[month] > day) month--;
+            while (MONTH_STARTS[month + 1] <= day) month++;
+
+            int target = month + months;
+            if (target >= 0 && target < MONTH_STARTS.length - 1) {
+                long dayOfMonth = day - MONTH_STARTS[month];
+                long daysInMonth = MONTH_STARTS[target + 1] - MONTH_STARTS[target];
+                return MONTH_STARTS[target] + Math.min(dayOfMonth, daysInMonth - 1);
+            }
+        }
+
+        int[] date = DateUtils.toDate(day);
+        BillingCycleEvaluator.plusMonths(date, months);
+        return DateUtils.toEpochDay(date[0], date[1], date[2]);
+    }
+
+    /**
+     * Prorates the given amount for the remainder of the given billing cycle, from the given date
+     * inclusive to the end of the cycle. Dates before the cycle prorate the whole amount, and
+     * dates on or after the end of the cycle prorate to zero.
+     *
+     * @param amount amount for the whole cycle
+     * @param cycle billing cycle to prorate over
+     * @param from date to prorate from
+     * @return prorated amount
+     */
+    public static Money prorate(Money amount, CurrentBillingCycle cycle, DateMidnight from) {
+        return prorate(amount, cycle.getStart(), cycle.getEnd(), from, cycle.getEnd());
+    }
+
+    /**
+     * Prorates the given amount for the part of the billing period starting on the given date
+     * that falls between the given dates, from inclusive and to exclusive.
+     *
+     * @param amount amount for the whole period
+     * @param start start of the billing period
+     * @param period billing period
+     * @param from date to prorate from (inclusive)
+     * @param to date to prorate to (exclusive)
+     * @return prorated amount
+     */
+    public static Money prorate(Money amount, DateMidnight start, BillingPeriod period, DateMidnight from, DateMidnight to) {
+        long startDay = DateUtils.toEpochDay(start);
+        long endDay = getPeriodEnd(startDay, period.getType(), period.getInterval());
+
+        return prorate(amount, startDay, endDay, DateUtils.toEpochDay(from), DateUtils.toEpochDay(to));
+    }
+
+    private static Money prorate(Money amount, DateMidnight start, DateMidnight end, DateMidnight from, DateMidnight to) {
+        return prorate(amount, DateUtils.toEpochDay(start), DateUtils.toEpochDay(end),
+                       DateUtils.toEpochDay(from), DateUtils.toEpochDay(to));
+    }
+
+    private static Money prorate(Money amount, long start, long end, long from, long to) {
+        return amount.prorate(getDays(start, end, from, to), end - start);
+    }
+
+    /**
+     * Returns the number of days between from and to that fall within the period between start and end.
+     */
+    private static long getDays(long start, long end, long from, long to) {
+        long days = Math.min(to, end) - Math.max(from, start);
+        return days > 0 ? days : 0;
+    }
+
+    /**
+     * Prorates a batch of amounts in minor units for the remainder of their billing periods,
+     * from the change date of each amount inclusive to the end of its period. Element <code>i</code>
+     * of the result array holds the prorated amount of element <code>i</code> of the units array.
+     * The result array may be the same as the units array to prorate in place.
+     *
+     * The billing periods are given by the start of the current cycle of each amount (see
+     * {@link BillingCycleEvaluator}) and the period type and interval.
+     *
+     * @param units amounts for the whole period, in minor units
+     * @param changeDays date to prorate each amount from, as days since 1970-01-01
+     * @param cycleStarts start of the billing period of each amount, as days since 1970-01-01
+     * @param types billing period types
+     * @param intervals billing period intervals
+     * @param result array to write prorated amounts into, at least as long as units
+     * @return the given result array
+     */
+    public static long[] prorate(long[] units, long[] changeDays, long[] cycleStarts,
+                                 BillingPeriod.Type[] types, int[] intervals, long[] result) {
+        RoundingMode roundingMode = MoneyRoundingModeHolder.GetRoundingMode();
+
+        for (int i = 0; i < units.length; i++) {
+            long start = cycleStarts[i];
+            long end = getPeriodEnd(start, types[i], intervals[i]);
+
+            result[i] = MoneyMath.multiplyDivide(units[i], getDays(start, end, changeDays[i], end), end - start, roundingMode);
+        }
+
+        return result;
+    }
+
+    /**
+     * Prorates a batch of amounts in minor units for the remainder of their billing periods, from
+     * the change date of each amount inclusive to the end of its period. Bulk form for periods
+     * that have already been calculated, for example by the {@link BillingCycleEvaluator}.
+     *
+     * @param units amounts for the whole period, in minor units
+     * @param changeDays date to prorate each amount from, as days since 1970-01-01
+     * @param cycleStarts start of the billing period of each amount, as days since 1970-01-01
+     * @param cycleEnds end of the billing period of each amount (exclusive), as days since 1970-01-01
+     * @param result array to write prorated amounts into, at least as long as units
+     * @return the given result array
+     */
+    public static long[] prorate(long[] units, long[] changeDays, long[] cycleStarts, long[] cycleEnds, long[] result) {
+        RoundingMode roundingMode = MoneyRoundingModeHolder.GetRoundingMode();
+
+        for (int i = 0; i < units.length; i++) {
+            long start = cycleStarts[i];
+            long end = cycleEnds[i];
+
+            result[i] = MoneyMath.multiplyDivide(units[i], getDays(start, end, changeDays[i], end), end - start, roundingMode);
+        }
+
+        return result;
+    }
+}
@@ -17,10 +17,11 @@
 
 package com.billing.ng.entities;
 
+import org.hibernate.annotations.Columns;
+import org.hibernate.annotations.Type;
 import org.hibernate.annotations.Where;
 
 import javax.persistence.Column;
-import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
@@ -34,6 +35,7 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * PurchaseOrder
@@ -58,10 +60,18 @@ public class PurchaseOrder extends BaseEntity implements Numbered, Totaled {
     @ManyToOne
     private Account account;
 
+    @ManyToOne
+    private Invoice invoice;
+
     @OneToMany(mappedBy = "purchaseOrder")
     private List<PurchaseOrderLine> lines = new ArrayList<PurchaseOrderLine>();
 
-    @Embedded
+    @Type(type = "com.billing.ng.entities.MoneyType")
+    @Columns(columns = {
+            @Column(name = "value", nullable = false),
+            @Column(name = "scale", nullable = false),
+            @Column(name = "currency_code", nullable = false, length = 3)
+    })
     private Money total;
 
     public PurchaseOrder() {
@@ -109,6 +119,20 @@ public class PurchaseOrder extends BaseEntity implements Numbered, Totaled {
         this.account = account;
     }
 
+    /**
+     * Returns the invoice this order was billed on, or null if the order has not been invoiced.
+     *
+     * @return invoice, null if not invoiced
+     */
+    @XmlTransient
+    public Invoice getInvoice() {
+        return invoice;
+    }
+
+    public void setInvoice(Invoice invoice) {
+        this.invoice = invoice;
+    }
+
     @XmlElement
     @XmlElementWrapper(name = "lines")
     public List<PurchaseOrderLine> getLines() {
@@ -119,6 +143,35 @@ public class PurchaseOrder extends BaseEntity implements Numbered, Totaled {
         this.lines = lines;
     }
 
+    /**
+     * Adds the given line to this order, applying the line total to the order total
+     * without re-calculating the total from all order lines.
+     *
+     * @param line line to add
+     */
+    public void addLine(PurchaseOrderLine line) {
+        Money previous = getTotal(); // calculated once, then kept up to date
+
+        line.setPurchaseOrder(this);
+        lines.add(line);
+
+        total = PurchaseOrderLine.adjust(previous, null, line.getTotal());
+        updateRollup(previous);
+    }
+
+    /**
+     * Removes the given line from this order, applying the line total to the order total
+     * without re-calculating the total from all order lines.
+     *
+     * @param line line to remove
+     */
+    public void removeLine(PurchaseOrderLine line) {
+        if (lines.remove(line)) {
+            line.setPurchaseOrder(null);
+            updateTotal(line.getTotal(), null);
+        }
+    }
+
     @XmlElement
     public Money getTotal() {
         if (total == null)
@@ -127,12 +180,101 @@ public class PurchaseOrder extends BaseEntity implements Numbered, Totaled {
         return total;
     }
 
+    /**
+     * Returns the total as last calculated, without calculating it from the order lines
+     * or applying it to the rollups of the account.
+     *
+     * @return order total, null if the total has not been calculated yet
+     */
+    Money getCalculatedTotal() {
+        return total;
+    }
+
     public void setTotal(Money total) {
+        Money previous = this.total;
         this.total = total;
+        updateRollup(previous);
+    }
+
+    /**
+     * Applies a change in the amount of one of the order lines to the order total, without
+     * re-calculating the total from all order lines. Does nothing if the total has not been
+     * calculated yet, as the change will be included when the total is first calculated.
+     *
+     * @param oldAmount previous amount, subtracted from the total
+     * @param newAmount new amount, added to the total
+     */
+    void updateTotal(Money oldAmount, Money newAmount) {
+        if (total != null) {
+            Money previous = total;
+            total = PurchaseOrderLine.adjust(total, oldAmount, newAmount);
+            updateRollup(previous);
+        }
+    }
+
+    /**
+     * Applies a change in the total of this order to the cached rollups of the
+     * account and all of its parent accounts.
+     *
+     * @param previous previous total
+     */
+    private void updateRollup(Money previous) {
+        if (account != null && previous != total)
+            account.updateRollup(0, previous, total);
     }
 
+    /**
+     * Re-calculates the total from the order lines. The total will be calculated in the currency
+     * of the existing total, or in the currency of the first order line if no total has been set.
+     */
     public void calculateTotal() {
+        MoneyAccumulator accumulator = new MoneyAccumulator();
         for (PurchaseOrderLine line : getLines())
-            total = total.add(line.getTotal());
+            accumulator.add(line.getTotal());
+
+        calculateTotal(accumulator);
+    }
+
+    /**
+     * Re-calculates the total from pre-aggregated line totals, used to reconcile totals
+     * without loading every charge of the order. The total will be calculated in the currency
+     * of the existing total, or in the currency of the first aggregated amount if no total
+     * has been set.
+     *
+     * @param accumulator total of all order lines
+     */
+    public void calculateTotal(MoneyAccumulator accumulator) {
+        Money previous = total;
+
+        if (total != null) {
+            total = accumulator.toMoney(total.getCurrency());
+        } else {
+            total = accumulator.toMoney();
+        }
+
+        updateRollup(previous);
+    }
+
+    /**
+     * Re-calculates the line and order totals from pre-aggregated charge totals of each line,
+     * without loading any charges. Lines without an aggregated total have no charges and are
+     * totalled as zero.
+     *
+     * @param lineTotals aggregated charge totals by line id
+     * @return true if the order total changed
+     */
+    public boolean reconcileTotal(Map<Long, MoneyAccumulator> lineTotals) {
+        Money previous = total;
+
+        MoneyAccumulator orderTotal = new MoneyAccumulator();
+        for (PurchaseOrderLine line : getLines()) {
+            MoneyAccumulator lineTotal = lineTotals.get(line.getId());
+            line.reconcileTotal(lineTotal != null ? lineTotal : new MoneyAccumulator());
+            orderTotal.add(line.getCalculatedTotal());
+        }
+
+        calculateTotal(orderTotal);
+
+        return previous == null ? total != null : !previous.equals(total);
     }
 }
@@ -17,7 +17,10 @@
 
 package com.billing.ng.entities;
 
-import javax.persistence.Embedded;
+import org.hibernate.annotations.Columns;
+import org.hibernate.annotations.Type;
+
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
@@ -51,7 +54,12 @@ public class PurchaseOrderLine extends BaseEntity implements Totaled {
     @OneToMany(mappedBy = "line")
     private List<Charge> charges = new ArrayList<Charge>();
 
-    @Embedded
+    @Type(type = "com.billing.ng.entities.MoneyType")
+    @Columns(columns = {
+            @Column(name = "value", nullable = false),
+            @Column(name = "scale", nullable = false),
+            @Column(name = "currency_code", nullable = false, length = 3)
+    })
     private Money total;
 
     public PurchaseOrderLine() {
@@ -85,6 +93,36 @@ public class PurchaseOrderLine extends BaseEntity implements Totaled {
         this.charges = charges;
     }
 
+    /**
+     * Adds the given charge to this line, applying the charge amount to the line and
+     * order totals without re-calculating the totals from all charges.
+     *
+     * @param charge charge to add
+     */
+    public void addCharge(Charge charge) {
+        Money previous = getTotal(); // calculated once, then kept up to date
+
+        charge.setLine(this);
+        charges.add(charge);
+
+        total = adjust(previous, null, charge.getAmount());
+        if (purchaseOrder != null)
+            purchaseOrder.updateTotal(previous, total);
+    }
+
+    /**
+     * Removes the given charge from this line, applying the charge amount to the line
+     * and order totals without re-calculating the totals from all charges.
+     *
+     * @param charge charge to remove
+     */
+    public void removeCharge(Charge charge) {
+        if (charges.remove(charge)) {
+            charge.setLine(null);
+            updateTotal(charge.getAmount(), null);
+        }
+    }
+
     @XmlElement
     public Money getTotal() {
         if (total == null)
@@ -94,11 +132,112 @@ public class PurchaseOrderLine extends BaseEntity implements Totaled {
     }
 
     public void setTotal(Money total) {
+        replaceTotal(total);
+    }
+
+    /**
+     * Replaces the line total, applying the difference to the total of the purchase order. The
+     * first calculated total is not applied, as the order total includes it once calculated.
+     *
+     * @param total new line total
+     */
+    private void replaceTotal(Money total) {
+        Money previous = this.total;
         this.total = total;
+
+        if (purchaseOrder != null && previous != null)
+            purchaseOrder.updateTotal(previous, total);
+    }
+
+    /**
+     * Returns the total as last calculated, without calculating it from the charges.
+     *
+     * @return line total, null if the total has not been calculated yet
+     */
+    Money getCalculatedTotal() {
+        return total;
+    }
+
+    /**
+     * Applies a change in the amount of one of the line charges to the line total and the
+     * total of the purchase order. Does nothing if the total has not been calculated yet, as
+     * the change will be included when the total is first calculated.
+     *
+     * @param oldAmount previous charge amount, subtracted from the total
+     * @param newAmount new charge amount, added to the total
+     */
+    void updateTotal(Money oldAmount, Money newAmount) {
+        if (total != null) {
+            Money previous = total;
+            total = adjust(total, oldAmount, newAmount);
+
+            if (purchaseOrder != null)
+                purchaseOrder.updateTotal(previous, total);
+        }
+    }
+
+    /**
+     * Returns the given total with the old amount subtracted and the new amount added. Null
+     * amounts are ignored, and a null total is treated as zero in the currency of the amounts.
+     *
+     * @param total total to adjust, may be null
+     * @param oldAmount amount to subtract
+     * @param newAmount amount to add
+     * @return adjusted total
+     */
+    static Money adjust(Money total, Money oldAmount, Money newAmount) {
+        if (total == null) {
+            if (newAmount == null && oldAmount == null)
+                return null;
+
+            total = new Money(0L, newAmount != null ? newAmount.getCurrency() : oldAmount.getCurrency());
+        }
+
+        if (oldAmount != null)
+            total = total.subtract(oldAmount);
+
+        if (newAmount != null)
+            total = total.add(newAmount);
+
+        return total;
     }
 
+    /**
+     * Re-calculates the total from the line charges. The total will be calculated in the currency
+     * of the existing total, or in the currency of the first charge if no total has been set.
+     */
     public void calculateTotal() {
+        MoneyAccumulator accumulator = new MoneyAccumulator();
         for (Charge charge : getCharges())
-            total = total.add(charge.getAmount());
+            accumulator.add(charge.getAmount());
+
+        calculateTotal(accumulator);
+    }
+
+    /**
+     * Re-calculates the total from pre-aggregated charge amounts, used to reconcile totals
+     * without loading the charges of this line. The total will be calculated in the currency
+     * of the existing total, or in the currency of the first aggregated amount if no total
+     * has been set.
+     *
+     * @param accumulator total of all line charges
+     */
+    public void calculateTotal(MoneyAccumulator accumulator) {
+        replaceTotal(toTotal(accumulator));
+    }
+
+    /**
+     * Re-calculates the total from pre-aggregated charge amounts without applying it to the
+     * total of the purchase order. Used by {@link PurchaseOrder#reconcileTotal(java.util.Map)},
+     * which re-calculates the order total from all of its lines.
+     *
+     * @param accumulator total of all line charges
+     */
+    void reconcileTotal(MoneyAccumulator accumulator) {
+        total = toTotal(accumulator);
+    }
+
+    private Money toTotal(MoneyAccumulator accumulator) {
+        return total != null ? accumulator.toMoney(total.getCurrency()) : accumulator.toMoney();
     }
 }
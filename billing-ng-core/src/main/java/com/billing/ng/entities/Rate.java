@@ -21,16 +21,23 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
 import javax.persistence.Transient;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlTransient;
 import java.math.BigDecimal;
 import java.util.Currency;
+import java.util.Date;
 
 /**
  * Rate represents the conversion rate between the primary system currency
  * and this rates currency where the primary system currency is always rated at 1.
  *
+ * A rate may optionally be limited to the dates it is effective, where the effective
+ * from and to dates are both inclusive. A null date leaves the rate effective indefinitely
+ * in that direction.
+ *
  * @author Brian Cowdery
  * @since 15-Aug-2010
  */
@@ -44,6 +51,10 @@ public class Rate extends BaseEntity {
     private BigDecimal rate;
     @Column(name = "currency_code", nullable = false, length = 3)
     private String currencyCode;
+    @Column(name = "effective_from") @Temporal(TemporalType.DATE)
+    private Date effectiveFrom;
+    @Column(name = "effective_to") @Temporal(TemporalType.DATE)
+    private Date effectiveTo;
 
     public Rate() {
     }
@@ -53,6 +64,13 @@ public class Rate extends BaseEntity {
         this.currencyCode = currencyCode;
     }
 
+    public Rate(BigDecimal rate, String currencyCode, Date effectiveFrom, Date effectiveTo) {
+        this.rate = rate;
+        this.currencyCode = currencyCode;
+        this.effectiveFrom = effectiveFrom;
+        this.effectiveTo = effectiveTo;
+    }
+
     @XmlAttribute
     public Long getId() {
         return id;
@@ -80,6 +98,34 @@ public class Rate extends BaseEntity {
         this.currencyCode = currencyCode;
     }
 
+    /**
+     * First day this rate is effective, or null if the rate has always been effective.
+     *
+     * @return effective from date (inclusive)
+     */
+    @XmlAttribute
+    public Date getEffectiveFrom() {
+        return effectiveFrom;
+    }
+
+    public void setEffectiveFrom(Date effectiveFrom) {
+        this.effectiveFrom = effectiveFrom;
+    }
+
+    /**
+     * Last day this rate is effective, or null if the rate does not expire.
+     *
+     * @return effective to date (inclusive)
+     */
+    @XmlAttribute
+    public Date getEffectiveTo() {
+        return effectiveTo;
+    }
+
+    public void setEffectiveTo(Date effectiveTo) {
+        this.effectiveTo = effectiveTo;
+    }
+
     @Transient
     public Currency getCurrency() {
         return Currency.getInstance(currencyCode);
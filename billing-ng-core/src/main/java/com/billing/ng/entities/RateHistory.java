@@ -0,0 +1,248 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.util.DateUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Immutable, effective-dated history of the rates of a single currency.
+ *
+ * Rates are sorted by their effective from date. Where the effective periods of two rates
+ * overlap, the rate that became effective most recently applies. The history is flattened
+ * into disjoint segments of primitive epoch days (see {@link DateUtils#toEpochDay(java.util.Date)}),
+ * each mapped to the rate effective for that segment, so that the rate effective on a given
+ * day can be found with a binary search.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+final class RateHistory {
+
+    /** Number of entries to step forward from a cursor before falling back to a binary search. */
+    private static final int CURSOR_SCAN_LIMIT = 8;
+
+    private static final Comparator<Rate> EFFECTIVE_FROM_ORDER = new Comparator<Rate>() {
+        public int compare(Rate a, Rate b) {
+            long x = effectiveFrom(a);
+            long y = effectiveFrom(b);
+            return x < y ? -1 : (x == y ? 0 : 1);
+        }
+    };
+
+    private final Rate[] rates;
+
+    // first epoch day of each segment, and the index of the rate effective for the segment or -1 if none
+    private final long[] segments;
+    private final int[] segmentRates;
+
+    // unscaled rate value and scale of each entry, scale is Integer.MIN_VALUE if the rate does not fit in a long
+    private final long[] unscaled;
+    private final int[] scales;
+
+    RateHistory(Collection<Rate> list) {
+        List<Rate> sorted = new ArrayList<Rate>(list);
+        Collections.sort(sorted, EFFECTIVE_FROM_ORDER); // stable, later rates stay after earlier rates
+
+        // rates with the same effective from date replace each other, last one wins
+        List<Rate> entries = new ArrayList<Rate>(sorted.size());
+        for (Rate rate : sorted) {
+            int last = entries.size() - 1;
+            if (last >= 0 && effectiveFrom(entries.get(last)) == effectiveFrom(rate))
+                entries.set(last, rate);
+            else
+                entries.add(rate);
+        }
+
+        int size = entries.size();
+        this.rates = entries.toArray(new Rate[size]);
+        this.unscaled = new long[size];
+        this.scales = new int[size];
+
+        long[] from = new long[size];
+        long[] to = new long[size];
+        long[] boundaries = new long[size * 2];
+        int count = 0;
+
+        for (int i = 0; i < size; i++) {
+            from[i] = effectiveFrom(rates[i]);
+            to[i] = rates[i].getEffectiveTo() != null ? DateUtils.toEpochDay(rates[i].getEffectiveTo()) : Long.MAX_VALUE;
+
+            boundaries[count++] = from[i];
+            if (to[i] != Long.MAX_VALUE)
+                boundaries[count++] = to[i] + 1;
+
+            BigDecimal rate = rates[i].getRate();
+            try {
+                unscaled[i] = MoneyMath.unscaled(rate);
+                scales[i] = unscaled[i] > 0 ? rate.scale() : Integer.MIN_VALUE;
+            } catch (ArithmeticException e) {
+                scales[i] = Integer.MIN_VALUE;
+            }
+        }
+
+        // segment boundaries are the days that any rate becomes effective or expires
+        Arrays.sort(boundaries, 0, count);
+        long[] segments = new long[count];
+        int[] segmentRates = new int[count];
+        int segmentCount = 0;
+
+        for (int i = 0; i < count; i++) {
+            long day = boundaries[i];
+            if (segmentCount > 0 && segments[segmentCount - 1] == day)
+                continue;
+
+            // most recently effective rate that has not expired by the start of the segment
+            int rate = floor(from, day);
+            while (rate >= 0 && to[rate] < day)
+                rate--;
+
+            if (segmentCount > 0 && segmentRates[segmentCount - 1] == rate)
+                continue; // same rate as the previous segment, merge
+
+            segments[segmentCount] = day;
+            segmentRates[segmentCount] = rate;
+            segmentCount++;
+        }
+
+        this.segments = Arrays.copyOf(segments, segmentCount);
+        this.segmentRates = Arrays.copyOf(segmentRates, segmentCount);
+    }
+
+    private static long effectiveFrom(Rate rate) {
+        return rate.getEffectiveFrom() != null ? DateUtils.toEpochDay(rate.getEffectiveFrom()) : Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns a new history containing the rates of this history plus the given rates. Given
+     * rates replace any existing rate with the same effective from date.
+     *
+     * @param list rates to add
+     * @return new history
+     */
+    RateHistory with(Collection<Rate> list) {
+        List<Rate> merged = new ArrayList<Rate>(rates.length + list.size());
+        merged.addAll(Arrays.asList(rates));
+        merged.addAll(list);
+        return new RateHistory(merged);
+    }
+
+    int size() {
+        return rates.length;
+    }
+
+    Rate getRate(int index) {
+        return rates[index];
+    }
+
+    List<Rate> getRates() {
+        return Collections.unmodifiableList(Arrays.asList(rates));
+    }
+
+    /**
+     * Returns the rate effective on the given epoch day.
+     *
+     * @param epochDay days since 1970-01-01
+     * @return effective rate, or null if no rate was effective on the given day
+     */
+    Rate getRate(long epochDay) {
+        int index = getRateIndex(seek(epochDay, -1));
+        return index >= 0 ? rates[index] : null;
+    }
+
+    /**
+     * Returns the segment containing the given epoch day. If a cursor from a previous seek
+     * is given, the search starts by stepping forward from the cursor, so that a sequence of
+     * lookups by increasing date finds each segment in constant time.
+     *
+     * @param epochDay days since 1970-01-01
+     * @param cursor segment returned by a previous seek, or a negative number to search all segments
+     * @return segment index, or -1 if the day is before the first segment
+     */
+    int seek(long epochDay, int cursor) {
+        if (cursor >= 0 && cursor < segments.length && segments[cursor] <= epochDay) {
+            // step forward from the cursor while the next segment has already started
+            int limit = Math.min(segments.length - 1, cursor + CURSOR_SCAN_LIMIT);
+            while (cursor < limit && segments[cursor + 1] <= epochDay)
+                cursor++;
+
+            if (cursor == segments.length - 1 || segments[cursor + 1] > epochDay)
+                return cursor;
+        }
+
+        return floor(segments, epochDay);
+    }
+
+    /**
+     * Returns the index of the rate effective for the given segment.
+     *
+     * @param segment segment index
+     * @return rate index, or -1 if no rate is effective for the segment
+     */
+    int getRateIndex(int segment) {
+        return segment >= 0 ? segmentRates[segment] : -1;
+    }
+
+    /**
+     * Binary search for the last value less than or equal to the given day.
+     *
+     * @param days sorted epoch days
+     * @param epochDay days since 1970-01-01
+     * @return index, or -1 if all values are after the given day
+     */
+    private static int floor(long[] days, long epochDay) {
+        int low = 0;
+        int high = days.length - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (days[mid] <= epochDay)
+                low = mid + 1;
+            else
+                high = mid - 1;
+        }
+
+        return high;
+    }
+
+    /**
+     * Returns true if the rate at the given index can be used for long conversion math.
+     *
+     * @param index rate index
+     * @return true if the unscaled rate fits in a long
+     */
+    boolean isCompact(int index) {
+        return scales[index] != Integer.MIN_VALUE;
+    }
+
+    long getUnscaledRate(int index) {
+        return unscaled[index];
+    }
+
+    int getScale(int index) {
+        return scales[index];
+    }
+}
@@ -17,12 +17,23 @@
 
 package com.billing.ng.entities;
 
+import com.billing.ng.entities.context.MoneyRoundingModeHolder;
+import com.billing.ng.util.DateUtils;
+import org.joda.time.DateMidnight;
+
 import javax.xml.bind.annotation.XmlTransient;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Currency;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Rate Table holding known currencies and conversion rates. This table is used when
@@ -31,6 +42,37 @@ import java.util.Map;
  * The table system rate is used as a pivot point when converting currencies. The set
  * system rate will always have a conversion "rate" of 1.
  *
+ * Rates are held in immutable, versioned {@link Snapshot}s published through an atomic
+ * reference. Reads are lock-free and always see a complete rate sheet, while changes copy
+ * the current snapshot and swap in the new one in a single atomic step. A whole rate sheet
+ * can be replaced at once using {@link #publish(Rate, java.util.Collection)}.
+ *
+ * Rates may be effective-dated (see {@link Rate#getEffectiveFrom()}). Each snapshot keeps the
+ * full, sorted rate history of every currency so that backdated amounts can be converted at the
+ * rates that applied on a given date using {@link #getRate(String, java.util.Date)}. The rates
+ * used for undated lookups and conversions are the rates effective on the day the snapshot was
+ * published, so a future-dated rate does not apply before its effective date and an expired rate
+ * no longer applies. When the day changes, the current snapshot is re-published on its next use
+ * so that rates becoming effective or expiring that day are picked up. Pinned snapshots are not
+ * re-published, and keep the undated rates of the day they were published.
+ *
+ * Each snapshot precomputes a cross-rate matrix between all of its currencies, allowing
+ * amounts in minor units to be converted by currency index without any <code>BigDecimal</code>
+ * math (see {@link Snapshot#convert(long, int, int)}). Currency indexes are only valid for the
+ * snapshot they were obtained from.
+ *
+ * A snapshot can be pinned to the calling thread for the duration of a billing run so that
+ * all conversions performed by that thread use the same rates, regardless of any rate changes
+ * published in the meantime:
+ * <code>
+ *      RateTable.Snapshot rates = RateTable.getInstance().pin();
+ *      try {
+ *          ...
+ *      } finally {
+ *          RateTable.getInstance().unpin();
+ *      }
+ * </code>
+ *
  * @author Brian Cowdery
  * @since 15-Aug-2010
  */
@@ -43,31 +85,115 @@ public enum RateTable {
         return INSTANCE;
     }
 
-    private Map<String, Rate> rates = new HashMap<String, Rate>();
-    private Rate systemRate = null;
+    private final AtomicReference<Snapshot> current = new AtomicReference<Snapshot>(new Snapshot(0, null, Collections.<Rate>emptyList()));
+    private final ThreadLocal<Snapshot> pinned = new ThreadLocal<Snapshot>();
+
+    /**
+     * Returns the rate snapshot in effect for the calling thread, either the snapshot pinned
+     * to this thread or the most recently published snapshot.
+     *
+     * @return rate snapshot
+     */
+    public Snapshot getSnapshot() {
+        Snapshot snapshot = pinned.get();
+        return snapshot != null ? snapshot : getCurrent();
+    }
+
+    /**
+     * Returns the most recently published snapshot, re-publishing it first if its undated
+     * rates are those of a previous day.
+     *
+     * @return current snapshot
+     */
+    private Snapshot getCurrent() {
+        Snapshot snapshot = current.get();
+        while (snapshot.isExpired()) {
+            Snapshot refreshed = snapshot.with(snapshot.getSystemRate(), Collections.<Rate>emptyList());
+            if (current.compareAndSet(snapshot, refreshed))
+                return refreshed;
+            snapshot = current.get();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the version of the rate snapshot in effect for the calling thread.
+     *
+     * @return snapshot version
+     */
+    public long getVersion() {
+        return getSnapshot().getVersion();
+    }
+
+    /**
+     * Pins the most recently published snapshot to the calling thread. All rate lookups and
+     * currency conversions made by this thread will use the pinned snapshot until {@link #unpin()}
+     * is called.
+     *
+     * @return pinned snapshot
+     */
+    public Snapshot pin() {
+        Snapshot snapshot = getCurrent();
+        pinned.set(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Pins the given snapshot to the calling thread. Used to share a single snapshot between
+     * all the threads of a billing run.
+     *
+     * @param snapshot snapshot to pin
+     */
+    public void pin(Snapshot snapshot) {
+        if (snapshot == null)
+            throw new IllegalArgumentException("Snapshot cannot be null.");
+
+        pinned.set(snapshot);
+    }
+
+    /**
+     * Removes the snapshot pinned to the calling thread, if any.
+     */
+    public void unpin() {
+        pinned.remove();
+    }
 
     public Rate getRate(String currencyCode) {
-        return rates.get(currencyCode);
+        return getSnapshot().getRate(currencyCode);
     }
 
     public Rate getRate(Currency currency) {
-        return rates.get(currency.getCurrencyCode());
+        return getSnapshot().getRate(currency);
+    }
+
+    public Rate getRate(String currencyCode, Date date) {
+        return getSnapshot().getRate(currencyCode, date);
+    }
+
+    public Rate getRate(Currency currency, Date date) {
+        return getSnapshot().getRate(currency, date);
+    }
+
+    public Rate getSystemRate() {
+        return getSnapshot().getSystemRate();
     }
 
     public void addRate(Rate rate) {
-        rates.put(rate.getCurrencyCode(), rate);
+        addRates(Collections.singletonList(rate));
     }
 
     public void addRates(List<Rate> list) {
-        for (Rate rate : list) addRate(rate);
+        Snapshot snapshot;
+        do {
+            snapshot = current.get();
+        } while (!current.compareAndSet(snapshot, snapshot.with(snapshot.getSystemRate(), list)));
     }
     
     public void clear() {
-        rates.clear();
-    }
-
-    public Rate getSystemRate() {
-        return systemRate;
+        Snapshot snapshot;
+        do {
+            snapshot = current.get();
+        } while (!current.compareAndSet(snapshot, new Snapshot(snapshot.getVersion() + 1, snapshot.getSystemRate(), Collections.<Rate>emptyList())));
     }
 
     /**
@@ -78,7 +204,363 @@ public enum RateTable {
      */
     public void setSystemRate(Rate systemRate) {
         systemRate.setRate(BigDecimal.ONE);
-        this.systemRate = systemRate;
-        addRate(systemRate);
+
+        Snapshot snapshot;
+        do {
+            snapshot = current.get();
+        } while (!current.compareAndSet(snapshot, snapshot.with(systemRate, Collections.singletonList(systemRate))));
+    }
+
+    /**
+     * Replaces the entire rate sheet in a single atomic step. The given system rate will
+     * be set to 1 and added to the published rates.
+     *
+     * @param systemRate system rate
+     * @param rates all known rates
+     * @return the published snapshot
+     */
+    public Snapshot publish(Rate systemRate, Collection<Rate> rates) {
+        if (systemRate != null)
+            systemRate.setRate(BigDecimal.ONE);
+
+        Snapshot snapshot;
+        Snapshot published;
+        do {
+            snapshot = current.get();
+            published = new Snapshot(snapshot.getVersion() + 1, systemRate, rates);
+        } while (!current.compareAndSet(snapshot, published));
+
+        return published;
+    }
+
+
+    /**
+     * Immutable, versioned set of conversion rates. Rates are copied when the snapshot is
+     * created, so later changes to the original {@link Rate} entities are not seen by the
+     * snapshot. Rates returned by a snapshot must not be modified.
+     */
+    public static final class Snapshot {
+
+        private final long version;
+        private final long epochDay;
+        private final long expires;
+        private final Rate systemRate;
+        private final Map<String, Rate> rates;
+        private final Map<String, RateHistory> history;
+        private final CrossRateMatrix matrix;
+
+        private Snapshot(long version, Rate systemRate, Collection<Rate> list) {
+            this(version, new HashMap<String, RateHistory>(), systemRate, list);
+        }
+
+        private Snapshot(long version, Map<String, RateHistory> history, Rate systemRate, Collection<Rate> list) {
+            // group rates by currency, and merge into the existing history of each currency
+            Map<String, List<Rate>> grouped = new LinkedHashMap<String, List<Rate>>();
+            for (Rate rate : list) {
+                List<Rate> group = grouped.get(rate.getCurrencyCode());
+                if (group == null)
+                    grouped.put(rate.getCurrencyCode(), group = new ArrayList<Rate>());
+                group.add(copy(rate));
+            }
+
+            for (Map.Entry<String, List<Rate>> entry : grouped.entrySet()) {
+                RateHistory existing = history.get(entry.getKey());
+                history.put(entry.getKey(), existing != null ? existing.with(entry.getValue()) : new RateHistory(entry.getValue()));
+            }
+
+            if (systemRate != null && !history.containsKey(systemRate.getCurrencyCode()))
+                history.put(systemRate.getCurrencyCode(), new RateHistory(Collections.singletonList(copy(systemRate))));
+
+            // undated rates are the rates effective today, currencies without one are left out
+            DateMidnight today = new DateMidnight();
+            long epochDay = DateUtils.toEpochDay(today);
+
+            Map<String, Rate> rates = new HashMap<String, Rate>();
+            for (Map.Entry<String, RateHistory> entry : history.entrySet()) {
+                Rate rate = entry.getValue().getRate(epochDay);
+                if (rate != null)
+                    rates.put(entry.getKey(), rate);
+            }
+
+            this.version = version;
+            this.epochDay = epochDay;
+            this.expires = today.plusDays(1).getMillis();
+            this.systemRate = systemRate != null ? rates.get(systemRate.getCurrencyCode()) : null;
+            this.rates = Collections.unmodifiableMap(rates);
+            this.history = history;
+            this.matrix = new CrossRateMatrix(rates.values());
+        }
+
+        private static Rate copy(Rate rate) {
+            Rate copy = new Rate(rate.getRate(), rate.getCurrencyCode(), rate.getEffectiveFrom(), rate.getEffectiveTo());
+            copy.setId(rate.getId());
+            return copy;
+        }
+
+        /**
+         * Returns a new snapshot containing all the rates of this snapshot plus the given
+         * rates, with the version incremented.
+         *
+         * @param systemRate system rate of the new snapshot
+         * @param list rates to add or replace
+         * @return new snapshot
+         */
+        private Snapshot with(Rate systemRate, Collection<Rate> list) {
+            return new Snapshot(version + 1, new HashMap<String, RateHistory>(history), systemRate, list);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Returns the day that the undated rates of this snapshot are effective for.
+         *
+         * @return days since 1970-01-01
+         */
+        public long getEpochDay() {
+            return epochDay;
+        }
+
+        /**
+         * Returns true if the undated rates of this snapshot are those of a previous day.
+         *
+         * @return true if this snapshot should be re-published
+         */
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expires;
+        }
+
+        public Rate getSystemRate() {
+            return systemRate;
+        }
+
+        public Rate getRate(String currencyCode) {
+            return rates.get(currencyCode);
+        }
+
+        public Rate getRate(Currency currency) {
+            return rates.get(currency.getCurrencyCode());
+        }
+
+        public Collection<Rate> getRates() {
+            return rates.values();
+        }
+
+        /**
+         * Returns the rate of the given currency effective on the given date.
+         *
+         * @param currencyCode currency code
+         * @param date date
+         * @return effective rate, or null if no rate was effective on the given date
+         */
+        public Rate getRate(String currencyCode, Date date) {
+            RateHistory rates = history.get(currencyCode);
+            return rates != null ? rates.getRate(DateUtils.toEpochDay(date)) : null;
+        }
+
+        public Rate getRate(Currency currency, Date date) {
+            return getRate(currency.getCurrencyCode(), date);
+        }
+
+        /**
+         * Returns all rates of the given currency sorted by effective from date.
+         *
+         * @param currencyCode currency code
+         * @return rate history, empty if there are no rates for the currency
+         */
+        public List<Rate> getRateHistory(String currencyCode) {
+            RateHistory rates = history.get(currencyCode);
+            return rates != null ? rates.getRates() : Collections.<Rate>emptyList();
+        }
+
+        /**
+         * Returns all rates of all currencies, including rates that are no longer effective.
+         *
+         * @return all rates
+         */
+        public Collection<Rate> getRateHistory() {
+            List<Rate> all = new ArrayList<Rate>();
+            for (RateHistory rates : history.values())
+                all.addAll(rates.getRates());
+            return all;
+        }
+
+        public boolean isEmpty() {
+            return rates.isEmpty();
+        }
+
+        /**
+         * Returns the number of currencies that can be converted by index.
+         *
+         * @return number of currencies
+         */
+        public int getCurrencyCount() {
+            return matrix.size();
+        }
+
+        /**
+         * Returns the index of the given currency in this snapshot, or -1 if this snapshot
+         * holds no rate for the currency.
+         *
+         * @param currency currency
+         * @return currency index, or -1 if not found
+         */
+        public int indexOf(Currency currency) {
+            return matrix.indexOf(currency.getCurrencyCode());
+        }
+
+        /**
+         * Returns the index of the given currency code in this snapshot, or -1 if this snapshot
+         * holds no rate for the currency.
+         *
+         * @param currencyCode currency code
+         * @return currency index, or -1 if not found
+         */
+        public int indexOf(String currencyCode) {
+            return matrix.indexOf(currencyCode);
+        }
+
+        /**
+         * Returns the currency at the given index.
+         *
+         * @param index currency index
+         * @return currency
+         */
+        public Currency getCurrency(int index) {
+            return matrix.getCurrency(index);
+        }
+
+        /**
+         * Converts an amount in minor units from one currency to another using the precomputed
+         * cross-rate matrix. The result is rounded exactly as {@link Money#convert(Money)} would
+         * round the same amount.
+         *
+         * @param units amount in minor units of the source currency
+         * @param from index of the source currency
+         * @param to index of the target currency
+         * @return converted amount in minor units of the target currency
+         * @throws ArithmeticException if the converted amount does not fit in a long
+         */
+        public long convert(long units, int from, int to) {
+            return matrix.convert(units, from, to);
+        }
+
+        /**
+         * Converts all amounts in minor units from one currency to another, writing the converted
+         * amounts into the result array. The result array may be the same as the units array to
+         * convert in place.
+         *
+         * @param units amounts in minor units of the source currency
+         * @param from index of the source currency
+         * @param to index of the target currency
+         * @param result array to write converted amounts into, at least as long as units
+         * @return the given result array
+         * @throws ArithmeticException if a converted amount does not fit in a long
+         */
+        public long[] convertAll(long[] units, int from, int to, long[] result) {
+            for (int i = 0; i < units.length; i++)
+                result[i] = matrix.convert(units[i], from, to);
+
+            return result;
+        }
+
+        /**
+         * Converts all amounts in minor units, each in the currency given by the matching index of
+         * the from array, to a single currency. The result array may be the same as the units array
+         * to convert in place.
+         *
+         * @param units amounts in minor units
+         * @param from index of the source currency of each amount
+         * @param to index of the target currency
+         * @param result array to write converted amounts into, at least as long as units
+         * @return the given result array
+         * @throws ArithmeticException if a converted amount does not fit in a long
+         */
+        public long[] convertAll(long[] units, int[] from, int to, long[] result) {
+            for (int i = 0; i < units.length; i++)
+                result[i] = matrix.convert(units[i], from[i], to);
+
+            return result;
+        }
+
+        /**
+         * Converts amounts in minor units from one currency to another at the rates effective on
+         * the date of each amount, writing the converted amounts into the result array. The result
+         * array may be the same as the units array to convert in place.
+         *
+         * The rate history of each currency is searched starting from the position of the previous
+         * amount, so converting amounts sorted by date takes constant time per amount.
+         *
+         * @param units amounts in minor units of the source currency
+         * @param epochDays date of each amount as days since 1970-01-01, see {@link DateUtils#toEpochDay(java.util.Date)}
+         * @param from source currency
+         * @param to target currency
+         * @param result array to write converted amounts into, at least as long as units
+         * @return the given result array
+         * @throws IllegalStateException if either currency has no rate effective on the date of an amount
+         * @throws ArithmeticException if a converted amount does not fit in a long
+         */
+        public long[] convertAll(long[] units, long[] epochDays, Currency from, Currency to, long[] result) {
+            if (from.equals(to)) {
+                System.arraycopy(units, 0, result, 0, units.length);
+                return result;
+            }
+
+            RateHistory source = getHistory(from);
+            RateHistory target = getHistory(to);
+            int fromDigits = from.getDefaultFractionDigits();
+            int toDigits = to.getDefaultFractionDigits();
+            RoundingMode roundingMode = MoneyRoundingModeHolder.GetRoundingMode();
+
+            int fromCursor = -1;
+            int toCursor = -1;
+
+            for (int i = 0; i < units.length; i++) {
+                fromCursor = source.seek(epochDays[i], fromCursor);
+                toCursor = target.seek(epochDays[i], toCursor);
+
+                int fromRate = source.getRateIndex(fromCursor);
+                int toRate = target.getRateIndex(toCursor);
+
+                if (fromRate < 0 || toRate < 0)
+                    throw new IllegalStateException("No " + (fromRate < 0 ? from : to).getCurrencyCode()
+                                                    + " rate effective on " + DateUtils.toDateMidnight(epochDays[i]).toLocalDate());
+
+                result[i] = convert(units[i], source, fromRate, fromDigits, target, toRate, toDigits, roundingMode);
+            }
+
+            return result;
+        }
+
+        private RateHistory getHistory(Currency currency) {
+            RateHistory rates = history.get(currency.getCurrencyCode());
+            if (rates == null)
+                throw new IllegalStateException("No rates for currency " + currency.getCurrencyCode());
+            return rates;
+        }
+
+        private static long convert(long units, RateHistory source, int fromRate, int fromDigits,
+                                    RateHistory target, int toRate, int toDigits, RoundingMode roundingMode) {
+
+            if (source.isCompact(fromRate) && target.isCompact(toRate)) {
+                try {
+                    return CrossRateMatrix.convert(units,
+                                                   source.getUnscaledRate(fromRate), source.getScale(fromRate), fromDigits,
+                                                   target.getUnscaledRate(toRate), target.getScale(toRate), toDigits,
+                                                   roundingMode);
+                } catch (ArithmeticException e) {
+                    // intermediate overflow, fall through to BigDecimal math
+                }
+            }
+
+            BigDecimal value = BigDecimal.valueOf(units, fromDigits);
+            return MoneyMath.unscaled(Money.convert(value, source.getRate(fromRate), target.getRate(toRate), toDigits));
+        }
+
+        @Override
+        public String toString() {
+            return "RateTable.Snapshot{version=" + version + ", rates=" + rates.keySet() + "}";
+        }
     }
 }
@@ -0,0 +1,110 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.entities.structure.Traversal;
+import com.billing.ng.entities.structure.Visitor;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Visitor that re-calculates the rollup of every visited account from scratch, ignoring all
+ * cached rollups, and compares the result against the cached rollup of the account. Accounts
+ * with a cached rollup that does not match are collected as inconsistent, and can optionally be
+ * repaired by replacing the cached rollup with the re-calculated one.
+ *
+ * Sub-accounts must be visited before their parents, see {@link Traversal#postOrder(com.billing.ng.entities.structure.Composite, Visitor)}.
+ *
+ * <code>
+ *      RollupVerificationVisitor verifier = new RollupVerificationVisitor();
+ *      Traversal.postOrder(account, verifier);
+ *
+ *      for (Account inconsistent : verifier.getInconsistentAccounts())
+ *          log.warn("Rollup of " + inconsistent + " out of date.");
+ * </code>
+ *
+ * This class is NOT thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class RollupVerificationVisitor implements Visitor<Account, AccountRollup> {
+
+    private final boolean repair;
+
+    /** Re-calculated rollups of visited accounts whose parent has not been visited yet. */
+    private final Map<Account, AccountRollup> pending = new IdentityHashMap<Account, AccountRollup>();
+    private final List<Account> inconsistent = new ArrayList<Account>();
+
+    public RollupVerificationVisitor() {
+        this(false);
+    }
+
+    /**
+     * Constructs a new verification visitor.
+     *
+     * @param repair true to replace inconsistent cached rollups with the re-calculated rollup
+     */
+    public RollupVerificationVisitor(boolean repair) {
+        this.repair = repair;
+    }
+
+    public AccountRollup visit(Account account) {
+        AccountRollup rollup = new AccountRollup();
+        for (PurchaseOrder order : account.getPurchaseOrders())
+            rollup.add(order);
+
+        for (Account subAccount : account.getSubAccounts()) {
+            AccountRollup subRollup = pending.remove(subAccount);
+            if (subRollup == null)
+                throw new IllegalStateException("Sub-account " + subAccount + " not visited before its parent.");
+            rollup.add(subRollup);
+        }
+
+        AccountRollup cached = account.getCachedRollup();
+        if (cached != null && !cached.equals(rollup)) {
+            inconsistent.add(account);
+            if (repair)
+                account.setCachedRollup(rollup);
+        }
+
+        pending.put(account, rollup);
+        return rollup;
+    }
+
+    /**
+     * Returns all visited accounts with a cached rollup that does not match the re-calculated rollup.
+     *
+     * @return accounts with inconsistent rollups
+     */
+    public List<Account> getInconsistentAccounts() {
+        return inconsistent;
+    }
+
+    /**
+     * Returns true if the cached rollups of all visited accounts are consistent.
+     *
+     * @return true if consistent
+     */
+    public boolean isConsistent() {
+        return inconsistent.isEmpty();
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities.structure;
+
+/**
+ * Visitor that produces a value for each node visited, where the values of a node
+ * and all of its descendants can be combined in any grouping to give an aggregate
+ * for the whole subtree (for example, a sum or a count).
+ *
+ * Because the combine operation is associative, a {@link Traversal} can reduce separate
+ * subtrees on different threads and combine the results afterwards. Visitors used for a
+ * parallel reduction must be safe to call from multiple threads at once.
+ *
+ * @param <V> visitable type
+ * @param <R> return type of visitor
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public interface AssociativeVisitor<V, R> extends Visitor<V, R> {
+
+    /**
+     * Combines two values. Must be associative, so that <code>combine(combine(a, b), c)</code>
+     * equals <code>combine(a, combine(b, c))</code>.
+     *
+     * @param left value of the earlier node(s)
+     * @param right value of the later node(s)
+     * @return combined value
+     */
+    R combine(R left, R right);
+
+}
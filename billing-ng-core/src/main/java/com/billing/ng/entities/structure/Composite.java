@@ -0,0 +1,40 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities.structure;
+
+import java.util.Collection;
+
+/**
+ * Composite interface used to mark a class as a node in a tree structure
+ * that can be walked by a {@link Traversal}.
+ *
+ * @param <V> node type
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public interface Composite<V> {
+
+    /**
+     * Returns the direct children of this node, in order. Leaf nodes return an empty collection.
+     *
+     * @return child nodes
+     */
+    public Collection<? extends V> getChildren();
+
+}
@@ -0,0 +1,346 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities.structure;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Walks a tree of {@link Composite} nodes, calling a {@link Visitor} once for each node. Unlike
+ * a visitor that recurses into the children of each node itself, the traversal uses an explicit
+ * stack or queue so that very deep structures can be walked without overflowing the call stack.
+ *
+ * Visitors used with a traversal should only handle the visited node, and not visit its children.
+ *
+ * Nodes can be visited in pre-order (parents before children), post-order (children before
+ * parents) or breadth-first (level by level) order. An {@link AssociativeVisitor} can also be used
+ * to reduce a whole tree to a single value, either in the calling thread or split across a
+ * fork/join pool:
+ * <code>
+ *      Long count = Traversal.parallelReduce(root, new AssociativeVisitor&lt;Account, Long&gt;() {
+ *          public Long visit(Account account) { return 1L; }
+ *          public Long combine(Long left, Long right) { return left + right; }
+ *      });
+ * </code>
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class Traversal {
+
+    public enum Order { PRE_ORDER, POST_ORDER, BREADTH_FIRST }
+
+    private static class PoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    private Traversal() {
+    }
+
+    /**
+     * Visits every node in the tree starting at the given root, in the given order.
+     *
+     * @param root root node
+     * @param visitor visitor to call for each node
+     * @param order traversal order
+     * @param <V> node type
+     */
+    public static <V extends Composite<V>> void traverse(V root, Visitor<V, ?> visitor, Order order) {
+        switch (order) {
+            case PRE_ORDER:
+                preOrder(root, visitor);
+                break;
+
+            case POST_ORDER:
+                postOrder(root, visitor);
+                break;
+
+            case BREADTH_FIRST:
+                breadthFirst(root, visitor);
+                break;
+        }
+    }
+
+    /**
+     * Visits every node in the tree starting at the given root, visiting each node
+     * before its children.
+     *
+     * @param root root node
+     * @param visitor visitor to call for each node
+     * @param <V> node type
+     */
+    public static <V extends Composite<V>> void preOrder(V root, Visitor<V, ?> visitor) {
+        Deque<Iterator<? extends V>> children = new ArrayDeque<Iterator<? extends V>>();
+
+        visitor.visit(root);
+        children.push(root.getChildren().iterator());
+
+        while (!children.isEmpty()) {
+            Iterator<? extends V> next = children.peek();
+
+            if (next.hasNext()) {
+                V child = next.next();
+                visitor.visit(child);
+                children.push(child.getChildren().iterator());
+            } else {
+                children.pop();
+            }
+        }
+    }
+
+    /**
+     * Visits every node in the tree starting at the given root, visiting each node
+     * after its children.
+     *
+     * @param root root node
+     * @param visitor visitor to call for each node
+     * @param <V> node type
+     */
+    public static <V extends Composite<V>> void postOrder(V root, Visitor<V, ?> visitor) {
+        Deque<V> nodes = new ArrayDeque<V>();
+        Deque<Iterator<? extends V>> children = new ArrayDeque<Iterator<? extends V>>();
+
+        nodes.push(root);
+        children.push(root.getChildren().iterator());
+
+        while (!nodes.isEmpty()) {
+            Iterator<? extends V> next = children.peek();
+
+            if (next.hasNext()) {
+                V child = next.next();
+                nodes.push(child);
+                children.push(child.getChildren().iterator());
+            } else {
+                children.pop();
+                visitor.visit(nodes.pop());
+            }
+        }
+    }
+
+    /**
+     * Visits every node in the tree starting at the given root, visiting all nodes
+     * at one level of the tree before the nodes at the next level.
+     *
+     * @param root root node
+     * @param visitor visitor to call for each node
+     * @param <V> node type
+     */
+    public static <V extends Composite<V>> void breadthFirst(V root, Visitor<V, ?> visitor) {
+        Deque<V> queue = new ArrayDeque<V>();
+        queue.add(root);
+
+        while (!queue.isEmpty()) {
+            V node = queue.poll();
+            visitor.visit(node);
+            queue.addAll(node.getChildren());
+        }
+    }
+
+    /**
+     * Reduces the tree starting at the given root to a single value in the calling thread. The
+     * value of each node is combined with the reduced values of its child subtrees, in order.
+     *
+     * @param root root node
+     * @param visitor visitor to call for each node
+     * @param <V> node type
+     * @param <R> reduced value type
+     * @return reduced value of the whole tree
+     */
+    public static <V extends Composite<V>, R> R reduce(V root, AssociativeVisitor<V, R> visitor) {
+        Deque<Iterator<? extends V>> children = new ArrayDeque<Iterator<? extends V>>();
+        List<R> values = new ArrayList<R>(); // values may be null, which an ArrayDeque does not allow
+
+        children.push(root.getChildren().iterator());
+        values.add(visitor.visit(root));
+
+        while (true) {
+            Iterator<? extends V> next = children.peek();
+
+            if (next.hasNext()) {
+                V child = next.next();
+                children.push(child.getChildren().iterator());
+                values.add(visitor.visit(child));
+
+            } else {
+                // subtree complete, combine with the value of the parent
+                children.pop();
+                R value = values.remove(values.size() - 1);
+
+                if (children.isEmpty())
+                    return value;
+
+                int parent = values.size() - 1;
+                values.set(parent, visitor.combine(values.get(parent), value));
+            }
+        }
+    }
+
+    /**
+     * Reduces the tree starting at the given root to a single value, splitting the subtrees
+     * across a shared fork/join pool with one thread per available processor.
+     *
+     * @see #reduce(Composite, AssociativeVisitor, java.util.concurrent.ForkJoinPool)
+     */
+    public static <V extends Composite<V>, R> R parallelReduce(V root, AssociativeVisitor<V, R> visitor) {
+        return reduce(root, visitor, PoolHolder.POOL);
+    }
+
+    /**
+     * Reduces the tree starting at the given root to a single value, splitting the subtrees
+     * across the given fork/join pool. The result is the same as {@link #reduce(Composite, AssociativeVisitor)},
+     * but nodes may be visited in any order and from any thread of the pool.
+     *
+     * The children of every node are loaded in the calling thread before the tree is split, as
+     * {@link Composite#getChildren()} may initialize a lazy collection (such as the sub-accounts of
+     * a persisted account) through a session that must not be used from other threads. The visitor
+     * itself is called from the pool, and must not load lazy state of the visited nodes.
+     *
+     * @param root root node
+     * @param visitor thread-safe visitor to call for each node
+     * @param pool pool to reduce the tree in
+     * @param <V> node type
+     * @param <R> reduced value type
+     * @return reduced value of the whole tree
+     */
+    public static <V extends Composite<V>, R> R reduce(V root, AssociativeVisitor<V, R> visitor, ForkJoinPool pool) {
+        return pool.invoke(new ReduceTask<Node<V>, R>(Node.load(root), new NodeVisitor<V, R>(visitor), 0));
+    }
+
+    /**
+     * A node of the tree with its children loaded, so that the tree can be walked from
+     * any thread without calling {@link Composite#getChildren()} on the original nodes.
+     */
+    private static class Node<V extends Composite<V>> implements Composite<Node<V>> {
+
+        private final V value;
+        private final List<Node<V>> children;
+
+        private Node(V value) {
+            this.value = value;
+            this.children = new ArrayList<Node<V>>();
+        }
+
+        public List<Node<V>> getChildren() {
+            return children;
+        }
+
+        /**
+         * Loads the children of every node in the tree starting at the given root.
+         */
+        static <V extends Composite<V>> Node<V> load(V root) {
+            Node<V> top = new Node<V>(root);
+            Deque<Node<V>> nodes = new ArrayDeque<Node<V>>();
+            nodes.push(top);
+
+            while (!nodes.isEmpty()) {
+                Node<V> node = nodes.pop();
+                for (V child : node.value.getChildren()) {
+                    Node<V> loaded = new Node<V>(child);
+                    node.children.add(loaded);
+                    nodes.push(loaded);
+                }
+            }
+
+            return top;
+        }
+    }
+
+    /**
+     * Visits the original node held by each loaded {@link Node}.
+     */
+    private static class NodeVisitor<V extends Composite<V>, R> implements AssociativeVisitor<Node<V>, R> {
+
+        private final AssociativeVisitor<V, R> visitor;
+
+        private NodeVisitor(AssociativeVisitor<V, R> visitor) {
+            this.visitor = visitor;
+        }
+
+        public R visit(Node<V> node) {
+            return visitor.visit(node.value);
+        }
+
+        public R combine(R left, R right) {
+            return visitor.combine(left, right);
+        }
+    }
+
+    /**
+     * Reduces a subtree, forking a task for each child that has children of its own. Leaf
+     * children are visited in the current task as they are too small to be worth splitting.
+     *
+     * Joining a task may run it in the joining thread, so subtrees below {@link #MAX_FORK_DEPTH}
+     * are reduced iteratively instead of forking further to keep the call stack bounded.
+     */
+    private static class ReduceTask<V extends Composite<V>, R> extends RecursiveTask<R> {
+
+        private static final int MAX_FORK_DEPTH = 32;
+
+        private final V node;
+        private final AssociativeVisitor<V, R> visitor;
+        private final int depth;
+
+        private ReduceTask(V node, AssociativeVisitor<V, R> visitor, int depth) {
+            this.node = node;
+            this.visitor = visitor;
+            this.depth = depth;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected R compute() {
+            if (depth >= MAX_FORK_DEPTH)
+                return Traversal.reduce(node, visitor);
+
+            Object[] children = node.getChildren().toArray();
+            List<ReduceTask<V, R>> tasks = new ArrayList<ReduceTask<V, R>>(children.length); // null for leaves
+
+            for (Object object : children) {
+                V child = (V) object;
+                ReduceTask<V, R> task = null;
+                if (!child.getChildren().isEmpty()) {
+                    task = new ReduceTask<V, R>(child, visitor, depth + 1);
+                    task.fork();
+                }
+                tasks.add(task);
+            }
+
+            R value = visitor.visit(node);
+
+            // visit leaves while forked subtrees are running, then join in reverse order of forking
+            Object[] values = new Object[children.length];
+            for (int i = 0; i < children.length; i++)
+                if (tasks.get(i) == null)
+                    values[i] = visitor.visit((V) children[i]);
+
+            for (int i = children.length - 1; i >= 0; i--)
+                if (tasks.get(i) != null)
+                    values[i] = tasks.get(i).join();
+
+            for (Object child : values)
+                value = visitor.combine(value, (R) child);
+
+            return value;
+        }
+    }
+}
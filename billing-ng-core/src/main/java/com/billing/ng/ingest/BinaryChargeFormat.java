@@ -0,0 +1,56 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import java.nio.charset.Charset;
+
+/**
+ * Constants of the compact binary charge format, written by {@link BinaryChargeWriter} and
+ * read by {@link BinaryChargeReader}. All values are big-endian.
+ *
+ * <code>
+ *      header:  int     magic "BNGC"
+ *               byte    format version
+ *
+ *      charge:  long    purchase order line id
+ *               long    integral value of the amount
+ *               byte    scale of the integral value
+ *               byte[3] ISO 4217 currency code, ASCII
+ *               short   length of the description in bytes, or -1 if no description
+ *               byte[]  description, UTF-8
+ * </code>
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+final class BinaryChargeFormat {
+
+    static final int MAGIC = 0x424E4743; // "BNGC"
+    static final byte VERSION = 1;
+    static final int HEADER_LENGTH = 5;
+
+    /** Length of a charge record without the description bytes. */
+    static final int RECORD_LENGTH = 8 + 8 + 1 + 3 + 2;
+
+    static final int MAX_DESCRIPTION_LENGTH = Short.MAX_VALUE;
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private BinaryChargeFormat() {
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.util.Arrays;
+import java.util.Currency;
+
+/**
+ * Reads charges in the compact binary charge format, see {@link BinaryChargeWriter}.
+ *
+ * Charges are decoded from a re-usable byte buffer directly into the {@link ChargeBatch}.
+ * ASCII descriptions are copied without going through a character set decoder.
+ *
+ * This class is NOT thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class BinaryChargeReader implements ChargeReader {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharsetDecoder decoder = BinaryChargeFormat.UTF8.newDecoder();
+    private boolean header = true;
+    private boolean eof = false;
+
+    private Currency[] currencies = new Currency[4];
+    private int currencyCount = 0;
+
+    public BinaryChargeReader(InputStream in) {
+        this.channel = Channels.newChannel(in);
+        this.buffer.flip(); // start empty
+    }
+
+    public int read(ChargeBatch batch) throws IOException {
+        if (header) {
+            header = false;
+            if (!ensure(BinaryChargeFormat.HEADER_LENGTH))
+                throw new IOException("Not a binary charge file, missing header.");
+
+            if (buffer.getInt() != BinaryChargeFormat.MAGIC)
+                throw new IOException("Not a binary charge file, invalid header.");
+
+            byte version = buffer.get();
+            if (version != BinaryChargeFormat.VERSION)
+                throw new IOException("Unsupported binary charge format version " + version + ".");
+        }
+
+        int count = 0;
+        while (!batch.isFull() && readCharge(batch))
+            count++;
+
+        return count == 0 && eof && !buffer.hasRemaining() ? -1 : count;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean readCharge(ChargeBatch batch) throws IOException {
+        if (!ensure(BinaryChargeFormat.RECORD_LENGTH)) {
+            if (buffer.hasRemaining())
+                throw new IOException("Truncated charge record at end of input.");
+            return false;
+        }
+
+        long lineId = buffer.getLong();
+        long value = buffer.getLong();
+        int scale = buffer.get();
+        Currency currency = getCurrency(buffer.get(), buffer.get(), buffer.get());
+        int length = buffer.getShort();
+
+        int index = batch.add(lineId, value, scale, currency);
+
+        if (length >= 0) {
+            if (!ensure(length))
+                throw new IOException("Truncated charge description at end of input.");
+
+            decodeDescription(batch, index, length);
+        }
+
+        return true;
+    }
+
+    private void decodeDescription(ChargeBatch batch, int index, int length) throws CharacterCodingException {
+        int offset = batch.getTextLength();
+        char[] text = batch.reserveText(length); // UTF-8 never decodes to more chars than bytes
+
+        byte[] bytes = buffer.array();
+        int start = buffer.position();
+
+        int i = 0;
+        while (i < length && bytes[start + i] >= 0) {
+            text[offset + i] = (char) bytes[start + i];
+            i++;
+        }
+
+        int chars = i;
+        if (i < length) {
+            ByteBuffer in = ByteBuffer.wrap(bytes, start + i, length - i);
+            CharBuffer out = CharBuffer.wrap(text, offset + i, length - i);
+
+            decoder.reset();
+            CoderResult result = decoder.decode(in, out, true);
+            if (!result.isUnderflow())
+                result.throwException();
+            decoder.flush(out);
+
+            chars = out.position() - offset;
+        }
+
+        buffer.position(start + length);
+        batch.setDescriptionLength(index, chars);
+    }
+
+    private Currency getCurrency(byte a, byte b, byte c) throws IOException {
+        for (int i = 0; i < currencyCount; i++) {
+            String code = currencies[i].getCurrencyCode();
+            if (code.charAt(0) == a && code.charAt(1) == b && code.charAt(2) == c)
+                return currencies[i];
+        }
+
+        String code = new String(new char[] { (char) a, (char) b, (char) c });
+        Currency currency;
+        try {
+            currency = Currency.getInstance(code);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown currency code '" + code + "'.");
+        }
+
+        if (currencyCount == currencies.length)
+            currencies = Arrays.copyOf(currencies, currencyCount * 2);
+
+        currencies[currencyCount++] = currency;
+        return currency;
+    }
+
+    /**
+     * Ensures that at least the given number of bytes are available in the buffer, reading
+     * more from the channel if necessary.
+     *
+     * @param length number of bytes required
+     * @return true if the bytes are available, false if the end of the input was reached first
+     * @throws IOException if the input could not be read
+     */
+    private boolean ensure(int length) throws IOException {
+        if (buffer.remaining() >= length)
+            return true;
+
+        buffer.compact();
+        try {
+            while (buffer.position() < length && !eof) {
+                if (channel.read(buffer) < 0)
+                    eof = true;
+            }
+        } finally {
+            buffer.flip();
+        }
+
+        return buffer.remaining() >= length;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import com.billing.ng.entities.Money;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Currency;
+
+/**
+ * Writes charges in the compact binary charge format read by {@link BinaryChargeReader}.
+ *
+ * This class is NOT thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class BinaryChargeWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private final OutputStream out;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    public BinaryChargeWriter(OutputStream out) {
+        this.out = out;
+        buffer.putInt(BinaryChargeFormat.MAGIC);
+        buffer.put(BinaryChargeFormat.VERSION);
+    }
+
+    /**
+     * Writes a charge.
+     *
+     * @param lineId purchase order line id
+     * @param value integral value of the amount
+     * @param scale scale of the integral value
+     * @param currency currency of the amount
+     * @param description description, may be null
+     * @throws IOException if the charge could not be written
+     * @throws IllegalArgumentException if the scale or description is too large for the format
+     */
+    public void write(long lineId, long value, int scale, Currency currency, String description) throws IOException {
+        if (scale < 0 || scale > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Scale " + scale + " out of range.");
+
+        byte[] bytes = description != null ? description.getBytes(BinaryChargeFormat.UTF8) : null;
+        if (bytes != null && bytes.length > BinaryChargeFormat.MAX_DESCRIPTION_LENGTH)
+            throw new IllegalArgumentException("Description longer than " + BinaryChargeFormat.MAX_DESCRIPTION_LENGTH + " bytes.");
+
+        ensure(BinaryChargeFormat.RECORD_LENGTH + (bytes != null ? bytes.length : 0));
+
+        String code = currency.getCurrencyCode();
+        buffer.putLong(lineId);
+        buffer.putLong(value);
+        buffer.put((byte) scale);
+        buffer.put((byte) code.charAt(0));
+        buffer.put((byte) code.charAt(1));
+        buffer.put((byte) code.charAt(2));
+
+        if (bytes != null) {
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        } else {
+            buffer.putShort((short) -1);
+        }
+    }
+
+    /**
+     * Writes a charge.
+     *
+     * @param lineId purchase order line id
+     * @param amount charge amount
+     * @param description description, may be null
+     * @throws IOException if the charge could not be written
+     */
+    public void write(long lineId, Money amount, String description) throws IOException {
+        write(lineId, amount.getLongValue(), amount.getScale(), amount.getCurrency(), description);
+    }
+
+    /**
+     * Writes all charges in the given batch.
+     *
+     * @param batch charges to write
+     * @throws IOException if the charges could not be written
+     */
+    public void write(ChargeBatch batch) throws IOException {
+        for (int i = 0; i < batch.size(); i++)
+            write(batch.getLineId(i), batch.getValue(i), batch.getScale(i), batch.getCurrency(i), batch.getDescription(i));
+    }
+
+    private void ensure(int length) throws IOException {
+        if (buffer.remaining() < length)
+            drain();
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
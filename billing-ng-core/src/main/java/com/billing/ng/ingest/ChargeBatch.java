@@ -0,0 +1,299 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import com.billing.ng.entities.Money;
+
+import java.util.Arrays;
+import java.util.Currency;
+
+/**
+ * Reusable columnar (struct-of-arrays) buffer of charges being ingested. Each charge is
+ * held as the id of the purchase order line it belongs to, the integral value and scale of
+ * the amount, the currency and an optional description. Descriptions are copied into a single
+ * shared character buffer so that filling a batch does not allocate a String for every charge.
+ * Charges may also carry the id of the account and the time of the usage they were charged
+ * for, which are recorded by the {@link ChargeJournal} but are not part of a persisted charge.
+ *
+ * Batches are filled by a {@link ChargeReader}, cleared, and then re-used for the next
+ * set of charges.
+ *
+ * This class is NOT thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class ChargeBatch {
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private static final int DEFAULT_TEXT_CAPACITY = 64;
+
+    private final long[] lineIds;
+    private final long[] accountIds;
+    private final long[] timestamps;
+    private final long[] values;
+    private final int[] scales;
+    private final Currency[] currencies;
+    private final int[] descriptionOffsets;
+    private final int[] descriptionLengths;
+    private char[] text;
+    private int textLength = 0;
+    private int size = 0;
+
+    public ChargeBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ChargeBatch(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Batch capacity must be greater than zero.");
+
+        this.lineIds = new long[capacity];
+        this.accountIds = new long[capacity];
+        this.timestamps = new long[capacity];
+        this.values = new long[capacity];
+        this.scales = new int[capacity];
+        this.currencies = new Currency[capacity];
+        this.descriptionOffsets = new int[capacity];
+        this.descriptionLengths = new int[capacity];
+        this.text = new char[capacity * DEFAULT_TEXT_CAPACITY];
+    }
+
+    public int capacity() {
+        return lineIds.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == lineIds.length;
+    }
+
+    /**
+     * Discards all charges in this batch, keeping the allocated buffers.
+     */
+    public void clear() {
+        Arrays.fill(currencies, 0, size, null);
+        size = 0;
+        textLength = 0;
+    }
+
+    /**
+     * Appends a charge to the end of this batch.
+     *
+     * @param lineId purchase order line id
+     * @param value integral value of the amount (e.g., 1050 for 10.50)
+     * @param scale scale of the integral value
+     * @param currency currency of the amount
+     * @return index of the appended charge
+     * @throws IllegalStateException if the batch is full
+     */
+    public int add(long lineId, long value, int scale, Currency currency) {
+        if (isFull())
+            throw new IllegalStateException("Charge batch is full.");
+
+        lineIds[size] = lineId;
+        accountIds[size] = 0;
+        timestamps[size] = 0;
+        values[size] = value;
+        scales[size] = scale;
+        currencies[size] = currency;
+        descriptionOffsets[size] = textLength;
+        descriptionLengths[size] = -1;
+        return size++;
+    }
+
+    /**
+     * Appends a charge to the end of this batch.
+     *
+     * @param lineId purchase order line id
+     * @param amount charge amount
+     * @param description charge description, may be null
+     * @return index of the appended charge
+     * @throws IllegalStateException if the batch is full
+     */
+    public int add(long lineId, Money amount, String description) {
+        int i = add(lineId, amount.getLongValue(), amount.getScale(), amount.getCurrency());
+        if (description != null)
+            setDescription(i, description.toCharArray(), 0, description.length());
+        return i;
+    }
+
+    /**
+     * Sets the description of the last charge appended to this batch by copying the given characters.
+     *
+     * @param index index of the last appended charge
+     * @param chars characters to copy
+     * @param offset offset of the first character
+     * @param length number of characters
+     * @throws IllegalArgumentException if the index is not the last appended charge
+     */
+    public void setDescription(int index, char[] chars, int offset, int length) {
+        if (index != size - 1)
+            throw new IllegalArgumentException("Only the description of the last charge can be set.");
+
+        int start = descriptionOffsets[index];
+        ensureTextCapacity(start + length);
+        System.arraycopy(chars, offset, text, start, length);
+
+        descriptionLengths[index] = length;
+        textLength = start + length;
+    }
+
+    /**
+     * Sets the id of the account the charge at the given index was made against.
+     *
+     * @param index index
+     * @param accountId account id, 0 if unknown
+     */
+    public void setAccountId(int index, long accountId) {
+        accountIds[index] = accountId;
+    }
+
+    /**
+     * Sets the time of the usage the charge at the given index was made for.
+     *
+     * @param index index
+     * @param timestamp time in milliseconds since the epoch, 0 if unknown
+     */
+    public void setTimestamp(int index, long timestamp) {
+        timestamps[index] = timestamp;
+    }
+
+    /**
+     * Returns a buffer with room for at least the given number of description characters, for readers
+     * that decode descriptions directly into the batch. Characters written into the buffer starting at
+     * {@link #getTextLength()} are committed using {@link #setDescriptionLength(int, int)}.
+     *
+     * @param length number of characters to reserve
+     * @return description character buffer
+     */
+    char[] reserveText(int length) {
+        ensureTextCapacity(textLength + length);
+        return text;
+    }
+
+    int getTextLength() {
+        return textLength;
+    }
+
+    void setDescriptionLength(int index, int length) {
+        descriptionLengths[index] = length;
+        textLength = descriptionOffsets[index] + length;
+    }
+
+    private void ensureTextCapacity(int capacity) {
+        if (capacity > text.length)
+            text = Arrays.copyOf(text, Math.max(capacity, text.length * 2));
+    }
+
+    /**
+     * Removes all charges that are not marked as accepted, keeping the order of
+     * the remaining charges.
+     *
+     * @param accepted true for each charge to keep
+     * @return number of charges removed
+     */
+    public int retain(boolean[] accepted) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (accepted[i]) {
+                if (kept != i) {
+                    lineIds[kept] = lineIds[i];
+                    accountIds[kept] = accountIds[i];
+                    timestamps[kept] = timestamps[i];
+                    values[kept] = values[i];
+                    scales[kept] = scales[i];
+                    currencies[kept] = currencies[i];
+                    descriptionOffsets[kept] = descriptionOffsets[i];
+                    descriptionLengths[kept] = descriptionLengths[i];
+                }
+                kept++;
+            }
+        }
+
+        int removed = size - kept;
+        Arrays.fill(currencies, kept, size, null);
+        size = kept;
+        return removed;
+    }
+
+    public long getLineId(int index) {
+        return lineIds[index];
+    }
+
+    /**
+     * Returns the id of the account the charge at the given index was made against.
+     *
+     * @param index index
+     * @return account id, 0 if unknown
+     */
+    public long getAccountId(int index) {
+        return accountIds[index];
+    }
+
+    /**
+     * Returns the time of the usage the charge at the given index was made for.
+     *
+     * @param index index
+     * @return time in milliseconds since the epoch, 0 if unknown
+     */
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public long getValue(int index) {
+        return values[index];
+    }
+
+    public int getScale(int index) {
+        return scales[index];
+    }
+
+    public Currency getCurrency(int index) {
+        return currencies[index];
+    }
+
+    /**
+     * Returns the amount of the charge at the given index as money.
+     *
+     * @param index index
+     * @return charge amount
+     */
+    public Money getAmount(int index) {
+        return new Money(values[index], scales[index], currencies[index].getCurrencyCode());
+    }
+
+    /**
+     * Returns the description of the charge at the given index, or null if the charge has no description.
+     *
+     * @param index index
+     * @return description
+     */
+    public String getDescription(int index) {
+        int length = descriptionLengths[index];
+        return length < 0 ? null : new String(text, descriptionOffsets[index], length);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streaming pipeline for ingesting large numbers of charges. Charges are read and parsed
+ * into batches by the calling thread, the purchase order line of each charge is resolved
+ * through a {@link PurchaseOrderLineCache}, and the batches are then written by a fixed
+ * number of worker threads, one per {@link ChargeSink}.
+ *
+ * A fixed pool of batches is allocated up front and re-used for the whole run. The reading
+ * thread blocks when all batches are waiting to be written, so a slow sink applies backpressure
+ * to the reader instead of buffering an unbounded number of charges in memory.
+ *
+ * Sinks that insert charges directly, such as {@link com.billing.ng.dao.ChargeDAO}, do not
+ * update the purchase order line and order totals. When a {@link PurchaseOrderLineCache} is
+ * given, the totals of every line that was charged are reconciled once all batches have been
+ * written, including when a sink fails part way through the run. Without a line cache, the caller
+ * must reconcile the totals, see {@link com.billing.ng.dao.PurchaseOrderDAO#reconcileLineTotals}.
+ *
+ * <code>
+ *      List&lt;ChargeSink&gt; sinks = Arrays.asList(chargeDAO1, chargeDAO2, chargeDAO3);
+ *      ChargeIngester ingester = new ChargeIngester(new PurchaseOrderLineCache(purchaseOrderDAO), sinks);
+ *
+ *      IngestStatistics statistics = ingester.ingest(new CsvChargeReader(reader, true));
+ * </code>
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class ChargeIngester {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4;
+
+    private final PurchaseOrderLineCache lineCache;
+    private final List<ChargeSink> sinks;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    /**
+     * Constructs a new ingester with the default batch size and queue capacity.
+     *
+     * @param lineCache cache used to resolve purchase order lines, or null to skip resolution
+     * @param sinks sinks to write charges to, one worker thread per sink
+     */
+    public ChargeIngester(PurchaseOrderLineCache lineCache, List<? extends ChargeSink> sinks) {
+        this(lineCache, sinks, ChargeBatch.DEFAULT_CAPACITY, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs a new ingester.
+     *
+     * @param lineCache cache used to resolve purchase order lines, or null to skip resolution
+     * @param sinks sinks to write charges to, one worker thread per sink
+     * @param batchSize number of charges per batch
+     * @param queueCapacity maximum number of batches waiting to be written
+     */
+    public ChargeIngester(PurchaseOrderLineCache lineCache, List<? extends ChargeSink> sinks, int batchSize, int queueCapacity) {
+        if (sinks.isEmpty())
+            throw new IllegalArgumentException("At least one charge sink is required.");
+
+        if (batchSize < 1 || queueCapacity < 1)
+            throw new IllegalArgumentException("Batch size and queue capacity must be greater than zero.");
+
+        this.lineCache = lineCache;
+        this.sinks = new ArrayList<ChargeSink>(sinks);
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Reads all charges from the given reader and writes them to the sinks, returning once every
+     * charge has been written. The reader is not closed.
+     *
+     * If a sink fails, reading stops, batches already read are discarded and the failure is
+     * re-thrown once all workers have stopped. Errors thrown by a sink are re-thrown as they are.
+     *
+     * @param reader reader to ingest charges from
+     * @return statistics of the ingestion run
+     * @throws IOException if the charges could not be read
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public IngestStatistics ingest(ChargeReader reader) throws IOException, InterruptedException {
+        IngestStatistics statistics = new IngestStatistics();
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        int workers = sinks.size();
+        int batches = queueCapacity + workers + 1;
+
+        BlockingQueue<ChargeBatch> free = new ArrayBlockingQueue<ChargeBatch>(batches);
+        BlockingQueue<ChargeBatch> full = new ArrayBlockingQueue<ChargeBatch>(queueCapacity + workers);
+        for (int i = 0; i < batches; i++)
+            free.add(new ChargeBatch(batchSize));
+
+        ChargeBatch end = new ChargeBatch(1); // marks the end of the input for a worker
+        Set<Long> charged = new HashSet<Long>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        for (ChargeSink sink : sinks)
+            executor.execute(new Worker(sink, free, full, end, statistics, failure));
+
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            while (failure.get() == null) {
+                ChargeBatch batch = free.take();
+
+                long time = System.nanoTime();
+                if (reader.read(batch) < 0) {
+                    free.put(batch);
+                    break;
+                }
+                statistics.record(IngestStatistics.Stage.PARSE, batch.size(), System.nanoTime() - time);
+
+                if (lineCache != null) {
+                    int size = batch.size();
+                    time = System.nanoTime();
+                    statistics.addRejected(lineCache.resolve(batch));
+                    statistics.record(IngestStatistics.Stage.RESOLVE, size, System.nanoTime() - time);
+
+                    for (int i = 0; i < batch.size(); i++)
+                        charged.add(batch.getLineId(i));
+                }
+
+                if (batch.isEmpty()) {
+                    free.put(batch);
+                } else {
+                    full.put(batch);
+                }
+            }
+
+            for (int i = 0; i < workers; i++)
+                full.put(end);
+
+            completed = true;
+
+        } finally {
+            if (completed) {
+                executor.shutdown();
+            } else {
+                executor.shutdownNow();
+            }
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        // includes lines of batches discarded after a sink failure, reconciling their unchanged totals is harmless
+        if (completed && !charged.isEmpty())
+            lineCache.reconcile(charged);
+
+        statistics.setElapsedNanos(System.nanoTime() - start);
+
+        if (failure.get() != null)
+            rethrow(failure.get());
+
+        return statistics;
+    }
+
+    /**
+     * Re-throws a sink failure. Sinks do not throw checked exceptions, but are wrapped if they do.
+     */
+    private static void rethrow(Throwable failure) {
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        if (failure instanceof Error)
+            throw (Error) failure;
+
+        throw new IllegalStateException("Charge sink failed.", failure);
+    }
+
+    /**
+     * Worker that writes batches to a sink until the end of the input is reached, returning
+     * each batch to the pool of free batches once written.
+     */
+    private static class Worker implements Runnable {
+        private final ChargeSink sink;
+        private final BlockingQueue<ChargeBatch> free;
+        private final BlockingQueue<ChargeBatch> full;
+        private final ChargeBatch end;
+        private final IngestStatistics statistics;
+        private final AtomicReference<Throwable> failure;
+
+        private Worker(ChargeSink sink, BlockingQueue<ChargeBatch> free, BlockingQueue<ChargeBatch> full,
+                       ChargeBatch end, IngestStatistics statistics, AtomicReference<Throwable> failure) {
+            this.sink = sink;
+            this.free = free;
+            this.full = full;
+            this.end = end;
+            this.statistics = statistics;
+            this.failure = failure;
+        }
+
+        public void run() {
+            try {
+                for (ChargeBatch batch = full.take(); batch != end; batch = full.take()) {
+                    try {
+                        // keep draining after a failure so that the reading thread never blocks
+                        if (failure.get() == null) {
+                            long time = System.nanoTime();
+                            sink.write(batch);
+                            statistics.record(IngestStatistics.Stage.WRITE, batch.size(), System.nanoTime() - time);
+                        }
+                    } catch (Throwable t) {
+                        // errors too, a worker that dies without recording a failure leaves the reading thread blocked
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        batch.clear();
+                        free.put(batch);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
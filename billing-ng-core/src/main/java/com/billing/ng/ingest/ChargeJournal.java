@@ -0,0 +1,540 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import static com.billing.ng.ingest.ChargeJournalFormat.*;
+
+/**
+ * Durable, memory-mapped, append-only journal of charges. Charges are recorded as fixed length
+ * records (see {@link ChargeJournalFormat}) in a directory of segment files, so that charges can
+ * be accepted at memory speed without waiting on the database, and written to the database later
+ * by replaying the journal with a {@link ChargeJournalReader}.
+ *
+ * Appending a charge copies it into the memory-mapped segment and returns its sequence number. The
+ * charge is durable once {@link #sync(long)} returns for its sequence number. Syncing uses group commit:
+ * the first thread to sync forces all records written so far to disk, and threads that arrive while
+ * it is forcing wait for it, so that a single <code>fsync</code> acknowledges the records of every
+ * waiting thread. {@link #write(ChargeBatch)} appends and syncs a whole batch, and returns only once
+ * the batch is durable.
+ *
+ * Segments hold a fixed number of records. When a segment is full it is forced to disk and a new
+ * segment is started. On opening, the journal recovers the end of the last segment by scanning for
+ * the first record without a valid CRC, and clears everything after it, so a record that was torn
+ * by a crash is discarded. Records that were acknowledged by a sync are never torn. Unless the journal
+ * was closed cleanly, the last segment is then sealed and the journal continues in a new segment, so
+ * sequence numbers never go backwards: a record lost in a crash may have been read before the crash,
+ * and re-using its sequence number would let a replay checkpoint skip the new record.
+ *
+ * Charges are replayed into the database through the ingestion pipeline, recording the sequence
+ * number to resume from once the replayed charges have been committed. A reader of an open journal
+ * stops at the last durable charge, so the checkpoint never passes a charge that could be lost:
+ * <code>
+ *      ChargeJournalReader reader = new ChargeJournalReader(journal, checkpoint);
+ *      new ChargeIngester(lineCache, sinks).ingest(reader);
+ *
+ *      checkpoint = reader.getNextSequence();
+ *      journal.deleteSegmentsBefore(checkpoint);
+ * </code>
+ *
+ * Charge descriptions are not recorded in the journal.
+ *
+ * This class is thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class ChargeJournal implements ChargeSink, Closeable {
+
+    /** Default number of records per segment, 48 MB segments. */
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+
+    private final File directory;
+    private final int segmentRecords;
+
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+
+    // guarded by writeLock
+    private Segment segment;
+    private long nextSequence;
+    private boolean closed = false;
+    private final byte[] record = new byte[RECORD_LENGTH];
+    private final ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+    private final CRC32 crc = new CRC32();
+
+    private volatile long writtenSequence;
+    private final AtomicLong durableSequence = new AtomicLong();
+
+    /**
+     * Opens the journal in the given directory with the default segment size, creating
+     * the directory if it does not exist.
+     *
+     * @param directory journal directory
+     * @throws IOException if the journal could not be opened or recovered
+     */
+    public ChargeJournal(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    /**
+     * Opens the journal in the given directory, creating the directory if it does not exist.
+     * The segment size only applies to new segments, existing segments keep their size.
+     *
+     * @param directory journal directory
+     * @param segmentRecords number of records per segment
+     * @throws IOException if the journal could not be opened or recovered
+     */
+    public ChargeJournal(File directory, int segmentRecords) throws IOException {
+        if (segmentRecords < 1 || segmentRecords > (Integer.MAX_VALUE - HEADER_LENGTH) / RECORD_LENGTH)
+            throw new IllegalArgumentException("Invalid number of records per segment: " + segmentRecords);
+
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Journal directory " + directory + " could not be created.");
+
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+
+        recover();
+    }
+
+    /**
+     * Opens the last segment and finds the end of the journal, or starts a new journal. If the
+     * journal was not closed cleanly, the last segment is sealed at the end of the journal and a
+     * new segment is started after it.
+     */
+    private void recover() throws IOException {
+        long[] segments = listSegments(directory);
+        if (segments.length == 0) {
+            segment = Segment.open(getSegmentFile(directory, 1), 1, segmentRecords);
+            nextSequence = 1;
+            writtenSequence = 0;
+
+        } else {
+            long first = segments[segments.length - 1];
+            Segment last = Segment.open(getSegmentFile(directory, first), first, segmentRecords);
+
+            int end = last.isSealed() ? (int) (last.getSealedEnd() - first) : last.capacity;
+            int slot = 0;
+            while (slot < end && last.isValid(slot, first + slot, record, crc))
+                slot++;
+
+            last.clear(slot, record);
+            writtenSequence = first + slot - 1;
+
+            if (slot == last.capacity || (last.isClosedCleanly() && !last.isSealed())) {
+                // full segment rolls on the next append, or every record written before closing is durable
+                last.setClosedCleanly(false);
+                segment = last;
+                nextSequence = first + slot;
+
+            } else {
+                // records after the end may have been read before the crash, never re-use their sequence numbers
+                if (!last.isSealed())
+                    last.seal(first + slot);
+                last.close();
+
+                nextSequence = first + last.capacity;
+                segment = Segment.open(getSegmentFile(directory, nextSequence), nextSequence, segmentRecords);
+            }
+        }
+
+        durableSequence.set(writtenSequence);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Appends a charge to the journal. The charge is not durable until synced.
+     *
+     * @param accountId account id, 0 if unknown
+     * @param lineId purchase order line id
+     * @param value integral value of the amount
+     * @param scale scale of the integral value
+     * @param currency currency of the amount
+     * @param timestamp time of the usage in milliseconds since the epoch, 0 to use the current time
+     * @return sequence number of the appended charge
+     * @throws IOException if a new segment could not be started
+     * @throws IllegalArgumentException if the scale or currency cannot be recorded
+     */
+    public long append(long accountId, long lineId, long value, int scale, Currency currency, long timestamp)
+            throws IOException {
+
+        synchronized (writeLock) {
+            return write(accountId, lineId, value, scale, currency, timestamp);
+        }
+    }
+
+    /**
+     * Appends all charges in the given batch to the journal. The charges are not durable until synced.
+     *
+     * @param batch charges to append
+     * @return sequence number of the last appended charge
+     * @throws IOException if a new segment could not be started
+     * @throws IllegalArgumentException if the scale or currency of a charge cannot be recorded
+     */
+    public long append(ChargeBatch batch) throws IOException {
+        synchronized (writeLock) {
+            for (int i = 0; i < batch.size(); i++)
+                write(batch.getAccountId(i), batch.getLineId(i), batch.getValue(i), batch.getScale(i),
+                      batch.getCurrency(i), batch.getTimestamp(i));
+
+            return writtenSequence;
+        }
+    }
+
+    /**
+     * Appends all charges in the given batch and waits until they are durable.
+     *
+     * @param batch charges to write
+     * @throws IllegalStateException if the charges could not be written
+     */
+    public void write(ChargeBatch batch) {
+        try {
+            sync(append(batch));
+        } catch (IOException e) {
+            throw new IllegalStateException("Charges could not be written to the journal.", e);
+        }
+    }
+
+    private long write(long accountId, long lineId, long value, int scale, Currency currency, long timestamp)
+            throws IOException {
+
+        if (closed)
+            throw new IllegalStateException("Charge journal is closed.");
+
+        if (scale < 0 || scale > Byte.MAX_VALUE)
+            throw new IllegalArgumentException("Scale " + scale + " cannot be recorded.");
+
+        short currencyCode = getCurrencyCode(currency);
+
+        long sequence = nextSequence;
+        int slot = (int) (sequence - segment.firstSequence);
+        if (slot == segment.capacity) {
+            roll();
+            slot = 0;
+        }
+
+        recordBuffer.putLong(0, sequence);
+        recordBuffer.putLong(8, accountId);
+        recordBuffer.putLong(16, lineId);
+        recordBuffer.putLong(24, value);
+        recordBuffer.putLong(32, timestamp != 0 ? timestamp : System.currentTimeMillis());
+        recordBuffer.putShort(40, currencyCode);
+        recordBuffer.put(42, (byte) scale);
+        recordBuffer.put(43, (byte) 0);
+        recordBuffer.putInt(CRC_OFFSET, checksum(record, crc));
+
+        segment.write(slot, record);
+
+        nextSequence = sequence + 1;
+        writtenSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Forces the full segment to disk and starts a new segment.
+     */
+    private void roll() throws IOException {
+        segment.close();
+        advanceDurable(writtenSequence);
+
+        segment = Segment.open(getSegmentFile(directory, nextSequence), nextSequence, segmentRecords);
+    }
+
+    /**
+     * Waits until the charge with the given sequence number, and every charge before it, is durable.
+     *
+     * @param sequence sequence number to sync
+     * @throws IOException if the journal could not be forced to disk
+     * @throws IllegalArgumentException if no charge with the given sequence number has been appended
+     */
+    public void sync(long sequence) throws IOException {
+        if (durableSequence.get() >= sequence)
+            return;
+
+        synchronized (syncLock) {
+            // another thread may have forced this record while we were waiting
+            if (durableSequence.get() >= sequence)
+                return;
+
+            long written;
+            Segment current;
+            synchronized (writeLock) {
+                if (sequence > writtenSequence)
+                    throw new IllegalArgumentException("Charge " + sequence + " has not been appended.");
+
+                written = writtenSequence;
+                current = segment;
+            }
+
+            current.force();
+            advanceDurable(written);
+        }
+    }
+
+    /**
+     * Waits until all appended charges are durable.
+     *
+     * @throws IOException if the journal could not be forced to disk
+     */
+    public void sync() throws IOException {
+        sync(writtenSequence);
+    }
+
+    private void advanceDurable(long sequence) {
+        for (long durable = durableSequence.get(); durable < sequence; durable = durableSequence.get()) {
+            if (durableSequence.compareAndSet(durable, sequence))
+                break;
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last appended charge.
+     *
+     * @return last sequence number, 0 if the journal is empty
+     */
+    public long getWrittenSequence() {
+        return writtenSequence;
+    }
+
+    /**
+     * Returns the sequence number of the last durable charge.
+     *
+     * @return last durable sequence number, 0 if no charges are durable
+     */
+    public long getDurableSequence() {
+        return durableSequence.get();
+    }
+
+    /**
+     * Deletes segments that only hold charges before the given sequence number, typically
+     * the sequence number that replay has reached. The current segment is never deleted.
+     *
+     * @param sequence first sequence number to keep
+     * @return number of segments deleted
+     * @throws IOException if a segment could not be deleted
+     */
+    public int deleteSegmentsBefore(long sequence) throws IOException {
+        long current;
+        synchronized (writeLock) {
+            current = segment.firstSequence;
+        }
+
+        long[] segments = listSegments(directory);
+        int deleted = 0;
+        for (int i = 0; i + 1 < segments.length && segments[i + 1] <= sequence && segments[i + 1] <= current; i++) {
+            File file = getSegmentFile(directory, segments[i]);
+            if (!file.delete())
+                throw new IOException("Journal segment " + file + " could not be deleted.");
+            deleted++;
+        }
+
+        return deleted;
+    }
+
+    /**
+     * Forces all appended charges to disk and closes the journal.
+     *
+     * @throws IOException if the journal could not be forced to disk
+     */
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (!closed) {
+                closed = true;
+                segment.force();
+                segment.setClosedCleanly(true);
+                segment.close();
+                advanceDurable(writtenSequence);
+            }
+        }
+    }
+
+    /**
+     * A memory-mapped segment file. Forcing and closing are synchronized so that a segment is
+     * never forced after its channel has been closed by a roll, closing forces the segment first.
+     */
+    private static class Segment {
+        private final long firstSequence;
+        private final int capacity;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private final ByteBuffer writer;
+        private boolean closed = false;
+
+        private Segment(long firstSequence, int capacity, FileChannel channel, MappedByteBuffer buffer) {
+            this.firstSequence = firstSequence;
+            this.capacity = capacity;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.writer = buffer.duplicate();
+        }
+
+        /**
+         * Opens an existing segment file, or creates a new segment of the given capacity. The size
+         * of a new segment file and its directory entry are forced to disk before it is returned,
+         * so records acknowledged in the new segment survive a crash.
+         */
+        static Segment open(File file, long firstSequence, int segmentRecords) throws IOException {
+            FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                                   StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                long size = channel.size();
+                int capacity = size > HEADER_LENGTH ? (int) ((size - HEADER_LENGTH) / RECORD_LENGTH) : segmentRecords;
+
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                                      HEADER_LENGTH + (long) capacity * RECORD_LENGTH);
+
+                if (buffer.getInt(0) == 0) {
+                    // new segment, or a crash before the header was forced. magic is written last,
+                    // readers treat a segment without it as not yet created
+                    buffer.putShort(4, VERSION);
+                    buffer.putShort(6, (short) RECORD_LENGTH);
+                    buffer.putLong(8, firstSequence);
+                    buffer.putInt(0, MAGIC);
+                    buffer.force();
+                    channel.force(true);
+                    forceDirectory(file.getParentFile());
+
+                } else if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION
+                           || buffer.getShort(6) != RECORD_LENGTH || buffer.getLong(8) != firstSequence) {
+                    throw new IOException("Invalid charge journal segment " + file);
+                }
+
+                return new Segment(firstSequence, capacity, channel, buffer);
+
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Forces the entries of a directory to disk. Platforms that cannot open a directory, such as
+         * Windows, write the directory entry along with the file and there is nothing to force.
+         */
+        private static void forceDirectory(File directory) throws IOException {
+            FileChannel channel;
+            try {
+                channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+            } catch (IOException e) {
+                return;
+            }
+
+            try {
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+
+        boolean isValid(int slot, long sequence, byte[] record, CRC32 crc) {
+            ByteBuffer reader = buffer.duplicate();
+            reader.position(HEADER_LENGTH + slot * RECORD_LENGTH);
+            reader.get(record);
+
+            ByteBuffer wrapped = ByteBuffer.wrap(record);
+            return wrapped.getLong(0) == sequence && wrapped.getInt(CRC_OFFSET) == checksum(record, crc);
+        }
+
+        void write(int slot, byte[] record) {
+            writer.position(HEADER_LENGTH + slot * RECORD_LENGTH);
+            writer.put(record);
+        }
+
+        /**
+         * Zeroes all non-empty record slots from the given slot to the end of the segment, discarding
+         * a torn record and any records written after it. Slots that are already empty are only read,
+         * so recovering a cleanly closed journal does not write to the segment.
+         */
+        void clear(int slot, byte[] record) {
+            byte[] zeros = new byte[RECORD_LENGTH];
+            ByteBuffer reader = buffer.duplicate();
+            reader.position(HEADER_LENGTH + slot * RECORD_LENGTH);
+
+            boolean cleared = false;
+            for (; slot < capacity; slot++) {
+                reader.get(record);
+                if (!Arrays.equals(record, zeros)) {
+                    write(slot, zeros);
+                    cleared = true;
+                }
+            }
+
+            if (cleared)
+                buffer.force();
+        }
+
+        boolean isSealed() {
+            return buffer.getLong(SEALED_END_OFFSET) != 0;
+        }
+
+        long getSealedEnd() {
+            return buffer.getLong(SEALED_END_OFFSET);
+        }
+
+        /**
+         * Seals the segment at the given sequence number, no records are written at or after it.
+         */
+        void seal(long end) {
+            buffer.putLong(SEALED_END_OFFSET, end);
+            buffer.force();
+        }
+
+        boolean isClosedCleanly() {
+            return buffer.get(CLOSED_OFFSET) == 1;
+        }
+
+        /**
+         * Marks whether the journal was closed cleanly. Records must be forced before the segment
+         * is marked as closed, so that the mark is never durable before the records are.
+         */
+        void setClosedCleanly(boolean closedCleanly) {
+            if (isClosedCleanly() != closedCleanly) {
+                buffer.put(CLOSED_OFFSET, (byte) (closedCleanly ? 1 : 0));
+                buffer.force();
+            }
+        }
+
+        synchronized void force() {
+            if (!closed)
+                buffer.force();
+        }
+
+        synchronized void close() throws IOException {
+            if (!closed) {
+                buffer.force();
+                closed = true;
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Constants and helpers of the charge journal format, written by {@link ChargeJournal} and
+ * read by {@link ChargeJournalReader}. All values are big-endian.
+ *
+ * The journal is a directory of fixed size segment files named by the sequence number of the
+ * first record in the segment (e.g., <code>00000000000000000001.journal</code>). Each segment
+ * holds a header followed by fixed length records, numbered consecutively across segments
+ * starting from 1.
+ *
+ * <code>
+ *      header:  int     magic "BNGJ"
+ *               short   format version
+ *               short   record length
+ *               long    sequence number of the first record
+ *               long    sequence number after the last record if sealed by recovery, otherwise 0
+ *               byte    1 if the journal was closed cleanly in this segment, otherwise 0
+ *               byte[7] reserved
+ *
+ *      record:  long    sequence number
+ *               long    account id
+ *               long    purchase order line id
+ *               long    integral value of the amount (minor units)
+ *               long    timestamp, milliseconds since the epoch
+ *               short   ISO 4217 numeric currency code
+ *               byte    scale of the integral value
+ *               byte    reserved
+ *               int     CRC32 of the preceding record bytes
+ * </code>
+ *
+ * An unwritten slot is all zeros and fails the CRC check, so the end of the journal is the
+ * first record that does not have a valid CRC and the expected sequence number.
+ *
+ * A segment is sealed when the journal is recovered after a crash. Records after the end of
+ * a sealed segment are never written, the journal continues in a new segment starting after
+ * the last sequence number the sealed segment could hold, so that the sequence number of a
+ * record lost in the crash is never re-used.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+final class ChargeJournalFormat {
+
+    static final int MAGIC = 0x424E474A; // "BNGJ"
+    static final short VERSION = 1;
+    static final int HEADER_LENGTH = 32;
+    static final int SEALED_END_OFFSET = 16;
+    static final int CLOSED_OFFSET = 24;
+
+    static final int RECORD_LENGTH = 8 * 5 + 2 + 1 + 1 + 4;
+    static final int CRC_OFFSET = RECORD_LENGTH - 4;
+
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    /** Currencies by ISO 4217 numeric code, excluding codes shared by more than one currency. */
+    private static final Map<Integer, Currency> CURRENCIES = new HashMap<Integer, Currency>();
+
+    static {
+        Map<Integer, Currency> all = new HashMap<Integer, Currency>();
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            int code = currency.getNumericCode();
+            if (code > 0 && all.put(code, currency) == null)
+                CURRENCIES.put(code, currency);
+            else
+                CURRENCIES.remove(code);
+        }
+    }
+
+    private ChargeJournalFormat() {
+    }
+
+    /**
+     * Returns the ISO 4217 numeric code used to record the given currency.
+     *
+     * @param currency currency
+     * @return numeric currency code
+     * @throws IllegalArgumentException if the currency does not have a unique numeric code
+     */
+    static short getCurrencyCode(Currency currency) {
+        int code = currency.getNumericCode();
+        if (CURRENCIES.get(code) != currency)
+            throw new IllegalArgumentException("Currency " + currency + " does not have a unique ISO 4217 numeric code.");
+        return (short) code;
+    }
+
+    /**
+     * Returns the currency recorded with the given ISO 4217 numeric code.
+     *
+     * @param code numeric currency code
+     * @return currency, null if the code is unknown
+     */
+    static Currency getCurrency(int code) {
+        return CURRENCIES.get(code);
+    }
+
+    /**
+     * Returns the CRC32 checksum of the given record.
+     *
+     * @param record record bytes
+     * @param crc checksum to re-use
+     * @return checksum of the record bytes preceding the stored checksum
+     */
+    static int checksum(byte[] record, CRC32 crc) {
+        crc.reset();
+        crc.update(record, 0, CRC_OFFSET);
+        return (int) crc.getValue();
+    }
+
+    static File getSegmentFile(File directory, long firstSequence) {
+        return new File(directory, String.format("%020d", firstSequence) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Returns the first sequence number of every segment in the given directory, in order.
+     *
+     * @param directory journal directory
+     * @return first sequence number of each segment
+     */
+    static long[] listSegments(File directory) {
+        String[] names = directory.list(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+
+        if (names == null)
+            return new long[0];
+
+        long[] segments = new long[names.length];
+        for (int i = 0; i < names.length; i++)
+            segments[i] = Long.parseLong(names[i].substring(0, names[i].length() - SEGMENT_SUFFIX.length()));
+
+        Arrays.sort(segments);
+        return segments;
+    }
+}
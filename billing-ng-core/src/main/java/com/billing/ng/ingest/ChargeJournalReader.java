@@ -0,0 +1,211 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Currency;
+import java.util.zip.CRC32;
+
+import static com.billing.ng.ingest.ChargeJournalFormat.*;
+
+/**
+ * Reads charges from a {@link ChargeJournal} sequentially, starting from a given sequence number,
+ * for replay into the database. Each segment is memory-mapped read-only and records are verified
+ * against their CRC as they are read. The reader stops at the end of the journal, which is the
+ * first record without a valid CRC in the last segment. Sealed segments end before they are full,
+ * and the reader continues in the next segment, skipping the sequence numbers that were never used.
+ * An invalid record in any other segment means the journal is corrupt.
+ *
+ * A reader of an open journal stops at the last durable record, see {@link ChargeJournal#getDurableSequence()},
+ * and records that become durable after reaching the end are read by later calls to {@link #read(ChargeBatch)},
+ * so a reader can follow a journal that is still being written. A reader of a journal directory must be
+ * given the sequence number to stop at.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class ChargeJournalReader implements ChargeReader {
+
+    private final File directory;
+    private final ChargeJournal journal;
+    private final long toSequence;
+
+    private final byte[] record = new byte[RECORD_LENGTH];
+    private final ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+    private final CRC32 crc = new CRC32();
+
+    private long segmentFirst;
+    private int segmentCapacity;
+    private long segmentEnd;
+    private MappedByteBuffer segment;
+    private long nextSequence;
+
+    /**
+     * Constructs a reader for the durable charges of an open journal from the given sequence number.
+     *
+     * @param journal open journal
+     * @param fromSequence sequence number of the first charge to read
+     * @throws IOException if the journal could not be opened
+     */
+    public ChargeJournalReader(ChargeJournal journal, long fromSequence) throws IOException {
+        this(journal.getDirectory(), journal, fromSequence, Long.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a reader for the charges between the given sequence numbers. Records of a journal
+     * that is still open must not be read past its durable sequence number, all records of a journal
+     * that was closed are durable.
+     *
+     * @param directory journal directory
+     * @param fromSequence sequence number of the first charge to read
+     * @param toSequence sequence number of the last charge to read, inclusive
+     * @throws IOException if the journal could not be opened
+     */
+    public ChargeJournalReader(File directory, long fromSequence, long toSequence) throws IOException {
+        this(directory, null, fromSequence, toSequence);
+    }
+
+    private ChargeJournalReader(File directory, ChargeJournal journal, long fromSequence, long toSequence)
+            throws IOException {
+
+        this.directory = directory;
+        this.journal = journal;
+        this.toSequence = toSequence;
+
+        long[] segments = listSegments(directory);
+        if (segments.length == 0)
+            throw new IOException("No charge journal segments found in " + directory);
+
+        // segment holding the first charge, or the oldest segment if earlier segments were deleted
+        int i = segments.length - 1;
+        while (i > 0 && segments[i] > fromSequence)
+            i--;
+
+        this.nextSequence = Math.max(fromSequence, segments[i]);
+        open(segments[i]);
+    }
+
+    private static MappedByteBuffer map(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close(); // mapping remains valid
+        }
+    }
+
+    private void open(long first) throws IOException {
+        open(first, map(getSegmentFile(directory, first)));
+    }
+
+    private void open(long first, MappedByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION
+            || buffer.getShort(6) != RECORD_LENGTH || buffer.getLong(8) != first)
+            throw new IOException("Invalid charge journal segment " + getSegmentFile(directory, first));
+
+        segment = buffer;
+        segmentFirst = first;
+        segmentCapacity = (segment.capacity() - HEADER_LENGTH) / RECORD_LENGTH;
+
+        long sealedEnd = segment.getLong(SEALED_END_OFFSET);
+        segmentEnd = sealedEnd != 0 ? sealedEnd : first + segmentCapacity;
+    }
+
+    /**
+     * Opens the segment following the current segment. A segment that has been created by the
+     * writer but not yet extended or given a header is treated as the end of the journal, and is
+     * opened by a later call once the header has been written.
+     *
+     * @return true if opened, false if the current segment is the last segment
+     */
+    private boolean openNext() throws IOException {
+        long next = segmentFirst + segmentCapacity;
+        File file = getSegmentFile(directory, next);
+        if (!file.exists())
+            return false;
+
+        MappedByteBuffer buffer = map(file);
+        if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(0) == 0)
+            return false;
+
+        open(next, buffer);
+        nextSequence = Math.max(nextSequence, next);
+        return true;
+    }
+
+    public int read(ChargeBatch batch) throws IOException {
+        if (segment == null)
+            throw new IOException("Charge journal reader is closed.");
+
+        long lastSequence = journal != null ? Math.min(toSequence, journal.getDurableSequence()) : toSequence;
+
+        int count = 0;
+        while (!batch.isFull() && nextSequence <= lastSequence) {
+            if (nextSequence >= segmentEnd) {
+                if (!openNext())
+                    break;
+                continue;
+            }
+
+            int slot = (int) (nextSequence - segmentFirst);
+            segment.position(HEADER_LENGTH + slot * RECORD_LENGTH);
+            segment.get(record);
+
+            if (recordBuffer.getLong(0) != nextSequence || recordBuffer.getInt(CRC_OFFSET) != checksum(record, crc)) {
+                // a segment is only rolled when full or sealed, so an invalid record is the end of the journal
+                if (getSegmentFile(directory, segmentFirst + segmentCapacity).exists())
+                    throw new IOException("Corrupt charge journal record " + nextSequence + " in segment "
+                                          + getSegmentFile(directory, segmentFirst));
+                break;
+            }
+
+            Currency currency = getCurrency(recordBuffer.getShort(40));
+            if (currency == null)
+                throw new IOException("Unknown currency code " + recordBuffer.getShort(40)
+                                      + " in charge journal record " + nextSequence);
+
+            int i = batch.add(recordBuffer.getLong(16), recordBuffer.getLong(24), recordBuffer.get(42), currency);
+            batch.setAccountId(i, recordBuffer.getLong(8));
+            batch.setTimestamp(i, recordBuffer.getLong(32));
+
+            nextSequence++;
+            count++;
+        }
+
+        return count > 0 ? count : -1;
+    }
+
+    /**
+     * Returns the sequence number of the next charge to be read. Once the charges read have been
+     * committed, this is the sequence number to resume replay from.
+     *
+     * @return next sequence number
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    public void close() throws IOException {
+        segment = null;
+    }
+}
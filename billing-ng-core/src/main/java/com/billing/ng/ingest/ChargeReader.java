@@ -0,0 +1,42 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streaming source of charges to ingest. Charges are read a batch at a time into
+ * a re-usable {@link ChargeBatch}.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public interface ChargeReader extends Closeable {
+
+    /**
+     * Reads charges into the given batch until the batch is full or the end of the
+     * input is reached. Charges are appended after any charges already in the batch.
+     *
+     * @param batch batch to read into
+     * @return number of charges read, or -1 if the end of the input has been reached
+     * @throws IOException if the input could not be read or is malformed
+     */
+    int read(ChargeBatch batch) throws IOException;
+
+}
@@ -0,0 +1,39 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+/**
+ * Destination for ingested charges.
+ *
+ * Each ingestion worker writes to its own sink, so implementations do not need to
+ * be thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public interface ChargeSink {
+
+    /**
+     * Writes all charges in the given batch. The batch is re-used once this method
+     * returns, implementations must not hold a reference to it.
+     *
+     * @param batch charges to write
+     */
+    void write(ChargeBatch batch);
+
+}
@@ -0,0 +1,293 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Currency;
+
+/**
+ * Reads charges from comma separated values, one charge per line:
+ *
+ * <code>
+ *      line_id,amount,currency_code[,description]
+ *      1001,10.50,USD,Long distance
+ *      1001,-2.00,USD,"Discount, promotional"
+ *      1002,0.0125,USD
+ * </code>
+ *
+ * Amounts are plain decimals with an optional leading minus sign and are kept at the scale
+ * they are written in. Descriptions are optional and may be quoted to include commas, with
+ * quotes escaped by doubling them (<code>""</code>). Quoted descriptions cannot span lines.
+ * Blank lines are ignored.
+ *
+ * Lines are parsed directly from a re-usable character buffer into the {@link ChargeBatch},
+ * without creating a String for each line or field.
+ *
+ * This class is NOT thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class CsvChargeReader implements ChargeReader {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    private final Reader reader;
+    private boolean header;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+    private boolean eof = false;
+
+    private char[] line = new char[256];
+    private int lineLength = 0;
+    private long lineNumber = 0;
+
+    private char[] field = new char[256];
+
+    private Currency[] currencies = new Currency[4];
+    private int currencyCount = 0;
+
+    public CsvChargeReader(Reader reader) {
+        this(reader, false);
+    }
+
+    /**
+     * Constructs a new CSV reader.
+     *
+     * @param reader reader to read charges from
+     * @param header true if the first line is a header to skip
+     */
+    public CsvChargeReader(Reader reader, boolean header) {
+        this.reader = reader;
+        this.header = header;
+    }
+
+    public int read(ChargeBatch batch) throws IOException {
+        if (header) {
+            header = false;
+            readLine();
+        }
+
+        int count = 0;
+        while (!batch.isFull() && readLine()) {
+            if (lineLength > 0) {
+                parseLine(batch);
+                count++;
+            }
+        }
+
+        return count == 0 && eof ? -1 : count;
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Reads the next line into the line buffer, without the line terminator.
+     *
+     * @return true if a line was read, false if the end of the input has been reached
+     * @throws IOException if the input could not be read
+     */
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean read = false;
+
+        while (true) {
+            if (position == limit) {
+                limit = eof ? -1 : reader.read(buffer, 0, buffer.length);
+                position = 0;
+
+                if (limit < 0) {
+                    eof = true;
+                    limit = 0;
+                    break;
+                }
+            }
+
+            read = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n')
+                position++;
+
+            appendLine(start, position - start);
+
+            if (position < limit) {
+                position++; // consume '\n'
+                break;
+            }
+        }
+
+        if (lineLength > 0 && line[lineLength - 1] == '\r')
+            lineLength--;
+
+        if (read)
+            lineNumber++;
+
+        return read;
+    }
+
+    private void appendLine(int start, int length) {
+        if (lineLength + length > line.length)
+            line = Arrays.copyOf(line, Math.max(lineLength + length, line.length * 2));
+
+        System.arraycopy(buffer, start, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private void parseLine(ChargeBatch batch) throws IOException {
+        int i = 0;
+
+        // line id
+        if (i == lineLength || line[i] < '0' || line[i] > '9')
+            throw malformed("expected a purchase order line id");
+
+        long lineId = 0;
+        while (i < lineLength && line[i] >= '0' && line[i] <= '9')
+            lineId = digit(lineId, line[i++]);
+
+        i = separator(i);
+
+        // amount
+        boolean negative = i < lineLength && line[i] == '-';
+        if (negative)
+            i++;
+
+        long value = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; i < lineLength && line[i] != SEPARATOR; i++) {
+            char c = line[i];
+            if (c == '.' && !fraction) {
+                fraction = true;
+            } else if (c >= '0' && c <= '9') {
+                value = digit(value, c);
+                digits++;
+                if (fraction)
+                    scale++;
+            } else {
+                throw malformed("invalid character '" + c + "' in amount");
+            }
+        }
+
+        if (digits == 0)
+            throw malformed("expected an amount");
+
+        i = separator(i);
+
+        // currency
+        int end = i;
+        while (end < lineLength && line[end] != SEPARATOR)
+            end++;
+
+        if (end - i != 3)
+            throw malformed("expected a 3 letter currency code");
+
+        Currency currency = getCurrency(i);
+        int index = batch.add(lineId, negative ? -value : value, scale, currency);
+
+        // description
+        if (end < lineLength)
+            parseDescription(batch, index, end + 1);
+    }
+
+    private void parseDescription(ChargeBatch batch, int index, int start) throws IOException {
+        if (start == lineLength || line[start] != QUOTE) {
+            batch.setDescription(index, line, start, lineLength - start);
+            return;
+        }
+
+        if (field.length < lineLength)
+            field = new char[Math.max(lineLength, field.length * 2)];
+
+        int length = 0;
+        int i = start + 1;
+        while (true) {
+            if (i == lineLength)
+                throw malformed("unterminated quoted description");
+
+            char c = line[i++];
+            if (c == QUOTE) {
+                if (i < lineLength && line[i] == QUOTE) {
+                    i++; // escaped quote
+                } else {
+                    break;
+                }
+            }
+            field[length++] = c;
+        }
+
+        if (i != lineLength)
+            throw malformed("unexpected characters after quoted description");
+
+        batch.setDescription(index, field, 0, length);
+    }
+
+    private int separator(int i) throws IOException {
+        if (i == lineLength || line[i] != SEPARATOR)
+            throw malformed("expected '" + SEPARATOR + "' at column " + (i + 1));
+        return i + 1;
+    }
+
+    private long digit(long value, char c) throws IOException {
+        int digit = c - '0';
+        if (value > (Long.MAX_VALUE - digit) / 10)
+            throw malformed("number too large");
+        return value * 10 + digit;
+    }
+
+    /**
+     * Returns the currency for the 3 letter code at the given position in the line buffer,
+     * only creating a String for the code the first time the currency is seen.
+     *
+     * @param i position of the currency code
+     * @return currency
+     * @throws IOException if the currency code is not valid
+     */
+    private Currency getCurrency(int i) throws IOException {
+        for (int j = 0; j < currencyCount; j++) {
+            String code = currencies[j].getCurrencyCode();
+            if (code.charAt(0) == line[i] && code.charAt(1) == line[i + 1] && code.charAt(2) == line[i + 2])
+                return currencies[j];
+        }
+
+        Currency currency;
+        try {
+            currency = Currency.getInstance(new String(line, i, 3));
+        } catch (IllegalArgumentException e) {
+            throw malformed("unknown currency code '" + new String(line, i, 3) + "'");
+        }
+
+        if (currencyCount == currencies.length)
+            currencies = Arrays.copyOf(currencies, currencyCount * 2);
+
+        currencies[currencyCount++] = currency;
+        return currency;
+    }
+
+    private IOException malformed(String reason) {
+        return new IOException("Malformed charge on line " + lineNumber + ": " + reason);
+    }
+}
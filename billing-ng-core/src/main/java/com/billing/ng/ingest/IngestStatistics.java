@@ -0,0 +1,167 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Throughput statistics of a charge ingestion run, recording the number of charges processed
+ * by each stage of the pipeline and the time spent in each stage. Stage times are summed over
+ * all threads running the stage, so the throughput of a stage is per thread.
+ *
+ * This class is thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class IngestStatistics {
+
+    public enum Stage {
+        /** Reading and parsing charges into batches. */
+        PARSE,
+        /** Resolving the purchase order line of each charge. */
+        RESOLVE,
+        /** Writing charges to the sink. */
+        WRITE
+    }
+
+    private final AtomicLongArray charges = new AtomicLongArray(Stage.values().length);
+    private final AtomicLongArray nanos = new AtomicLongArray(Stage.values().length);
+    private final AtomicLongArray batches = new AtomicLongArray(Stage.values().length);
+    private volatile long rejected = 0;
+    private volatile long elapsedNanos = 0;
+
+    public IngestStatistics() {
+    }
+
+    /**
+     * Records a batch of charges processed by a stage.
+     *
+     * @param stage stage
+     * @param count number of charges processed
+     * @param nanos time taken in nanoseconds
+     */
+    public void record(Stage stage, int count, long nanos) {
+        this.charges.addAndGet(stage.ordinal(), count);
+        this.nanos.addAndGet(stage.ordinal(), nanos);
+        this.batches.incrementAndGet(stage.ordinal());
+    }
+
+    void addRejected(int count) {
+        rejected += count; // only updated by the reading thread
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of charges processed by the given stage.
+     *
+     * @param stage stage
+     * @return number of charges
+     */
+    public long getCharges(Stage stage) {
+        return charges.get(stage.ordinal());
+    }
+
+    /**
+     * Returns the number of batches processed by the given stage.
+     *
+     * @param stage stage
+     * @return number of batches
+     */
+    public long getBatches(Stage stage) {
+        return batches.get(stage.ordinal());
+    }
+
+    /**
+     * Returns the total time spent in the given stage, summed over all threads.
+     *
+     * @param stage stage
+     * @param unit time unit
+     * @return time spent in stage
+     */
+    public long getTime(Stage stage, TimeUnit unit) {
+        return unit.convert(nanos.get(stage.ordinal()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the throughput of the given stage in charges per second of time spent in the stage.
+     *
+     * @param stage stage
+     * @return charges per second
+     */
+    public double getThroughput(Stage stage) {
+        long time = nanos.get(stage.ordinal());
+        return time > 0 ? getCharges(stage) * 1e9 / time : 0;
+    }
+
+    /**
+     * Returns the number of charges rejected because their purchase order line does not exist.
+     *
+     * @return number of rejected charges
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Returns the number of charges written.
+     *
+     * @return number of charges written
+     */
+    public long getWritten() {
+        return getCharges(Stage.WRITE);
+    }
+
+    /**
+     * Returns the elapsed (wall clock) time of the ingestion run.
+     *
+     * @param unit time unit
+     * @return elapsed time
+     */
+    public long getElapsedTime(TimeUnit unit) {
+        return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the overall throughput of the ingestion run in charges written per second of elapsed time.
+     *
+     * @return charges per second
+     */
+    public double getThroughput() {
+        return elapsedNanos > 0 ? getWritten() * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("IngestStatistics{");
+        for (Stage stage : Stage.values()) {
+            builder.append(stage.name().toLowerCase())
+                    .append("=").append(getCharges(stage))
+                    .append(" (").append(Math.round(getThroughput(stage))).append("/s), ");
+        }
+
+        return builder.append("rejected=").append(rejected)
+                .append(", elapsed=").append(getElapsedTime(TimeUnit.MILLISECONDS)).append("ms")
+                .append(", throughput=").append(Math.round(getThroughput())).append("/s")
+                .append('}').toString();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import com.billing.ng.dao.PurchaseOrderDAO;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded least-recently-used cache of purchase order line ids, used to check that ingested
+ * charges belong to an existing line without querying the database for every charge. All line
+ * ids of a batch that are not cached are looked up using a single query. Ids of lines that do
+ * not exist are cached as well, so charges for a missing line are rejected without repeating the
+ * query. Use {@link #clear()} after creating new lines.
+ *
+ * This class is NOT thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class PurchaseOrderLineCache {
+
+    public static final int DEFAULT_CAPACITY = 100000;
+
+    private final PurchaseOrderDAO purchaseOrderDAO;
+    private final Map<Long, Boolean> lines;
+
+    private final Set<Long> missing = new HashSet<Long>();
+    private boolean[] accepted = new boolean[ChargeBatch.DEFAULT_CAPACITY];
+
+    private long hits = 0;
+    private long misses = 0;
+
+    public PurchaseOrderLineCache(PurchaseOrderDAO purchaseOrderDAO) {
+        this(purchaseOrderDAO, DEFAULT_CAPACITY);
+    }
+
+    public PurchaseOrderLineCache(PurchaseOrderDAO purchaseOrderDAO, final int capacity) {
+        this.purchaseOrderDAO = purchaseOrderDAO;
+        this.lines = new LinkedHashMap<Long, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Resolves the purchase order line of every charge in the given batch, removing all charges
+     * that belong to a line that does not exist.
+     *
+     * @param batch charges to resolve
+     * @return number of charges removed
+     */
+    public int resolve(ChargeBatch batch) {
+        missing.clear();
+        for (int i = 0; i < batch.size(); i++) {
+            Long id = batch.getLineId(i);
+            if (lines.containsKey(id) || missing.contains(id)) {
+                hits++;
+            } else {
+                missing.add(id);
+                misses++;
+            }
+        }
+
+        Set<Long> found = missing.isEmpty() ? missing : load(missing);
+
+        if (accepted.length < batch.size())
+            accepted = new boolean[batch.capacity()];
+
+        for (int i = 0; i < batch.size(); i++) {
+            Long id = batch.getLineId(i);
+            Boolean exists = missing.contains(id) ? Boolean.valueOf(found.contains(id)) : lines.get(id);
+            accepted[i] = exists != null && exists;
+        }
+
+        for (Long id : missing)
+            lines.put(id, found.contains(id));
+
+        return batch.retain(accepted);
+    }
+
+    /**
+     * Looks up the given purchase order line ids.
+     *
+     * @param lineIds line ids
+     * @return ids of existing lines
+     */
+    protected Set<Long> load(Collection<Long> lineIds) {
+        return purchaseOrderDAO.findLineIds(lineIds);
+    }
+
+    /**
+     * Re-calculates the line and order totals of the given purchase order lines after
+     * charges have been written to them.
+     *
+     * @param lineIds ids of the lines that were charged
+     */
+    protected void reconcile(Collection<Long> lineIds) {
+        purchaseOrderDAO.reconcileLineTotals(lineIds);
+    }
+
+    public int size() {
+        return lines.size();
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void clear() {
+        lines.clear();
+    }
+}
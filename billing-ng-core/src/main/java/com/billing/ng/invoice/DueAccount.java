@@ -0,0 +1,106 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.invoice;
+
+import com.billing.ng.entities.Account;
+import com.billing.ng.entities.BillingCycle;
+import com.billing.ng.entities.BillingType;
+
+/**
+ * An account that is due to be billed, holding only the fields needed to plan and run
+ * an invoice run so that the whole set of due accounts can be loaded in a single query
+ * without loading the account entities.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public final class DueAccount {
+
+    private final long id;
+    private final String number;
+    private final BillingType billingType;
+    private final long rootId;
+    private final int hierarchyLevel;
+    private final BillingCycle billingCycle;
+
+    /**
+     * Constructs a new due account.
+     *
+     * @param id account id
+     * @param number account number
+     * @param billingType billing type, null defaults to {@link BillingType#ACCOUNT}
+     * @param rootId id of the root account of the account hierarchy, the account id if this is a root account
+     * @param hierarchyLevel level of the account in the hierarchy
+     * @param billingCycle billing cycle of the account
+     */
+    public DueAccount(long id, String number, BillingType billingType, long rootId, int hierarchyLevel,
+                      BillingCycle billingCycle) {
+        if (billingCycle == null)
+            throw new IllegalArgumentException("Account " + id + " does not have a billing cycle.");
+
+        this.id = id;
+        this.number = number;
+        this.billingType = billingType != null ? billingType : BillingType.ACCOUNT;
+        this.rootId = rootId;
+        this.hierarchyLevel = hierarchyLevel;
+        this.billingCycle = billingCycle;
+    }
+
+    /**
+     * Constructs a new due account from a persisted account entity.
+     *
+     * @param account persisted account
+     */
+    public DueAccount(Account account) {
+        this(account.getId(), account.getNumber(), account.getBillingType(), getRootId(account),
+             account.getHierarchyLevel(), account.getBillingCycle());
+    }
+
+    private static long getRootId(Account account) {
+        return account.isRootAccount() ? account.getId() : account.getParentAccountIds().get(0);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public BillingType getBillingType() {
+        return billingType;
+    }
+
+    public long getRootId() {
+        return rootId;
+    }
+
+    public int getHierarchyLevel() {
+        return hierarchyLevel;
+    }
+
+    public BillingCycle getBillingCycle() {
+        return billingCycle;
+    }
+
+    @Override
+    public String toString() {
+        return "DueAccount{id=" + id + ", billingType=" + billingType + ", rootId=" + rootId + '}';
+    }
+}
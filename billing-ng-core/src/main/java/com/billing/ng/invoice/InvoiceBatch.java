@@ -0,0 +1,223 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.invoice;
+
+import com.billing.ng.entities.Money;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The result of billing a single {@link InvoicePartition}, holding one row per due account
+ * with the invoice generated for the account and the next run date of its billing cycle, and
+ * the un-invoiced purchase orders of the accounts. Values are held in parallel arrays so that
+ * they can be written with batched JDBC statements without creating entities.
+ *
+ * Batches are re-usable, {@link #reset(InvoicePartition)} clears the batch and sizes it
+ * for the next partition.
+ *
+ * This class is not thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class InvoiceBatch {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private InvoicePartition partition;
+    private final Map<Long, Integer> rows = new HashMap<Long, Integer>();
+
+    private Date[] nextRuns = new Date[INITIAL_CAPACITY];
+    private String[] numbers = new String[INITIAL_CAPACITY];
+    private Money[] totals = new Money[INITIAL_CAPACITY];
+    private int invoiceCount;
+
+    private long[] orderIds = new long[INITIAL_CAPACITY];
+    private int[] orderRows = new int[INITIAL_CAPACITY];
+    private Money[] orderTotals = new Money[INITIAL_CAPACITY];
+    private int orderCount;
+
+    public InvoiceBatch() {
+    }
+
+    /**
+     * Clears this batch and sets the partition to bill, adding a row for each account in the partition.
+     *
+     * @param partition partition to bill
+     */
+    public void reset(InvoicePartition partition) {
+        clear();
+        this.partition = partition;
+
+        int size = partition.size();
+        if (size > nextRuns.length) {
+            nextRuns = new Date[size];
+            numbers = new String[size];
+            totals = new Money[size];
+        }
+
+        for (int row = 0; row < size; row++)
+            rows.put(partition.getAccounts().get(row).getId(), row);
+    }
+
+    public InvoicePartition getPartition() {
+        return partition;
+    }
+
+    /**
+     * Returns the number of accounts in this batch.
+     *
+     * @return number of accounts
+     */
+    public int size() {
+        return partition != null ? partition.size() : 0;
+    }
+
+    public DueAccount getAccount(int row) {
+        return partition.getAccounts().get(row);
+    }
+
+    /**
+     * Returns the ids of all accounts in this batch.
+     *
+     * @return account ids
+     */
+    public Collection<Long> getAccountIds() {
+        return Collections.unmodifiableSet(rows.keySet());
+    }
+
+    /**
+     * Adds an un-invoiced purchase order of one of the accounts in this batch.
+     *
+     * @param orderId purchase order id
+     * @param accountId id of the account holding the order
+     * @param total order total
+     * @throws IllegalArgumentException if the account is not in this batch
+     */
+    public void addOrder(long orderId, long accountId, Money total) {
+        Integer row = rows.get(accountId);
+        if (row == null)
+            throw new IllegalArgumentException("Account " + accountId + " is not in the batch.");
+
+        if (orderCount == orderIds.length) {
+            int length = orderCount << 1;
+            orderIds = Arrays.copyOf(orderIds, length);
+            orderRows = Arrays.copyOf(orderRows, length);
+            orderTotals = Arrays.copyOf(orderTotals, length);
+        }
+
+        orderIds[orderCount] = orderId;
+        orderRows[orderCount] = row;
+        orderTotals[orderCount] = total;
+        orderCount++;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    public long getOrderId(int i) {
+        return orderIds[i];
+    }
+
+    /**
+     * Returns the row of the account holding the given order.
+     *
+     * @param i order index
+     * @return account row
+     */
+    public int getOrderRow(int i) {
+        return orderRows[i];
+    }
+
+    public Money getOrderTotal(int i) {
+        return orderTotals[i];
+    }
+
+    /**
+     * Sets the invoice generated for the account in the given row.
+     *
+     * @param row account row
+     * @param number invoice number, may be null
+     * @param total invoice total
+     */
+    public void setInvoice(int row, String number, Money total) {
+        if (totals[row] == null)
+            invoiceCount++;
+
+        numbers[row] = number;
+        totals[row] = total;
+    }
+
+    /**
+     * Returns true if an invoice was generated for the account in the given row.
+     *
+     * @param row account row
+     * @return true if invoiced
+     */
+    public boolean isInvoiced(int row) {
+        return totals[row] != null;
+    }
+
+    public String getNumber(int row) {
+        return numbers[row];
+    }
+
+    public Money getTotal(int row) {
+        return totals[row];
+    }
+
+    public int getInvoiceCount() {
+        return invoiceCount;
+    }
+
+    /**
+     * Sets the next run date of the billing cycle of the account in the given row.
+     *
+     * @param row account row
+     * @param nextRun next run date, null if the billing cycle has ended
+     */
+    public void setNextRun(int row, Date nextRun) {
+        nextRuns[row] = nextRun;
+    }
+
+    public Date getNextRun(int row) {
+        return nextRuns[row];
+    }
+
+    /**
+     * Clears this batch, releasing the partition and all orders.
+     */
+    public void clear() {
+        int size = size();
+        Arrays.fill(nextRuns, 0, size, null);
+        Arrays.fill(numbers, 0, size, null);
+        Arrays.fill(totals, 0, size, null);
+        Arrays.fill(orderTotals, 0, orderCount, null);
+
+        rows.clear();
+        partition = null;
+        invoiceCount = 0;
+        orderCount = 0;
+    }
+}
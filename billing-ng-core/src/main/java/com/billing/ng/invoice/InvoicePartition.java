@@ -0,0 +1,70 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.invoice;
+
+import com.billing.ng.entities.BillingType;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A unit of work of an invoice run, holding due accounts of a single billing type from
+ * one or more account hierarchies. Each partition is billed by a single worker in a
+ * single transaction.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public final class InvoicePartition {
+
+    private final int index;
+    private final BillingType billingType;
+    private final List<DueAccount> accounts;
+
+    public InvoicePartition(int index, BillingType billingType, List<DueAccount> accounts) {
+        this.index = index;
+        this.billingType = billingType;
+        this.accounts = Collections.unmodifiableList(accounts);
+    }
+
+    /**
+     * Returns the index of this partition in the planned run.
+     *
+     * @return partition index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public BillingType getBillingType() {
+        return billingType;
+    }
+
+    public List<DueAccount> getAccounts() {
+        return accounts;
+    }
+
+    public int size() {
+        return accounts.size();
+    }
+
+    @Override
+    public String toString() {
+        return "InvoicePartition{index=" + index + ", billingType=" + billingType + ", accounts=" + accounts.size() + '}';
+    }
+}
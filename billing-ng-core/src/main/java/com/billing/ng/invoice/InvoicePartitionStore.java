@@ -0,0 +1,57 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+
+package com.billing.ng.invoice;
+
+import com.billing.ng.entities.InvoiceRun;
+
+/**
+ * Persistence used by a single worker thread of the {@link InvoiceRunner} to load and write
+ * partitions. Each worker opens its own store with {@link InvoiceStore#openPartitionStore()},
+ * so implementations do not need to be thread safe, but must not share a connection or
+ * persistence context with any other store.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public interface InvoicePartitionStore {
+
+    /**
+     * Adds the un-invoiced purchase orders of all accounts in the given batch.
+     *
+     * @param batch batch to load orders into
+     */
+    void loadOrders(InvoiceBatch batch);
+
+    /**
+     * Writes a billed partition in a single transaction: inserts the invoices, assigns the
+     * orders to their invoice, updates the next run date of each billing cycle and adds the
+     * partition to the counts of the run. The transaction is committed before this method
+     * returns. If the write fails, nothing of the partition is committed, and the accounts
+     * of the partition remain due so that a resumed run bills them again.
+     *
+     * @param run invoice run
+     * @param batch billed partition
+     */
+    void write(InvoiceRun run, InvoiceBatch batch);
+
+    /**
+     * Releases the resources held by this store.
+     */
+    void close();
+}
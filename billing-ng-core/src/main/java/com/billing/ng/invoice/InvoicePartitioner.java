@@ -0,0 +1,126 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.invoice;
+
+import com.billing.ng.entities.BillingType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Partitions the due accounts of an invoice run by billing type and account hierarchy root.
+ *
+ * Accounts are ordered by billing type, root account, hierarchy level and id so that the
+ * same set of due accounts always produces the same partitions. The accounts of a hierarchy
+ * are kept together in one partition, and consecutive hierarchies of the same billing type
+ * are packed into a partition up to the partition size, so that a run over millions of
+ * single-account hierarchies uses a few thousand transactions rather than millions. Only
+ * hierarchies with more due accounts than the partition size are split.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class InvoicePartitioner {
+
+    public static final int DEFAULT_PARTITION_SIZE = 500;
+
+    private static final Comparator<DueAccount> ORDER = new Comparator<DueAccount>() {
+        public int compare(DueAccount a, DueAccount b) {
+            int result = a.getBillingType().compareTo(b.getBillingType());
+            if (result == 0) result = compare(a.getRootId(), b.getRootId());
+            if (result == 0) result = compare(a.getHierarchyLevel(), b.getHierarchyLevel());
+            if (result == 0) result = compare(a.getId(), b.getId());
+            return result;
+        }
+
+        private int compare(long x, long y) {
+            return x < y ? -1 : (x == y ? 0 : 1);
+        }
+    };
+
+    private final int partitionSize;
+
+    public InvoicePartitioner() {
+        this(DEFAULT_PARTITION_SIZE);
+    }
+
+    /**
+     * Constructs a new partitioner.
+     *
+     * @param partitionSize maximum number of accounts per partition
+     */
+    public InvoicePartitioner(int partitionSize) {
+        if (partitionSize < 1)
+            throw new IllegalArgumentException("Partition size must be greater than zero.");
+
+        this.partitionSize = partitionSize;
+    }
+
+    public int getPartitionSize() {
+        return partitionSize;
+    }
+
+    /**
+     * Partitions the given due accounts.
+     *
+     * @param accounts due accounts
+     * @return partitions in order of billing type and root account
+     */
+    public List<InvoicePartition> partition(Collection<DueAccount> accounts) {
+        List<DueAccount> sorted = new ArrayList<DueAccount>(accounts);
+        Collections.sort(sorted, ORDER);
+
+        List<InvoicePartition> partitions = new ArrayList<InvoicePartition>();
+        List<DueAccount> current = new ArrayList<DueAccount>();
+        BillingType billingType = null;
+
+        for (int start = 0, end; start < sorted.size(); start = end) {
+            DueAccount first = sorted.get(start);
+
+            // find the end of this hierarchy
+            for (end = start + 1; end < sorted.size(); end++) {
+                DueAccount account = sorted.get(end);
+                if (account.getBillingType() != first.getBillingType() || account.getRootId() != first.getRootId())
+                    break;
+            }
+
+            if (!current.isEmpty() && (first.getBillingType() != billingType || current.size() + end - start > partitionSize)) {
+                partitions.add(new InvoicePartition(partitions.size(), billingType, current));
+                current = new ArrayList<DueAccount>();
+            }
+
+            billingType = first.getBillingType();
+
+            // split hierarchies too large for a single partition, leaving the remainder to pack
+            int offset = start;
+            for (; end - offset > partitionSize; offset += partitionSize)
+                partitions.add(new InvoicePartition(partitions.size(), billingType,
+                                                    new ArrayList<DueAccount>(sorted.subList(offset, offset + partitionSize))));
+
+            current.addAll(sorted.subList(offset, end));
+        }
+
+        if (!current.isEmpty())
+            partitions.add(new InvoicePartition(partitions.size(), billingType, current));
+
+        return partitions;
+    }
+}
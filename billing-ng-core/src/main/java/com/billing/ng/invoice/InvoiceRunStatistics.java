@@ -0,0 +1,199 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.invoice;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Progress and throughput statistics of an invoice run. Statistics are updated as each
+ * partition completes and can be read by another thread while the run is in progress. Stage
+ * times are summed over all worker threads, so the throughput of a stage is per thread.
+ *
+ * Statistics only cover the partitions processed since the run was (re-)started, the totals
+ * of a resumed run are held by the {@link com.billing.ng.entities.InvoiceRun}.
+ *
+ * This class is thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class InvoiceRunStatistics {
+
+    public enum Stage {
+        /** Loading the un-invoiced orders of the partition. */
+        LOAD,
+        /** Totalling invoices and calculating the next billing run. */
+        BILL,
+        /** Writing the invoices and updates. */
+        WRITE
+    }
+
+    private final int partitions;
+    private final long dueAccounts;
+    private final long start = System.nanoTime();
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong accounts = new AtomicLong();
+    private final AtomicLong invoices = new AtomicLong();
+    private final AtomicLong orders = new AtomicLong();
+    private final AtomicLongArray nanos = new AtomicLongArray(Stage.values().length);
+    private volatile long elapsedNanos = -1;
+
+    public InvoiceRunStatistics(int partitions, long dueAccounts) {
+        this.partitions = partitions;
+        this.dueAccounts = dueAccounts;
+    }
+
+    void record(Stage stage, long nanos) {
+        this.nanos.addAndGet(stage.ordinal(), nanos);
+    }
+
+    /**
+     * Records a completed partition.
+     *
+     * @param accounts number of accounts billed
+     * @param invoices number of invoices generated
+     * @param orders number of orders invoiced
+     * @return number of partitions completed so far
+     */
+    long complete(int accounts, int invoices, int orders) {
+        this.accounts.addAndGet(accounts);
+        this.invoices.addAndGet(invoices);
+        this.orders.addAndGet(orders);
+        return completed.incrementAndGet();
+    }
+
+    void fail() {
+        failed.incrementAndGet();
+    }
+
+    void finish() {
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Returns the number of planned partitions.
+     *
+     * @return number of partitions
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Returns the number of accounts that were due when the run was planned.
+     *
+     * @return number of due accounts
+     */
+    public long getDueAccounts() {
+        return dueAccounts;
+    }
+
+    public long getCompletedPartitions() {
+        return completed.get();
+    }
+
+    /**
+     * Returns the number of partitions that failed. The accounts of a failed partition remain
+     * due, and are billed when the run is resumed.
+     *
+     * @return number of failed partitions
+     */
+    public long getFailedPartitions() {
+        return failed.get();
+    }
+
+    public long getAccounts() {
+        return accounts.get();
+    }
+
+    public long getInvoices() {
+        return invoices.get();
+    }
+
+    public long getOrders() {
+        return orders.get();
+    }
+
+    /**
+     * Returns the fraction of partitions that have completed or failed, from 0 to 1.
+     *
+     * @return progress of the run
+     */
+    public double getProgress() {
+        return partitions > 0 ? (double) (completed.get() + failed.get()) / partitions : 1;
+    }
+
+    /**
+     * Returns the total time spent in the given stage, summed over all threads.
+     *
+     * @param stage stage
+     * @param unit time unit
+     * @return time spent in stage
+     */
+    public long getTime(Stage stage, TimeUnit unit) {
+        return unit.convert(nanos.get(stage.ordinal()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the elapsed (wall clock) time of the run, or the time elapsed so far if the run
+     * is still in progress.
+     *
+     * @param unit time unit
+     * @return elapsed time
+     */
+    public long getElapsedTime(TimeUnit unit) {
+        return unit.convert(getElapsedNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the throughput of the run in accounts billed per second of elapsed time.
+     *
+     * @return accounts per second
+     */
+    public double getThroughput() {
+        long elapsed = getElapsedNanos();
+        return elapsed > 0 ? accounts.get() * 1e9 / elapsed : 0;
+    }
+
+    private long getElapsedNanos() {
+        long elapsed = elapsedNanos;
+        return elapsed >= 0 ? elapsed : System.nanoTime() - start;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("InvoiceRunStatistics{")
+                .append("partitions=").append(completed.get()).append('/').append(partitions)
+                .append(", failed=").append(failed.get())
+                .append(", accounts=").append(accounts.get()).append('/').append(dueAccounts)
+                .append(", invoices=").append(invoices.get())
+                .append(", orders=").append(orders.get());
+
+        for (Stage stage : Stage.values())
+            builder.append(", ").append(stage.name().toLowerCase()).append('=')
+                    .append(getTime(stage, TimeUnit.MILLISECONDS)).append("ms");
+
+        return builder.append(", elapsed=").append(getElapsedTime(TimeUnit.MILLISECONDS)).append("ms")
+                .append(", throughput=").append(Math.round(getThroughput())).append("/s")
+                .append('}').toString();
+    }
+}
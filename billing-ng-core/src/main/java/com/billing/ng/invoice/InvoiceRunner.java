@@ -0,0 +1,327 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.invoice;
+
+import com.billing.ng.entities.Account;
+import com.billing.ng.entities.Invoice;
+import com.billing.ng.entities.InvoiceRun;
+import com.billing.ng.entities.Money;
+import com.billing.ng.entities.MoneyAccumulator;
+import com.billing.ng.entities.NumberPattern;
+import org.joda.time.DateMidnight;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel invoice run, billing every account whose billing cycle is due on the billing date of
+ * an {@link InvoiceRun}. Each billed account receives an invoice of its un-invoiced purchase orders,
+ * and its billing cycle is re-scheduled for the next run.
+ *
+ * Due accounts are split into partitions by the {@link InvoicePartitioner}, and the partitions are
+ * billed by a fixed number of worker threads. Each worker opens its own {@link InvoicePartitionStore},
+ * takes the next partition, loads the orders of all of its accounts at once and writes the whole partition
+ * in a single transaction, so the number of queries and transactions grows with the number of partitions
+ * rather than the number of accounts.
+ *
+ * The run is resumable. A written partition advances the next run of its accounts, so they are no
+ * longer due, and adds to the counts of the run in the same transaction. Running the same
+ * {@link InvoiceRun} again after a crash or a failed partition only bills the accounts that are still due:
+ * <code>
+ *      InvoiceRunner runner = new InvoiceRunner(invoiceDAO);
+ *      InvoiceRunStatistics statistics = runner.run(new InvoiceRun(today));
+ *
+ *      // after a crash
+ *      for (InvoiceRun run : invoiceDAO.findIncompleteRuns())
+ *          runner.run(run);
+ * </code>
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class InvoiceRunner {
+
+    private transient final Logger log = LoggerFactory.getLogger(InvoiceRunner.class);
+
+    private final InvoiceStore store;
+    private final InvoicePartitioner partitioner;
+    private final int threads;
+    private NumberPattern numberPattern;
+
+    private volatile InvoiceRunStatistics statistics;
+
+    /**
+     * Constructs a new invoice runner using one worker thread per available processor
+     * and the default partition size.
+     *
+     * @param store store to read due accounts from and write invoices to
+     */
+    public InvoiceRunner(InvoiceStore store) {
+        this(store, Runtime.getRuntime().availableProcessors(), InvoicePartitioner.DEFAULT_PARTITION_SIZE);
+    }
+
+    /**
+     * Constructs a new invoice runner.
+     *
+     * @param store store to read due accounts from and write invoices to
+     * @param threads number of worker threads
+     * @param partitionSize maximum number of accounts billed per partition (and transaction)
+     */
+    public InvoiceRunner(InvoiceStore store, int threads, int partitionSize) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Number of threads must be greater than zero.");
+
+        this.store = store;
+        this.partitioner = new InvoicePartitioner(partitionSize);
+        this.threads = threads;
+    }
+
+    /**
+     * Returns the number pattern used to number generated invoices.
+     *
+     * @return invoice number pattern, null if invoices are not numbered
+     */
+    public NumberPattern getNumberPattern() {
+        return numberPattern;
+    }
+
+    public void setNumberPattern(NumberPattern numberPattern) {
+        this.numberPattern = numberPattern;
+    }
+
+    /**
+     * Returns the statistics of the run in progress, or of the last run if no run is in progress.
+     * Can be polled from another thread to report the progress of a run.
+     *
+     * @return run statistics, null if no run has been started
+     */
+    public InvoiceRunStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Bills all accounts due on the billing date of the given run, starting a new run or
+     * resuming an incomplete one. Returns once every partition has been written or has failed.
+     *
+     * A failed partition does not stop the run. The run is marked as {@link InvoiceRun.Status#FAILED}
+     * and the accounts of the failed partitions are billed when the run is resumed. If the due
+     * accounts cannot be found or partitioned, the run is marked as failed before the exception
+     * is thrown.
+     *
+     * @param run run to start or resume
+     * @return statistics of the run
+     * @throws InterruptedException if interrupted while waiting for the workers, the run is left
+     *         {@link InvoiceRun.Status#RUNNING} and can be resumed
+     */
+    public InvoiceRunStatistics run(InvoiceRun run) throws InterruptedException {
+        if (run.getBillingDate() == null)
+            throw new IllegalArgumentException("Invoice run does not have a billing date.");
+
+        if (run.getStarted() == null)
+            run.setStarted(new Date());
+        run.setStatus(InvoiceRun.Status.RUNNING);
+        run.setFinished(null);
+        store.start(run);
+
+        List<DueAccount> due;
+        List<InvoicePartition> partitions;
+        try {
+            int scheduled = store.scheduleBillingCycles(run);
+            if (scheduled > 0)
+                log.info("Scheduled {} billing cycles without a next run.", scheduled);
+
+            due = store.findDueAccounts(run);
+            partitions = partitioner.partition(due);
+
+        } catch (RuntimeException e) {
+            log.error("Invoice run " + run.getId() + " failed finding due accounts.", e);
+            run.setStatus(InvoiceRun.Status.FAILED);
+            run.setFinished(new Date());
+            store.finish(run);
+            throw e;
+        }
+
+        InvoiceRunStatistics statistics = new InvoiceRunStatistics(partitions.size(), due.size());
+        this.statistics = statistics;
+
+        log.info("Invoice run {} for {} started, {} due accounts in {} partitions.",
+                 new Object[] { run.getId(), run.getBillingDate(), due.size(), partitions.size() });
+
+        AtomicInteger next = new AtomicInteger();
+        DateMidnight billingDate = new DateMidnight(run.getBillingDate());
+
+        int workers = Math.max(1, Math.min(threads, partitions.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        for (int i = 0; i < workers; i++)
+            executor.execute(new Worker(store.openPartitionStore(), run, billingDate, partitions, next, statistics));
+
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            statistics.finish();
+            throw e;
+        }
+
+        statistics.finish();
+
+        run.setPartitionCount(run.getPartitionCount() + statistics.getCompletedPartitions());
+        run.setAccountCount(run.getAccountCount() + statistics.getAccounts());
+        run.setInvoiceCount(run.getInvoiceCount() + statistics.getInvoices());
+        run.setStatus(statistics.getFailedPartitions() == 0 ? InvoiceRun.Status.COMPLETE : InvoiceRun.Status.FAILED);
+        run.setFinished(new Date());
+        store.finish(run);
+
+        log.info("Invoice run {} finished {}: {}", new Object[] { run.getId(), run.getStatus(), statistics });
+        return statistics;
+    }
+
+    /**
+     * Bills the accounts of a partition into the given batch.
+     *
+     * @param run invoice run
+     * @param billingDate billing date of the run
+     * @param batch batch holding the partition and the orders of its accounts
+     */
+    void bill(InvoiceRun run, DateMidnight billingDate, InvoiceBatch batch) {
+        MoneyAccumulator[] totals = new MoneyAccumulator[batch.size()];
+        for (int i = 0; i < batch.getOrderCount(); i++) {
+            int row = batch.getOrderRow(i);
+            if (totals[row] == null)
+                totals[row] = new MoneyAccumulator();
+            totals[row].add(batch.getOrderTotal(i));
+        }
+
+        for (int row = 0; row < batch.size(); row++) {
+            DueAccount account = batch.getAccount(row);
+
+            DateMidnight nextRun = account.getBillingCycle().calculateNextRun(billingDate);
+            batch.setNextRun(row, nextRun != null ? nextRun.toDate() : null);
+
+            if (totals[row] != null) {
+                Money total = totals[row].toMoney();
+                batch.setInvoice(row, generateNumber(run, account, total), total);
+            }
+        }
+    }
+
+    /**
+     * Generates an invoice number using the number pattern. The pattern is given a transient
+     * invoice holding the billed account's id, number and billing type.
+     */
+    private String generateNumber(InvoiceRun run, DueAccount due, Money total) {
+        if (numberPattern == null)
+            return null;
+
+        Account account = new Account();
+        account.setId(due.getId());
+        account.setNumber(due.getNumber());
+        account.setBillingType(due.getBillingType());
+
+        Invoice invoice = new Invoice();
+        invoice.setAccount(account);
+        invoice.setRun(run);
+        invoice.setBillingType(due.getBillingType());
+        invoice.setBillingDate(run.getBillingDate());
+        invoice.setTotal(total);
+        invoice.setNumberPattern(numberPattern);
+        invoice.generateNumber();
+
+        return invoice.getNumber();
+    }
+
+    /**
+     * Worker that bills partitions until none are left, re-using a single batch. The partition
+     * store of the worker is closed once the worker is done.
+     */
+    private class Worker implements Runnable {
+        private final InvoicePartitionStore partitionStore;
+        private final InvoiceRun run;
+        private final DateMidnight billingDate;
+        private final List<InvoicePartition> partitions;
+        private final AtomicInteger next;
+        private final InvoiceRunStatistics statistics;
+        private final InvoiceBatch batch = new InvoiceBatch();
+
+        private Worker(InvoicePartitionStore partitionStore, InvoiceRun run, DateMidnight billingDate,
+                       List<InvoicePartition> partitions, AtomicInteger next, InvoiceRunStatistics statistics) {
+            this.partitionStore = partitionStore;
+            this.run = run;
+            this.billingDate = billingDate;
+            this.partitions = partitions;
+            this.next = next;
+            this.statistics = statistics;
+        }
+
+        public void run() {
+            try {
+                billPartitions();
+            } finally {
+                partitionStore.close();
+            }
+        }
+
+        private void billPartitions() {
+            for (int i = next.getAndIncrement(); i < partitions.size(); i = next.getAndIncrement()) {
+                if (Thread.currentThread().isInterrupted())
+                    return;
+
+                InvoicePartition partition = partitions.get(i);
+                try {
+                    long time = System.nanoTime();
+                    batch.reset(partition);
+                    partitionStore.loadOrders(batch);
+                    statistics.record(InvoiceRunStatistics.Stage.LOAD, System.nanoTime() - time);
+
+                    time = System.nanoTime();
+                    bill(run, billingDate, batch);
+                    statistics.record(InvoiceRunStatistics.Stage.BILL, System.nanoTime() - time);
+
+                    time = System.nanoTime();
+                    partitionStore.write(run, batch);
+                    statistics.record(InvoiceRunStatistics.Stage.WRITE, System.nanoTime() - time);
+
+                    long completed = statistics.complete(batch.size(), batch.getInvoiceCount(), batch.getOrderCount());
+                    logProgress(completed);
+
+                } catch (RuntimeException e) {
+                    statistics.fail();
+                    log.error("Invoice run " + run.getId() + " failed to bill " + partition + ".", e);
+
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        /** Logs progress each time another 10% of the partitions have completed. */
+        private void logProgress(long completed) {
+            int total = partitions.size();
+            if (completed * 10 / total != (completed - 1) * 10 / total)
+                log.info("Invoice run {} {}% complete: {}",
+                         new Object[] { run.getId(), completed * 100 / total, statistics });
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.invoice;
+
+import com.billing.ng.entities.InvoiceRun;
+
+import java.util.List;
+
+/**
+ * Persistence used by the {@link InvoiceRunner} to start and finish a run. All methods are
+ * called from the thread running the invoice run, and each call must run in its own transaction.
+ * Partitions are loaded and written by the worker threads through their own
+ * {@link InvoicePartitionStore}, opened with {@link #openPartitionStore()}.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public interface InvoiceStore {
+
+    /**
+     * Persists a new run, or marks a resumed run as running again.
+     *
+     * @param run run to start
+     */
+    void start(InvoiceRun run);
+
+    /**
+     * Schedules the next run of all billing cycles that do not have one yet and have not
+     * ended by the billing date of the given run, such as cycles created before the next run
+     * was tracked. Once scheduled, a billing cycle without a next run has no further runs.
+     *
+     * @param run invoice run
+     * @return number of billing cycles scheduled
+     */
+    int scheduleBillingCycles(InvoiceRun run);
+
+    /**
+     * Returns all accounts with a billing cycle due to run on or before the billing
+     * date of the given run. Billing cycles without a next run have ended and are
+     * never due.
+     *
+     * @param run invoice run
+     * @return due accounts
+     */
+    List<DueAccount> findDueAccounts(InvoiceRun run);
+
+    /**
+     * Opens a new store for loading and writing partitions, used by a single worker thread
+     * until it is closed.
+     *
+     * @return new partition store
+     */
+    InvoicePartitionStore openPartitionStore();
+
+    /**
+     * Records the final status of the given run.
+     *
+     * @param run finished run
+     */
+    void finish(InvoiceRun run);
+}
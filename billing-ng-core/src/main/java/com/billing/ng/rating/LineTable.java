@@ -0,0 +1,105 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.rating;
+
+/**
+ * Immutable lookup table of the purchase order line that usage of a product by an account
+ * is charged to. Entries are held in an open-addressing hash table of primitive arrays
+ * keyed by account id and product index.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public final class LineTable {
+
+    private final long[] accountIds;
+    private final int[] products;
+    private final long[] lineIds;
+    private final int mask;
+    private final int size;
+
+    /**
+     * Constructs a table from parallel arrays of account id, product key and line id. Element
+     * <code>i</code> of each array gives the line that usage of product <code>i</code> by
+     * account <code>i</code> is charged to.
+     *
+     * @param catalog catalog of the products
+     * @param accountIds account ids
+     * @param productKeys product keys
+     * @param lineIds purchase order line ids, must be greater than zero
+     * @throws IllegalArgumentException if the arrays are not the same length, a product is not in
+     *         the catalog, a line id is not positive, or an account and product are given twice
+     */
+    public LineTable(PriceCatalog catalog, long[] accountIds, String[] productKeys, long[] lineIds) {
+        if (productKeys.length != accountIds.length || lineIds.length != accountIds.length)
+            throw new IllegalArgumentException("Line table arrays must be the same length.");
+
+        this.size = accountIds.length;
+
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1; // at most half full
+        this.accountIds = new long[capacity];
+        this.products = new int[capacity];
+        this.lineIds = new long[capacity];
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < size; i++) {
+            int product = catalog.indexOf(productKeys[i]);
+            if (product < 0)
+                throw new IllegalArgumentException("Product '" + productKeys[i] + "' not in price catalog.");
+
+            if (lineIds[i] <= 0)
+                throw new IllegalArgumentException("Line ids must be greater than zero.");
+
+            int slot = slot(accountIds[i], product);
+            while (this.lineIds[slot] != 0) {
+                if (this.accountIds[slot] == accountIds[i] && this.products[slot] == product)
+                    throw new IllegalArgumentException("Duplicate line for account " + accountIds[i]
+                                                       + " and product '" + productKeys[i] + "'.");
+                slot = (slot + 1) & mask;
+            }
+
+            this.accountIds[slot] = accountIds[i];
+            this.products[slot] = product;
+            this.lineIds[slot] = lineIds[i];
+        }
+    }
+
+    private int slot(long accountId, int product) {
+        long h = (accountId * 31 + product) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Returns the line that usage of the given product by the given account is charged to.
+     *
+     * @param accountId account id
+     * @param product product index in the price catalog
+     * @return line id, or 0 if the account has no line for the product
+     */
+    public long getLineId(long accountId, int product) {
+        for (int slot = slot(accountId, product); lineIds[slot] != 0; slot = (slot + 1) & mask) {
+            if (accountIds[slot] == accountId && products[slot] == product)
+                return lineIds[slot];
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+}
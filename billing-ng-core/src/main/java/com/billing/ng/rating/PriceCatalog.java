@@ -0,0 +1,114 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.rating;
+
+import java.util.Map;
+
+/**
+ * Immutable catalog of price plans by product key. Each product is assigned a dense index
+ * that can be used in place of the product key once resolved, and product keys are found
+ * using an open-addressing hash table of the keys, without boxing or map entry objects.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public final class PriceCatalog {
+
+    private final String[] keys;
+    private final PricePlan[] plans;
+
+    private final String[] table;
+    private final int[] indexes;
+    private final int mask;
+
+    /**
+     * Constructs a catalog of the given price plans, assigning product indexes in
+     * iteration order of the map.
+     *
+     * @param plans price plans by product key
+     */
+    public PriceCatalog(Map<String, PricePlan> plans) {
+        int size = plans.size();
+        this.keys = new String[size];
+        this.plans = new PricePlan[size];
+
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1; // at most half full
+        this.table = new String[capacity];
+        this.indexes = new int[capacity];
+        this.mask = capacity - 1;
+
+        int index = 0;
+        for (Map.Entry<String, PricePlan> entry : plans.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null)
+                throw new IllegalArgumentException("Product keys and price plans cannot be null.");
+
+            keys[index] = entry.getKey();
+            this.plans[index] = entry.getValue();
+
+            int slot = slot(entry.getKey());
+            while (table[slot] != null)
+                slot = (slot + 1) & mask;
+
+            table[slot] = entry.getKey();
+            indexes[slot] = index++;
+        }
+    }
+
+    private int slot(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the index of the given product.
+     *
+     * @param productKey product key
+     * @return product index, or -1 if the product is not in this catalog
+     */
+    public int indexOf(String productKey) {
+        for (int slot = slot(productKey); table[slot] != null; slot = (slot + 1) & mask) {
+            String key = table[slot];
+            if (key == productKey || key.equals(productKey))
+                return indexes[slot];
+        }
+        return -1;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    public String getProductKey(int index) {
+        return keys[index];
+    }
+
+    public PricePlan getPlan(int index) {
+        return plans[index];
+    }
+
+    /**
+     * Returns the price plan of the given product.
+     *
+     * @param productKey product key
+     * @return price plan, or null if the product is not in this catalog
+     */
+    public PricePlan getPlan(String productKey) {
+        int index = indexOf(productKey);
+        return index >= 0 ? plans[index] : null;
+    }
+}
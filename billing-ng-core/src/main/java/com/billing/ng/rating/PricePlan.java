@@ -0,0 +1,182 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.rating;
+
+import com.billing.ng.entities.Money;
+import com.billing.ng.entities.context.MoneyRoundingModeHolder;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Currency;
+
+/**
+ * Immutable tiered price plan for rating usage. A plan is a list of tiers, each with the
+ * highest quantity included in the tier and a price per unit of usage. The last tier is
+ * unbounded.
+ *
+ * Tiered (graduated) plans price the usage within each tier at that tier's unit price:
+ * <code>
+ *      tiers: up to 100 @ 0.10, up to 1000 @ 0.05, unbounded @ 0.02
+ *      150 units = 100 * 0.10 + 50 * 0.05 = 12.50
+ * </code>
+ *
+ * Volume plans price all usage at the unit price of the tier that the total quantity falls in:
+ * <code>
+ *      150 units = 150 * 0.05 = 7.50
+ * </code>
+ *
+ * Tiers are held in primitive arrays, with unit prices as unscaled values at a common scale,
+ * and the tier for a quantity is found with a binary search.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public final class PricePlan {
+
+    public enum Type { TIERED, VOLUME }
+
+    private final Type type;
+    private final Currency currency;
+    private final long[] upTo;
+    private final long[] unitPrices;
+    private final int priceScale;
+
+    /**
+     * Constructs a new price plan.
+     *
+     * @param type plan type
+     * @param currency currency of the unit prices
+     * @param upTo highest quantity included in each tier, in ascending order. The last
+     *        tier is always unbounded, so the last value is ignored and may be omitted.
+     * @param unitPrices price per unit of each tier
+     * @throws IllegalArgumentException if there are no tiers, the tier bounds are not in ascending
+     *         order, or if any unit price is negative
+     */
+    public PricePlan(Type type, Currency currency, long[] upTo, BigDecimal[] unitPrices) {
+        if (unitPrices.length == 0)
+            throw new IllegalArgumentException("Price plan must have at least one tier.");
+
+        if (upTo.length < unitPrices.length - 1)
+            throw new IllegalArgumentException("Upper bound required for every tier except the last.");
+
+        int scale = 0;
+        for (BigDecimal price : unitPrices) {
+            if (price.signum() < 0)
+                throw new IllegalArgumentException("Unit prices cannot be negative.");
+            scale = Math.max(scale, price.scale());
+        }
+
+        this.type = type;
+        this.currency = currency;
+        this.priceScale = scale;
+        this.upTo = new long[unitPrices.length];
+        this.unitPrices = new long[unitPrices.length];
+
+        for (int i = 0; i < unitPrices.length; i++) {
+            this.upTo[i] = i < unitPrices.length - 1 ? upTo[i] : Long.MAX_VALUE;
+            this.unitPrices[i] = unitPrices[i].setScale(scale).unscaledValue().longValue();
+
+            if (i > 0 && this.upTo[i] <= this.upTo[i - 1])
+                throw new IllegalArgumentException("Tier upper bounds must be in ascending order.");
+        }
+    }
+
+    /**
+     * Constructs a flat price plan with a single unbounded tier.
+     *
+     * @param unitPrice price per unit
+     */
+    public PricePlan(Money unitPrice) {
+        this(Type.TIERED, unitPrice.getCurrency(), new long[0], new BigDecimal[] { unitPrice.getValue() });
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public int getTierCount() {
+        return unitPrices.length;
+    }
+
+    public long getUpTo(int tier) {
+        return upTo[tier];
+    }
+
+    public BigDecimal getUnitPrice(int tier) {
+        return BigDecimal.valueOf(unitPrices[tier], priceScale);
+    }
+
+    /**
+     * Returns the index of the tier that the given quantity falls in.
+     *
+     * @param quantity quantity
+     * @return tier index
+     */
+    public int getTier(long quantity) {
+        int i = Arrays.binarySearch(upTo, quantity);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /**
+     * Prices the given quantity of usage, rounded to the currency's default precision using
+     * the configured rounding mode.
+     *
+     * @param quantity quantity of usage, must not be negative
+     * @return price
+     * @throws IllegalArgumentException if the quantity is negative
+     */
+    public Money price(long quantity) {
+        if (quantity < 0)
+            throw new IllegalArgumentException("Quantity cannot be negative.");
+
+        BigDecimal total;
+        if (type == Type.VOLUME) {
+            total = BigDecimal.valueOf(quantity).multiply(BigDecimal.valueOf(unitPrices[getTier(quantity)]));
+
+        } else {
+            total = BigDecimal.ZERO;
+            long below = 0;
+            for (int i = 0; i < unitPrices.length && quantity > below; i++) {
+                long units = Math.min(quantity, upTo[i]) - below;
+                total = total.add(BigDecimal.valueOf(units).multiply(BigDecimal.valueOf(unitPrices[i])));
+                below = upTo[i];
+            }
+        }
+
+        BigDecimal value = total.scaleByPowerOfTen(-priceScale)
+                .setScale(currency.getDefaultFractionDigits(), MoneyRoundingModeHolder.GetRoundingMode());
+
+        return new Money(value, currency);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("PricePlan{type=").append(type).append(", currency=").append(currency);
+        for (int i = 0; i < unitPrices.length; i++) {
+            builder.append(", ");
+            if (upTo[i] != Long.MAX_VALUE)
+                builder.append("<=").append(upTo[i]).append('@');
+            builder.append(getUnitPrice(i).toPlainString());
+        }
+        return builder.append('}').toString();
+    }
+}
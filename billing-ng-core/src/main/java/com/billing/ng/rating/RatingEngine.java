@@ -0,0 +1,271 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.rating;
+
+import com.billing.ng.entities.Money;
+import com.billing.ng.ingest.ChargeBatch;
+import com.billing.ng.ingest.ChargeSink;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * In-memory usage rating engine. Usage events are resolved to the purchase order line of the
+ * account and product through a {@link LineTable} and aggregated per line, then the total usage
+ * of each line is priced against the product's {@link PricePlan} and emitted as a batch of charges.
+ *
+ * Large batches of events are split across a fork/join pool. Each task aggregates its own range
+ * of events into its own {@link UsageAggregate} and the results are merged as the tasks are joined,
+ * so rating needs no locks or shared mutable state. The price catalog and line table are immutable
+ * and can be shared by any number of threads.
+ *
+ * <code>
+ *      RatingEngine engine = new RatingEngine(catalog, lines);
+ *
+ *      UsageAggregate usage = new UsageAggregate();
+ *      for (UsageBatch events : periodUsage)
+ *          usage.merge(engine.aggregate(events, periodStart, periodEnd));
+ *
+ *      engine.price(usage, chargeDAO);
+ * </code>
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class RatingEngine {
+
+    /** Number of usage events aggregated by a single task before splitting. */
+    public static final int DEFAULT_THRESHOLD = 16384;
+
+    private static class PoolHolder {
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    private final PriceCatalog catalog;
+    private final LineTable lines;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    /**
+     * Rating engine using a shared fork/join pool with one thread per available processor.
+     *
+     * @param catalog price plans of all rated products
+     * @param lines lines that usage is charged to
+     */
+    public RatingEngine(PriceCatalog catalog, LineTable lines) {
+        this(catalog, lines, PoolHolder.POOL, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Rating engine using the given fork/join pool.
+     *
+     * @param catalog price plans of all rated products
+     * @param lines lines that usage is charged to
+     * @param pool pool to aggregate large batches in
+     * @param threshold number of usage events aggregated by a single task before splitting
+     */
+    public RatingEngine(PriceCatalog catalog, LineTable lines, ForkJoinPool pool, int threshold) {
+        if (threshold < 1)
+            throw new IllegalArgumentException("Threshold must be at least 1.");
+
+        this.catalog = catalog;
+        this.lines = lines;
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    public PriceCatalog getCatalog() {
+        return catalog;
+    }
+
+    public LineTable getLines() {
+        return lines;
+    }
+
+    /**
+     * Aggregates all the given usage events per purchase order line.
+     *
+     * @param events usage events
+     * @return usage per line
+     */
+    public UsageAggregate aggregate(UsageBatch events) {
+        return aggregate(events, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Aggregates the given usage events that fall within a period per purchase order line. Events
+     * outside of the period are rejected.
+     *
+     * @param events usage events
+     * @param from start of the period (inclusive), in milliseconds since the epoch
+     * @param to end of the period (exclusive), in milliseconds since the epoch
+     * @return usage per line
+     */
+    public UsageAggregate aggregate(UsageBatch events, long from, long to) {
+        AggregateTask task = new AggregateTask(events, from, to, 0, events.size());
+        return events.size() <= threshold ? task.compute() : pool.invoke(task);
+    }
+
+    /**
+     * Prices the usage of every line in the given aggregate and writes a charge for each line to
+     * the sink, in batches of {@link ChargeBatch#DEFAULT_CAPACITY} charges.
+     *
+     * @param aggregate usage per line
+     * @param sink sink to write charges to
+     * @return number of charges written
+     */
+    public int price(UsageAggregate aggregate, ChargeSink sink) {
+        return price(aggregate, sink, new ChargeBatch());
+    }
+
+    /**
+     * Prices the usage of every line in the given aggregate and writes a charge for each line to
+     * the sink, using the given batch as a buffer. The batch is written to the sink every time it is
+     * filled, and once more at the end for any remaining charges.
+     *
+     * @param aggregate usage per line
+     * @param sink sink to write charges to
+     * @param batch re-usable buffer of charges
+     * @return number of charges written
+     */
+    public int price(UsageAggregate aggregate, ChargeSink sink, ChargeBatch batch) {
+        int charges = 0;
+        batch.clear();
+
+        for (int i = 0; i < aggregate.lineIds.length; i++) {
+            long quantity = aggregate.quantities[i];
+            if (aggregate.lineIds[i] == 0 || quantity == 0)
+                continue;
+
+            int product = aggregate.products[i];
+            Money amount = catalog.getPlan(product).price(quantity);
+            batch.add(aggregate.lineIds[i], amount, catalog.getProductKey(product) + " x " + quantity);
+            charges++;
+
+            if (batch.isFull()) {
+                sink.write(batch);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            sink.write(batch);
+            batch.clear();
+        }
+
+        return charges;
+    }
+
+    /**
+     * Aggregates and prices the given usage events, writing a charge for each line to the sink.
+     *
+     * @param events usage events
+     * @param sink sink to write charges to
+     * @return usage per line
+     */
+    public UsageAggregate rate(UsageBatch events, ChargeSink sink) {
+        UsageAggregate aggregate = aggregate(events);
+        price(aggregate, sink);
+        return aggregate;
+    }
+
+    /**
+     * Aggregates a range of usage events, splitting the range in half until it is
+     * no larger than the threshold.
+     */
+    private class AggregateTask extends RecursiveTask<UsageAggregate> {
+
+        private final UsageBatch events;
+        private final long periodStart;
+        private final long periodEnd;
+        private final int from;
+        private final int to;
+
+        private AggregateTask(UsageBatch events, long periodStart, long periodEnd, int from, int to) {
+            this.events = events;
+            this.periodStart = periodStart;
+            this.periodEnd = periodEnd;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected UsageAggregate compute() {
+            if (to - from <= threshold)
+                return aggregate();
+
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(events, periodStart, periodEnd, from, middle);
+            AggregateTask right = new AggregateTask(events, periodStart, periodEnd, middle, to);
+
+            left.fork();
+            UsageAggregate result = right.compute();
+            UsageAggregate other = left.join();
+
+            // merge the smaller aggregate into the larger
+            return result.getLineCount() >= other.getLineCount() ? result.merge(other) : other.merge(result);
+        }
+
+        private UsageAggregate aggregate() {
+            UsageAggregate aggregate = new UsageAggregate();
+
+            // consecutive events are often for the same product and account
+            String lastKey = null;
+            int product = -1;
+            long lastAccountId = 0;
+            int lastProduct = -1;
+            long lineId = 0;
+
+            for (int i = from; i < to; i++) {
+                long timestamp = events.getTimestamp(i);
+                long quantity = events.getQuantity(i);
+                if (timestamp < periodStart || timestamp >= periodEnd || quantity < 0) {
+                    aggregate.reject();
+                    continue;
+                }
+
+                String key = events.getProductKey(i);
+                if (key != lastKey) {
+                    product = key != null ? catalog.indexOf(key) : -1;
+                    lastKey = key;
+                }
+
+                if (product < 0) {
+                    aggregate.reject();
+                    continue;
+                }
+
+                long accountId = events.getAccountId(i);
+                if (accountId != lastAccountId || product != lastProduct) {
+                    lineId = lines.getLineId(accountId, product);
+                    lastAccountId = accountId;
+                    lastProduct = product;
+                }
+
+                if (lineId == 0) {
+                    aggregate.reject();
+                    continue;
+                }
+
+                aggregate.add(lineId, product, quantity, 1);
+            }
+
+            return aggregate;
+        }
+    }
+}
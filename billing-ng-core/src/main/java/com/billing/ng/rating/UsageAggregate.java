@@ -0,0 +1,178 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.rating;
+
+/**
+ * Total quantity of rated usage per purchase order line. Totals are held in an open-addressing
+ * hash table of primitive arrays keyed by line id, so that adding an event does not allocate.
+ *
+ * Aggregates of separate sets of events can be merged, allowing usage to be aggregated on many
+ * threads without sharing any state, or accumulated over several batches of events before
+ * pricing. Tiered plans are priced from the total quantity of a line, so usage should be
+ * aggregated over a whole billing period before it is priced.
+ *
+ * This class is NOT thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class UsageAggregate {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    long[] lineIds;
+    int[] products;
+    long[] quantities;
+    private int size = 0;
+
+    private long rated = 0;
+    private long rejected = 0;
+
+    public UsageAggregate() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    private UsageAggregate(int capacity) {
+        this.lineIds = new long[capacity];
+        this.products = new int[capacity];
+        this.quantities = new long[capacity];
+    }
+
+    private static int slot(long lineId, int mask) {
+        long h = lineId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Adds a quantity of usage to the total of the given line.
+     *
+     * @param lineId purchase order line id
+     * @param product product index
+     * @param quantity quantity of usage
+     * @param events number of events the quantity was aggregated from
+     * @throws ArithmeticException if the total quantity of the line overflows a long
+     */
+    void add(long lineId, int product, long quantity, long events) {
+        if ((size + 1) * 2 > lineIds.length)
+            resize(lineIds.length * 2);
+
+        int mask = lineIds.length - 1;
+        int slot = slot(lineId, mask);
+        while (lineIds[slot] != 0 && lineIds[slot] != lineId)
+            slot = (slot + 1) & mask;
+
+        if (lineIds[slot] == 0) {
+            lineIds[slot] = lineId;
+            products[slot] = product;
+            size++;
+        }
+
+        long sum = quantities[slot] + quantity;
+        if (((quantities[slot] ^ sum) & (quantity ^ sum)) < 0)
+            throw new ArithmeticException("Quantity of line " + lineId + " overflows a long.");
+
+        quantities[slot] = sum;
+        rated += events;
+    }
+
+    void reject() {
+        rejected++;
+    }
+
+    private void resize(int capacity) {
+        long[] oldLineIds = lineIds;
+        int[] oldProducts = products;
+        long[] oldQuantities = quantities;
+
+        lineIds = new long[capacity];
+        products = new int[capacity];
+        quantities = new long[capacity];
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldLineIds.length; i++) {
+            if (oldLineIds[i] != 0) {
+                int slot = slot(oldLineIds[i], mask);
+                while (lineIds[slot] != 0)
+                    slot = (slot + 1) & mask;
+
+                lineIds[slot] = oldLineIds[i];
+                products[slot] = oldProducts[i];
+                quantities[slot] = oldQuantities[i];
+            }
+        }
+    }
+
+    /**
+     * Adds all usage of the given aggregate to this aggregate.
+     *
+     * @param aggregate aggregate to merge
+     * @return this aggregate
+     */
+    public UsageAggregate merge(UsageAggregate aggregate) {
+        for (int i = 0; i < aggregate.lineIds.length; i++)
+            if (aggregate.lineIds[i] != 0)
+                add(aggregate.lineIds[i], aggregate.products[i], aggregate.quantities[i], 0);
+
+        rated += aggregate.rated;
+        rejected += aggregate.rejected;
+        return this;
+    }
+
+    /**
+     * Returns the total quantity of usage of the given line.
+     *
+     * @param lineId purchase order line id
+     * @return total quantity, or zero if the line has no usage
+     */
+    public long getQuantity(long lineId) {
+        int mask = lineIds.length - 1;
+        for (int slot = slot(lineId, mask); lineIds[slot] != 0; slot = (slot + 1) & mask)
+            if (lineIds[slot] == lineId)
+                return quantities[slot];
+        return 0;
+    }
+
+    /**
+     * Returns the number of lines with usage.
+     *
+     * @return number of lines
+     */
+    public int getLineCount() {
+        return size;
+    }
+
+    /**
+     * Returns the number of usage events aggregated.
+     *
+     * @return number of rated events
+     */
+    public long getRated() {
+        return rated;
+    }
+
+    /**
+     * Returns the number of usage events that could not be rated, because the product is not in
+     * the price catalog, the account has no line for the product, the quantity is negative, or the
+     * event is outside of the rated period.
+     *
+     * @return number of rejected events
+     */
+    public long getRejected() {
+        return rejected;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.rating;
+
+import java.util.Arrays;
+
+/**
+ * Columnar (struct-of-arrays) batch of usage events to be rated. Each event is the account
+ * that used a product, the product key, the quantity used and the time of use in milliseconds
+ * since the epoch.
+ *
+ * This class is NOT thread safe.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class UsageBatch {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private long[] accountIds;
+    private String[] productKeys;
+    private long[] quantities;
+    private long[] timestamps;
+    private int size = 0;
+
+    public UsageBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public UsageBatch(int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.accountIds = new long[capacity];
+        this.productKeys = new String[capacity];
+        this.quantities = new long[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    /**
+     * Appends a usage event to the end of this batch.
+     *
+     * @param accountId id of the account that used the product
+     * @param productKey product key
+     * @param quantity quantity used
+     * @param timestamp time of use, in milliseconds since the epoch
+     */
+    public void add(long accountId, String productKey, long quantity, long timestamp) {
+        if (size == accountIds.length) {
+            int capacity = size * 2;
+            accountIds = Arrays.copyOf(accountIds, capacity);
+            productKeys = Arrays.copyOf(productKeys, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+        }
+
+        accountIds[size] = accountId;
+        productKeys[size] = productKey;
+        quantities[size] = quantity;
+        timestamps[size] = timestamp;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(productKeys, 0, size, null);
+        size = 0;
+    }
+
+    public long getAccountId(int index) {
+        return accountIds[index];
+    }
+
+    public String getProductKey(int index) {
+        return productKeys[index];
+    }
+
+    public long getQuantity(int index) {
+        return quantities[index];
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+}
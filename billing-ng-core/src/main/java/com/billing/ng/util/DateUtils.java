@@ -0,0 +1,141 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.util;
+
+import org.joda.time.DateMidnight;
+import org.joda.time.LocalDate;
+
+import java.util.Date;
+
+/**
+ * Date utilities for working with dates as a primitive count of days since the
+ * epoch (1970-01-01), where day 0 is 1970-01-01 and negative days are before the epoch.
+ *
+ * Epoch days are calculated from the local calendar date in the ISO chronology, ignoring the
+ * time of day and time zone offset, so a date always maps to the same epoch day regardless
+ * of the default time zone.
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+public class DateUtils {
+
+    /**
+     * Returns the epoch day of the given proleptic Gregorian calendar date.
+     *
+     * @param year year
+     * @param month month of year, 1 through 12
+     * @param day day of month
+     * @return days since 1970-01-01
+     */
+    public static long toEpochDay(int year, int month, int day) {
+        // days from civil, shifting the start of the year to March so that leap days fall at the end
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Returns the epoch day of the given date in the default time zone.
+     *
+     * @param date date
+     * @return days since 1970-01-01
+     */
+    public static long toEpochDay(Date date) {
+        LocalDate local = new LocalDate(date.getTime());
+        return toEpochDay(local.getYear(), local.getMonthOfYear(), local.getDayOfMonth());
+    }
+
+    /**
+     * Returns the epoch day of the given date.
+     *
+     * @param date date
+     * @return days since 1970-01-01
+     */
+    public static long toEpochDay(DateMidnight date) {
+        return toEpochDay(date.getYear(), date.getMonthOfYear(), date.getDayOfMonth());
+    }
+
+    /**
+     * Returns true if the given year is a leap year in the proleptic Gregorian calendar.
+     *
+     * @param year year
+     * @return true if leap year
+     */
+    public static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Returns the number of days in the given month.
+     *
+     * @param year year
+     * @param month month of year, 1 through 12
+     * @return number of days in the month
+     */
+    public static int getDaysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Returns the calendar date of the given epoch day as an array of { year, month, day }.
+     *
+     * @param epochDay days since 1970-01-01
+     * @return array of year, month of year (1 through 12) and day of month
+     */
+    public static int[] toDate(long epochDay) {
+        // civil from days, the inverse of toEpochDay(year, month, day)
+        long z = epochDay + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        return new int[] { year, month, day };
+    }
+
+    /**
+     * Returns the given epoch day as a DateMidnight in the default time zone.
+     *
+     * @param epochDay days since 1970-01-01
+     * @return date at midnight
+     */
+    public static DateMidnight toDateMidnight(long epochDay) {
+        int[] date = toDate(epochDay);
+        return new DateMidnight(date[0], date[1], date[2]);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+
+package com.billing.ng.dao.impl;
+
+import com.billing.ng.entities.BillingCycle;
+import com.billing.ng.entities.BillingPeriod;
+import com.billing.ng.entities.BillingType;
+import com.billing.ng.entities.InvoiceRun;
+import com.billing.ng.entities.Money;
+import com.billing.ng.invoice.DueAccount;
+import com.billing.ng.invoice.InvoiceBatch;
+import com.billing.ng.invoice.InvoicePartition;
+import org.joda.time.DateMidnight;
+import org.testng.annotations.Test;
+
+import javax.persistence.PersistenceException;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.testng.Assert.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "invoice", "quick" })
+public class JdbcInvoicePartitionStoreTest {
+
+    private static final DateMidnight TODAY = new DateMidnight(2026, 10, 18);
+
+    /**
+     * Stub connection recording the statements executed and the transaction boundaries. Executing
+     * a statement starting with the failing SQL throws an SQLException.
+     */
+    private static class StubConnection implements InvocationHandler {
+        private final List<String> executed = new ArrayList<String>();
+        private final List<Object[]> rows = new ArrayList<Object[]>();
+        private String failing;
+        private boolean autoCommit = true;
+        private int commits = 0;
+        private int rollbacks = 0;
+        private boolean closed = false;
+        private long keys = 100;
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("setAutoCommit")) {
+                autoCommit = (Boolean) args[0];
+            } else if (name.equals("commit")) {
+                commits++;
+            } else if (name.equals("rollback")) {
+                rollbacks++;
+            } else if (name.equals("close")) {
+                closed = true;
+            } else if (name.equals("prepareStatement")) {
+                return statement((String) args[0]);
+            }
+            return null;
+        }
+
+        private Connection connection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { Connection.class }, this);
+        }
+
+        private PreparedStatement statement(final String sql) {
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { PreparedStatement.class },
+                    new InvocationHandler() {
+                        private int batched = 0;
+
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            String name = method.getName();
+                            if (name.equals("addBatch")) {
+                                batched++;
+                            } else if (name.startsWith("execute")) {
+                                if (failing != null && sql.startsWith(failing))
+                                    throw new SQLException("Simulated failure.");
+                                executed.add(sql);
+
+                                if (name.equals("executeBatch"))
+                                    return new int[batched];
+                                if (name.equals("executeUpdate"))
+                                    return 1;
+                                if (name.equals("executeQuery"))
+                                    return resultSet(rows);
+                            } else if (name.equals("getGeneratedKeys")) {
+                                List<Object[]> generated = new ArrayList<Object[]>();
+                                for (int i = 0; i < batched; i++)
+                                    generated.add(new Object[] { keys++ });
+                                return resultSet(generated);
+                            }
+                            return null;
+                        }
+                    });
+        }
+
+        private ResultSet resultSet(final List<Object[]> rows) {
+            return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { ResultSet.class },
+                    new InvocationHandler() {
+                        private int row = -1;
+
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            String name = method.getName();
+                            if (name.equals("next"))
+                                return ++row < rows.size();
+                            if (name.startsWith("get"))
+                                return rows.get(row)[(Integer) args[0] - 1];
+                            return null;
+                        }
+                    });
+        }
+    }
+
+    private DataSource dataSource(final StubConnection connection) {
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] { DataSource.class },
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        return method.getName().equals("getConnection") ? connection.connection() : null;
+                    }
+                });
+    }
+
+    private DueAccount account(long id) {
+        BillingCycle cycle = new BillingCycle(BillingPeriod.Type.MONTH, 1);
+        cycle.setId(id + 10);
+        return new DueAccount(id, "A-" + id, BillingType.ACCOUNT, id, 0, cycle);
+    }
+
+    private InvoiceBatch getBatch() {
+        InvoiceBatch batch = new InvoiceBatch();
+        batch.reset(new InvoicePartition(0, BillingType.ACCOUNT, Arrays.asList(account(1), account(2))));
+
+        batch.addOrder(1, 1, new Money("10.00 USD"));
+        batch.addOrder(2, 2, new Money("5.00 USD"));
+        for (int row = 0; row < batch.size(); row++) {
+            batch.setInvoice(row, "INV-" + row, batch.getOrderTotal(row));
+            batch.setNextRun(row, TODAY.plusMonths(1).toDate());
+        }
+
+        return batch;
+    }
+
+    private InvoiceRun getRun() {
+        InvoiceRun run = new InvoiceRun(TODAY.toDate());
+        run.setId(1L);
+        return run;
+    }
+
+    @Test
+    public void testLoadOrders() {
+        StubConnection connection = new StubConnection();
+        connection.rows.add(new Object[] { 7L, 2L, 1250L, 2, "USD" });
+
+        JdbcInvoicePartitionStore store = new JdbcInvoicePartitionStore(dataSource(connection));
+        InvoiceBatch batch = new InvoiceBatch();
+        batch.reset(new InvoicePartition(0, BillingType.ACCOUNT, Arrays.asList(account(1), account(2))));
+        store.loadOrders(batch);
+
+        assertThat(batch.getOrderCount(), is(1));
+        assertThat(batch.getOrderId(0), is(7L));
+        assertThat(batch.getOrderRow(0), is(1));
+        assertThat(batch.getOrderTotal(0), is(new Money("12.50 USD")));
+
+        assertFalse(connection.autoCommit);
+        assertThat(connection.commits, is(1));
+    }
+
+    @Test
+    public void testWrite() {
+        StubConnection connection = new StubConnection();
+        JdbcInvoicePartitionStore store = new JdbcInvoicePartitionStore(dataSource(connection));
+
+        store.write(getRun(), getBatch());
+
+        assertThat(connection.executed.size(), is(4));
+        assertThat(connection.commits, is(1));
+        assertThat(connection.rollbacks, is(0));
+
+        store.close();
+        assertTrue(connection.closed);
+    }
+
+    @Test
+    public void testWriteFailure() {
+        StubConnection connection = new StubConnection();
+        connection.failing = "update billing_cycle";
+        JdbcInvoicePartitionStore store = new JdbcInvoicePartitionStore(dataSource(connection));
+
+        try {
+            store.write(getRun(), getBatch());
+            fail("write should fail");
+        } catch (PersistenceException e) {
+            assertThat(e.getCause(), instanceOf(SQLException.class));
+        }
+
+        // invoices and orders were written before the failure, and rolled back with the partition
+        assertThat(connection.executed.size(), is(2));
+        assertThat(connection.commits, is(0));
+        assertThat(connection.rollbacks, is(1));
+
+        // store remains usable for the next partition
+        connection.failing = null;
+        store.write(getRun(), getBatch());
+        assertThat(connection.commits, is(1));
+    }
+}
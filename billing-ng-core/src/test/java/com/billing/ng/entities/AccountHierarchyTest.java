@@ -0,0 +1,181 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "entity", "quick" })
+public class AccountHierarchyTest {
+
+    private Account getAccount(long id) {
+        Account account = new Account();
+        account.setId(id);
+        return account;
+    }
+
+    /*
+            1
+            |
+       2 ---+--- 5
+       |         |
+    3 -+- 4      6
+     */
+    private Account[] getHierarchy() {
+        Account[] accounts = new Account[7];
+        for (int i = 1; i < accounts.length; i++)
+            accounts[i] = getAccount(i);
+
+        accounts[1].addSubAccount(accounts[2]);
+        accounts[1].addSubAccount(accounts[5]);
+        accounts[2].addSubAccount(accounts[3]);
+        accounts[2].addSubAccount(accounts[4]);
+        accounts[5].addSubAccount(accounts[6]);
+
+        return accounts;
+    }
+
+    @Test
+    public void testMove() {
+        Account[] accounts = getHierarchy();
+
+        // move 2 below 6, levels and paths updated on apply
+        AccountHierarchy batch = new AccountHierarchy().move(accounts[2], accounts[6]);
+        assertThat(accounts[4].getHierarchyLevel(), is(2));
+
+        assertThat(batch.apply(), is(1));
+        assertThat(new ArrayList<Account>(accounts[6].getSubAccounts()), is(Arrays.asList(accounts[2])));
+        assertThat(new ArrayList<Account>(accounts[1].getSubAccounts()), is(Arrays.asList(accounts[5])));
+        assertThat(accounts[4].getHierarchyLevel(), is(4));
+        assertThat(accounts[4].getHierarchyPath(), is("/1/5/6/2/4/"));
+
+        // detach
+        new AccountHierarchy().move(accounts[6], null).apply();
+        assertThat(accounts[6].isRootAccount(), is(true));
+        assertThat(accounts[4].getHierarchyLevel(), is(2));
+        assertThat(accounts[4].getHierarchyPath(), is("/6/2/4/"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMoveBelowItself() {
+        Account[] accounts = getHierarchy();
+        new AccountHierarchy().move(accounts[2], accounts[4]);
+    }
+
+    @Test
+    public void testNestedMovesRecalculatedOnce() {
+        Account[] accounts = getHierarchy();
+
+        // 3 is moved below 5, and then 5 is moved below 4
+        AccountHierarchy batch = new AccountHierarchy()
+                .move(accounts[3], accounts[5])
+                .move(accounts[5], accounts[4]);
+
+        assertThat(batch.apply(), is(1));
+        assertThat(accounts[3].getHierarchyPath(), is("/1/2/4/5/3/"));
+        assertThat(accounts[6].getHierarchyLevel(), is(4));
+    }
+
+    @Test
+    public void testPromote() {
+        Account[] accounts = getHierarchy();
+
+        new AccountHierarchy().promote(accounts[2]).apply();
+
+        assertThat(new ArrayList<Account>(accounts[1].getSubAccounts()), is(Arrays.asList(accounts[5], accounts[3], accounts[4])));
+        assertThat(accounts[3].getHierarchyLevel(), is(1));
+        assertThat(accounts[4].getHierarchyPath(), is("/1/4/"));
+
+        assertThat(accounts[2].isRootAccount(), is(true));
+        assertThat(accounts[2].hasSubAccounts(), is(false));
+        assertThat(accounts[2].getHierarchyPath(), is("/2/"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testPromoteRoot() {
+        new AccountHierarchy().promote(getHierarchy()[1]);
+    }
+
+    @Test
+    public void testMerge() {
+        Account[] accounts = getHierarchy();
+
+        PurchaseOrder order = new PurchaseOrder();
+        order.setAccount(accounts[2]);
+        accounts[2].getPurchaseOrders().add(order);
+
+        new AccountHierarchy().merge(accounts[2], accounts[5]).apply();
+
+        assertThat(new ArrayList<Account>(accounts[5].getSubAccounts()), is(Arrays.asList(accounts[6], accounts[3], accounts[4])));
+        assertThat(accounts[5].getPurchaseOrders(), is(Arrays.asList(order)));
+        assertThat(order.getAccount(), is(accounts[5]));
+        assertThat(accounts[3].getHierarchyPath(), is("/1/5/3/"));
+
+        assertThat(accounts[2].isRootAccount(), is(true));
+        assertThat(accounts[2].hasSubAccounts(), is(false));
+        assertThat(accounts[2].getPurchaseOrders().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testAttach() {
+        Account root = getAccount(1);
+        root.updateHierarchy(); // as if persisted
+
+        List<Account> accounts = new ArrayList<Account>();
+
+        // 50,000 sub-accounts, each with a sub-account of its own
+        for (int i = 0; i < 50000; i++) {
+            Account account = getAccount(10 + i * 2);
+            Account subAccount = getAccount(11 + i * 2);
+            account.getSubAccounts().add(subAccount);
+            subAccount.setParentAccount(account);
+            accounts.add(account);
+        }
+
+        assertThat(new AccountHierarchy().attach(root, accounts).apply(), is(50000));
+        assertThat(root.getSubAccounts().size(), is(50000));
+        assertThat(accounts.get(49999).getSubAccounts().iterator().next().getHierarchyPath(), is("/1/100008/100009/"));
+        assertThat(accounts.get(49999).getSubAccounts().iterator().next().getHierarchyLevel(), is(2));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testHierarchyPathTooLong() {
+        Account root = getAccount(1000000000000000L);
+
+        // 16 levels of 16 digit ids, path longer than the hierarchy_path column
+        Account parent = root;
+        for (long i = 1; i < 16; i++) {
+            Account account = getAccount(1000000000000000L + i);
+            account.setParentAccount(parent);
+            parent.getSubAccounts().add(account);
+            parent = account;
+        }
+
+        root.updateHierarchy();
+    }
+}
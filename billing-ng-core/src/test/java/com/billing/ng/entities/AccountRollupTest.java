@@ -0,0 +1,265 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.entities.structure.Traversal;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Currency;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "entity", "quick" })
+public class AccountRollupTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency CAD = Currency.getInstance("CAD");
+
+    private Account getAccount(long id) {
+        Account account = new Account();
+        account.setId(id);
+        return account;
+    }
+
+    private PurchaseOrder getOrder(String... amounts) {
+        PurchaseOrder order = new PurchaseOrder();
+        PurchaseOrderLine line = new PurchaseOrderLine();
+        line.setPurchaseOrder(order);
+        order.getLines().add(line);
+
+        for (String amount : amounts) {
+            Charge charge = new Charge();
+            charge.setAmount(new Money(amount));
+            charge.setLine(line);
+            line.getCharges().add(charge);
+        }
+        return order;
+    }
+
+    /*
+        Builds the hierarchy:
+
+              a
+              |
+         b ---+--- c
+         |
+         d
+     */
+    private Account[] getHierarchy() {
+        Account a = getAccount(1);
+        Account b = getAccount(2);
+        Account c = getAccount(3);
+        Account d = getAccount(4);
+
+        a.addSubAccount(b);
+        a.addSubAccount(c);
+        b.addSubAccount(d);
+
+        a.addPurchaseOrder(getOrder("10.00 USD"));
+        b.addPurchaseOrder(getOrder("5.00 USD", "2.50 USD"));
+        c.addPurchaseOrder(getOrder("20.00 CAD"));
+        d.addPurchaseOrder(getOrder("1.25 USD"));
+        d.addPurchaseOrder(getOrder("3.00 CAD"));
+
+        return new Account[] { a, b, c, d };
+    }
+
+    private void assertConsistent(Account root) {
+        RollupVerificationVisitor verifier = new RollupVerificationVisitor();
+        Traversal.postOrder(root, verifier);
+        assertThat(verifier.getInconsistentAccounts().toString(), verifier.isConsistent(), is(true));
+    }
+
+    @Test
+    public void testGetRollup() {
+        Account[] accounts = getHierarchy();
+
+        AccountRollup rollup = accounts[0].getRollup();
+        assertThat(rollup.getOrderCount(), is(5L));
+        assertThat(rollup.getTotal(USD), is(new Money("18.75 USD")));
+        assertThat(rollup.getTotal(CAD), is(new Money("23.00 CAD")));
+
+        AccountRollup subRollup = accounts[1].getRollup();
+        assertThat(subRollup.getOrderCount(), is(3L));
+        assertThat(subRollup.getTotal(USD), is(new Money("8.75 USD")));
+        assertThat(subRollup.getTotal(CAD), is(new Money("3.00 CAD")));
+
+        // cached
+        assertThat(accounts[0].getRollup(), sameInstance(rollup));
+    }
+
+    @Test
+    public void testAddAndRemovePurchaseOrder() {
+        Account[] accounts = getHierarchy();
+        accounts[0].getRollup();
+
+        PurchaseOrder order = getOrder("100.00 USD");
+        accounts[3].addPurchaseOrder(order);
+
+        assertThat(accounts[0].getRollup().getOrderCount(), is(6L));
+        assertThat(accounts[0].getRollup().getTotal(USD), is(new Money("118.75 USD")));
+        assertThat(accounts[1].getRollup().getTotal(USD), is(new Money("108.75 USD")));
+        assertThat(accounts[2].getRollup().getTotal(USD), is(new Money("0.00 USD")));
+        assertConsistent(accounts[0]);
+
+        // moving the order to another account
+        accounts[2].addPurchaseOrder(order);
+
+        assertThat(order.getAccount(), is(accounts[2]));
+        assertThat(accounts[0].getRollup().getOrderCount(), is(6L));
+        assertThat(accounts[1].getRollup().getTotal(USD), is(new Money("8.75 USD")));
+        assertThat(accounts[2].getRollup().getTotal(USD), is(new Money("100.00 USD")));
+        assertConsistent(accounts[0]);
+
+        accounts[2].removePurchaseOrder(order);
+
+        assertThat(order.getAccount(), is(nullValue()));
+        assertThat(accounts[0].getRollup().getOrderCount(), is(5L));
+        assertThat(accounts[0].getRollup().getTotal(USD), is(new Money("18.75 USD")));
+        assertConsistent(accounts[0]);
+    }
+
+    @Test
+    public void testChangeChargeAmount() {
+        Account[] accounts = getHierarchy();
+        accounts[0].getRollup();
+
+        PurchaseOrder order = accounts[3].getPurchaseOrders().get(0);
+        Charge charge = order.getLines().get(0).getCharges().get(0);
+        charge.setAmount(new Money("2.00 USD"));
+
+        assertThat(order.getTotal(), is(new Money("2.00 USD")));
+        assertThat(accounts[0].getRollup().getTotal(USD), is(new Money("19.50 USD")));
+        assertThat(accounts[1].getRollup().getTotal(USD), is(new Money("9.50 USD")));
+        assertThat(accounts[3].getRollup().getTotal(USD), is(new Money("2.00 USD")));
+        assertConsistent(accounts[0]);
+    }
+
+    @Test
+    public void testRecalculateOrderTotal() {
+        Account[] accounts = getHierarchy();
+        accounts[0].getRollup();
+
+        // charge added without going through a setter, picked up when re-calculated
+        PurchaseOrder order = accounts[2].getPurchaseOrders().get(0);
+        PurchaseOrderLine line = order.getLines().get(0);
+        Charge charge = new Charge();
+        charge.setAmount(new Money("5.00 CAD"));
+        charge.setLine(line);
+        line.getCharges().add(charge);
+
+        line.calculateTotal();
+        order.calculateTotal();
+
+        assertThat(accounts[0].getRollup().getTotal(CAD), is(new Money("28.00 CAD")));
+        assertThat(accounts[2].getRollup().getTotal(CAD), is(new Money("25.00 CAD")));
+        assertConsistent(accounts[0]);
+    }
+
+    @Test
+    public void testHierarchyChanges() {
+        Account[] accounts = getHierarchy();
+        accounts[0].getRollup();
+
+        // move d below c
+        new AccountHierarchy().move(accounts[3], accounts[2]).apply();
+
+        assertThat(accounts[1].getRollup().getOrderCount(), is(1L));
+        assertThat(accounts[1].getRollup().getTotal(CAD), is(new Money("0.00 CAD")));
+        assertThat(accounts[2].getRollup().getOrderCount(), is(3L));
+        assertThat(accounts[2].getRollup().getTotal(CAD), is(new Money("23.00 CAD")));
+        assertThat(accounts[0].getRollup().getOrderCount(), is(5L));
+        assertConsistent(accounts[0]);
+
+        // insert a new parent with an order between a and b
+        Account e = getAccount(5);
+        e.addPurchaseOrder(getOrder("50.00 USD"));
+        accounts[1].addParent(e);
+
+        assertThat(e.getRollup().getOrderCount(), is(2L));
+        assertThat(accounts[0].getRollup().getOrderCount(), is(6L));
+        assertThat(accounts[0].getRollup().getTotal(USD), is(new Money("68.75 USD")));
+        assertConsistent(accounts[0]);
+
+        // remove c, d moves up to a
+        accounts[2].remove();
+
+        assertThat(accounts[0].getRollup().getOrderCount(), is(5L));
+        assertThat(accounts[0].getRollup().getTotal(CAD), is(new Money("3.00 CAD")));
+        assertConsistent(accounts[0]);
+        assertConsistent(accounts[2]);
+    }
+
+    @Test
+    public void testMerge() {
+        Account[] accounts = getHierarchy();
+        accounts[0].getRollup();
+
+        new AccountHierarchy().merge(accounts[1], accounts[2]).apply();
+
+        assertThat(accounts[1].getRollup().getOrderCount(), is(0L));
+        assertThat(accounts[2].getRollup().getOrderCount(), is(4L));
+        assertThat(accounts[2].getRollup().getTotal(USD), is(new Money("8.75 USD")));
+        assertThat(accounts[0].getRollup().getOrderCount(), is(5L));
+        assertConsistent(accounts[0]);
+        assertConsistent(accounts[1]);
+    }
+
+    @Test
+    public void testVerifyInconsistent() {
+        Account[] accounts = getHierarchy();
+        accounts[0].getRollup();
+
+        // order added directly to the list, bypassing the rollup
+        PurchaseOrder order = getOrder("1.00 USD");
+        order.setAccount(accounts[3]);
+        accounts[3].getPurchaseOrders().add(order);
+
+        RollupVerificationVisitor verifier = new RollupVerificationVisitor(true);
+        Traversal.postOrder(accounts[0], verifier);
+
+        assertThat(verifier.isConsistent(), is(false));
+        assertThat(verifier.getInconsistentAccounts(), is(Arrays.asList(accounts[3], accounts[1], accounts[0])));
+
+        // repaired
+        assertThat(accounts[0].getRollup().getOrderCount(), is(6L));
+        assertThat(accounts[0].getRollup().getTotal(USD), is(new Money("19.75 USD")));
+        assertConsistent(accounts[0]);
+    }
+
+    @Test
+    public void testEquals() {
+        AccountRollup rollup = new AccountRollup().add(1, null, new Money("1.00 USD"));
+        AccountRollup other = new AccountRollup()
+                .add(1, null, new Money("1.00 USD"))
+                .add(0, new Money("2.00 CAD"), new Money("2.00 CAD"));
+
+        // zero totals in other currencies are ignored
+        assertThat(rollup, is(other));
+        assertThat(other, is(rollup));
+
+        other.add(0, null, new Money("0.01 CAD"));
+        assertThat(rollup, is(not(other)));
+    }
+}
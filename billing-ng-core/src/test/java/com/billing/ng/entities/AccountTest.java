@@ -22,6 +22,7 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -36,6 +37,11 @@ import static org.testng.Assert.*;
 public class AccountTest {
 
 
+    /* Convenience method to get the nth sub-account of the given account */
+    private Account getSubAccount(Account account, int index) {
+        return new ArrayList<Account>(account.getSubAccounts()).get(index);
+    }
+
     @DataProvider(name = "mock_account_hierarchy")
     public Object[][] createMockAccountHierarchy() {
         Account root = new Account();
@@ -125,10 +131,52 @@ public class AccountTest {
         assertThat(root.getHierarchyLevel(), is(Account.ROOT_HIERARCHY_LEVEL + 1));
     }
 
+    @Test
+    public void testAddNewRootParentDeepHierarchy() {
+        Account root = new Account();
+        Account last = root;
+
+        for (int i = 0; i < 100000; i++) {
+            Account account = new Account();
+            account.setParentAccount(last);
+            last.getSubAccounts().add(account);
+            last = account;
+        }
+
+        // hierarchy levels of all sub-accounts are shifted down +1 without recursion
+        root.addParent(new Account());
+        assertThat(root.getHierarchyLevel(), is(Account.ROOT_HIERARCHY_LEVEL + 1));
+        assertThat(last.getHierarchyLevel(), is(Account.ROOT_HIERARCHY_LEVEL + 100001));
+    }
+
+    @Test
+    public void testWideHierarchy() {
+        Account root = new Account();
+        root.setId(1L);
+
+        List<Account> subAccounts = new ArrayList<Account>();
+        for (int i = 0; i < 100000; i++) {
+            Account account = new Account();
+            account.setId(i + 2L);
+            subAccounts.add(account);
+        }
+
+        new AccountHierarchy().attach(root, subAccounts).apply();
+        assertThat(root.getSubAccountCount(), is(100000));
+        assertTrue(root.getSubAccounts().contains(subAccounts.get(50000)));
+
+        // removing each sub-account in turn takes constant time
+        for (Account account : subAccounts)
+            account.remove();
+
+        assertFalse(root.hasSubAccounts());
+        assertThat(root.toString(), is("Account{id=1, hierarchyLevel=0, subAccounts=0, parentAccount=null}"));
+    }
+
     @Test(dataProvider = "mock_account_hierarchy")
     public void testAddNewMiddleParent(Account root) {
-        Account subAccount1 = root.getSubAccounts().get(0);
-        Account subAccount2 = root.getSubAccounts().get(1);
+        Account subAccount1 = getSubAccount(root, 0);
+        Account subAccount2 = getSubAccount(root, 1);
 
         assertTrue(subAccount1.isSubAccount());
         assertThat(subAccount1.getHierarchyLevel(), is(Account.ROOT_HIERARCHY_LEVEL + 1));
@@ -169,7 +217,7 @@ public class AccountTest {
     
     @Test(dataProvider = "mock_account_hierarchy")
     public void testRemoveParent(Account root) {
-        Account subAccount = root.getSubAccounts().get(0);
+        Account subAccount = getSubAccount(root, 0);
 
         Account subAccount3 = new Account();
         subAccount3.setId(4L);
@@ -204,6 +252,69 @@ public class AccountTest {
         assertThat(subAccount3.getHierarchyLevel(), is(Account.ROOT_HIERARCHY_LEVEL + 1));
     }
 
+    @Test(dataProvider = "mock_account_hierarchy")
+    public void testHierarchyPath(Account root) {
+        Account subAccount1 = getSubAccount(root, 0);
+        Account subAccount2 = getSubAccount(root, 1);
+
+        assertThat(root.getHierarchyPath(), is("/1/"));
+        assertThat(subAccount1.getHierarchyPath(), is("/1/2/"));
+        assertThat(subAccount2.getHierarchyPath(), is("/1/3/"));
+        assertThat(subAccount2.getParentAccountIds(), is(Arrays.asList(1L)));
+        assertThat(root.getParentAccountIds().isEmpty(), is(true));
+
+        // new middle parent
+        Account parent = new Account();
+        parent.setId(4L);
+        subAccount1.addParent(parent);
+
+        assertThat(parent.getHierarchyPath(), is("/1/4/"));
+        assertThat(subAccount1.getHierarchyPath(), is("/1/4/2/"));
+        assertThat(subAccount1.getParentAccountIds(), is(Arrays.asList(1L, 4L)));
+
+        // new root parent
+        Account newRoot = new Account();
+        newRoot.setId(5L);
+        root.addParent(newRoot);
+
+        assertThat(newRoot.getHierarchyPath(), is("/5/"));
+        assertThat(subAccount1.getHierarchyPath(), is("/5/1/4/2/"));
+        assertThat(subAccount2.getHierarchyPath(), is("/5/1/3/"));
+
+        // removed parent, sub-accounts move up
+        parent.remove();
+        assertThat(subAccount1.getHierarchyPath(), is("/5/1/2/"));
+        assertThat(parent.getHierarchyPath(), is("/4/"));
+        assertThat(parent.getHierarchyLevel(), is(Account.ROOT_HIERARCHY_LEVEL));
+    }
+
+    @Test
+    public void testHierarchyPathNotPersisted() {
+        Account root = new Account();
+        root.setId(1L);
+
+        Account subAccount = new Account();
+        Account subSubAccount = new Account();
+        root.addSubAccount(subAccount);
+        subAccount.addSubAccount(subSubAccount);
+
+        // path unknown until the sub-account has an id
+        assertThat(root.getHierarchyPath(), is("/1/"));
+        assertThat(subAccount.getHierarchyPath(), is(nullValue()));
+        assertThat(subSubAccount.getHierarchyPath(), is(nullValue()));
+
+        // updated after persisting, see @PostPersist
+        subAccount.setId(2L);
+        subAccount.updateHierarchy();
+        assertThat(subSubAccount.getHierarchyPath(), is(nullValue()));
+
+        subSubAccount.setId(3L);
+        subSubAccount.updateHierarchy();
+        assertThat(subAccount.getHierarchyPath(), is("/1/2/"));
+        assertThat(subSubAccount.getHierarchyPath(), is("/1/2/3/"));
+        assertThat(subSubAccount.getHierarchyLevel(), is(Account.ROOT_HIERARCHY_LEVEL + 2));
+    }
+
     @Test(dataProvider = "mock_account_hierarchy")
     public void testVisitorTransversal(Account root) {
         List<Long> ids = root.accept(
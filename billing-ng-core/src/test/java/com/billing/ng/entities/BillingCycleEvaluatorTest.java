@@ -0,0 +1,166 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.util.DateUtils;
+import org.joda.time.DateMidnight;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = {"entity", "quick", "billing"})
+public class BillingCycleEvaluatorTest {
+
+    private static final int COUNT = 20000;
+
+    private long[] starts = new long[COUNT];
+    private int[] cycleStartDays = new int[COUNT];
+    private BillingPeriod.Type[] types = new BillingPeriod.Type[COUNT];
+    private int[] intervals = new int[COUNT];
+
+    /**
+     * Random billing cycles starting between 1995 and 2030, so that some start after "today".
+     */
+    private void randomCycles(long seed) {
+        Random random = new Random(seed);
+        long first = DateUtils.toEpochDay(1995, 1, 1);
+
+        for (int i = 0; i < COUNT; i++) {
+            starts[i] = first + random.nextInt(35 * 365);
+            types[i] = BillingPeriod.Type.values()[random.nextInt(4)];
+            intervals[i] = 1 + random.nextInt(random.nextBoolean() ? 3 : 13);
+
+            int[] start = DateUtils.toDate(starts[i]);
+            cycleStartDays[i] = random.nextInt(10) == 0
+                                ? BillingCycle.LAST_DAY_OF_MONTH
+                                : 1 + random.nextInt(DateUtils.getDaysInMonth(start[0], start[1]));
+        }
+    }
+
+    private void assertMatchesCurrentBillingCycle(DateMidnight today, int[] cycleNumbers, long[] cycleStarts, long[] cycleEnds) {
+        for (int i = 0; i < COUNT; i++) {
+            BillingCycle cycle = new BillingCycle(types[i], intervals[i]);
+            cycle.setStart(DateUtils.toDateMidnight(starts[i]).toDate());
+            cycle.setCycleStartDay(cycleStartDays[i]);
+
+            CurrentBillingCycle expected = cycle.getCurrentBillingCycle(today);
+            String message = cycle.getBillingPeriod() + " from " + cycle.getStartInstant();
+
+            assertThat(message, cycleNumbers[i], is(expected.getCycleNumber()));
+            assertThat(message, DateUtils.toDateMidnight(cycleStarts[i]), is(expected.getStart()));
+            assertThat(message, DateUtils.toDateMidnight(cycleEnds[i]), is(expected.getEnd()));
+        }
+    }
+
+    @Test
+    public void testEvaluateMatchesCurrentBillingCycle() {
+        randomCycles(18102026L);
+
+        int[] cycleNumbers = new int[COUNT];
+        long[] cycleStarts = new long[COUNT];
+        long[] cycleEnds = new long[COUNT];
+
+        // end of month and leap days are where month and year arithmetic differ
+        DateMidnight[] dates = {
+                new DateMidnight(2026, 10, 18),
+                new DateMidnight(2024, 2, 29),
+                new DateMidnight(2025, 2, 28),
+                new DateMidnight(2026, 4, 30),
+                new DateMidnight(2026, 12, 31)
+        };
+
+        for (DateMidnight today : dates) {
+            new BillingCycleEvaluator().evaluate(today, starts, cycleStartDays, types, intervals,
+                                                 cycleNumbers, cycleStarts, cycleEnds);
+
+            assertMatchesCurrentBillingCycle(today, cycleNumbers, cycleStarts, cycleEnds);
+        }
+    }
+
+    @Test
+    public void testEvaluateSplitsAcrossPool() {
+        randomCycles(29012011L);
+
+        int[] cycleNumbers = new int[COUNT];
+        long[] cycleStarts = new long[COUNT];
+        long[] cycleEnds = new long[COUNT];
+        DateMidnight today = new DateMidnight(2026, 10, 18);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new BillingCycleEvaluator(pool, 100).evaluate(today, starts, cycleStartDays, types, intervals,
+                                                          cycleNumbers, cycleStarts, cycleEnds);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertMatchesCurrentBillingCycle(today, cycleNumbers, cycleStarts, cycleEnds);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEvaluateInvalidCycleStartDay() {
+        long[] starts = { DateUtils.toEpochDay(2026, 2, 10) };
+        int[] cycleStartDays = { 30 };
+        BillingPeriod.Type[] types = { BillingPeriod.Type.MONTH };
+        int[] intervals = { 1 };
+
+        new BillingCycleEvaluator().evaluate(DateUtils.toEpochDay(2026, 10, 18), starts, cycleStartDays, types, intervals,
+                                             new int[1], new long[1], new long[1]);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEvaluateArrayLengthMismatch() {
+        new BillingCycleEvaluator().evaluate(0L, new long[2], new int[2], new BillingPeriod.Type[2], new int[2],
+                                             new int[2], new long[1], new long[2]);
+    }
+
+    @Test
+    public void testMonthsBetween() {
+        // a month ending on the last day of a shorter month is whole
+        assertThat(BillingCycleEvaluator.monthsBetween(new int[] { 2026, 1, 31 }, new int[] { 2026, 2, 28 }), is(1));
+        assertThat(BillingCycleEvaluator.monthsBetween(new int[] { 2026, 1, 31 }, new int[] { 2026, 3, 30 }), is(1));
+        assertThat(BillingCycleEvaluator.monthsBetween(new int[] { 2026, 1, 31 }, new int[] { 2026, 3, 31 }), is(2));
+        assertThat(BillingCycleEvaluator.monthsBetween(new int[] { 2026, 3, 15 }, new int[] { 2026, 1, 16 }), is(-1));
+    }
+
+    @Test
+    public void testYearsBetween() {
+        // a year starting on a leap day is whole on February 28th
+        assertThat(BillingCycleEvaluator.yearsBetween(new int[] { 2024, 2, 29 }, new int[] { 2025, 2, 28 }), is(1));
+        assertThat(BillingCycleEvaluator.yearsBetween(new int[] { 2023, 3, 1 }, new int[] { 2024, 2, 29 }), is(0));
+        assertThat(BillingCycleEvaluator.yearsBetween(new int[] { 2026, 10, 18 }, new int[] { 2010, 10, 19 }), is(-15));
+    }
+
+    @Test
+    public void testPlusMonths() {
+        int[] date = { 2026, 1, 31 };
+        BillingCycleEvaluator.plusMonths(date, 1);
+        assertThat(date, is(new int[] { 2026, 2, 28 }));
+
+        BillingCycleEvaluator.plusMonths(date, 23);
+        assertThat(date, is(new int[] { 2028, 1, 28 }));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import org.joda.time.DateMidnight;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = {"entity", "quick", "billing"})
+public class BillingCycleIndexTest {
+
+    private BillingCycle getCycle(DateMidnight start, DateMidnight end) {
+        BillingCycle cycle = new BillingCycle(BillingPeriod.Type.MONTH, 1);
+        cycle.setStart(start.toDate());
+        cycle.setEnd(end != null ? end.toDate() : null);
+        return cycle;
+    }
+
+    @Test
+    public void testFindActive() {
+        BillingCycle a = getCycle(new DateMidnight(2026, 1, 1), new DateMidnight(2026, 3, 31));
+        BillingCycle b = getCycle(new DateMidnight(2026, 3, 1), null);
+        BillingCycle c = getCycle(new DateMidnight(2026, 6, 1), new DateMidnight(2026, 6, 30));
+
+        BillingCycleIndex index = new BillingCycleIndex(Arrays.asList(c, b, a));
+        assertThat(index.size(), is(3));
+
+        // start and end dates are inclusive
+        assertThat(index.findActive(new DateMidnight(2025, 12, 31)).isEmpty(), is(true));
+        assertThat(index.findActive(new DateMidnight(2026, 1, 1)), is(Arrays.asList(a)));
+        assertThat(index.findActive(new DateMidnight(2026, 3, 31)), is(Arrays.asList(a, b)));
+        assertThat(index.findActive(new DateMidnight(2026, 4, 1)), is(Arrays.asList(b)));
+        assertThat(index.findActive(new DateMidnight(2026, 6, 30)), is(Arrays.asList(b, c)));
+
+        // range
+        assertThat(index.findActive(new DateMidnight(2025, 6, 1), new DateMidnight(2026, 1, 1)), is(Arrays.asList(a)));
+        assertThat(index.findActive(new DateMidnight(2026, 2, 1), new DateMidnight(2026, 6, 1)), is(Arrays.asList(a, b, c)));
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        BillingCycle a = getCycle(new DateMidnight(2026, 1, 1), null);
+        BillingCycle b = getCycle(new DateMidnight(2026, 1, 1), null);
+
+        BillingCycleIndex index = new BillingCycleIndex();
+        index.add(a);
+        index.add(b);
+
+        // end a cycle
+        a.setEnd(new DateMidnight(2026, 5, 31).toDate());
+        index.update(a);
+
+        assertThat(index.size(), is(2));
+        assertThat(index.findActive(new DateMidnight(2026, 5, 31)), is(Arrays.asList(b, a)));
+        assertThat(index.findActive(new DateMidnight(2026, 6, 1)), is(Arrays.asList(b)));
+
+        assertThat(index.remove(b), is(true));
+        assertThat(index.remove(b), is(false));
+        assertThat(index.contains(b), is(false));
+        assertThat(index.findActive(new DateMidnight(2026, 6, 1)).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testFindActiveMatchesScan() {
+        Random random = new Random(18102026L);
+        DateMidnight first = new DateMidnight(2020, 1, 1);
+
+        List<BillingCycle> cycles = new ArrayList<BillingCycle>();
+        BillingCycleIndex index = new BillingCycleIndex();
+
+        for (int i = 0; i < 2000; i++) {
+            DateMidnight start = first.plusDays(random.nextInt(2000));
+            DateMidnight end = random.nextInt(5) == 0 ? null : start.plusDays(random.nextInt(400));
+
+            BillingCycle cycle = getCycle(start, end);
+            cycles.add(cycle);
+            index.add(cycle);
+        }
+
+        // end and remove some cycles
+        for (int i = 0; i < 300; i++) {
+            BillingCycle cycle = cycles.get(random.nextInt(cycles.size()));
+            if (random.nextBoolean()) {
+                cycle.setEnd(new DateMidnight(cycle.getStart()).plusDays(random.nextInt(30)).toDate());
+                index.update(cycle);
+            } else {
+                cycles.remove(cycle);
+                index.remove(cycle);
+            }
+        }
+
+        assertThat(index.size(), is(cycles.size()));
+
+        for (int i = 0; i < 200; i++) {
+            DateMidnight from = first.plusDays(random.nextInt(2600) - 100);
+            DateMidnight to = from.plusDays(random.nextInt(60));
+
+            List<BillingCycle> expected = new ArrayList<BillingCycle>();
+            for (BillingCycle cycle : cycles) {
+                boolean startsBefore = !new DateMidnight(cycle.getStart()).isAfter(to);
+                if (startsBefore && (cycle.isActive(from) || cycle.isActive(to) || new DateMidnight(cycle.getStart()).isAfter(from)))
+                    expected.add(cycle);
+            }
+
+            List<BillingCycle> active = index.findActive(from, to);
+            assertThat(active.size(), is(expected.size()));
+            assertThat(new HashSet<BillingCycle>(active), is(new HashSet<BillingCycle>(expected)));
+        }
+    }
+}
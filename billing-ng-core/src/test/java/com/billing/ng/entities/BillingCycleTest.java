@@ -158,5 +158,115 @@ public class BillingCycleTest {
         // basically the cycle never ends (baring the end of the Universe).
         assertThat(cycle.getEndInstant(), is(new DateMidnight(292278993, 3, 17)));
     }
+
+    /* Original iterative start instant calculation, used to verify the closed-form calculation */
+    private DateMidnight iterateStartInstant(DateMidnight start, Integer cycleStartDay, BillingPeriod period) {
+        DateMidnight calculated = cycleStartDay != BillingCycle.LAST_DAY_OF_MONTH
+                                  ? start.dayOfMonth().setCopy(cycleStartDay)
+                                  : start.dayOfMonth().withMaximumValue();
+
+        while (calculated.isBefore(start))
+            calculated = calculated.plus(period.getPeriodOfTime());
+
+        return calculated;
+    }
+
+    @Test
+    public void testCalculateStartInstantMatchesIteration() {
+        int[] cycleStartDays = { 1, 2, 15, 28, BillingCycle.LAST_DAY_OF_MONTH };
+
+        for (BillingPeriod.Type type : BillingPeriod.Type.values()) {
+            for (int interval = 1; interval <= 13; interval += 3) {
+                BillingPeriod period = new BillingPeriod(type, interval);
+
+                for (int cycleStartDay : cycleStartDays) {
+                    DateMidnight start = new DateMidnight(2011, 12, 1);
+                    for (int i = 0; i < 120; i++) {
+                        assertThat(period + " starting " + start + " on day " + cycleStartDay,
+                                   BillingCycle.calculateStartInstant(start, cycleStartDay, period),
+                                   is(iterateStartInstant(start, cycleStartDay, period)));
+                        start = start.plusDays(1);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testStartInstantMemoized() {
+        BillingCycle cycle = new BillingCycle();
+        cycle.setBillingPeriod(new BillingPeriod(BillingPeriod.Type.DAY, 11));
+        cycle.setCycleStartDay(3);
+        cycle.setStart(getDate(2010, Calendar.JANUARY, 4));
+
+        DateMidnight start = cycle.getStartInstant();
+        assertThat(start, is(new DateMidnight(2010, 1, 14)));
+        assertThat(cycle.getStartInstant(), sameInstance(start));
+
+        // changing the start date, cycle start day or billing period re-calculates
+        cycle.setStart(getDate(2010, Calendar.JANUARY, 26));
+        assertThat(cycle.getStartInstant(), is(new DateMidnight(2010, 2, 5)));
+
+        cycle.setCycleStartDay(4);
+        assertThat(cycle.getStartInstant(), is(new DateMidnight(2010, 1, 26))); // Jan 4th + 11 + 11 = Jan 26
+
+        cycle.setBillingPeriod(new BillingPeriod(BillingPeriod.Type.WEEK, 1));
+        assertThat(cycle.getStartInstant(), is(new DateMidnight(2010, 2, 1)));
+
+        // changes made directly to the billing period are detected
+        cycle.getBillingPeriod().setInterval(2);
+        assertThat(cycle.getStartInstant(), is(new DateMidnight(2010, 2, 1)));
+
+        cycle.getBillingPeriod().setType(BillingPeriod.Type.MONTH);
+        assertThat(cycle.getStartInstant(), is(new DateMidnight(2010, 3, 4)));
+        assertThat(cycle.getEndInstant(), is(new DateMidnight(292278993, 3, 4)));
+    }
+
+    @Test
+    public void testCalculateNextRun() {
+        BillingCycle cycle = new BillingCycle();
+        cycle.setBillingPeriod(new BillingPeriod(BillingPeriod.Type.MONTH, 1));
+        cycle.setCycleStartDay(15);
+        cycle.setStart(getDate(2010, Calendar.JANUARY, 1));
+
+        // before the first cycle starts, next run is the end of the first cycle
+        assertThat(cycle.calculateNextRun(new DateMidnight(2009, 12, 1)), is(new DateMidnight(2010, 2, 15)));
+
+        // end of the current cycle, always after the given date
+        assertThat(cycle.calculateNextRun(new DateMidnight(2010, 3, 10)), is(new DateMidnight(2010, 3, 15)));
+        assertThat(cycle.calculateNextRun(new DateMidnight(2010, 3, 15)), is(new DateMidnight(2010, 4, 15)));
+
+        // billing cycle ending part way through a cycle
+        cycle.setEnd(getDate(2010, Calendar.APRIL, 1));
+        assertThat(cycle.calculateNextRun(new DateMidnight(2010, 3, 15)), is(new DateMidnight(2010, 4, 1)));
+        assertThat(cycle.calculateNextRun(new DateMidnight(2010, 4, 1)), is(nullValue()));
+    }
+
+    @Test
+    public void testScheduleNextRun() {
+        // starts in the future, so the next run does not depend on today's date
+        BillingCycle cycle = new BillingCycle();
+        cycle.setBillingPeriod(new BillingPeriod(BillingPeriod.Type.MONTH, 1));
+        cycle.setCycleStartDay(15);
+        cycle.setStart(getDate(2100, Calendar.JANUARY, 1));
+
+        cycle.scheduleOnPersist();
+        assertThat(cycle.getNextRun(), is(new DateMidnight(2100, 2, 15).toDate()));
+
+        // unchanged billing cycle keeps the persisted next run
+        cycle.setNextRun(getDate(2100, Calendar.MARCH, 15));
+        cycle.scheduleOnUpdate();
+        assertThat(cycle.getNextRun(), is(getDate(2100, Calendar.MARCH, 15)));
+
+        // changing the cycle re-schedules the next run
+        cycle.setCycleStartDay(20);
+        cycle.scheduleOnUpdate();
+        assertThat(cycle.getNextRun(), is(new DateMidnight(2100, 2, 20).toDate()));
+
+        // incomplete billing cycle is left unscheduled
+        BillingCycle incomplete = new BillingCycle();
+        incomplete.scheduleOnPersist();
+        assertThat(incomplete.getNextRun(), is(nullValue()));
+    }
 }
 
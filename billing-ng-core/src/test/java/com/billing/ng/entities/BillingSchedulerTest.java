@@ -0,0 +1,157 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import org.joda.time.DateMidnight;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = {"entity", "quick", "billing"})
+public class BillingSchedulerTest {
+
+    private Account getAccount(String number, BillingPeriod.Type type, int cycleStartDay) {
+        BillingCycle cycle = new BillingCycle(type, 1);
+        cycle.setStart(new DateMidnight(2026, 1, 1).toDate());
+        cycle.setCycleStartDay(cycleStartDay);
+
+        Account account = new Account();
+        account.setNumber(number);
+        account.setBillingCycle(cycle);
+        return account;
+    }
+
+    @Test
+    public void testPollDue() {
+        Account a = getAccount("a", BillingPeriod.Type.MONTH, 20);
+        Account b = getAccount("b", BillingPeriod.Type.MONTH, 19);
+        Account c = getAccount("c", BillingPeriod.Type.WEEK, 5);
+
+        DateMidnight today = new DateMidnight(2026, 10, 18);
+
+        BillingScheduler scheduler = new BillingScheduler();
+        assertThat(scheduler.schedule(a, today), is(new DateMidnight(2026, 10, 20)));
+        assertThat(scheduler.schedule(b, today), is(new DateMidnight(2026, 10, 19)));
+        assertThat(scheduler.schedule(c, today), is(new DateMidnight(2026, 10, 19)));
+
+        // next run persisted on the billing cycle
+        assertThat(a.getBillingCycle().getNextRun(), is(new DateMidnight(2026, 10, 20).toDate()));
+
+        assertThat(scheduler.size(), is(3));
+        assertThat(scheduler.getNextRun(), is(new DateMidnight(2026, 10, 19)));
+
+        // nothing due today
+        assertThat(scheduler.pollDue(today).isEmpty(), is(true));
+
+        // b and c due tomorrow
+        List<Account> due = scheduler.pollDue(today.plusDays(1));
+        assertThat(due.size(), is(2));
+        assertThat(due, hasItems(b, c));
+        assertThat(scheduler.isScheduled(b), is(false));
+        assertThat(scheduler.getNextRun(), is(new DateMidnight(2026, 10, 20)));
+
+        // re-schedule after billing
+        assertThat(scheduler.schedule(b, today.plusDays(1)), is(new DateMidnight(2026, 11, 19)));
+        assertThat(scheduler.schedule(c, today.plusDays(1)), is(new DateMidnight(2026, 10, 26)));
+
+        // missed runs are still due
+        due = scheduler.pollDue(today.plusDays(10));
+        assertThat(due, is(Arrays.asList(a, c)));
+        assertThat(scheduler.size(), is(1));
+    }
+
+    @Test
+    public void testReschedule() {
+        Account a = getAccount("a", BillingPeriod.Type.MONTH, 20);
+        Account b = getAccount("b", BillingPeriod.Type.MONTH, 25);
+
+        BillingScheduler scheduler = new BillingScheduler();
+        scheduler.schedule(a, new DateMidnight(2026, 10, 18));
+        scheduler.schedule(b, new DateMidnight(2026, 10, 18));
+
+        // moving the next run of a scheduled account updates its position
+        a.getBillingCycle().setNextRun(new DateMidnight(2026, 10, 30).toDate());
+        scheduler.schedule(a);
+
+        assertThat(scheduler.size(), is(2));
+        assertThat(scheduler.getNextRun(), is(new DateMidnight(2026, 10, 25)));
+
+        // ended cycles are removed
+        b.getBillingCycle().setEnd(new DateMidnight(2026, 10, 18).toDate());
+        assertThat(scheduler.schedule(b, new DateMidnight(2026, 10, 18)), is(nullValue()));
+        assertThat(b.getBillingCycle().getNextRun(), is(nullValue()));
+
+        assertThat(scheduler.size(), is(1));
+        assertThat(scheduler.remove(a), is(true));
+        assertThat(scheduler.remove(a), is(false));
+        assertThat(scheduler.getNextRun(), is(nullValue()));
+    }
+
+    @Test
+    public void testScheduleAll() {
+        Random random = new Random(18102026L);
+        List<Account> accounts = new ArrayList<Account>();
+        List<Long> runs = new ArrayList<Long>();
+
+        for (int i = 0; i < 500; i++) {
+            Account account = getAccount(String.valueOf(i), BillingPeriod.Type.MONTH, 1);
+            DateMidnight nextRun = new DateMidnight(2026, 10, 1).plusDays(random.nextInt(60));
+
+            account.getBillingCycle().setNextRun(i % 10 == 0 ? null : nextRun.toDate());
+            accounts.add(account);
+
+            if (i % 10 != 0)
+                runs.add(nextRun.getMillis());
+        }
+
+        BillingScheduler scheduler = new BillingScheduler();
+        scheduler.scheduleAll(accounts);
+        assertThat(scheduler.size(), is(450));
+
+        // remove a few in the middle of the heap
+        for (int i = 1; i < 100; i += 10) {
+            assertThat(scheduler.remove(accounts.get(i)), is(true));
+            runs.remove(Long.valueOf(accounts.get(i).getBillingCycle().getNextRun().getTime()));
+        }
+
+        // polled in order of next run
+        Collections.sort(runs);
+        List<Long> polled = new ArrayList<Long>();
+        for (Account account : scheduler.pollDue(new DateMidnight(2026, 12, 31)))
+            polled.add(account.getBillingCycle().getNextRun().getTime());
+
+        assertThat(polled, is(runs));
+        assertThat(scheduler.size(), is(0));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testScheduleWithoutBillingCycle() {
+        new BillingScheduler().schedule(new Account(), new DateMidnight(2026, 10, 18));
+    }
+}
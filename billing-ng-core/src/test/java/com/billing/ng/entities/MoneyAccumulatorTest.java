@@ -0,0 +1,143 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Currency;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.testng.Assert.*;
+
+/**
+ * MoneyAccumulatorTest
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "money", "quick" })
+public class MoneyAccumulatorTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency CAD = Currency.getInstance("CAD");
+
+    @BeforeClass
+    public void setupRateTable() {
+        RateTable table = RateTable.getInstance();
+        table.setSystemRate(new Rate(new BigDecimal("1"), "USD"));
+        table.addRate(new Rate(new BigDecimal("1.04279"), "CAD"));
+    }
+
+    @Test
+    public void testEmpty() {
+        MoneyAccumulator accumulator = new MoneyAccumulator();
+
+        assertTrue(accumulator.isEmpty());
+        assertNull(accumulator.getCurrency());
+        assertNull(accumulator.toMoney());
+        assertThat(accumulator.toMoney(USD), is(new Money("0.00", "USD")));
+    }
+
+    @Test
+    public void testAddAndSubtract() {
+        MoneyAccumulator accumulator = new MoneyAccumulator()
+                .add(new Money("10.00", "USD"))
+                .add(new Money("0.33", "USD"))
+                .add(null)
+                .subtract(new Money("5.10", "USD"));
+
+        assertFalse(accumulator.isEmpty());
+        assertThat(accumulator.getCurrency(), is(USD));
+        assertThat(accumulator.toMoney(), is(new Money("5.23", "USD")));
+    }
+
+    @Test
+    public void testAddAllAndSubtractAll() {
+        MoneyAccumulator accumulator = new MoneyAccumulator()
+                .add(new Money("10.00", "USD"))
+                .add(new Money("4.00", "CAD"));
+
+        MoneyAccumulator other = new MoneyAccumulator()
+                .add(new Money("1.50", "CAD"))
+                .add(new Money(Long.MAX_VALUE, USD))
+                .add(new Money(Long.MAX_VALUE, USD));
+
+        accumulator.addAll(other);
+        assertThat(accumulator.getCurrencies(), is(Arrays.asList(USD, CAD)));
+        assertThat(accumulator.getTotal(CAD), is(new Money("5.50", "CAD")));
+
+        // totals not converted to another currency
+        accumulator.subtractAll(other);
+        assertThat(accumulator.getTotal(USD).getValue(), is(new BigDecimal("10.00")));
+        assertThat(accumulator.getTotal(CAD), is(new Money("4.00", "CAD")));
+        assertThat(accumulator.getTotal(Currency.getInstance("EUR")), is(new Money("0.00", "EUR")));
+    }
+
+    @Test
+    public void testMatchesMoneyAdd() {
+        MoneyAccumulator accumulator = new MoneyAccumulator();
+        Money expected = new Money("0.00", "USD");
+
+        for (int i = 0; i < 1000; i++) {
+            Money amount = new Money((long) i * 37, USD);
+            accumulator.add(amount);
+            expected = expected.add(amount);
+        }
+
+        assertThat(accumulator.toMoney(USD), is(expected));
+    }
+
+    @Test
+    public void testConvertsOncePerCurrency() {
+        MoneyAccumulator accumulator = new MoneyAccumulator()
+                .add(new Money("1.00", "USD"))
+                .add(new Money("0.50", "CAD"))
+                .add(new Money("0.50", "CAD"));
+
+        // 1.00 CAD is converted once, 0.96 USD
+        assertThat(accumulator.toMoney(USD), is(new Money("1.96", "USD")));
+    }
+
+    @Test
+    public void testOverflow() {
+        MoneyAccumulator accumulator = new MoneyAccumulator()
+                .add(new Money(Long.MAX_VALUE, USD))
+                .add(new Money(Long.MAX_VALUE, USD))
+                .subtract(new Money(Long.MAX_VALUE, USD));
+
+        assertThat(accumulator.toMoney(), is(new Money(Long.MAX_VALUE, USD)));
+    }
+
+    @Test
+    public void testClear() {
+        MoneyAccumulator accumulator = new MoneyAccumulator()
+                .add(new Money("1.00", "USD"))
+                .add(new Money("1.00", "CAD"))
+                .add(new Money("1.00", "GBP"));
+
+        accumulator.clear();
+        assertTrue(accumulator.isEmpty());
+
+        accumulator.add(new Money("2.00", "CAD"));
+        assertThat(accumulator.toMoney(), is(new Money("2.00", "CAD")));
+    }
+}
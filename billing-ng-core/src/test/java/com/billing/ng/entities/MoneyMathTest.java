@@ -0,0 +1,171 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.testng.Assert.*;
+
+/**
+ * MoneyMathTest
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "money", "quick" })
+public class MoneyMathTest {
+
+    @Test
+    public void testDivideMatchesBigDecimal() {
+        long[] dividends = { 0, 1, -1, 5, -5, 15, -15, 25, -25, 26, -26, 99, -99, 1234567, -1234567, Long.MAX_VALUE, Long.MIN_VALUE };
+        long[] divisors = { 1, 2, 3, 7, 10, 100, 1000000007L };
+
+        for (RoundingMode mode : RoundingMode.values()) {
+            if (mode == RoundingMode.UNNECESSARY)
+                continue;
+
+            for (long dividend : dividends) {
+                for (long divisor : divisors) {
+                    long expected = new BigDecimal(dividend).divide(new BigDecimal(divisor), 0, mode).longValue();
+                    assertThat(mode + " " + dividend + "/" + divisor, MoneyMath.divide(dividend, divisor, mode), is(expected));
+                }
+            }
+        }
+    }
+
+    @Test(expectedExceptions = ArithmeticException.class)
+    public void testDivideRoundingUnnecessary() {
+        assertThat(MoneyMath.divide(10, 5, RoundingMode.UNNECESSARY), is(2L));
+        MoneyMath.divide(10, 3, RoundingMode.UNNECESSARY);
+    }
+
+    @Test
+    public void testMultiply() {
+        assertThat(MoneyMath.multiply(3037000499L, 3037000499L), is(9223372030926249001L));
+        assertThat(MoneyMath.multiply(-4, 5), is(-20L));
+
+        try {
+            MoneyMath.multiply(Long.MAX_VALUE, 2);
+            fail("multiplication should overflow");
+        } catch (ArithmeticException e) {
+            // expected
+        }
+
+        try {
+            MoneyMath.multiply(Long.MIN_VALUE, -1);
+            fail("multiplication should overflow");
+        } catch (ArithmeticException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRescale() {
+        assertThat(MoneyMath.rescale(1995, 2, 0, RoundingMode.HALF_EVEN), is(20L));
+        assertThat(MoneyMath.rescale(1995, 2, 4, RoundingMode.HALF_EVEN), is(199500L));
+        assertThat(MoneyMath.rescale(1995, 2, 2, RoundingMode.HALF_EVEN), is(1995L));
+    }
+
+    @Test
+    public void testMultiplyDivide() {
+        assertThat(MoneyMath.multiplyDivide(100, 1, 3), is(33L));
+        assertThat(MoneyMath.multiplyDivide(100, 0, 3), is(0L));
+        assertThat(MoneyMath.multiplyDivide(Long.MAX_VALUE, 3, 3), is(Long.MAX_VALUE));
+
+        // intermediate product overflows a long
+        assertThat(MoneyMath.multiplyDivide(Long.MAX_VALUE, 2, 4), is(Long.MAX_VALUE / 2));
+    }
+
+    @Test
+    public void testMultiplyDivideRounding() {
+        long[] values = { 0, 1, -1, 100, -100, 1999, -1999, Long.MAX_VALUE, Long.MIN_VALUE + 1 };
+        long[][] fractions = { { 0, 31 }, { 1, 3 }, { 2, 3 }, { 10, 31 }, { 29, 30 }, { 31, 31 }, { 1, 2 } };
+
+        for (RoundingMode mode : RoundingMode.values()) {
+            if (mode == RoundingMode.UNNECESSARY)
+                continue;
+
+            for (long value : values) {
+                for (long[] fraction : fractions) {
+                    long expected = new BigDecimal(value).multiply(new BigDecimal(fraction[0]))
+                            .divide(new BigDecimal(fraction[1]), 0, mode).longValue();
+
+                    assertThat(mode + " " + value + "*" + fraction[0] + "/" + fraction[1],
+                               MoneyMath.multiplyDivide(value, fraction[0], fraction[1], mode), is(expected));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAllocate() {
+        long[] result = new long[3];
+
+        MoneyMath.allocate(100, new long[] { 1, 1, 1 }, result);
+        assertThat(result, is(new long[] { 34, 33, 33 }));
+
+        MoneyMath.allocate(-100, new long[] { 1, 1, 1 }, result);
+        assertThat(result, is(new long[] { -34, -33, -33 }));
+
+        // zero ratio parts never receive remaining units
+        MoneyMath.allocate(5, new long[] { 0, 1, 1 }, result);
+        assertThat(result, is(new long[] { 0, 3, 2 }));
+    }
+
+    @Test
+    public void testAllocateSumsToAmount() {
+        long[] ratios = new long[1000];
+        for (int i = 0; i < ratios.length; i++)
+            ratios[i] = i % 7 + 1;
+
+        long[] result = new long[ratios.length];
+        MoneyMath.allocate(987654321L, ratios, result);
+
+        long sum = 0;
+        for (long share : result)
+            sum += share;
+
+        assertThat(sum, is(987654321L));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAllocateZeroRatios() {
+        MoneyMath.allocate(100, new long[] { 0, 0 }, new long[2]);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAllocateNegativeRatio() {
+        MoneyMath.allocate(100, new long[] { 2, -1 }, new long[2]);
+    }
+
+    @Test
+    public void testSplit() {
+        long[] result = new long[4];
+
+        MoneyMath.split(10, 4, result);
+        assertThat(result, is(new long[] { 3, 3, 2, 2 }));
+
+        MoneyMath.split(-10, 4, result);
+        assertThat(result, is(new long[] { -3, -3, -2, -2 }));
+    }
+}
@@ -17,10 +17,14 @@
 
 package com.billing.ng.entities;
 
+import com.billing.ng.entities.context.MoneyRoundingModeHolder;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.CharBuffer;
+import java.util.Currency;
 import java.util.Locale;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -68,6 +72,69 @@ public class MoneyTest {
         assertThat(money.getCurrency().getCurrencyCode(), is("USD"));
     }
 
+    @Test
+    public void testCreateFromStringWithSign() {
+        assertThat(new Money("-$10.95 USD").getValue(), is(new BigDecimal("-10.95")));
+        assertThat(new Money("$-10.95 USD").getValue(), is(new BigDecimal("-10.95")));
+        assertThat(new Money("-7.5", "GBP").getValue(), is(new BigDecimal("-7.50")));
+    }
+
+    @Test
+    public void testCreateFromStringRounding() {
+        // scaled up to the currency precision
+        assertThat(new Money("$10 USD").getValue(), is(new BigDecimal("10.00")));
+        assertThat(new Money(".5", "USD").getValue(), is(new BigDecimal("0.50")));
+
+        // rounded down to the currency precision
+        assertThat(new Money("17.0000 JPY").getValue(), is(new BigDecimal("17")));
+        assertThat(new Money("0.125", "USD").getValue(), is(new BigDecimal("0.12"))); // bankers rounding
+
+        // too large for minor units
+        assertThat(new Money("123456789012345678901.23 USD").getValue(),
+                   is(new BigDecimal("123456789012345678901.23")));
+
+        // exponent notation
+        assertThat(new Money("1E3", "USD").getValue(), is(new BigDecimal("1000.00")));
+    }
+
+    @Test
+    public void testCreateFromStringRoundingWithSign() {
+        RoundingMode previous = MoneyRoundingModeHolder.GetRoundingMode();
+        try {
+            // directed rounding modes round negative amounts away from zero
+            MoneyRoundingModeHolder.SetRoundingMode(RoundingMode.FLOOR);
+            assertThat(new Money("-1.005 USD").getValue(), is(new BigDecimal("-1.01")));
+            assertThat(new Money("$-1.005 USD").getValue(), is(new BigDecimal("-1.01")));
+            assertThat(new Money("1.005 USD").getValue(), is(new BigDecimal("1.00")));
+
+            MoneyRoundingModeHolder.SetRoundingMode(RoundingMode.CEILING);
+            assertThat(new Money("-1.005 USD").getValue(), is(new BigDecimal("-1.00")));
+        } finally {
+            MoneyRoundingModeHolder.SetRoundingMode(previous);
+        }
+    }
+
+    @Test(expectedExceptions = NumberFormatException.class)
+    public void testCreateFromInvalidString() {
+        new Money("1,000.00 USD");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCreateFromStringMissingCurrency() {
+        new Money("$10.00");
+    }
+
+    @Test
+    public void testParseAll() {
+        Money[] money = Money.parseAll(new CharSequence[] { "$1.00", "2.50", new StringBuilder("-3.25") },
+                                       Currency.getInstance("USD"));
+
+        assertThat(money.length, is(3));
+        assertThat(money[0], is(new Money("1.00", "USD")));
+        assertThat(money[1], is(new Money("2.50", "USD")));
+        assertThat(money[2].getValue(), is(new BigDecimal("-3.25")));
+    }
+
     @Test
     public void testCreateFromStringAndCurrency() {
         Money pounds = new Money("11.33", "GBP");
@@ -257,21 +324,149 @@ public class MoneyTest {
     }
 
     @Test
-    public void testHibernateSetters() {
-        // set all values in preferred order
-        Money cad = new Money();
-        cad.setCurrencyCode("CAD");
-        cad.setLongValue(13989);
-        cad.setScale(2);
+    public void testCreateFromMinorUnits() {
+        Money usd = new Money(2000L, Currency.getInstance("USD"));
+        assertThat(usd.getValue(), is(new BigDecimal("20.00")));
+        assertThat(usd.getLongValue(), is(2000L));
+        assertThat(usd.getScale(), is(2));
+
+        Money jpy = new Money(193L, Currency.getInstance("JPY"));
+        assertThat(jpy.getValue(), is(new BigDecimal("193")));
+
+        // equal to money constructed from a string
+        assertEquals(usd, new Money("20.00", "USD"));
+        assertEquals(usd.hashCode(), new Money("20.00", "USD").hashCode());
+    }
+
+    @Test
+    public void testMinorUnitArithmeticMatchesDecimal() {
+        Money usd = new Money("1234.56", "USD");
+        Money other = new Money(new BigDecimal("-99.99"), Currency.getInstance("USD"));
+
+        // force BigDecimal math by using a value with a non-default scale
+        Money decimal = new Money("1234.56", "USD");
+        decimal.setValue(new BigDecimal("1234.560"));
+
+        assertThat(usd.add(other).getValue(), is(new BigDecimal("1134.57")));
+        assertThat(usd.subtract(other).getValue(), is(new BigDecimal("1334.55")));
+        assertThat(other.negate().getValue(), is(new BigDecimal("99.99")));
+        assertThat(other.abs().getValue(), is(new BigDecimal("99.99")));
+
+        assertThat(decimal.add(other).getValue(), is(new BigDecimal("1134.57")));
+        assertThat(decimal.subtract(other).getValue(), is(new BigDecimal("1334.55")));
+    }
+
+    @Test
+    public void testMinorUnitOverflow() {
+        Currency usd = Currency.getInstance("USD");
+        Money max = new Money(Long.MAX_VALUE, usd);
+        Money min = new Money(Long.MIN_VALUE, usd);
+
+        // overflow falls back to BigDecimal math
+        Money sum = max.add(new Money(1L, usd));
+        assertThat(sum.getValue(), is(new BigDecimal("92233720368547758.08")));
+
+        Money difference = min.subtract(new Money(1L, usd));
+        assertThat(difference.getValue(), is(new BigDecimal("-92233720368547758.09")));
+
+        assertThat(min.negate().getValue(), is(new BigDecimal("92233720368547758.08")));
+        assertThat(min.abs().getValue(), is(new BigDecimal("92233720368547758.08")));
+
+        // large values remain usable for further math
+        assertThat(sum.subtract(new Money(1L, usd)), is(max));
+    }
+
+    @Test
+    public void testCompareTo() {
+        Money usd10 = new Money("10.00", "USD");
+        Money usd20 = new Money("20.00", "USD");
 
+        assertThat(usd10.compareTo(usd20), is(-1));
+        assertThat(usd20.compareTo(usd10), is(1));
+        assertThat(usd10.compareTo(new Money("10.00", "USD")), is(0));
+
+        // compared after conversion to USD
+        Money cad = new Money("1.00", "CAD");
+        assertThat(new Money("0.96", "USD").compareTo(cad), is(0));
+        assertThat(usd10.compareTo(cad), is(1));
+    }
+
+    @Test
+    public void testAllocate() {
+        Money[] parts = new Money("0.05 USD").allocate(new long[] { 3, 7 });
+
+        assertThat(parts.length, is(2));
+        assertThat(parts[0], is(new Money("0.02 USD")));
+        assertThat(parts[1], is(new Money("0.03 USD")));
+
+        // no decimal places to lose pennies in
+        Money[] yen = new Money("100 JPY").allocate(new long[] { 1, 1, 1 });
+        assertThat(yen[0], is(new Money("34 JPY")));
+        assertThat(yen[1], is(new Money("33 JPY")));
+        assertThat(yen[2], is(new Money("33 JPY")));
+    }
+
+    @Test
+    public void testAllocateUnits() {
+        long[] units = new Money("-1.00 CAD").allocate(new long[] { 1, 2, 3 }, new long[3]);
+        assertThat(units, is(new long[] { -17, -33, -50 }));
+    }
+
+    @Test
+    public void testSplit() {
+        Money[] parts = new Money("10.00 USD").split(3);
+
+        assertThat(parts.length, is(3));
+        assertThat(parts[0], is(new Money("3.34 USD")));
+        assertThat(parts[1], is(new Money("3.33 USD")));
+        assertThat(parts[2], is(new Money("3.33 USD")));
+        assertThat(parts[0].add(parts[1]).add(parts[2]), is(new Money("10.00 USD")));
+
+        long[] units = new Money("0.02 USD").split(3, new long[3]);
+        assertThat(units, is(new long[] { 1, 1, 0 }));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSplitZeroParts() {
+        new Money("10.00 USD").split(0);
+    }
+
+    @Test
+    public void testProrate() {
+        assertThat(new Money("31.00 USD").prorate(10, 31), is(new Money("10.00 USD")));
+        assertThat(new Money("10.00 USD").prorate(1, 3), is(new Money("3.33 USD")));
+        assertThat(new Money("-10.00 USD").prorate(2, 3), is(new Money("-6.67 USD")));
+        assertThat(new Money("100 JPY").prorate(0, 30), is(new Money("0 JPY")));
+        assertThat(new Money("100 JPY").prorate(30, 30), is(new Money("100 JPY")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testProrateEmptyPeriod() {
+        new Money("10.00 USD").prorate(0, 0);
+    }
+
+    @Test
+    public void testPersistedConstructor() {
+        Money cad = new Money(13989L, 2, "CAD");
         assertThat(cad.toString(), is("139.89 CAD"));
+        assertThat(cad.getLongValue(), is(13989L));
+        assertThat(cad.getScale(), is(2));
+
+        // scale that doesn't match the currency is rounded to the currency precision
+        Money jpy = new Money(1750L, 2, "JPY");
+        assertThat(jpy.getValue(), is(new BigDecimal("18")));
+        assertThat(jpy.getScale(), is(0));
+    }
+
+    @Test
+    public void testXmlRoundTrip() throws Exception {
+        Charge charge = new Charge();
+        charge.setAmount(new Money("73.24 GBP"));
 
-        // set required values, no explicit scale
-        Money usd = new Money();
-        usd.setLongValue(79201);
-        usd.setCurrencyCode("USD");
+        Charge unmarshalled = BaseEntity.fromXml(Charge.class, charge.toXml());
 
-        assertThat(usd.toString(), is("$792.01 USD"));
+        assertThat(unmarshalled.getAmount(), is(charge.getAmount()));
+        assertThat(unmarshalled.getAmount().getCurrencyCode(), is("GBP"));
     }
 
     @Test
@@ -286,6 +481,30 @@ public class MoneyTest {
         assertThat(jpy.toString(), is("81 JPY"));
     }
 
+    @Test
+    public void testToStringMinorUnits() {
+        Currency usd = Currency.getInstance("USD");
+
+        assertThat(new Money(5L, usd).toString(), is("$0.05 USD"));
+        assertThat(new Money(-5L, usd).toString(), is("$-0.05 USD"));
+        assertThat(new Money(0L, usd).toString(), is("$0.00 USD"));
+        assertThat(new Money(-123456L, usd).toString(), is("$-1234.56 USD"));
+        assertThat(new Money(Long.MIN_VALUE, usd).toString(), is("$-92233720368547758.08 USD"));
+        assertThat(new Money(100L, Currency.getInstance("JPY")).toString(), is("100 JPY"));
+    }
+
+    @Test
+    public void testAppendTo() {
+        Money usd = new Money("$56.23 USD");
+
+        StringBuilder builder = new StringBuilder("total: ");
+        assertThat(usd.appendTo(builder).toString(), is("total: $56.23 USD"));
+
+        CharBuffer buffer = CharBuffer.allocate(32);
+        usd.appendTo(buffer, Locale.UK).flip();
+        assertThat(buffer.toString(), is("56.23 USD"));
+    }
+
     @Test
     public void testToStringWithLocale() {
         Money jpy = new Money("193 JPY");
@@ -0,0 +1,199 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import org.hibernate.HibernateException;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.testng.Assert.*;
+
+/**
+ * MoneyTypeTest
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "money", "quick" })
+public class MoneyTypeTest {
+
+    private static final String[] COLUMNS = { "value", "scale", "currency_code" };
+
+    /**
+     * Stub result set returning the given column values.
+     *
+     * @param columns column values by name
+     * @return result set
+     */
+    private static ResultSet resultSet(final Map<String, Object> columns) {
+        return (ResultSet) Proxy.newProxyInstance(MoneyTypeTest.class.getClassLoader(), new Class[] { ResultSet.class },
+                new InvocationHandler() {
+                    private Object last;
+
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("wasNull"))
+                            return last == null;
+
+                        last = columns.get((String) args[0]);
+                        if (method.getName().equals("getLong"))
+                            return last == null ? 0L : last;
+                        if (method.getName().equals("getInt"))
+                            return last == null ? 0 : last;
+                        return last;
+                    }
+                });
+    }
+
+    /**
+     * Stub prepared statement recording the parameters set, with null parameters
+     * recorded as the SQL type.
+     *
+     * @param parameters map to record parameters into
+     * @return prepared statement
+     */
+    private static PreparedStatement statement(final Map<Integer, Object> parameters) {
+        return (PreparedStatement) Proxy.newProxyInstance(MoneyTypeTest.class.getClassLoader(), new Class[] { PreparedStatement.class },
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        parameters.put((Integer) args[0], method.getName().equals("setNull") ? null : args[1]);
+                        return null;
+                    }
+                });
+    }
+
+    @Test
+    public void testNullSafeGet() throws Exception {
+        Map<String, Object> columns = new HashMap<String, Object>();
+        columns.put("value", 13989L);
+        columns.put("scale", 2);
+        columns.put("currency_code", "CAD");
+
+        Money money = (Money) new MoneyType().nullSafeGet(resultSet(columns), COLUMNS, null, null);
+
+        assertThat(money, is(new Money("139.89 CAD")));
+        assertTrue(money.isCompact());
+    }
+
+    @Test
+    public void testNullSafeGetNull() throws Exception {
+        Object money = new MoneyType().nullSafeGet(resultSet(new HashMap<String, Object>()), COLUMNS, null, null);
+        assertThat(money, nullValue());
+    }
+
+    @Test
+    public void testNullSafeSet() throws Exception {
+        Map<Integer, Object> parameters = new HashMap<Integer, Object>();
+        new MoneyType().nullSafeSet(statement(parameters), new Money("$792.01 USD"), 3, null);
+
+        assertThat(parameters.get(3), is((Object) 79201L));
+        assertThat(parameters.get(4), is((Object) 2));
+        assertThat(parameters.get(5), is((Object) "USD"));
+    }
+
+    @Test
+    public void testNullSafeSetNull() throws Exception {
+        Map<Integer, Object> parameters = new HashMap<Integer, Object>();
+        new MoneyType().nullSafeSet(statement(parameters), null, 1, null);
+
+        assertThat(parameters.size(), is(3));
+        assertThat(parameters.get(1), nullValue());
+        assertThat(parameters.get(2), nullValue());
+        assertThat(parameters.get(3), nullValue());
+    }
+
+    @Test
+    public void testGetPropertyValue() {
+        MoneyType type = new MoneyType();
+        Money money = new Money("17 JPY");
+
+        assertThat(type.getPropertyValue(money, 0), is((Object) 17L));
+        assertThat(type.getPropertyValue(money, 1), is((Object) 0));
+        assertThat(type.getPropertyValue(money, 2), is((Object) "JPY"));
+    }
+
+    @Test
+    public void testSetPropertyValue() {
+        MoneyType type = new MoneyType();
+        Money money = new Money("10.00 USD");
+
+        type.setPropertyValue(money, 0, 1250L);
+        assertThat(money, is(new Money("12.50 USD")));
+
+        type.setPropertyValue(money, 2, "CAD");
+        assertThat(money, is(new Money("12.50 CAD")));
+
+        // scale moves the decimal point of the minor units
+        type.setPropertyValue(money, 1, 3);
+        assertThat(money.getLongValue(), is(1250L));
+        assertThat(money.getScale(), is(3));
+        assertThat(money.getValue(), is(new BigDecimal("1.250")));
+    }
+
+    @Test
+    public void testSetPropertyValueOnEmptyMoney() {
+        MoneyType type = new MoneyType();
+        Object[] values = { 1250L, 2, "USD" };
+        int[][] orders = { { 0, 1, 2 }, { 0, 2, 1 }, { 1, 0, 2 }, { 1, 2, 0 }, { 2, 0, 1 }, { 2, 1, 0 } };
+
+        for (int[] order : orders) {
+            Money money = new Money();
+            for (int property : order)
+                type.setPropertyValue(money, property, values[property]);
+
+            assertThat(money, is(new Money("12.50 USD")));
+        }
+
+        // unset value is 0, unset scale is the currency precision
+        Money money = new Money();
+        type.setPropertyValue(money, 2, "USD");
+        type.setPropertyValue(money, 1, 2);
+        assertThat(money, is(new Money("0.00 USD")));
+
+        money = new Money();
+        type.setPropertyValue(money, 2, "JPY");
+        type.setPropertyValue(money, 0, 17L);
+        assertThat(money, is(new Money("17 JPY")));
+    }
+
+    @Test(expectedExceptions = HibernateException.class)
+    public void testSetInvalidPropertyValue() {
+        new MoneyType().setPropertyValue(new Money("10.00 USD"), 3, null);
+    }
+
+    @Test
+    public void testDeepCopy() {
+        MoneyType type = new MoneyType();
+        Money money = new Money("10.00 USD");
+        Money copy = (Money) type.deepCopy(money);
+
+        assertNotSame(copy, money);
+        assertTrue(type.equals(money, copy));
+        assertFalse(type.equals(money, new Money("10.01 USD")));
+        assertThat(type.deepCopy(null), nullValue());
+    }
+}
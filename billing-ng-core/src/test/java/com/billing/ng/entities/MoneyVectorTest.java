@@ -0,0 +1,197 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.entities.context.MoneyRoundingModeHolder;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.testng.Assert.*;
+
+/**
+ * MoneyVectorTest
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "money", "quick" })
+public class MoneyVectorTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency CAD = Currency.getInstance("CAD");
+    private static final Currency JPY = Currency.getInstance("JPY");
+
+    @BeforeClass
+    public void setupRateTable() {
+        RateTable table = RateTable.getInstance();
+        table.setSystemRate(new Rate(new BigDecimal("1"), "USD"));
+        table.addRate(new Rate(new BigDecimal("1.04279"), "CAD"));
+        table.addRate(new Rate(new BigDecimal("0.64218"), "GBP"));
+        table.addRate(new Rate(new BigDecimal("85.8221"), "JPY"));
+    }
+
+    /* Random amounts in USD, CAD and JPY */
+    private List<Money> createAmounts(int count) {
+        Random random = new Random(42);
+        Currency[] currencies = { USD, CAD, JPY };
+
+        List<Money> amounts = new ArrayList<Money>(count);
+        for (int i = 0; i < count; i++)
+            amounts.add(new Money((long) random.nextInt(2000000) - 1000000, currencies[i % currencies.length]));
+
+        return amounts;
+    }
+
+    @Test
+    public void testToAndFromList() {
+        List<Money> amounts = createAmounts(100);
+        MoneyVector vector = new MoneyVector(amounts);
+
+        assertThat(vector.size(), is(100));
+        assertThat(vector.toList(), is(amounts));
+        assertThat(vector.get(1), is(amounts.get(1)));
+        assertThat(vector.getUnits(2), is(amounts.get(2).getLongValue()));
+        assertThat(vector.getCurrency(2), is(JPY));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddNonCompactMoney() {
+        Money money = new Money("1.00", "USD");
+        money.setValue(new BigDecimal("1.001"));
+
+        new MoneyVector().add(money);
+    }
+
+    @Test
+    public void testSum() {
+        List<Money> amounts = createAmounts(1000);
+        MoneyVector vector = new MoneyVector(amounts);
+
+        for (Currency currency : Arrays.asList(USD, CAD, JPY)) {
+            Money expected = new Money(0L, currency);
+            for (Money amount : amounts)
+                expected = expected.add(amount);
+
+            assertThat(vector.sum(currency), is(expected));
+        }
+    }
+
+    @Test
+    public void testSumOverflow() {
+        MoneyVector vector = new MoneyVector();
+        vector.add(Long.MAX_VALUE, USD);
+        vector.add(Long.MAX_VALUE, USD);
+
+        assertThat(vector.sum(USD).getValue(), is(new BigDecimal("184467440737095516.14")));
+    }
+
+    @Test
+    public void testReadDoesNotAddCurrency() {
+        Currency eur = Currency.getInstance("EUR"); // no rate
+
+        MoneyVector vector = new MoneyVector();
+        vector.add(1000, eur);
+        assertThat(vector.sum(eur), is(new Money("10.00 EUR")));
+
+        try {
+            vector.sum(USD);
+            fail("EUR has no rate");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // a single currency needs no rate, USD was not added to the vector
+        assertThat(vector.sum(eur), is(new Money("10.00 EUR")));
+
+        // nothing to convert, EUR is not added to the vector
+        vector = new MoneyVector().convertAll(eur);
+        vector.add(1000, USD);
+        assertThat(vector.sum(USD), is(new Money("10.00 USD")));
+        assertThat(vector.sum(CAD), is(new Money(0L, CAD).convert(new Money("10.00 USD"))));
+    }
+
+    @Test
+    public void testSumByCurrency() {
+        List<Money> amounts = createAmounts(999);
+        Map<Currency, Money> sums = new MoneyVector(amounts).sumByCurrency();
+
+        assertThat(sums.size(), is(3));
+        for (Map.Entry<Currency, Money> entry : sums.entrySet()) {
+            Money expected = new Money(0L, entry.getKey());
+            for (Money amount : amounts)
+                if (amount.getCurrency().equals(entry.getKey()))
+                    expected = expected.add(amount);
+
+            assertThat(entry.getValue(), is(expected));
+        }
+    }
+
+    @Test
+    public void testScale() {
+        List<Money> amounts = createAmounts(300);
+        RoundingMode previous = MoneyRoundingModeHolder.GetRoundingMode();
+
+        try {
+            for (RoundingMode mode : Arrays.asList(RoundingMode.HALF_EVEN, RoundingMode.HALF_UP, RoundingMode.FLOOR)) {
+                MoneyRoundingModeHolder.SetRoundingMode(mode);
+
+                for (String factor : Arrays.asList("2", "0.333", "-1.5", "1E+2", "0.0000000000000000001")) {
+                    MoneyVector vector = new MoneyVector(amounts).scale(new BigDecimal(factor));
+
+                    for (int i = 0; i < amounts.size(); i++)
+                        assertThat(vector.get(i), is(amounts.get(i).multiply(new BigDecimal(factor))));
+                }
+            }
+        } finally {
+            MoneyRoundingModeHolder.SetRoundingMode(previous);
+        }
+    }
+
+    @Test(expectedExceptions = ArithmeticException.class)
+    public void testScaleOverflow() {
+        MoneyVector vector = new MoneyVector();
+        vector.add(Long.MAX_VALUE, USD);
+        vector.scale(new BigDecimal("2"));
+    }
+
+    @Test
+    public void testConvertAll() {
+        List<Money> amounts = createAmounts(300);
+
+        for (Currency currency : Arrays.asList(USD, CAD, JPY)) {
+            MoneyVector vector = new MoneyVector(amounts).convertAll(currency);
+            Money target = new Money(0L, currency);
+
+            for (int i = 0; i < amounts.size(); i++) {
+                assertThat(vector.getCurrency(i), is(currency));
+                assertThat(vector.get(i), is(target.convert(amounts.get(i))));
+            }
+        }
+    }
+}
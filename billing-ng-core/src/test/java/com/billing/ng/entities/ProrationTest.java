@@ -0,0 +1,107 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.util.DateUtils;
+import org.joda.time.DateMidnight;
+import org.testng.annotations.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "money", "quick", "billing" })
+public class ProrationTest {
+
+    @Test
+    public void testGetPeriodEndMatchesCurrentBillingCycle() {
+        // every start date from 1899 to 1905 and 2195 to 2201 to cover both ends of the month table
+        for (DateMidnight first : new DateMidnight[] { new DateMidnight(1899, 1, 1), new DateMidnight(2195, 1, 1) }) {
+            for (int i = 0; i < 6 * 366; i++) {
+                DateMidnight start = first.plusDays(i);
+
+                for (BillingPeriod.Type type : BillingPeriod.Type.values()) {
+                    for (int interval : new int[] { 1, 2, 5, 13 }) {
+                        BillingPeriod period = new BillingPeriod(type, interval);
+                        long expected = DateUtils.toEpochDay(CurrentBillingCycle.calculateCycleEnd(period, start));
+
+                        assertThat(period + " from " + start,
+                                   Proration.getPeriodEnd(DateUtils.toEpochDay(start), type, interval), is(expected));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testProrateRemainderOfCycle() {
+        BillingPeriod period = new BillingPeriod(BillingPeriod.Type.MONTH, 1);
+        CurrentBillingCycle cycle = new CurrentBillingCycle(period, new DateMidnight(2026, 1, 15), new DateMidnight(2026, 2, 20));
+
+        // February 15th -> March 15th, 28 days
+        assertThat(cycle.getStart(), is(new DateMidnight(2026, 2, 15)));
+        assertThat(Proration.prorate(new Money("28.00 USD"), cycle, new DateMidnight(2026, 2, 20)), is(new Money("23.00 USD")));
+
+        // whole cycle before the start, nothing after the end
+        assertThat(Proration.prorate(new Money("28.00 USD"), cycle, new DateMidnight(2026, 1, 1)), is(new Money("28.00 USD")));
+        assertThat(Proration.prorate(new Money("28.00 USD"), cycle, new DateMidnight(2026, 3, 15)), is(new Money("0.00 USD")));
+    }
+
+    @Test
+    public void testProratePartOfPeriod() {
+        BillingPeriod period = new BillingPeriod(BillingPeriod.Type.YEAR, 1);
+        DateMidnight start = new DateMidnight(2024, 1, 1);
+
+        // 2024 is a leap year, January is 31 of 366 days
+        Money prorated = Proration.prorate(new Money("366.00 CAD"), start, period,
+                                           new DateMidnight(2024, 1, 1), new DateMidnight(2024, 2, 1));
+        assertThat(prorated, is(new Money("31.00 CAD")));
+    }
+
+    @Test
+    public void testProrateBatch() {
+        long[] units = { 2800, 3100, 700, -3000 };
+        long[] changeDays = {
+                DateUtils.toEpochDay(2026, 2, 20),
+                DateUtils.toEpochDay(2026, 1, 25),
+                DateUtils.toEpochDay(2026, 1, 3),
+                DateUtils.toEpochDay(2026, 4, 11)
+        };
+        long[] cycleStarts = {
+                DateUtils.toEpochDay(2026, 2, 15),
+                DateUtils.toEpochDay(2026, 1, 15),
+                DateUtils.toEpochDay(2026, 1, 1),
+                DateUtils.toEpochDay(2026, 4, 1)
+        };
+        BillingPeriod.Type[] types = { BillingPeriod.Type.MONTH, BillingPeriod.Type.MONTH, BillingPeriod.Type.WEEK, BillingPeriod.Type.MONTH };
+        int[] intervals = { 1, 1, 1, 1 };
+
+        long[] result = Proration.prorate(units, changeDays, cycleStarts, types, intervals, new long[4]);
+        assertThat(result, is(new long[] { 2300, 2100, 500, -2000 }));
+
+        // same results from pre-calculated cycle ends
+        long[] cycleEnds = new long[4];
+        for (int i = 0; i < 4; i++)
+            cycleEnds[i] = Proration.getPeriodEnd(cycleStarts[i], types[i], intervals[i]);
+
+        assertThat(Proration.prorate(units, changeDays, cycleStarts, cycleEnds, units), is(result));
+    }
+}
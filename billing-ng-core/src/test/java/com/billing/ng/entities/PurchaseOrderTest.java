@@ -0,0 +1,238 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.testng.Assert.*;
+
+/**
+ * PurchaseOrderTest
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "entity", "quick" })
+public class PurchaseOrderTest {
+
+    private PurchaseOrderLine createLine(String... amounts) {
+        PurchaseOrderLine line = new PurchaseOrderLine();
+        for (String amount : amounts) {
+            Charge charge = new Charge();
+            charge.setAmount(new Money(amount));
+            charge.setLine(line);
+            line.getCharges().add(charge);
+        }
+        return line;
+    }
+
+    @Test
+    public void testCalculateLineTotal() {
+        PurchaseOrderLine line = createLine("10.00 USD", "2.50 USD", "0.01 USD");
+
+        assertThat(line.getTotal(), is(new Money("12.51 USD")));
+    }
+
+    @Test
+    public void testCalculateOrderTotal() {
+        PurchaseOrder order = new PurchaseOrder();
+        order.getLines().add(createLine("10.00 USD", "2.50 USD"));
+        order.getLines().add(createLine("7.49 USD"));
+
+        assertThat(order.getTotal(), is(new Money("19.99 USD")));
+
+        // re-calculating does not double count
+        order.calculateTotal();
+        assertThat(order.getTotal(), is(new Money("19.99 USD")));
+    }
+
+    @Test
+    public void testCalculateTotalNoLines() {
+        PurchaseOrder order = new PurchaseOrder();
+        assertNull(order.getTotal());
+
+        // total remains in the set currency
+        order.setTotal(new Money("5.00 CAD"));
+        order.calculateTotal();
+        assertThat(order.getTotal(), is(new Money("0.00 CAD")));
+    }
+
+    private Charge createCharge(String amount) {
+        Charge charge = new Charge();
+        charge.setAmount(new Money(amount));
+        return charge;
+    }
+
+    @Test
+    public void testAddAndRemoveCharge() {
+        PurchaseOrder order = new PurchaseOrder();
+        PurchaseOrderLine line = new PurchaseOrderLine();
+        order.addLine(line);
+
+        Charge charge = createCharge("10.00 USD");
+        line.addCharge(charge);
+        line.addCharge(createCharge("2.50 USD"));
+
+        assertThat(charge.getLine(), is(line));
+        assertThat(line.getTotal(), is(new Money("12.50 USD")));
+        assertThat(order.getTotal(), is(new Money("12.50 USD")));
+
+        line.removeCharge(charge);
+
+        assertThat(charge.getLine(), is(nullValue()));
+        assertThat(line.getCharges().size(), is(1));
+        assertThat(line.getTotal(), is(new Money("2.50 USD")));
+        assertThat(order.getTotal(), is(new Money("2.50 USD")));
+    }
+
+    @Test
+    public void testChangeChargeAmount() {
+        PurchaseOrder order = new PurchaseOrder();
+        order.addLine(createLine("10.00 USD", "2.50 USD"));
+        order.addLine(createLine("7.49 USD"));
+
+        Charge charge = order.getLines().get(0).getCharges().get(1);
+        charge.setAmount(new Money("3.00 USD"));
+
+        assertThat(order.getLines().get(0).getTotal(), is(new Money("13.00 USD")));
+        assertThat(order.getTotal(), is(new Money("20.49 USD")));
+
+        // incremental totals match a full re-calculation
+        order.getLines().get(0).calculateTotal();
+        order.calculateTotal();
+        assertThat(order.getTotal(), is(new Money("20.49 USD")));
+    }
+
+    @Test
+    public void testAddAndRemoveLine() {
+        PurchaseOrder order = new PurchaseOrder();
+        PurchaseOrderLine line = createLine("10.00 USD", "2.50 USD");
+
+        order.addLine(line);
+        order.addLine(createLine("7.49 USD"));
+
+        assertThat(line.getPurchaseOrder(), is(order));
+        assertThat(order.getTotal(), is(new Money("19.99 USD")));
+
+        order.removeLine(line);
+
+        assertThat(line.getPurchaseOrder(), is(nullValue()));
+        assertThat(order.getTotal(), is(new Money("7.49 USD")));
+
+        // changes to a removed line no longer affect the order
+        line.addCharge(createCharge("1.00 USD"));
+        assertThat(order.getTotal(), is(new Money("7.49 USD")));
+    }
+
+    @Test
+    public void testCalculateTotalFromAccumulator() {
+        PurchaseOrder order = new PurchaseOrder();
+        order.addLine(createLine("10.00 USD"));
+
+        MoneyAccumulator accumulator = new MoneyAccumulator()
+                .add(new Money("4.00 USD"))
+                .add(new Money("1.25 USD"));
+
+        PurchaseOrderLine line = order.getLines().get(0);
+        line.calculateTotal(accumulator);
+        assertThat(line.getTotal(), is(new Money("5.25 USD")));
+
+        order.calculateTotal(new MoneyAccumulator().add(line.getTotal()));
+        assertThat(order.getTotal(), is(new Money("5.25 USD")));
+
+        // total remains in the set currency
+        order.calculateTotal(new MoneyAccumulator());
+        assertThat(order.getTotal(), is(new Money("0.00 USD")));
+    }
+
+    @Test
+    public void testLineTotalAppliedToOrder() {
+        PurchaseOrder order = new PurchaseOrder();
+        order.addLine(createLine("10.00 USD"));
+        order.addLine(createLine("2.00 USD"));
+
+        PurchaseOrderLine line = order.getLines().get(0);
+        line.setTotal(new Money("4.00 USD"));
+        assertThat(order.getTotal(), is(new Money("6.00 USD")));
+
+        line.calculateTotal();
+        assertThat(order.getTotal(), is(new Money("12.00 USD")));
+
+        line.calculateTotal(new MoneyAccumulator().add(new Money("1.00 USD")));
+        assertThat(order.getTotal(), is(new Money("3.00 USD")));
+    }
+
+    @Test
+    public void testReconcileTotalAppliedOnce() {
+        final List<Money> rollupTotals = new ArrayList<Money>();
+        Account account = new Account() {
+            @Override
+            void updateRollup(int orders, Money oldTotal, Money newTotal) {
+                rollupTotals.add(newTotal);
+            }
+        };
+
+        PurchaseOrder order = new PurchaseOrder();
+        order.addLine(createLine("10.00 USD"));
+        order.addLine(createLine("2.00 USD"));
+        order.getLines().get(0).setId(1L);
+        order.getLines().get(1).setId(2L);
+        order.setAccount(account);
+        rollupTotals.clear();
+
+        Map<Long, MoneyAccumulator> lineTotals = new HashMap<Long, MoneyAccumulator>();
+        lineTotals.put(1L, new MoneyAccumulator().add(new Money("4.00 USD")));
+        lineTotals.put(2L, new MoneyAccumulator().add(new Money("1.00 USD")));
+
+        // line totals are not applied to the order one by one, the order total changes once
+        assertTrue(order.reconcileTotal(lineTotals));
+        assertThat(rollupTotals, is(Arrays.asList(new Money("5.00 USD"))));
+    }
+
+    @Test
+    public void testReconcileTotal() {
+        PurchaseOrder order = new PurchaseOrder();
+        order.addLine(createLine("10.00 USD"));
+        order.addLine(createLine("2.00 USD"));
+        order.getLines().get(0).setId(1L);
+        order.getLines().get(1).setId(2L);
+
+        Map<Long, MoneyAccumulator> lineTotals = new HashMap<Long, MoneyAccumulator>();
+        lineTotals.put(1L, new MoneyAccumulator().add(new Money("4.00 USD")));
+
+        // totals come from the aggregates, not from the charges of each line
+        assertTrue(order.reconcileTotal(lineTotals));
+        assertThat(order.getCalculatedTotal(), is(new Money("4.00 USD")));
+        assertThat(order.getLines().get(0).getCalculatedTotal(), is(new Money("4.00 USD")));
+
+        // unchanged aggregates leave the total unchanged
+        assertFalse(order.reconcileTotal(lineTotals));
+
+        lineTotals.put(2L, new MoneyAccumulator().add(new Money("1.50 USD")));
+        assertTrue(order.reconcileTotal(lineTotals));
+        assertThat(order.getCalculatedTotal(), is(new Money("5.50 USD")));
+    }
+}
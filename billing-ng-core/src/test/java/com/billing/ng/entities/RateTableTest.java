@@ -0,0 +1,327 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities;
+
+import com.billing.ng.entities.context.MoneyRoundingModeHolder;
+import com.billing.ng.util.DateUtils;
+import org.joda.time.DateMidnight;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.testng.Assert.*;
+
+/**
+ * RateTableTest
+ *
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "money", "quick" })
+public class RateTableTest {
+
+    private RateTable.Snapshot original;
+
+    @BeforeMethod
+    public void setupRateTable() {
+        RateTable table = RateTable.getInstance();
+        original = table.getSnapshot();
+
+        table.publish(new Rate(new BigDecimal("1"), "USD"),
+                      Arrays.asList(new Rate(new BigDecimal("1.04279"), "CAD"),
+                                    new Rate(new BigDecimal("0.64218"), "GBP")));
+    }
+
+    @AfterMethod
+    public void restoreRateTable() {
+        RateTable table = RateTable.getInstance();
+        table.unpin();
+        table.publish(original.getSystemRate(), original.getRateHistory());
+    }
+
+    @Test
+    public void testPublish() {
+        RateTable table = RateTable.getInstance();
+        RateTable.Snapshot snapshot = table.getSnapshot();
+
+        assertThat(snapshot.getSystemRate().getCurrencyCode(), is("USD"));
+        assertThat(snapshot.getRate("USD").getRate(), is(BigDecimal.ONE));
+        assertThat(snapshot.getRate("CAD").getRate(), is(new BigDecimal("1.04279")));
+        assertThat(snapshot.getRates().size(), is(3));
+
+        // replaces the entire rate sheet
+        RateTable.Snapshot published = table.publish(new Rate(new BigDecimal("1"), "CAD"),
+                                                     Arrays.asList(new Rate(new BigDecimal("0.95897"), "USD")));
+
+        assertThat(published.getVersion(), is(snapshot.getVersion() + 1));
+        assertThat(table.getSnapshot(), sameInstance(published));
+        assertThat(table.getRate("GBP"), nullValue());
+        assertThat(table.getSystemRate().getCurrencyCode(), is("CAD"));
+    }
+
+    @Test
+    public void testSnapshotIsImmutable() {
+        RateTable table = RateTable.getInstance();
+        RateTable.Snapshot snapshot = table.getSnapshot();
+
+        Rate jpy = new Rate(new BigDecimal("85.8221"), "JPY");
+        table.addRate(jpy);
+        jpy.setRate(new BigDecimal("90"));
+
+        // previous snapshot unchanged
+        assertThat(snapshot.getRate("JPY"), nullValue());
+        assertThat(snapshot.getRates().size(), is(3));
+
+        // new snapshot holds a copy of the rate
+        assertThat(table.getVersion(), is(snapshot.getVersion() + 1));
+        assertThat(table.getRate("JPY").getRate(), is(new BigDecimal("85.8221")));
+        assertThat(table.getRate("CAD"), notNullValue());
+    }
+
+    @Test
+    public void testClear() {
+        RateTable table = RateTable.getInstance();
+        long version = table.getVersion();
+
+        table.clear();
+
+        assertThat(table.getVersion(), is(version + 1));
+        assertThat(table.getRate("CAD"), nullValue());
+        assertThat(table.getSystemRate().getCurrencyCode(), is("USD"));
+    }
+
+    @Test
+    public void testConvert() {
+        RateTable table = RateTable.getInstance();
+        table.addRate(new Rate(new BigDecimal("85.8221"), "JPY"));
+
+        RateTable.Snapshot snapshot = table.getSnapshot();
+        int usd = snapshot.indexOf("USD");
+        int jpy = snapshot.indexOf("JPY");
+
+        assertThat(snapshot.getCurrencyCount(), is(4));
+        assertThat(snapshot.getCurrency(jpy).getCurrencyCode(), is("JPY"));
+        assertThat(snapshot.indexOf("XYZ"), is(-1));
+
+        assertThat(snapshot.convert(1000L, usd, jpy), is(858L));
+        assertThat(snapshot.convert(858L, jpy, usd), is(1000L));
+        assertThat(snapshot.convert(1000L, usd, usd), is(1000L));
+    }
+
+    @Test
+    public void testConvertMatchesMoney() {
+        RateTable table = RateTable.getInstance();
+        table.addRates(Arrays.asList(new Rate(new BigDecimal("85.8221"), "JPY"),
+                                     new Rate(new BigDecimal("0.3845"), "KWD"),
+                                     new Rate(new BigDecimal("1.3"), "EUR")));
+
+        RateTable.Snapshot snapshot = table.getSnapshot();
+        String[] codes = { "USD", "CAD", "GBP", "JPY", "KWD", "EUR" };
+        Random random = new Random(42);
+
+        RoundingMode original = MoneyRoundingModeHolder.GetRoundingMode();
+        try {
+            for (RoundingMode mode : new RoundingMode[] { RoundingMode.HALF_EVEN, RoundingMode.HALF_UP, RoundingMode.FLOOR, RoundingMode.UP }) {
+                MoneyRoundingModeHolder.SetRoundingMode(mode);
+
+                for (int i = 0; i < 2000; i++) {
+                    String from = codes[random.nextInt(codes.length)];
+                    String to = codes[random.nextInt(codes.length)];
+                    long units = random.nextInt() * (long) random.nextInt(1000);
+
+                    Money money = new Money(units, Currency.getInstance(from));
+                    BigDecimal expected = Money.convert(money.getValue(), snapshot.getRate(from), snapshot.getRate(to),
+                                                        Currency.getInstance(to).getDefaultFractionDigits());
+
+                    long converted = snapshot.convert(units, snapshot.indexOf(from), snapshot.indexOf(to));
+                    if (!from.equals(to))
+                        assertThat(mode + " " + money + " to " + to, BigDecimal.valueOf(converted, expected.scale()), is(expected));
+                }
+            }
+        } finally {
+            MoneyRoundingModeHolder.SetRoundingMode(original);
+        }
+    }
+
+    @Test
+    public void testConvertAll() {
+        RateTable.Snapshot snapshot = RateTable.getInstance().getSnapshot();
+        int usd = snapshot.indexOf("USD");
+        int cad = snapshot.indexOf("CAD");
+        int gbp = snapshot.indexOf("GBP");
+
+        long[] units = { 100, 10000, -2500 };
+        long[] result = snapshot.convertAll(units, cad, usd, new long[3]);
+        assertThat(result, is(new long[] { 96, 9590, -2397 }));
+
+        // mixed currencies, converted in place
+        snapshot.convertAll(units, new int[] { usd, cad, gbp }, usd, units);
+        assertThat(units, is(new long[] { 100, 9590, -3893 }));
+    }
+
+    private static Date date(int year, int month, int day) {
+        return new DateMidnight(year, month, day).toDate();
+    }
+
+    @Test
+    public void testRateHistory() {
+        RateTable table = RateTable.getInstance();
+        table.addRates(Arrays.asList(new Rate(new BigDecimal("1.10"), "CAD", date(2026, 1, 1), date(2026, 3, 31)),
+                                     new Rate(new BigDecimal("1.20"), "CAD", date(2026, 4, 1), null),
+                                     new Rate(new BigDecimal("1.50"), "CAD", date(2026, 6, 1), date(2026, 6, 30))));
+
+        // undated rate from setup applies before the first effective-dated rate
+        assertThat(table.getRate("CAD", date(2025, 12, 31)).getRate(), is(new BigDecimal("1.04279")));
+        assertThat(table.getRate("CAD", date(2026, 1, 1)).getRate(), is(new BigDecimal("1.10")));
+        assertThat(table.getRate("CAD", date(2026, 3, 31)).getRate(), is(new BigDecimal("1.10")));
+        assertThat(table.getRate("CAD", date(2026, 4, 1)).getRate(), is(new BigDecimal("1.20")));
+
+        // overlapping rate applies for its effective period, then the earlier open rate applies again
+        assertThat(table.getRate("CAD", date(2026, 6, 15)).getRate(), is(new BigDecimal("1.50")));
+        assertThat(table.getRate("CAD", date(2026, 7, 1)).getRate(), is(new BigDecimal("1.20")));
+
+        // rate effective today is used for undated conversions
+        assertThat(table.getRate("CAD"), is(table.getRate("CAD", new Date())));
+        assertThat(table.getSnapshot().getRateHistory("CAD").size(), is(4));
+        assertThat(table.getRate("XYZ", date(2026, 1, 1)), nullValue());
+    }
+
+    @Test
+    public void testRateHistoryExpired() {
+        RateTable table = RateTable.getInstance();
+        table.publish(new Rate(new BigDecimal("1"), "USD"),
+                      Arrays.asList(new Rate(new BigDecimal("1.10"), "CAD", date(2026, 1, 1), date(2026, 1, 31))));
+
+        assertThat(table.getRate("CAD", date(2025, 12, 31)), nullValue());
+        assertThat(table.getRate("CAD", date(2026, 1, 15)).getRate(), is(new BigDecimal("1.10")));
+        assertThat(table.getRate("CAD", date(2026, 2, 1)), nullValue());
+    }
+
+    @Test
+    public void testCurrentRate() {
+        RateTable table = RateTable.getInstance();
+        DateMidnight today = new DateMidnight();
+
+        // future-dated rate does not apply to undated conversions until it becomes effective
+        table.addRate(new Rate(new BigDecimal("2.00000"), "CAD", today.plusDays(10).toDate(), null));
+        assertThat(table.getRate("CAD").getRate(), is(new BigDecimal("1.04279")));
+        assertThat(new Money("1.00 USD").convert(new Money("1.00 CAD")), is(new Money("0.96 USD")));
+
+        // expired rate no longer applies
+        table.addRate(new Rate(new BigDecimal("3.00000"), "GBP", today.minusDays(10).toDate(), today.minusDays(1).toDate()));
+        assertThat(table.getRate("GBP").getRate(), is(new BigDecimal("0.64218")));
+
+        // rate effective today applies
+        table.addRate(new Rate(new BigDecimal("4.00000"), "CAD", today.toDate(), null));
+        assertThat(table.getRate("CAD").getRate(), is(new BigDecimal("4.00000")));
+
+        assertThat(table.getSnapshot().getEpochDay(), is(DateUtils.toEpochDay(today)));
+        assertThat(table.getSnapshot().isExpired(), is(false));
+    }
+
+    @Test
+    public void testConvertWithDate() {
+        RateTable.getInstance().addRate(new Rate(new BigDecimal("2.00000"), "CAD", date(2026, 1, 1), null));
+
+        Money usd = new Money("1.00 USD");
+        assertThat(usd.convert(new Money("1.00 CAD"), date(2025, 6, 1)), is(new Money("0.96 USD")));
+        assertThat(usd.convert(new Money("1.00 CAD"), date(2026, 6, 1)), is(new Money("0.50 USD")));
+        assertThat(usd.convert(new Money("1.00 CAD")), is(new Money("0.50 USD")));
+    }
+
+    @Test
+    public void testConvertAllHistorical() {
+        RateTable table = RateTable.getInstance();
+        table.addRates(Arrays.asList(new Rate(new BigDecimal("2.00000"), "CAD", date(2026, 1, 1), null),
+                                     new Rate(new BigDecimal("4.00000"), "CAD", date(2026, 2, 1), null)));
+
+        RateTable.Snapshot snapshot = table.getSnapshot();
+        Currency cad = Currency.getInstance("CAD");
+        Currency usd = Currency.getInstance("USD");
+
+        long[] days = {
+                DateUtils.toEpochDay(2025, 12, 31),
+                DateUtils.toEpochDay(2026, 1, 1),
+                DateUtils.toEpochDay(2026, 1, 31),
+                DateUtils.toEpochDay(2026, 2, 1),
+                DateUtils.toEpochDay(2026, 1, 15) // out of order, searched from scratch
+        };
+
+        long[] units = { 100, 100, 100, 100, 100 };
+        long[] result = snapshot.convertAll(units, days, cad, usd, new long[units.length]);
+
+        assertThat(result, is(new long[] { 96, 50, 50, 25, 50 }));
+
+        // matches converting each amount individually
+        for (int i = 0; i < days.length; i++) {
+            Money expected = new Money("1.00 USD").convert(new Money(units[i], cad), DateUtils.toDateMidnight(days[i]).toDate());
+            assertThat(result[i], is(expected.getLongValue()));
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testConvertAllHistoricalNoRate() {
+        RateTable table = RateTable.getInstance();
+        table.publish(new Rate(new BigDecimal("1"), "USD"),
+                      Arrays.asList(new Rate(new BigDecimal("1.10"), "CAD", date(2026, 1, 1), null)));
+
+        table.getSnapshot().convertAll(new long[] { 100 }, new long[] { DateUtils.toEpochDay(2025, 1, 1) },
+                                       Currency.getInstance("CAD"), Currency.getInstance("USD"), new long[1]);
+    }
+
+    @Test
+    public void testPin() throws Exception {
+        final RateTable table = RateTable.getInstance();
+        RateTable.Snapshot pinned = table.pin();
+
+        table.publish(new Rate(new BigDecimal("1"), "USD"),
+                      Arrays.asList(new Rate(new BigDecimal("2.00000"), "CAD")));
+
+        // pinned thread still sees the original rates
+        assertThat(table.getSnapshot(), sameInstance(pinned));
+        assertThat(new Money("1.00 USD").convert(new Money("1.00 CAD")), is(new Money("0.96 USD")));
+
+        // other threads see the latest rates
+        final AtomicReference<Money> converted = new AtomicReference<Money>();
+        final CountDownLatch done = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            public void run() {
+                converted.set(new Money("1.00 USD").convert(new Money("1.00 CAD")));
+                done.countDown();
+            }
+        }).start();
+
+        done.await();
+        assertThat(converted.get(), is(new Money("0.50 USD")));
+
+        table.unpin();
+        assertThat(table.getSnapshot(), not(sameInstance(pinned)));
+        assertThat(new Money("1.00 USD").convert(new Money("1.00 CAD")), is(new Money("0.50 USD")));
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.entities.structure;
+
+import com.billing.ng.entities.Account;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "entity", "quick" })
+public class TraversalTest {
+
+    /** Collects the ids of visited accounts. */
+    private static class IdVisitor implements Visitor<Account, Object> {
+        private List<Long> ids = new ArrayList<Long>();
+
+        public Object visit(Account account) {
+            ids.add(account.getId());
+            return null;
+        }
+    }
+
+    /** Sums the ids of all accounts in a subtree. */
+    private static class SumVisitor implements AssociativeVisitor<Account, Long> {
+        public Long visit(Account account) {
+            return account.getId();
+        }
+
+        public Long combine(Long left, Long right) {
+            return left + right;
+        }
+    }
+
+    /** Node that records the threads loading its children. */
+    private static class ThreadNode implements Composite<ThreadNode> {
+        private final List<ThreadNode> children = new ArrayList<ThreadNode>();
+        private final Set<Thread> threads;
+
+        private ThreadNode(Set<Thread> threads) {
+            this.threads = threads;
+        }
+
+        public List<ThreadNode> getChildren() {
+            threads.add(Thread.currentThread());
+            return children;
+        }
+    }
+
+    private Account getAccount(long id) {
+        Account account = new Account();
+        account.setId(id);
+        return account;
+    }
+
+    /*
+            1
+            |
+       2 ---+--- 5
+       |         |
+    3 -+- 4      6
+     */
+    private Account getHierarchy() {
+        Account root = getAccount(1);
+        Account a = getAccount(2);
+        Account b = getAccount(5);
+
+        root.addSubAccount(a);
+        root.addSubAccount(b);
+        a.addSubAccount(getAccount(3));
+        a.addSubAccount(getAccount(4));
+        b.addSubAccount(getAccount(6));
+
+        return root;
+    }
+
+    /** Builds a hierarchy where each account has the given number of sub-accounts, to the given depth. */
+    private Account getHierarchy(int fanout, int depth) {
+        long[] id = { 1 };
+        Account root = getAccount(id[0]++);
+
+        List<Account> level = Arrays.asList(root);
+        for (int i = 0; i < depth; i++) {
+            List<Account> next = new ArrayList<Account>();
+            for (Account parent : level) {
+                for (int j = 0; j < fanout; j++) {
+                    Account account = getAccount(id[0]++);
+                    parent.getSubAccounts().add(account);
+                    account.setParentAccount(parent);
+                    next.add(account);
+                }
+            }
+            level = next;
+        }
+
+        return root;
+    }
+
+    /** Builds a hierarchy of a single chain of sub-accounts of the given length. */
+    private Account getChain(int length) {
+        Account root = getAccount(1);
+        Account parent = root;
+
+        for (int i = 2; i <= length; i++) {
+            Account account = getAccount(i);
+            parent.getSubAccounts().add(account);
+            account.setParentAccount(parent);
+            parent = account;
+        }
+
+        return root;
+    }
+
+    @Test
+    public void testOrder() {
+        Account root = getHierarchy();
+
+        IdVisitor visitor = new IdVisitor();
+        Traversal.traverse(root, visitor, Traversal.Order.PRE_ORDER);
+        assertThat(visitor.ids, is(Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L)));
+
+        visitor = new IdVisitor();
+        Traversal.traverse(root, visitor, Traversal.Order.POST_ORDER);
+        assertThat(visitor.ids, is(Arrays.asList(3L, 4L, 2L, 6L, 5L, 1L)));
+
+        visitor = new IdVisitor();
+        Traversal.traverse(root, visitor, Traversal.Order.BREADTH_FIRST);
+        assertThat(visitor.ids, is(Arrays.asList(1L, 2L, 5L, 3L, 4L, 6L)));
+    }
+
+    @Test
+    public void testReduce() {
+        Account root = getHierarchy();
+        assertThat(Traversal.reduce(root, new SumVisitor()), is(21L));
+        assertThat(Traversal.parallelReduce(root, new SumVisitor()), is(21L));
+
+        // single account
+        assertThat(Traversal.reduce(getAccount(7), new SumVisitor()), is(7L));
+        assertThat(Traversal.parallelReduce(getAccount(7), new SumVisitor()), is(7L));
+    }
+
+    @Test
+    public void testReduceCombinesInOrder() {
+        // string concatenation is associative but not commutative
+        AssociativeVisitor<Account, String> visitor = new AssociativeVisitor<Account, String>() {
+            public String visit(Account account) {
+                return String.valueOf(account.getId());
+            }
+
+            public String combine(String left, String right) {
+                return left + right;
+            }
+        };
+
+        Account root = getHierarchy(4, 5);
+        String expected = Traversal.reduce(root, visitor);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertThat(Traversal.reduce(root, visitor, pool), is(expected));
+        } finally {
+            pool.shutdown();
+        }
+
+        IdVisitor ids = new IdVisitor();
+        Traversal.preOrder(root, ids);
+
+        StringBuilder preOrder = new StringBuilder();
+        for (Long id : ids.ids)
+            preOrder.append(id);
+
+        assertThat(expected, is(preOrder.toString()));
+    }
+
+    @Test
+    public void testParallelReduceLoadsChildrenInCallingThread() {
+        Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+        ThreadNode root = new ThreadNode(threads);
+        for (int i = 0; i < 20; i++) {
+            ThreadNode child = new ThreadNode(threads);
+            for (int j = 0; j < 20; j++)
+                child.children.add(new ThreadNode(threads));
+            root.children.add(child);
+        }
+
+        AssociativeVisitor<ThreadNode, Long> count = new AssociativeVisitor<ThreadNode, Long>() {
+            public Long visit(ThreadNode node) {
+                return 1L;
+            }
+
+            public Long combine(Long left, Long right) {
+                return left + right;
+            }
+        };
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertThat(Traversal.reduce(root, count, pool), is(421L));
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(threads, is(Collections.singleton(Thread.currentThread())));
+    }
+
+    @Test
+    public void testDeepHierarchy() {
+        Account root = getChain(200000);
+        long sum = 200000L * 200001L / 2;
+
+        IdVisitor visitor = new IdVisitor();
+        Traversal.preOrder(root, visitor);
+        assertThat(visitor.ids.size(), is(200000));
+
+        visitor = new IdVisitor();
+        Traversal.postOrder(root, visitor);
+        assertThat(visitor.ids.get(0), is(200000L));
+
+        assertThat(Traversal.reduce(root, new SumVisitor()), is(sum));
+        assertThat(Traversal.parallelReduce(root, new SumVisitor()), is(sum));
+    }
+}
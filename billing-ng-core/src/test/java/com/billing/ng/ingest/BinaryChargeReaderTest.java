@@ -0,0 +1,109 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import com.billing.ng.entities.Money;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Currency;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "ingest", "quick" })
+public class BinaryChargeReaderTest {
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryChargeWriter writer = new BinaryChargeWriter(out);
+        writer.write(1001, new Money("10.50 USD"), "Long distance");
+        writer.write(1002, -125, 4, Currency.getInstance("CAD"), null);
+        writer.write(1003, new Money("3.00 EUR"), "Caf\u00e9 \u2013 r\u00e9sum\u00e9");
+        writer.close();
+
+        ChargeReader reader = new BinaryChargeReader(new ByteArrayInputStream(out.toByteArray()));
+        ChargeBatch batch = new ChargeBatch();
+
+        assertThat(reader.read(batch), is(3));
+
+        assertThat(batch.getLineId(0), is(1001L));
+        assertThat(batch.getAmount(0), is(new Money("10.50 USD")));
+        assertThat(batch.getDescription(0), is("Long distance"));
+
+        assertThat(batch.getLineId(1), is(1002L));
+        assertThat(batch.getValue(1), is(-125L));
+        assertThat(batch.getScale(1), is(4));
+        assertThat(batch.getDescription(1), is(nullValue()));
+
+        assertThat(batch.getAmount(2), is(new Money("3.00 EUR")));
+        assertThat(batch.getDescription(2), is("Caf\u00e9 \u2013 r\u00e9sum\u00e9"));
+
+        batch.clear();
+        assertThat(reader.read(batch), is(-1));
+    }
+
+    @Test
+    public void testReadBatches() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryChargeWriter writer = new BinaryChargeWriter(out);
+        for (int i = 0; i < 25000; i++)
+            writer.write(i, new Money(i, 2, "USD"), i % 2 == 0 ? "charge " + i : null);
+        writer.close();
+
+        ChargeReader reader = new BinaryChargeReader(new ByteArrayInputStream(out.toByteArray()));
+        ChargeBatch batch = new ChargeBatch(999);
+
+        long count = 0;
+        for (int read = reader.read(batch); read >= 0; read = reader.read(batch)) {
+            for (int i = 0; i < batch.size(); i++) {
+                assertThat(batch.getLineId(i), is(count));
+                assertThat(batch.getValue(i), is(count));
+                assertThat(batch.getDescription(i), is(count % 2 == 0 ? "charge " + count : null));
+                count++;
+            }
+            batch.clear();
+        }
+
+        assertThat(count, is(25000L));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testInvalidHeader() throws Exception {
+        new BinaryChargeReader(new ByteArrayInputStream("1001,10.50,USD\n".getBytes("UTF-8"))).read(new ChargeBatch());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testTruncated() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryChargeWriter writer = new BinaryChargeWriter(out);
+        writer.write(1001, new Money("10.50 USD"), "Long distance");
+        writer.close();
+
+        byte[] bytes = out.toByteArray();
+        new BinaryChargeReader(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 3))).read(new ChargeBatch());
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "ingest", "quick" })
+public class ChargeIngesterTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+
+    /** Line cache where only even line ids exist. */
+    private static class EvenLineCache extends PurchaseOrderLineCache {
+        private int queries = 0;
+        private final Set<Long> reconciled = new HashSet<Long>();
+
+        private EvenLineCache(int capacity) {
+            super(null, capacity);
+        }
+
+        @Override
+        protected Set<Long> load(Collection<Long> lineIds) {
+            queries++;
+            Set<Long> found = new HashSet<Long>();
+            for (Long id : lineIds)
+                if (id % 2 == 0)
+                    found.add(id);
+            return found;
+        }
+
+        @Override
+        protected void reconcile(Collection<Long> lineIds) {
+            reconciled.addAll(lineIds);
+        }
+    }
+
+    /** Sink that records the line id of every written charge. */
+    private static class RecordingSink implements ChargeSink {
+        private final List<Long> lineIds = Collections.synchronizedList(new ArrayList<Long>());
+
+        public void write(ChargeBatch batch) {
+            for (int i = 0; i < batch.size(); i++)
+                lineIds.add(batch.getLineId(i));
+        }
+    }
+
+    private String getCsv(int charges, int lines) {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < charges; i++)
+            csv.append(i % lines).append(",1.00,USD\n");
+        return csv.toString();
+    }
+
+    @Test
+    public void testIngest() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        ChargeIngester ingester = new ChargeIngester(null, Arrays.asList(sink), 100, 2);
+
+        IngestStatistics statistics = ingester.ingest(new CsvChargeReader(new StringReader(getCsv(1050, 1050))));
+
+        assertThat(statistics.getCharges(IngestStatistics.Stage.PARSE), is(1050L));
+        assertThat(statistics.getBatches(IngestStatistics.Stage.PARSE), is(11L));
+        assertThat(statistics.getWritten(), is(1050L));
+        assertThat(statistics.getRejected(), is(0L));
+
+        // single worker writes in order
+        for (int i = 0; i < 1050; i++)
+            assertThat(sink.lineIds.get(i), is((long) i));
+    }
+
+    @Test
+    public void testIngestParallel() throws Exception {
+        List<RecordingSink> sinks = Arrays.asList(new RecordingSink(), new RecordingSink(), new RecordingSink());
+        EvenLineCache cache = new EvenLineCache(1000);
+        ChargeIngester ingester = new ChargeIngester(cache, sinks, 128, 2);
+
+        IngestStatistics statistics = ingester.ingest(new CsvChargeReader(new StringReader(getCsv(50000, 500))));
+
+        assertThat(statistics.getCharges(IngestStatistics.Stage.RESOLVE), is(50000L));
+        assertThat(statistics.getRejected(), is(25000L));
+        assertThat(statistics.getWritten(), is(25000L));
+
+        Set<Long> written = new HashSet<Long>();
+        long total = 0;
+        for (RecordingSink sink : sinks) {
+            written.addAll(sink.lineIds);
+            total += sink.lineIds.size();
+        }
+
+        assertThat(total, is(25000L));
+        assertThat(written.size(), is(250));
+        for (Long id : written)
+            assertThat(id % 2, is(0L));
+
+        // totals of every charged line are reconciled once all batches are written
+        assertThat(cache.reconciled, is(written));
+
+        // all 500 lines cached after the first few batches
+        assertThat(cache.size(), is(500));
+        assertThat(cache.getMisses(), is(500L));
+    }
+
+    @Test
+    public void testLineCacheEviction() {
+        EvenLineCache cache = new EvenLineCache(2);
+
+        ChargeBatch batch = new ChargeBatch();
+        batch.add(2, 100, 2, USD);
+        batch.add(4, 100, 2, USD);
+        batch.add(5, 100, 2, USD);
+        batch.add(2, 100, 2, USD);
+
+        // ids looked up once per batch, even if evicted from the cache part way through
+        assertThat(cache.resolve(batch), is(1));
+        assertThat(cache.queries, is(1));
+        assertThat(batch.size(), is(3));
+        assertThat(batch.getLineId(2), is(2L));
+        assertThat(cache.size(), is(2));
+    }
+
+    @Test
+    public void testSinkFailure() throws Exception {
+        final AtomicInteger writes = new AtomicInteger();
+        ChargeSink failing = new ChargeSink() {
+            public void write(ChargeBatch batch) {
+                if (writes.incrementAndGet() == 3)
+                    throw new IllegalStateException("sink failed");
+            }
+        };
+
+        ChargeIngester ingester = new ChargeIngester(null, Arrays.asList(failing), 10, 1);
+
+        try {
+            ingester.ingest(new CsvChargeReader(new StringReader(getCsv(10000, 100))));
+            throw new AssertionError("Expected sink failure.");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage(), is("sink failed"));
+        }
+
+        // reading stopped shortly after the failure
+        assertThat(writes.get(), is(3));
+    }
+
+    @Test
+    public void testSinkError() throws Exception {
+        final AtomicInteger writes = new AtomicInteger();
+        ChargeSink failing = new ChargeSink() {
+            public void write(ChargeBatch batch) {
+                if (writes.incrementAndGet() == 3)
+                    throw new OutOfMemoryError("sink failed");
+            }
+        };
+
+        ChargeIngester ingester = new ChargeIngester(null, Arrays.asList(failing), 10, 1);
+
+        try {
+            ingester.ingest(new CsvChargeReader(new StringReader(getCsv(10000, 100))));
+            throw new AssertionError("Expected sink failure.");
+        } catch (OutOfMemoryError e) {
+            assertThat(e.getMessage(), is("sink failed"));
+        }
+
+        // worker kept draining batches, reading did not block
+        assertThat(writes.get(), is(3));
+    }
+}
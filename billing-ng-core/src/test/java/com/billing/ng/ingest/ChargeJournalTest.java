@@ -0,0 +1,388 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "ingest", "quick" })
+public class ChargeJournalTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency JPY = Currency.getInstance("JPY");
+
+    private File directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files)
+                file.delete();
+        }
+        directory.delete();
+    }
+
+    private ChargeBatch getBatch(int from, int count) {
+        ChargeBatch batch = new ChargeBatch(count);
+        for (int i = from; i < from + count; i++) {
+            int index = batch.add(1000 + i, i * 100, 2, i % 2 == 0 ? USD : JPY);
+            batch.setAccountId(index, 10 + i);
+            batch.setTimestamp(index, 1800000000000L + i);
+        }
+        return batch;
+    }
+
+    private List<ChargeBatch> readAll(File directory, long fromSequence) throws IOException {
+        List<ChargeBatch> batches = new ArrayList<ChargeBatch>();
+        ChargeReader reader = new ChargeJournalReader(directory, fromSequence, Long.MAX_VALUE);
+
+        ChargeBatch batch = new ChargeBatch(7);
+        while (reader.read(batch) > 0) {
+            batches.add(batch);
+            batch = new ChargeBatch(7);
+        }
+        reader.close();
+
+        return batches;
+    }
+
+    private int count(List<ChargeBatch> batches) {
+        int count = 0;
+        for (ChargeBatch batch : batches)
+            count += batch.size();
+        return count;
+    }
+
+    private void corrupt(long segment, int slot) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(ChargeJournalFormat.getSegmentFile(directory, segment), "rw");
+        try {
+            file.seek(ChargeJournalFormat.HEADER_LENGTH + slot * ChargeJournalFormat.RECORD_LENGTH + 20);
+            file.writeInt(0xDEADBEEF);
+        } finally {
+            file.close();
+        }
+    }
+
+    private void crash(long segment) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(ChargeJournalFormat.getSegmentFile(directory, segment), "rw");
+        try {
+            file.seek(ChargeJournalFormat.CLOSED_OFFSET);
+            file.writeByte(0);
+        } finally {
+            file.close();
+        }
+    }
+
+    @Test
+    public void testWriteAndReplay() throws Exception {
+        ChargeJournal journal = new ChargeJournal(directory, 10);
+        journal.write(getBatch(0, 25));
+
+        assertThat(journal.getWrittenSequence(), is(25L));
+        assertThat(journal.getDurableSequence(), is(25L));
+        assertThat(ChargeJournalFormat.listSegments(directory).length, is(3));
+
+        ChargeJournalReader reader = new ChargeJournalReader(journal, 1);
+        ChargeBatch batch = new ChargeBatch(100);
+
+        assertThat(reader.read(batch), is(25));
+        for (int i = 0; i < 25; i++) {
+            assertThat(batch.getLineId(i), is(1000L + i));
+            assertThat(batch.getAccountId(i), is(10L + i));
+            assertThat(batch.getValue(i), is(i * 100L));
+            assertThat(batch.getScale(i), is(2));
+            assertThat(batch.getCurrency(i), is(i % 2 == 0 ? USD : JPY));
+            assertThat(batch.getTimestamp(i), is(1800000000000L + i));
+            assertThat(batch.getDescription(i), is(nullValue()));
+        }
+
+        assertThat(reader.getNextSequence(), is(26L));
+        assertThat(reader.read(batch), is(-1));
+
+        // reader follows the journal as it is written
+        journal.write(getBatch(25, 3));
+        batch.clear();
+        assertThat(reader.read(batch), is(3));
+        assertThat(batch.getLineId(0), is(1025L));
+
+        reader.close();
+        journal.close();
+
+        // replay from the middle of a segment, and up to a sequence number
+        assertThat(count(readAll(directory, 12)), is(17));
+
+        reader = new ChargeJournalReader(directory, 5, 14);
+        batch.clear();
+        assertThat(reader.read(batch), is(10));
+        assertThat(batch.getLineId(0), is(1004L));
+        reader.close();
+    }
+
+    @Test
+    public void testAppendAndSync() throws Exception {
+        ChargeJournal journal = new ChargeJournal(directory, 10);
+
+        assertThat(journal.append(1, 2, 1050, 2, USD, 0), is(1L));
+        assertThat(journal.append(1, 2, 99, 2, USD, 0), is(2L));
+        assertThat(journal.getDurableSequence(), is(0L));
+
+        // reader of an open journal stops at the last durable record
+        ChargeJournalReader reader = new ChargeJournalReader(journal, 1);
+        ChargeBatch batch = new ChargeBatch(10);
+        assertThat(reader.read(batch), is(-1));
+
+        journal.sync(1);
+        assertThat(journal.getDurableSequence(), is(2L)); // all written records forced together
+
+        assertThat(reader.read(batch), is(2));
+        assertThat(reader.getNextSequence(), is(3L));
+        reader.close();
+
+        journal.close();
+
+        List<ChargeBatch> batches = readAll(directory, 1);
+        assertThat(batches.get(0).getTimestamp(0), greaterThan(0L));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSyncNotAppended() throws Exception {
+        ChargeJournal journal = new ChargeJournal(directory, 10);
+        try {
+            journal.sync(1);
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        ChargeJournal journal = new ChargeJournal(directory, 10);
+        journal.write(getBatch(0, 7));
+        journal.close();
+
+        journal = new ChargeJournal(directory, 10);
+        assertThat(journal.getWrittenSequence(), is(7L));
+        assertThat(journal.getDurableSequence(), is(7L));
+
+        journal.write(getBatch(7, 6));
+        assertThat(journal.getWrittenSequence(), is(13L));
+        journal.close();
+
+        List<ChargeBatch> batches = readAll(directory, 1);
+        assertThat(count(batches), is(13));
+        assertThat(batches.get(1).getLineId(5), is(1012L));
+    }
+
+    @Test
+    public void testTornRecordDiscarded() throws Exception {
+        ChargeJournal journal = new ChargeJournal(directory, 10);
+        journal.write(getBatch(0, 6));
+        journal.close();
+
+        // record 4 torn by a crash, records 5 and 6 were never acknowledged
+        crash(1);
+        corrupt(1, 3);
+
+        journal = new ChargeJournal(directory, 10);
+        assertThat(journal.getWrittenSequence(), is(3L));
+
+        // sequence numbers of the discarded records are not re-used
+        journal.write(getBatch(100, 1));
+        assertThat(journal.getWrittenSequence(), is(11L));
+        journal.close();
+
+        // records after the torn record are not replayed
+        List<ChargeBatch> batches = readAll(directory, 1);
+        assertThat(count(batches), is(4));
+        assertThat(batches.get(0).getLineId(3), is(1100L));
+    }
+
+    @Test
+    public void testSequenceNotReusedAfterCrash() throws Exception {
+        ChargeJournal journal = new ChargeJournal(directory, 10);
+        journal.write(getBatch(0, 6));
+        journal.close();
+
+        // crash seals segment 1 after record 6, and starts segment 11
+        crash(1);
+        journal = new ChargeJournal(directory, 10);
+        assertThat(journal.getWrittenSequence(), is(6L));
+        assertThat(journal.getDurableSequence(), is(6L));
+        assertThat(ChargeJournalFormat.listSegments(directory).length, is(2));
+        journal.close();
+
+        // crash before anything was written to segment 11
+        crash(11);
+        journal = new ChargeJournal(directory, 10);
+        assertThat(journal.getWrittenSequence(), is(10L));
+        journal.write(getBatch(6, 2));
+        assertThat(journal.getWrittenSequence(), is(22L));
+        journal.close();
+
+        // clean close continues in the same segment
+        journal = new ChargeJournal(directory, 10);
+        journal.write(getBatch(8, 1));
+        assertThat(journal.getWrittenSequence(), is(23L));
+
+        ChargeJournalReader reader = new ChargeJournalReader(journal, 5);
+        ChargeBatch batch = new ChargeBatch(10);
+        assertThat(reader.read(batch), is(5));
+        assertThat(reader.getNextSequence(), is(24L));
+        for (int i = 0; i < 5; i++)
+            assertThat(batch.getLineId(i), is(1004L + i));
+        reader.close();
+
+        // replay from a checkpoint in an unused range
+        reader = new ChargeJournalReader(journal, 8);
+        batch.clear();
+        assertThat(reader.read(batch), is(3));
+        assertThat(batch.getLineId(0), is(1006L));
+        reader.close();
+
+        journal.close();
+    }
+
+    @Test
+    public void testFollowRolledSegment() throws Exception {
+        ChargeJournal journal = new ChargeJournal(directory, 4);
+        journal.write(getBatch(0, 4));
+
+        ChargeJournalReader reader = new ChargeJournalReader(journal, 1);
+        ChargeBatch batch = new ChargeBatch(10);
+        assertThat(reader.read(batch), is(4));
+
+        // next segment created by a roll, but not yet extended
+        File next = ChargeJournalFormat.getSegmentFile(directory, 5);
+        RandomAccessFile file = new RandomAccessFile(next, "rw");
+        try {
+            batch.clear();
+            assertThat(reader.read(batch), is(-1));
+
+            // extended, but header not yet written
+            file.setLength(ChargeJournalFormat.HEADER_LENGTH + 4 * ChargeJournalFormat.RECORD_LENGTH);
+            assertThat(reader.read(batch), is(-1));
+        } finally {
+            file.close();
+        }
+
+        journal.write(getBatch(4, 2));
+        assertThat(reader.read(batch), is(2));
+        assertThat(batch.getLineId(0), is(1004L));
+        reader.close();
+
+        journal.close();
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testCorruptRecordInFullSegment() throws Exception {
+        ChargeJournal journal = new ChargeJournal(directory, 4);
+        journal.write(getBatch(0, 10));
+        journal.close();
+
+        corrupt(1, 1);
+        readAll(directory, 1);
+    }
+
+    @Test
+    public void testDeleteSegmentsBefore() throws Exception {
+        ChargeJournal journal = new ChargeJournal(directory, 10);
+        journal.write(getBatch(0, 35));
+
+        assertThat(journal.deleteSegmentsBefore(25), is(2));
+        assertThat(journal.deleteSegmentsBefore(1000), is(1)); // current segment is kept
+        journal.close();
+
+        assertThat(ChargeJournalFormat.listSegments(directory).length, is(1));
+
+        List<ChargeBatch> batches = readAll(directory, 1);
+        assertThat(count(batches), is(5));
+        assertThat(batches.get(0).getLineId(0), is(1030L));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidScale() throws Exception {
+        ChargeJournal journal = new ChargeJournal(directory, 10);
+        try {
+            journal.append(1, 2, 1050, 200, USD, 0);
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        final ChargeJournal journal = new ChargeJournal(directory, 1000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Object>> futures = new ArrayList<Future<Object>>();
+        for (int t = 0; t < 8; t++) {
+            final int thread = t;
+            futures.add(executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    for (int i = 0; i < 100; i++)
+                        journal.write(getBatch(thread * 1000 + i * 10, 10));
+                    return null;
+                }
+            }));
+        }
+
+        for (Future<Object> future : futures)
+            future.get();
+        executor.shutdown();
+
+        assertThat(journal.getDurableSequence(), is(8000L));
+        journal.close();
+
+        List<Long> lineIds = new ArrayList<Long>();
+        for (ChargeBatch batch : readAll(directory, 1))
+            for (int i = 0; i < batch.size(); i++)
+                lineIds.add(batch.getLineId(i));
+
+        assertThat(lineIds.size(), is(8000));
+        Collections.sort(lineIds);
+        for (int i = 0; i < 8000; i++)
+            assertThat(lineIds.get(i), is(1000L + i));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.ingest;
+
+import com.billing.ng.entities.Money;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Currency;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "ingest", "quick" })
+public class CsvChargeReaderTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+
+    @Test
+    public void testRead() throws Exception {
+        String csv = "line_id,amount,currency,description\n"
+                     + "1001,10.50,USD,Long distance\r\n"
+                     + "\n"
+                     + "1001,-2.00,USD,\"Discount, \"\"promotional\"\"\"\n"
+                     + "1002,0.0125,CAD\n"
+                     + "1003,7,USD,";
+
+        ChargeReader reader = new CsvChargeReader(new StringReader(csv), true);
+        ChargeBatch batch = new ChargeBatch();
+
+        assertThat(reader.read(batch), is(4));
+        assertThat(batch.size(), is(4));
+
+        assertThat(batch.getLineId(0), is(1001L));
+        assertThat(batch.getAmount(0), is(new Money("10.50 USD")));
+        assertThat(batch.getDescription(0), is("Long distance"));
+
+        assertThat(batch.getValue(1), is(-200L));
+        assertThat(batch.getScale(1), is(2));
+        assertThat(batch.getCurrency(1), is(USD));
+        assertThat(batch.getDescription(1), is("Discount, \"promotional\""));
+
+        assertThat(batch.getLineId(2), is(1002L));
+        assertThat(batch.getValue(2), is(125L));
+        assertThat(batch.getScale(2), is(4));
+        assertThat(batch.getCurrency(2), is(Currency.getInstance("CAD")));
+        assertThat(batch.getDescription(2), is(nullValue()));
+
+        assertThat(batch.getValue(3), is(7L));
+        assertThat(batch.getScale(3), is(0));
+        assertThat(batch.getDescription(3), is(""));
+
+        // end of input
+        batch.clear();
+        assertThat(reader.read(batch), is(-1));
+    }
+
+    @Test
+    public void testReadBatches() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 25000; i++)
+            csv.append(i).append(",1.00,USD,charge ").append(i).append('\n');
+
+        ChargeReader reader = new CsvChargeReader(new StringReader(csv.toString()));
+        ChargeBatch batch = new ChargeBatch(1000);
+
+        long count = 0;
+        for (int read = reader.read(batch); read >= 0; read = reader.read(batch)) {
+            for (int i = 0; i < batch.size(); i++) {
+                assertThat(batch.getLineId(i), is(count));
+                assertThat(batch.getDescription(i), is("charge " + count));
+                count++;
+            }
+            batch.clear();
+        }
+
+        assertThat(count, is(25000L));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testMalformedAmount() throws Exception {
+        new CsvChargeReader(new StringReader("1001,10.5a,USD\n")).read(new ChargeBatch());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testMalformedCurrency() throws Exception {
+        new CsvChargeReader(new StringReader("1001,10.50,XX\n")).read(new ChargeBatch());
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testUnterminatedQuote() throws Exception {
+        new CsvChargeReader(new StringReader("1001,10.50,USD,\"open\n")).read(new ChargeBatch());
+    }
+}
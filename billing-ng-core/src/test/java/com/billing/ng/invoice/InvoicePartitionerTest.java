@@ -0,0 +1,123 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.invoice;
+
+import com.billing.ng.entities.BillingCycle;
+import com.billing.ng.entities.BillingPeriod;
+import com.billing.ng.entities.BillingType;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "invoice", "quick" })
+public class InvoicePartitionerTest {
+
+    private DueAccount account(long id, BillingType billingType, long rootId) {
+        return new DueAccount(id, "A-" + id, billingType, rootId, id == rootId ? 0 : 1,
+                              new BillingCycle(BillingPeriod.Type.MONTH, 1));
+    }
+
+    private List<Long> ids(InvoicePartition partition) {
+        List<Long> ids = new ArrayList<Long>();
+        for (DueAccount account : partition.getAccounts())
+            ids.add(account.getId());
+        return ids;
+    }
+
+    @Test
+    public void testPartition() {
+        List<DueAccount> accounts = Arrays.asList(
+                account(1, BillingType.ACCOUNT, 1),
+                account(2, BillingType.ACCOUNT, 1),
+                account(3, BillingType.ACCOUNT, 1),
+                account(4, BillingType.ACCOUNT, 4),
+                account(5, BillingType.ACCOUNT, 4),
+                account(6, BillingType.ACCOUNT, 6),
+                account(7, BillingType.SUB_ACCOUNT, 1),
+                account(8, BillingType.CUSTOMER, 8),
+                account(9, null, 9));
+
+        List<DueAccount> shuffled = new ArrayList<DueAccount>(accounts);
+        Collections.reverse(shuffled);
+
+        List<InvoicePartition> partitions = new InvoicePartitioner(4).partition(shuffled);
+
+        // hierarchies are not split, and partitions hold a single billing type
+        assertThat(partitions.size(), is(4));
+        assertThat(ids(partitions.get(0)), is(Arrays.asList(8L)));
+        assertThat(ids(partitions.get(1)), is(Arrays.asList(1L, 2L, 3L)));
+        assertThat(ids(partitions.get(2)), is(Arrays.asList(4L, 5L, 6L, 9L)));
+        assertThat(ids(partitions.get(3)), is(Arrays.asList(7L)));
+
+        assertThat(partitions.get(0).getBillingType(), is(BillingType.CUSTOMER));
+        assertThat(partitions.get(2).getBillingType(), is(BillingType.ACCOUNT));
+        assertThat(partitions.get(3).getBillingType(), is(BillingType.SUB_ACCOUNT));
+        assertThat(partitions.get(3).getIndex(), is(3));
+    }
+
+    @Test
+    public void testPartitionNullBillingType() {
+        List<DueAccount> accounts = Arrays.asList(
+                account(3, null, 1),
+                account(1, BillingType.ACCOUNT, 1),
+                account(2, null, 2),
+                account(4, BillingType.CUSTOMER, 4));
+
+        List<InvoicePartition> partitions = new InvoicePartitioner(10).partition(accounts);
+
+        // null billing types are billed as accounts, and keep their hierarchy together
+        assertThat(accounts.get(0).getBillingType(), is(BillingType.ACCOUNT));
+        assertThat(partitions.size(), is(2));
+        assertThat(ids(partitions.get(0)), is(Arrays.asList(4L)));
+        assertThat(ids(partitions.get(1)), is(Arrays.asList(1L, 3L, 2L)));
+        assertThat(partitions.get(1).getBillingType(), is(BillingType.ACCOUNT));
+    }
+
+    @Test
+    public void testPartitionLargeHierarchy() {
+        List<DueAccount> accounts = new ArrayList<DueAccount>();
+        accounts.add(account(1, BillingType.ACCOUNT, 1));
+        for (long id = 10; id < 20; id++)
+            accounts.add(account(id, BillingType.ACCOUNT, 10));
+        accounts.add(account(30, BillingType.ACCOUNT, 30));
+
+        List<InvoicePartition> partitions = new InvoicePartitioner(4).partition(accounts);
+
+        // large hierarchy split into full partitions, remainder packed with the next hierarchy
+        assertThat(partitions.size(), is(4));
+        assertThat(ids(partitions.get(0)), is(Arrays.asList(1L)));
+        assertThat(ids(partitions.get(1)), is(Arrays.asList(10L, 11L, 12L, 13L)));
+        assertThat(ids(partitions.get(2)), is(Arrays.asList(14L, 15L, 16L, 17L)));
+        assertThat(ids(partitions.get(3)), is(Arrays.asList(18L, 19L, 30L)));
+    }
+
+    @Test
+    public void testPartitionEmpty() {
+        assertThat(new InvoicePartitioner().partition(new ArrayList<DueAccount>()).isEmpty(), is(true));
+    }
+}
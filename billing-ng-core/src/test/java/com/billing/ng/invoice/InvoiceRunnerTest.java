@@ -0,0 +1,311 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.invoice;
+
+import com.billing.ng.entities.BillingCycle;
+import com.billing.ng.entities.BillingPeriod;
+import com.billing.ng.entities.BillingType;
+import com.billing.ng.entities.EntityType;
+import com.billing.ng.entities.InvoiceRun;
+import com.billing.ng.entities.Money;
+import com.billing.ng.entities.NumberPattern;
+import org.joda.time.DateMidnight;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.testng.Assert.fail;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "invoice", "quick" })
+public class InvoiceRunnerTest {
+
+    private static final DateMidnight TODAY = new DateMidnight(2026, 10, 18);
+
+    /**
+     * In-memory store, applying written partitions to the due accounts and orders.
+     */
+    private static class MemoryStore implements InvoiceStore {
+        private final List<DueAccount> accounts = new ArrayList<DueAccount>();
+        private final Map<Long, Long> orderAccounts = new HashMap<Long, Long>();
+        private final Map<Long, String> orderInvoices = new HashMap<Long, String>();
+        private final Map<Long, Money> invoices = new HashMap<Long, Money>();
+        private final Map<Long, String> numbers = new HashMap<Long, String>();
+        private final Set<Long> failing = new HashSet<Long>();
+        private boolean failFinding = false;
+        private InvoiceRun.Status finished;
+        private long sequence = 1;
+        private int opened = 0;
+        private int closed = 0;
+
+        private void addAccount(long id, long rootId, DateMidnight nextRun) {
+            BillingCycle cycle = new BillingCycle(BillingPeriod.Type.MONTH, 1);
+            cycle.setStart(new DateMidnight(2026, 1, 1).toDate());
+            cycle.setCycleStartDay(18);
+            cycle.setNextRun(nextRun.toDate());
+
+            accounts.add(new DueAccount(id, "A-" + id, BillingType.ACCOUNT, rootId, id == rootId ? 0 : 1, cycle));
+        }
+
+        private void addOrder(long accountId) {
+            orderAccounts.put(sequence++, accountId);
+        }
+
+        public synchronized void start(InvoiceRun run) {
+            if (run.getId() == null)
+                run.setId(1L);
+        }
+
+        public synchronized int scheduleBillingCycles(InvoiceRun run) {
+            int scheduled = 0;
+            for (DueAccount account : accounts) {
+                BillingCycle cycle = account.getBillingCycle();
+                if (cycle.getNextRun() == null && cycle.scheduleNextRun(new DateMidnight(run.getBillingDate())) != null)
+                    scheduled++;
+            }
+            return scheduled;
+        }
+
+        public synchronized List<DueAccount> findDueAccounts(InvoiceRun run) {
+            if (failFinding)
+                throw new IllegalStateException("Simulated failure.");
+
+            List<DueAccount> due = new ArrayList<DueAccount>();
+            for (DueAccount account : accounts) {
+                if (account.getBillingCycle().getNextRun() != null
+                    && !account.getBillingCycle().getNextRun().after(run.getBillingDate()))
+                    due.add(account);
+            }
+            return due;
+        }
+
+        public synchronized void loadOrders(InvoiceBatch batch) {
+            for (Map.Entry<Long, Long> order : orderAccounts.entrySet()) {
+                if (batch.getAccountIds().contains(order.getValue()) && !orderInvoices.containsKey(order.getKey()))
+                    batch.addOrder(order.getKey(), order.getValue(), new Money("10.00 USD"));
+            }
+        }
+
+        public synchronized void write(InvoiceRun run, InvoiceBatch batch) {
+            for (int row = 0; row < batch.size(); row++) {
+                if (failing.remove(batch.getAccount(row).getId()))
+                    throw new IllegalStateException("Simulated failure.");
+            }
+
+            for (int row = 0; row < batch.size(); row++) {
+                DueAccount account = batch.getAccount(row);
+                if (batch.isInvoiced(row)) {
+                    assertThat("account invoiced twice", invoices.containsKey(account.getId()), is(false));
+                    invoices.put(account.getId(), batch.getTotal(row));
+                    numbers.put(account.getId(), batch.getNumber(row));
+                }
+                account.getBillingCycle().setNextRun(batch.getNextRun(row));
+            }
+
+            for (int i = 0; i < batch.getOrderCount(); i++)
+                orderInvoices.put(batch.getOrderId(i), batch.getNumber(batch.getOrderRow(i)));
+        }
+
+        public synchronized InvoicePartitionStore openPartitionStore() {
+            opened++;
+            return new InvoicePartitionStore() {
+                public void loadOrders(InvoiceBatch batch) {
+                    MemoryStore.this.loadOrders(batch);
+                }
+
+                public void write(InvoiceRun run, InvoiceBatch batch) {
+                    MemoryStore.this.write(run, batch);
+                }
+
+                public void close() {
+                    synchronized (MemoryStore.this) {
+                        closed++;
+                    }
+                }
+            };
+        }
+
+        public synchronized void finish(InvoiceRun run) {
+            finished = run.getStatus();
+        }
+    }
+
+    private MemoryStore getStore() {
+        MemoryStore store = new MemoryStore();
+
+        // 20 hierarchies of 5 accounts, the last account of each hierarchy is not due yet
+        for (long root = 1; root <= 100; root += 5) {
+            for (long id = root; id < root + 5; id++) {
+                store.addAccount(id, root, id < root + 4 ? TODAY : TODAY.plusDays(10));
+
+                // every third account has no orders
+                if (id % 3 != 0) {
+                    store.addOrder(id);
+                    store.addOrder(id);
+                }
+            }
+        }
+
+        return store;
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        MemoryStore store = getStore();
+        InvoiceRunner runner = new InvoiceRunner(store, 4, 7);
+
+        InvoiceRun run = new InvoiceRun(TODAY.toDate());
+        InvoiceRunStatistics statistics = runner.run(run);
+
+        assertThat(runner.getStatistics(), sameInstance(statistics));
+        assertThat(statistics.getDueAccounts(), is(80L));
+        assertThat(statistics.getAccounts(), is(80L));
+        assertThat(statistics.getFailedPartitions(), is(0L));
+        assertThat(statistics.getCompletedPartitions(), is((long) statistics.getPartitions()));
+        assertThat(statistics.getProgress(), is(1.0));
+
+        // due accounts with orders are invoiced for all of their orders
+        int expected = 0;
+        for (DueAccount account : store.accounts) {
+            boolean due = account.getId() % 5 != 0;
+            boolean hasOrders = account.getId() % 3 != 0;
+
+            if (due && hasOrders) {
+                assertThat(store.invoices.get(account.getId()), is(new Money("20.00 USD")));
+                expected++;
+            } else {
+                assertThat(store.invoices.containsKey(account.getId()), is(false));
+            }
+
+            // due accounts are re-scheduled for the end of the next cycle
+            if (due)
+                assertThat(account.getBillingCycle().getNextRun(), is(new DateMidnight(2026, 11, 18).toDate()));
+        }
+
+        assertThat(statistics.getInvoices(), is((long) expected));
+        assertThat(statistics.getOrders(), is(expected * 2L));
+
+        assertThat(run.getStatus(), is(InvoiceRun.Status.COMPLETE));
+        assertThat(run.getStarted(), notNullValue());
+        assertThat(run.getFinished(), notNullValue());
+        assertThat(run.getAccountCount(), is(80L));
+        assertThat(run.getInvoiceCount(), is((long) expected));
+
+        // nothing left to bill
+        assertThat(runner.run(run).getDueAccounts(), is(0L));
+        assertThat(run.getInvoiceCount(), is((long) expected));
+
+        // each worker of each run has its own partition store, closed when the worker is done
+        assertThat(store.opened, is(5));
+        assertThat(store.closed, is(5));
+    }
+
+    @Test
+    public void testResumeFailedRun() throws Exception {
+        MemoryStore store = getStore();
+        store.failing.add(2L);
+        store.failing.add(52L);
+
+        InvoiceRunner runner = new InvoiceRunner(store, 3, 4);
+
+        InvoiceRun run = new InvoiceRun(TODAY.toDate());
+        InvoiceRunStatistics statistics = runner.run(run);
+
+        // each failed partition holds one hierarchy of 4 due accounts
+        assertThat(statistics.getFailedPartitions(), is(2L));
+        assertThat(statistics.getAccounts(), is(72L));
+        assertThat(run.getStatus(), is(InvoiceRun.Status.FAILED));
+        assertThat(store.invoices.containsKey(1L), is(false));
+        assertThat(store.invoices.containsKey(52L), is(false));
+
+        // resuming only bills the accounts of the failed partitions
+        statistics = runner.run(run);
+
+        assertThat(statistics.getDueAccounts(), is(8L));
+        assertThat(statistics.getFailedPartitions(), is(0L));
+        assertThat(run.getStatus(), is(InvoiceRun.Status.COMPLETE));
+        assertThat(run.getAccountCount(), is(80L));
+        assertThat(run.getPartitionCount(), is(20L));
+
+        assertThat(store.invoices.get(1L), is(new Money("20.00 USD")));
+        assertThat(store.invoices.get(52L), is(new Money("20.00 USD")));
+        assertThat(store.orderInvoices.size(), is(store.invoices.size() * 2));
+    }
+
+    @Test
+    public void testFailedFindingDueAccounts() throws Exception {
+        MemoryStore store = getStore();
+        store.failFinding = true;
+
+        InvoiceRun run = new InvoiceRun(TODAY.toDate());
+        try {
+            new InvoiceRunner(store, 2, 10).run(run);
+            fail("run should fail");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // run is not left running
+        assertThat(run.getStatus(), is(InvoiceRun.Status.FAILED));
+        assertThat(run.getFinished(), is(notNullValue()));
+        assertThat(store.finished, is(InvoiceRun.Status.FAILED));
+        assertThat(store.opened, is(0));
+    }
+
+    @Test
+    public void testScheduleBillingCycles() throws Exception {
+        MemoryStore store = getStore();
+        store.accounts.get(0).getBillingCycle().setNextRun(null);
+
+        InvoiceRunner runner = new InvoiceRunner(store, 2, 10);
+
+        // unscheduled cycle is scheduled for the end of the current cycle, not billed early
+        assertThat(runner.run(new InvoiceRun(TODAY.toDate())).getDueAccounts(), is(79L));
+        assertThat(store.accounts.get(0).getBillingCycle().getNextRun(), is(new DateMidnight(2026, 11, 18).toDate()));
+        assertThat(store.invoices.containsKey(1L), is(false));
+
+        runner.run(new InvoiceRun(new DateMidnight(2026, 11, 18).toDate()));
+        assertThat(store.invoices.get(1L), is(new Money("20.00 USD")));
+    }
+
+    @Test
+    public void testNumberPattern() throws Exception {
+        MemoryStore store = getStore();
+
+        NumberPattern pattern = new NumberPattern();
+        pattern.setType(EntityType.INVOICE);
+        pattern.setPattern("INV-${invoice.account.number}-${invoice.billingDate?string('yyyyMMdd')}");
+
+        InvoiceRunner runner = new InvoiceRunner(store, 2, 10);
+        runner.setNumberPattern(pattern);
+        runner.run(new InvoiceRun(TODAY.toDate()));
+
+        assertThat(store.numbers.get(1L), is("INV-A-1-20261018"));
+        assertThat(store.orderInvoices.get(1L), is("INV-A-1-20261018"));
+    }
+}
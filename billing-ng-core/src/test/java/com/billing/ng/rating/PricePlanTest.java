@@ -0,0 +1,102 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.rating;
+
+import com.billing.ng.entities.Money;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "rating", "quick" })
+public class PricePlanTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+
+    private PricePlan getPlan(PricePlan.Type type) {
+        return new PricePlan(type, USD,
+                             new long[] { 100, 1000 },
+                             new BigDecimal[] { new BigDecimal("0.10"), new BigDecimal("0.05"), new BigDecimal("0.02") });
+    }
+
+    @Test
+    public void testGetTier() {
+        PricePlan plan = getPlan(PricePlan.Type.TIERED);
+
+        assertThat(plan.getTierCount(), is(3));
+        assertThat(plan.getTier(0), is(0));
+        assertThat(plan.getTier(100), is(0));
+        assertThat(plan.getTier(101), is(1));
+        assertThat(plan.getTier(1000), is(1));
+        assertThat(plan.getTier(Long.MAX_VALUE), is(2));
+    }
+
+    @Test
+    public void testPriceTiered() {
+        PricePlan plan = getPlan(PricePlan.Type.TIERED);
+
+        assertThat(plan.price(0), is(new Money("0.00 USD")));
+        assertThat(plan.price(50), is(new Money("5.00 USD")));
+        assertThat(plan.price(150), is(new Money("12.50 USD")));       // 100 * 0.10 + 50 * 0.05
+        assertThat(plan.price(2000), is(new Money("75.00 USD")));      // 10.00 + 900 * 0.05 + 1000 * 0.02
+    }
+
+    @Test
+    public void testPriceVolume() {
+        PricePlan plan = getPlan(PricePlan.Type.VOLUME);
+
+        assertThat(plan.price(50), is(new Money("5.00 USD")));
+        assertThat(plan.price(150), is(new Money("7.50 USD")));        // 150 * 0.05
+        assertThat(plan.price(2000), is(new Money("40.00 USD")));      // 2000 * 0.02
+    }
+
+    @Test
+    public void testPriceFractionalUnitPrice() {
+        PricePlan plan = new PricePlan(PricePlan.Type.TIERED, USD, new long[0], new BigDecimal[] { new BigDecimal("0.0015") });
+
+        assertThat(plan.price(1000), is(new Money("1.50 USD")));
+        assertThat(plan.price(1001), is(new Money("1.50 USD")));       // 1.5015 rounded
+        assertThat(plan.price(Long.MAX_VALUE).getValue(), is(new BigDecimal("13835058055282163.71")));
+    }
+
+    @Test
+    public void testFlatPlan() {
+        PricePlan plan = new PricePlan(new Money("0.25 USD"));
+
+        assertThat(plan.getTierCount(), is(1));
+        assertThat(plan.price(10), is(new Money("2.50 USD")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTiersNotAscending() {
+        new PricePlan(PricePlan.Type.TIERED, USD, new long[] { 100, 100 },
+                      new BigDecimal[] { BigDecimal.ONE, BigDecimal.ONE, BigDecimal.ONE });
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeQuantity() {
+        getPlan(PricePlan.Type.TIERED).price(-1);
+    }
+}
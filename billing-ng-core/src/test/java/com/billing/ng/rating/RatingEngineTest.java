@@ -0,0 +1,209 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.rating;
+
+import com.billing.ng.entities.Money;
+import com.billing.ng.ingest.ChargeBatch;
+import com.billing.ng.ingest.ChargeSink;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "rating", "quick" })
+public class RatingEngineTest {
+
+    private static final Currency USD = Currency.getInstance("USD");
+
+    /** Sink that records the amount and description of every charge by line id. */
+    private static class RecordingSink implements ChargeSink {
+        private final Map<Long, Money> amounts = new HashMap<Long, Money>();
+        private final Map<Long, String> descriptions = new HashMap<Long, String>();
+        private int batches = 0;
+
+        public void write(ChargeBatch batch) {
+            batches++;
+            for (int i = 0; i < batch.size(); i++) {
+                amounts.put(batch.getLineId(i), batch.getAmount(i));
+                descriptions.put(batch.getLineId(i), batch.getDescription(i));
+            }
+        }
+    }
+
+    private PriceCatalog getCatalog() {
+        Map<String, PricePlan> plans = new LinkedHashMap<String, PricePlan>();
+        plans.put("voice", new PricePlan(PricePlan.Type.TIERED, USD, new long[] { 100 },
+                                         new BigDecimal[] { new BigDecimal("0.10"), new BigDecimal("0.05") }));
+        plans.put("data", new PricePlan(PricePlan.Type.VOLUME, USD, new long[] { 1000 },
+                                        new BigDecimal[] { new BigDecimal("0.02"), new BigDecimal("0.01") }));
+        return new PriceCatalog(plans);
+    }
+
+    private LineTable getLines(PriceCatalog catalog) {
+        return new LineTable(catalog,
+                             new long[] { 1, 1, 2 },
+                             new String[] { "voice", "data", "voice" },
+                             new long[] { 101, 102, 201 });
+    }
+
+    @Test
+    public void testCatalogAndLineTable() {
+        PriceCatalog catalog = getCatalog();
+
+        assertThat(catalog.size(), is(2));
+        assertThat(catalog.indexOf("voice"), is(0));
+        assertThat(catalog.indexOf(new String("data")), is(1));
+        assertThat(catalog.indexOf("sms"), is(-1));
+        assertThat(catalog.getPlan("data").getType(), is(PricePlan.Type.VOLUME));
+
+        LineTable lines = getLines(catalog);
+
+        assertThat(lines.size(), is(3));
+        assertThat(lines.getLineId(1, 0), is(101L));
+        assertThat(lines.getLineId(1, 1), is(102L));
+        assertThat(lines.getLineId(2, 0), is(201L));
+        assertThat(lines.getLineId(2, 1), is(0L));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDuplicateLine() {
+        PriceCatalog catalog = getCatalog();
+        new LineTable(catalog, new long[] { 1, 1 }, new String[] { "voice", "voice" }, new long[] { 101, 102 });
+    }
+
+    @Test
+    public void testRate() {
+        PriceCatalog catalog = getCatalog();
+        RatingEngine engine = new RatingEngine(catalog, getLines(catalog));
+
+        UsageBatch events = new UsageBatch();
+        events.add(1, "voice", 60, 1000);
+        events.add(1, "voice", 60, 2000);
+        events.add(1, "data", 500, 3000);
+        events.add(1, "data", 700, 4000);
+        events.add(2, "voice", 10, 5000);
+        events.add(2, "data", 10, 6000);    // no line
+        events.add(3, "voice", 10, 7000);   // no line
+        events.add(1, "sms", 1, 8000);      // no price plan
+        events.add(1, "voice", -1, 9000);   // negative quantity
+
+        RecordingSink sink = new RecordingSink();
+        UsageAggregate usage = engine.rate(events, sink);
+
+        assertThat(usage.getRated(), is(5L));
+        assertThat(usage.getRejected(), is(4L));
+        assertThat(usage.getLineCount(), is(3));
+        assertThat(usage.getQuantity(101), is(120L));
+        assertThat(usage.getQuantity(102), is(1200L));
+
+        assertThat(sink.batches, is(1));
+        assertThat(sink.amounts.get(101L), is(new Money("11.00 USD")));     // 100 * 0.10 + 20 * 0.05
+        assertThat(sink.amounts.get(102L), is(new Money("12.00 USD")));     // 1200 * 0.01
+        assertThat(sink.amounts.get(201L), is(new Money("1.00 USD")));
+        assertThat(sink.descriptions.get(101L), is("voice x 120"));
+    }
+
+    @Test
+    public void testAggregatePeriod() {
+        PriceCatalog catalog = getCatalog();
+        RatingEngine engine = new RatingEngine(catalog, getLines(catalog));
+
+        UsageBatch events = new UsageBatch();
+        events.add(1, "voice", 1, 999);
+        events.add(1, "voice", 2, 1000);
+        events.add(1, "voice", 4, 1999);
+        events.add(1, "voice", 8, 2000);
+
+        UsageAggregate usage = engine.aggregate(events, 1000, 2000);
+
+        assertThat(usage.getQuantity(101), is(6L));
+        assertThat(usage.getRejected(), is(2L));
+    }
+
+    @Test
+    public void testAggregateParallel() {
+        PriceCatalog catalog = getCatalog();
+
+        int accounts = 2000;
+        long[] accountIds = new long[accounts * 2];
+        String[] productKeys = new String[accounts * 2];
+        long[] lineIds = new long[accounts * 2];
+        for (int i = 0; i < accounts * 2; i++) {
+            accountIds[i] = i / 2;
+            productKeys[i] = i % 2 == 0 ? "voice" : "data";
+            lineIds[i] = i + 1;
+        }
+        LineTable lines = new LineTable(catalog, accountIds, productKeys, lineIds);
+
+        UsageBatch events = new UsageBatch();
+        Random random = new Random(42);
+        for (int i = 0; i < 200000; i++)
+            events.add(random.nextInt(accounts + 10), random.nextBoolean() ? "voice" : "data", random.nextInt(100), i);
+
+        UsageAggregate sequential = new RatingEngine(catalog, lines, null, Integer.MAX_VALUE).aggregate(events);
+        UsageAggregate parallel = new RatingEngine(catalog, lines, new ForkJoinPool(4), 1000).aggregate(events);
+
+        assertThat(parallel.getRated(), is(sequential.getRated()));
+        assertThat(parallel.getRejected(), is(sequential.getRejected()));
+        assertThat(parallel.getLineCount(), is(sequential.getLineCount()));
+        assertThat(sequential.getRated() + sequential.getRejected(), is(200000L));
+
+        for (long lineId = 1; lineId <= accounts * 2; lineId++)
+            assertThat(parallel.getQuantity(lineId), is(sequential.getQuantity(lineId)));
+
+        // merging aggregates of separate batches
+        UsageAggregate merged = new UsageAggregate().merge(sequential).merge(sequential);
+        assertThat(merged.getQuantity(1), is(sequential.getQuantity(1) * 2));
+        assertThat(merged.getRated(), is(sequential.getRated() * 2));
+    }
+
+    @Test
+    public void testPriceInBatches() {
+        PriceCatalog catalog = getCatalog();
+
+        long[] accountIds = new long[250];
+        String[] productKeys = new String[250];
+        long[] lineIds = new long[250];
+        UsageBatch events = new UsageBatch();
+        for (int i = 0; i < 250; i++) {
+            accountIds[i] = i;
+            productKeys[i] = "voice";
+            lineIds[i] = i + 1;
+            events.add(i, "voice", 10, 0);
+        }
+
+        RatingEngine engine = new RatingEngine(catalog, new LineTable(catalog, accountIds, productKeys, lineIds));
+        RecordingSink sink = new RecordingSink();
+
+        assertThat(engine.price(engine.aggregate(events), sink, new ChargeBatch(100)), is(250));
+        assertThat(sink.batches, is(3));
+        assertThat(sink.amounts.size(), is(250));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ BillingNG, a next-generation billing solution
+ Copyright (C) 2026 Brian Cowdery
+
+ This program is free software: you can redistribute it and/or modify
+ it under the terms of the GNU Affero General Public License as
+ published by the Free Software Foundation, either version 3 of the
+ License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU Affero General Public License for more details.
+ You should have received a copy of the GNU Affero General Public License
+ along with this program.  If not, see http://www.gnu.org/licenses/agpl-3.0.html
+ */
+
+package com.billing.ng.util;
+
+import org.joda.time.DateMidnight;
+import org.joda.time.Days;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * @author Brian Cowdery
+ * @since 18-Oct-2026
+ */
+@Test(groups = { "quick" })
+public class DateUtilsTest {
+
+    @Test
+    public void testToEpochDay() {
+        assertThat(DateUtils.toEpochDay(1970, 1, 1), is(0L));
+        assertThat(DateUtils.toEpochDay(1970, 1, 2), is(1L));
+        assertThat(DateUtils.toEpochDay(1969, 12, 31), is(-1L));
+        assertThat(DateUtils.toEpochDay(2000, 3, 1), is(11017L));
+        assertThat(DateUtils.toEpochDay(2026, 10, 18), is(20744L));
+    }
+
+    @Test
+    public void testToEpochDayMatchesJoda() {
+        DateMidnight epoch = new DateMidnight(1970, 1, 1);
+        DateMidnight date = new DateMidnight(1899, 12, 25);
+
+        // every day for ~150 years, including leap years and century years
+        for (int i = 0; i < 55000; i++) {
+            long expected = Days.daysBetween(epoch, date).getDays();
+
+            assertThat(DateUtils.toEpochDay(date), is(expected));
+            assertThat(DateUtils.toEpochDay(date.toDate()), is(expected));
+            assertThat(DateUtils.toDateMidnight(expected), is(date));
+
+            date = date.plusDays(1);
+        }
+    }
+
+    @Test
+    public void testToDate() {
+        assertThat(DateUtils.toDate(0), is(new int[] { 1970, 1, 1 }));
+        assertThat(DateUtils.toDate(11016), is(new int[] { 2000, 2, 29 }));
+        assertThat(DateUtils.toDate(-1), is(new int[] { 1969, 12, 31 }));
+    }
+
+    @Test
+    public void testGetDaysInMonth() {
+        assertThat(DateUtils.getDaysInMonth(2026, 1), is(31));
+        assertThat(DateUtils.getDaysInMonth(2026, 2), is(28));
+        assertThat(DateUtils.getDaysInMonth(2024, 2), is(29));
+        assertThat(DateUtils.getDaysInMonth(1900, 2), is(28));
+        assertThat(DateUtils.getDaysInMonth(2000, 2), is(29));
+        assertThat(DateUtils.getDaysInMonth(2026, 4), is(30));
+        assertThat(DateUtils.getDaysInMonth(2026, 12), is(31));
+    }
+
+    @Test
+    public void testToEpochDayFromDate() {
+        Date date = new DateMidnight(2026, 10, 18).toDateTime().plusHours(23).toDate();
+        assertThat(DateUtils.toEpochDay(date), is(20744L));
+    }
+}